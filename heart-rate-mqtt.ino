@@ -171,6 +171,7 @@ void makeJsonAndSend(int BPM) {
   DynamicJsonDocument document(1024);
   lastBPM = BPM;
   document["BPM"] = BPM;
+  document["mac"] = WiFi.macAddress(); // MQTT 3.1.1 has no user properties to carry it
   serializeJson(document, payload);
 
   // send payload
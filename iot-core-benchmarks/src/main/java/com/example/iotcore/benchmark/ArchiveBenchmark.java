@@ -0,0 +1,87 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.archive.ArchiveSegmentWriter;
+import com.example.iotcore.archive.MessageArchive;
+import com.example.iotcore.dto.MessageDTO;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Size and speed of the {@link MessageArchive}: archives {@code archive.days} days of {@code archive.topics} topics
+ * with {@code archive.messagesPerTopicPerDay} messages of {@code archive.devices} devices each, then reports the
+ * segment bytes against the raw bytes of the same rows (four longs and the content, as in the {@code message} table
+ * without its indexes) and the time to read back one day of a topic and one day of a device:
+ * <pre>
+ * java -Darchive.messagesPerTopicPerDay=1000000 -Darchive.compressionLevel=3 \
+ *      -cp benchmarks.jar com.example.iotcore.benchmark.ArchiveBenchmark
+ * </pre>
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ArchiveBenchmark {
+    private static final LocalDate FIRST_DAY = LocalDate.parse("2022-04-13");
+
+    public static void main(String[] args) throws IOException {
+        int days = Integer.getInteger("archive.days", 2);
+        int topics = Integer.getInteger("archive.topics", 4);
+        int messages = Integer.getInteger("archive.messagesPerTopicPerDay", 250_000);
+        int devices = Integer.getInteger("archive.devices", 1_000);
+        Path directory = Files.createTempDirectory("archive-benchmark");
+        MessageArchive archive = new MessageArchive(directory, Integer.getInteger("archive.blockRows", 4096),
+                Integer.getInteger("archive.compressionLevel", 3));
+
+        long rawBytes = 0;
+        long id = 0;
+        long startNanos = System.nanoTime();
+        for (int day = 0; day < days; day++) {
+            Instant startOfDay = FIRST_DAY.plusDays(day).atStartOfDay(ZoneOffset.UTC).toInstant();
+            for (long topic = 1; topic <= topics; topic++) {
+                try (ArchiveSegmentWriter segment = archive.newSegment(FIRST_DAY.plusDays(day), topic)) {
+                    for (int i = 0; i < messages; i++) {
+                        String content = "{\"BPM\":" + (60 + i % 40) + "}";
+                        // spread over the day, in order
+                        Instant createdTimeStamp = startOfDay.plusNanos(i * (86_400_000_000_000L / messages));
+                        segment.append(new MessageDTO(++id, content, createdTimeStamp, (long) (i % devices), topic));
+                        rawBytes += 4 * Long.BYTES + content.getBytes(StandardCharsets.UTF_8).length;
+                    }
+                }
+            }
+        }
+        long writeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        long archiveBytes = size(directory);
+        log.info("Archived {} messages in {} ms, {} msgs/s", id, writeMillis, id * 1000 / Math.max(1, writeMillis));
+        log.info("{} raw bytes, {} archive bytes, {} bytes per message, ratio {}", rawBytes, archiveBytes,
+                String.format("%.2f", (double) archiveBytes / id),
+                String.format("%.1f", (double) rawBytes / archiveBytes));
+
+        Instant from = FIRST_DAY.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant to = from.plusSeconds(86_400);
+        for (int run = 0; run < 5; run++) {
+            startNanos = System.nanoTime();
+            int topicRows = archive.findAllByTopic(1, from, to).size();
+            long topicMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            startNanos = System.nanoTime();
+            int deviceRows = archive.findAllByDevice(devices / 2, from, to).size();
+            long deviceMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            log.info("Read one day: topic {} rows in {} ms, device {} rows in {} ms", topicRows, topicMillis,
+                    deviceRows, deviceMillis);
+        }
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.mqttclient.Callback;
+import com.example.iotcore.mqttclient.cache.TopicRecentMessageCache;
+import com.example.iotcore.mqttclient.config.IngestProperties;
+import com.example.iotcore.mqttclient.config.JournalProperties;
+import com.example.iotcore.mqttclient.config.PahoConnectionProperties;
+import com.example.iotcore.mqttclient.ingest.BackpressurePolicy;
+import com.example.iotcore.mqttclient.ingest.IngestPipeline;
+import com.example.iotcore.mqttclient.journal.FsyncPolicy;
+import com.example.iotcore.mqttclient.journal.MessageJournal;
+import com.example.iotcore.mqttclient.loadgen.PayloadShape;
+import org.eclipse.paho.mqttv5.common.MqttMessage;
+import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.eclipse.paho.mqttv5.common.packet.UserProperty;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link Callback#messageArrived} on the MQTT receive thread: device lookup, journal append, hand-off to
+ * the {@link IngestPipeline} and the recent message cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CallbackBenchmark {
+
+    private static final String TOPIC = "heart-rate";
+
+    @Param({"true", "false"})
+    private boolean journaled;
+
+    private Path journalDirectory;
+
+    private IngestPipeline ingestPipeline;
+
+    private MessageJournal journal;
+
+    private Callback callback;
+
+    private MqttMessage message;
+
+    @Setup
+    public void setUp() throws IOException {
+        IngestProperties ingestProperties = new IngestProperties();
+        // the benchmark measures the hand-off, a full buffer must not block the benchmark thread
+        ingestProperties.setBackpressurePolicy(BackpressurePolicy.DROP_OLDEST);
+        ingestPipeline = new IngestPipeline(ingestProperties, batch -> {
+        });
+        ingestPipeline.start();
+
+        if (journaled) {
+            journalDirectory = Files.createTempDirectory("journal-benchmark");
+            JournalProperties journalProperties = new JournalProperties();
+            journalProperties.setDirectory(journalDirectory.toString());
+            journalProperties.setFsyncPolicy(FsyncPolicy.NEVER);
+            journal = new MessageJournal(journalProperties);
+        }
+
+        callback = new Callback(ingestPipeline, journal, new TopicRecentMessageCache(10), null);
+
+        MqttProperties properties = new MqttProperties();
+        properties.setUserProperties(List.of(
+                new UserProperty(PahoConnectionProperties.DEVICE_USER_PROPERTY, "02:00:00:00:00:01")));
+        message = new MqttMessage(PayloadShape.HEART_RATE_JSON.render(72, System.currentTimeMillis() * 1_000));
+        message.setProperties(properties);
+    }
+
+    @Benchmark
+    public void messageArrived() {
+        callback.messageArrived(TOPIC, message);
+    }
+
+    /**
+     * Sealed segments are not needed afterwards, drop them so long runs do not fill the disk.
+     */
+    @TearDown(Level.Iteration)
+    public void deleteSealedSegments() throws IOException {
+        if (journalDirectory == null)
+            return;
+
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(journalDirectory, "*.csv")) {
+            for (Path segment : segments)
+                Files.deleteIfExists(segment);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ingestPipeline.close();
+
+        if (journal != null) {
+            journal.close();
+            FileSystemUtils.deleteRecursively(journalDirectory);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.ingest.MessageBatchSink;
+import com.example.iotcore.mqttbroker.EmbeddedMqttBroker;
+import com.example.iotcore.mqttclient.Callback;
+import com.example.iotcore.mqttclient.Subscriber;
+import com.example.iotcore.mqttclient.cache.TopicRecentMessageCache;
+import com.example.iotcore.mqttclient.config.IngestProperties;
+import com.example.iotcore.mqttclient.config.JournalProperties;
+import com.example.iotcore.mqttclient.config.LoadGeneratorProperties;
+import com.example.iotcore.mqttclient.config.SubscriberProperties;
+import com.example.iotcore.mqttclient.decode.PayloadDecoders;
+import com.example.iotcore.mqttclient.ingest.BatchSink;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import com.example.iotcore.mqttclient.ingest.IngestPipeline;
+import com.example.iotcore.mqttclient.journal.FsyncPolicy;
+import com.example.iotcore.mqttclient.journal.MessageJournal;
+import com.example.iotcore.mqttclient.loadgen.LoadGenerator;
+import com.example.iotcore.mqttclient.loadgen.LoadReport;
+import com.example.iotcore.mqttclient.loadgen.PayloadShape;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.ReferenceResolutionService;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end throughput and latency of the ingest path on one machine: the {@link LoadGenerator} publishes to an
+ * {@link EmbeddedMqttBroker}, the {@link Subscriber} hands every message to the {@link Callback}, which journals it
+ * and submits it to the {@link IngestPipeline}, whose batches {@link MessageBatchSink} stores in the
+ * {@code benchmark} profile's database.
+ * <p>
+ * Not a JMH benchmark, the load is open-loop: messages are published on a fixed schedule and the latency of a message
+ * runs from its scheduled send instant to the commit of its batch, so a stalled publisher does not hide queueing.
+ * Broker, clients and database share the JVM and need no container, which keeps runs on one box comparable:
+ * <pre>
+ * java -Dloadgen.devices=1000 -Dloadgen.messagesPerSecondPerDevice=50 -Dsubscriber.qos=1 \
+ *      -cp benchmarks.jar com.example.iotcore.benchmark.EndToEndBenchmark
+ * </pre>
+ * The {@code loadgen.*} and {@code subscriber.*} system properties of the mqtt-client apply, except for the broker
+ * address and credentials; {@code endtoend.writerThreads}, {@code endtoend.batchSize} and {@code endtoend.fsyncPolicy}
+ * ({@code never}, {@code interval}, {@code records} or {@code off} to not journal) tune the receiving side and
+ * {@code endtoend.warmupSeconds} of load precede the measurement.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class EndToEndBenchmark {
+
+    // how long the pipeline may take to persist what is still buffered when publishing ends
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private static final int DEFAULT_WARMUP_SECONDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("end-to-end-benchmark");
+
+        try (EmbeddedMqttBroker broker = EmbeddedMqttBroker.start();
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                     PersistenceBenchmarkConfiguration.class)
+                     .web(WebApplicationType.NONE)
+                     .run("--spring.profiles.active=benchmark")) {
+            LoadGeneratorProperties loadGeneratorProperties = LoadGeneratorProperties.fromSystemProperties();
+            loadGeneratorProperties.setServerUri(broker.getServerUri());
+
+            SubscriberProperties subscriberProperties = SubscriberProperties.fromSystemProperties();
+            subscriberProperties.setServerUri(broker.getServerUri());
+            subscriberProperties.setTopicFilter(loadGeneratorProperties.getTopic().replace("%d", "+"));
+
+            IngestProperties ingestProperties = new IngestProperties();
+            ingestProperties.setWriterThreads(Integer.getInteger("endtoend.writerThreads",
+                    ingestProperties.getWriterThreads()));
+            ingestProperties.setBatchSize(Integer.getInteger("endtoend.batchSize", ingestProperties.getBatchSize()));
+            ingestProperties.setSpillDirectory(directory.toString());
+
+            LatencyRecordingSink sink = new LatencyRecordingSink(new MessageBatchSink(
+                    context.getBean(MessageService.class), context.getBean(ReferenceResolutionService.class),
+                    PayloadDecoders.NONE), loadGeneratorProperties.getPayloadShape());
+            IngestPipeline ingestPipeline = new IngestPipeline(ingestProperties, sink);
+            MessageJournal journal = journal(directory);
+            Subscriber subscriber = new Subscriber(subscriberProperties, new Callback(ingestPipeline, journal,
+                    new TopicRecentMessageCache(ingestProperties.getRecentMessagesPerTopic(),
+                            ingestProperties.getRecentMessagesMaxTopics()), null));
+
+            ingestPipeline.start();
+            subscriber.subscribe();
+            warmUp(loadGeneratorProperties, sink, broker);
+
+            long persistedBefore = sink.persisted.sum();
+            long startNanos = System.nanoTime();
+            LoadReport report = new LoadGenerator(loadGeneratorProperties).run(null);
+            boolean drained = awaitPersisted(sink, broker);
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long persisted = sink.persisted.sum() - persistedBefore;
+
+            subscriber.disconnect();
+            ingestPipeline.close();
+            if (journal != null)
+                journal.close();
+
+            report.log();
+            log(sink.latencyMicros.getIntervalHistogram(), persisted, elapsedNanos, drained);
+        }
+    }
+
+    private static MessageJournal journal(Path directory) throws IOException {
+        String fsyncPolicy = System.getProperty("endtoend.fsyncPolicy", FsyncPolicy.INTERVAL.name());
+        if ("off".equalsIgnoreCase(fsyncPolicy))
+            return null;
+
+        JournalProperties journalProperties = new JournalProperties();
+        journalProperties.setDirectory(directory.resolve("journal").toString());
+        journalProperties.setFsyncPolicy(FsyncPolicy.valueOf(fsyncPolicy.toUpperCase()));
+
+        return new MessageJournal(journalProperties);
+    }
+
+    /**
+     * Publishes for {@code endtoend.warmupSeconds} before measuring, for the JIT to compile the hot paths and the
+     * devices and topics to exist in the database, and forgets the latencies of the warmup.
+     */
+    private static void warmUp(LoadGeneratorProperties loadGeneratorProperties, LatencyRecordingSink sink,
+                               EmbeddedMqttBroker broker) throws Exception {
+        int warmupSeconds = Integer.getInteger("endtoend.warmupSeconds", DEFAULT_WARMUP_SECONDS);
+        if (warmupSeconds <= 0)
+            return;
+
+        int durationSeconds = loadGeneratorProperties.getDurationSeconds();
+        loadGeneratorProperties.setDurationSeconds(warmupSeconds);
+        new LoadGenerator(loadGeneratorProperties).run(null);
+        awaitPersisted(sink, broker);
+        sink.latencyMicros.reset();
+        loadGeneratorProperties.setDurationSeconds(durationSeconds);
+    }
+
+    /**
+     * @return whether everything the broker received was persisted within the {@link #DRAIN_TIMEOUT_NANOS}.
+     */
+    private static boolean awaitPersisted(LatencyRecordingSink sink, EmbeddedMqttBroker broker)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (sink.persisted.sum() < broker.getReceivedCount()) {
+            if (System.nanoTime() > deadline)
+                return false;
+            Thread.sleep(10);
+        }
+
+        return true;
+    }
+
+    private static void log(Histogram latencyMicros, long persisted, long elapsedNanos, boolean drained) {
+        log.info("Persisted {} messages in {} ms{}", persisted, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                drained ? "" : ", gave up waiting for the rest");
+        log.info("Persisted throughput: {} msgs/s", persisted * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        if (latencyMicros.getTotalCount() > 0)
+            log.info("Publish to commit latency (us): p50={} p90={} p99={} p99.9={} max={}",
+                    latencyMicros.getValueAtPercentile(50), latencyMicros.getValueAtPercentile(90),
+                    latencyMicros.getValueAtPercentile(99), latencyMicros.getValueAtPercentile(99.9),
+                    latencyMicros.getMaxValue());
+    }
+
+    /**
+     * Records, once a batch is committed, how long ago each of its messages was scheduled to be sent.
+     */
+    @RequiredArgsConstructor
+    private static final class LatencyRecordingSink implements BatchSink {
+        private final BatchSink delegate;
+        private final PayloadShape payloadShape;
+        private final Recorder latencyMicros = new Recorder(3);
+        private final LongAdder persisted = new LongAdder();
+
+        @Override
+        public void persist(List<InboundMessage> batch) {
+            delegate.persist(batch);
+
+            Instant now = Instant.now();
+            long nowMicros = now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+            for (InboundMessage message : batch) {
+                long sentAtMicros = payloadShape.sentAtMicros(message.payload());
+                if (sentAtMicros >= 0)
+                    latencyMicros.recordValue(Math.max(0, nowMicros - sentAtMicros));
+            }
+            persisted.add(batch.size());
+        }
+    }
+}
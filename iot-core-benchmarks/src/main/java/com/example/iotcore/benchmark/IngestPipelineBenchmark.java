@@ -0,0 +1,85 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.mqttclient.config.IngestProperties;
+import com.example.iotcore.mqttclient.ingest.Acknowledgement;
+import com.example.iotcore.mqttclient.ingest.BackpressurePolicy;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import com.example.iotcore.mqttclient.ingest.IngestPipeline;
+import com.example.iotcore.mqttclient.loadgen.PayloadShape;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sustained throughput of one instance's {@link IngestPipeline} as writers are added, with a sink that spends a
+ * fixed commit round trip per batch like the database sink does.
+ * <p>
+ * The buffer is small and the policy is {@link BackpressurePolicy#BLOCK}, so after the first milliseconds every
+ * submit waits for a writer and the score is the rate at which the writers persist, partitioned by device.
+ * {@code acknowledged} compares the QoS 0 path with the QoS 1 path, which acknowledges every message after its
+ * batch is persisted. {@code deduplicated} adds the fingerprint lookup of the duplicate window to every message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestPipelineBenchmark {
+
+    private static final int DEVICES = 1_000;
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final long COMMIT_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    @Param({"1", "2", "4", "8"})
+    private int writerThreads;
+
+    @Param({"false", "true"})
+    private boolean acknowledged;
+
+    @Param({"false", "true"})
+    private boolean deduplicated;
+
+    private final LongAdder acknowledgements = new LongAdder();
+
+    private IngestPipeline ingestPipeline;
+
+    private InboundMessage[] messages;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        IngestProperties properties = new IngestProperties();
+        properties.setWriterThreads(writerThreads);
+        properties.setBatchSize(BATCH_SIZE);
+        properties.setBufferCapacity(BATCH_SIZE * writerThreads * 2);
+        properties.setBackpressurePolicy(BackpressurePolicy.BLOCK);
+        properties.setDeduplicationWindowMillis(deduplicated ? 300_000 : 0);
+        ingestPipeline = new IngestPipeline(properties, batch -> LockSupport.parkNanos(COMMIT_NANOS));
+        ingestPipeline.start();
+
+        byte[] payload = PayloadShape.HEART_RATE_JSON.render(72, System.currentTimeMillis() * 1_000);
+        messages = new InboundMessage[DEVICES];
+        Acknowledgement acknowledgement = acknowledged ? acknowledgements::increment : Acknowledgement.NONE;
+        for (int i = 0; i < DEVICES; i++)
+            messages[i] = new InboundMessage("heart-rate", "02:00:00:00:%02x:%02x".formatted(i >> 8, i & 0xff),
+                    payload, Instant.now(), acknowledgement);
+    }
+
+    @Benchmark
+    public void submit() {
+        ingestPipeline.submit(messages[next]);
+        next = next + 1 == DEVICES ? 0 : next + 1;
+    }
+
+    @TearDown
+    public void tearDown() {
+        ingestPipeline.close();
+    }
+}
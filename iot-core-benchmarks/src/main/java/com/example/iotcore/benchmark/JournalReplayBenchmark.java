@@ -0,0 +1,93 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.ingest.MessageBatchSink;
+import com.example.iotcore.mqttclient.config.JournalProperties;
+import com.example.iotcore.mqttclient.config.JournalReplayProperties;
+import com.example.iotcore.mqttclient.decode.PayloadDecoders;
+import com.example.iotcore.mqttclient.ingest.BatchSink;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import com.example.iotcore.mqttclient.journal.FsyncPolicy;
+import com.example.iotcore.mqttclient.journal.JournalReplayReport;
+import com.example.iotcore.mqttclient.journal.JournalReplayer;
+import com.example.iotcore.mqttclient.journal.MessageJournal;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.ReferenceResolutionService;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Throughput of the {@link JournalReplayer}: writes {@code replay.lines} journal lines of {@code replay.devices}
+ * devices into segments of {@code replay.segmentSizeBytes}, replays them once into a sink that only counts, which is
+ * the cost of reading and parsing, and once more through {@link MessageBatchSink} into the {@code benchmark} profile's
+ * database. {@code replay.parallelism} and {@code replay.batchSize} tune the replay:
+ * <pre>
+ * java -Dreplay.lines=5000000 -Dreplay.parallelism=4 \
+ *      -cp benchmarks.jar com.example.iotcore.benchmark.JournalReplayBenchmark
+ * </pre>
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JournalReplayBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("journal-replay-benchmark");
+        write(directory, Integer.getInteger("replay.lines", 2_000_000), Integer.getInteger("replay.devices", 1_000));
+
+        JournalReplayProperties properties = new JournalReplayProperties();
+        properties.setParallelism(Integer.getInteger("replay.parallelism", properties.getParallelism()));
+        properties.setBatchSize(Integer.getInteger("replay.batchSize", properties.getBatchSize()));
+
+        log.info("Parsing only");
+        new JournalReplayer(properties, batch -> {
+        }).replay(directory).log();
+        deleteCheckpoints(directory);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                PersistenceBenchmarkConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=benchmark")) {
+            BatchSink sink = new MessageBatchSink(context.getBean(MessageService.class),
+                    context.getBean(ReferenceResolutionService.class), PayloadDecoders.NONE, true);
+
+            log.info("Into the database");
+            JournalReplayReport report = new JournalReplayer(properties, sink).replay(directory);
+            report.log();
+        }
+    }
+
+    private static void write(Path directory, int lines, int devices) throws IOException {
+        JournalProperties properties = new JournalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSizeBytes(Long.getLong("replay.segmentSizeBytes", 16L * 1024 * 1024));
+        properties.setFsyncPolicy(FsyncPolicy.NEVER);
+
+        Instant receivedAt = Instant.now();
+        try (MessageJournal journal = new MessageJournal(properties)) {
+            for (int i = 0; i < lines; i++) {
+                int device = i % devices;
+                journal.append(new InboundMessage("heart-rate/" + device, String.format("02:00:00:00:%02x:%02x",
+                        device >> 8 & 0xff, device & 0xff), ("{\"BPM\":" + (60 + i % 40) + "}")
+                        .getBytes(StandardCharsets.UTF_8), receivedAt.plusMillis(i)));
+            }
+        }
+        log.info("Wrote {} journal lines", lines);
+    }
+
+    private static void deleteCheckpoints(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".replayed")).toList())
+                Files.delete(file);
+        }
+    }
+}
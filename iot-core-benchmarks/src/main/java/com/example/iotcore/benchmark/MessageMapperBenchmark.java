@@ -0,0 +1,67 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.domain.Topic;
+import com.example.iotcore.dto.MessageDTO;
+import com.example.iotcore.mapper.DeviceMapperImpl;
+import com.example.iotcore.mapper.MessageMapper;
+import com.example.iotcore.mapper.MessageMapperImpl;
+import com.example.iotcore.mapper.TopicMapperImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the MapStruct generated {@link MessageMapper}, which runs once per message on every read and write path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageMapperBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+
+    private MessageMapper messageMapper;
+
+    private Message message;
+
+    private MessageDTO messageDTO;
+
+    @Setup
+    public void setUp() {
+        // the generated mappers wire their nested mappers through Spring
+        context = new AnnotationConfigApplicationContext(
+                MessageMapperImpl.class, DeviceMapperImpl.class, TopicMapperImpl.class);
+        messageMapper = context.getBean(MessageMapper.class);
+
+        message = Message.builder()
+                .id(1L)
+                .content("{\"BPM\":72}")
+                .createdTimeStamp(Instant.now())
+                .device(Device.builder().id(1L).macAddress("02:00:00:00:00:01").build())
+                .topic(Topic.builder().id(1L).name("heart-rate").build())
+                .build();
+        messageDTO = messageMapper.toDto(message);
+    }
+
+    @Benchmark
+    public MessageDTO toDto() {
+        return messageMapper.toDto(message);
+    }
+
+    @Benchmark
+    public Message toEntity() {
+        return messageMapper.toEntity(messageDTO);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.domain.Topic;
+import com.example.iotcore.repository.DeviceRepository;
+import com.example.iotcore.repository.MessageRepository;
+import com.example.iotcore.repository.TopicRepository;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.impl.MessageServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link MessageServiceImpl#saveAll}, the write path of every ingest batch, on an in-memory H2
+ * database in MySQL mode, or on MySQL itself (see {@code application-benchmark.yml}). Next to the batches per second,
+ * the {@code rows} counter reports the inserted rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MessageServiceBenchmark {
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+
+    private MessageService messageService;
+
+    private MessageRepository messageRepository;
+
+    private Device device;
+
+    private Topic topic;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(PersistenceBenchmarkConfiguration.class)
+                .web(WebApplicationType.NONE)
+                // command line arguments win over the active profiles of the modules' own application.yml
+                .run("--spring.profiles.active=benchmark");
+        messageService = context.getBean(MessageService.class);
+        messageRepository = context.getBean(MessageRepository.class);
+
+        device = context.getBean(DeviceRepository.class)
+                .save(Device.builder().macAddress("02:00:00:00:00:01").build());
+        topic = context.getBean(TopicRepository.class)
+                .save(Topic.builder().name("heart-rate").build());
+    }
+
+    @Benchmark
+    public void saveAll(InsertedRows insertedRows) {
+        Instant now = Instant.now();
+        List<Message> messages = new ArrayList<>(batchSize);
+
+        for (int i = 0; i < batchSize; i++)
+            messages.add(Message.builder()
+                    .content("{\"BPM\":72}")
+                    .createdTimeStamp(now)
+                    .device(device)
+                    .topic(topic)
+                    .build());
+
+        messageService.saveAll(messages);
+        insertedRows.rows += batchSize;
+    }
+
+    /**
+     * Keeps the table from growing across iterations, which would skew later ones.
+     */
+    @TearDown(Level.Iteration)
+    public void deleteMessages() {
+        messageRepository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class InsertedRows {
+        public long rows;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+        }
+    }
+}
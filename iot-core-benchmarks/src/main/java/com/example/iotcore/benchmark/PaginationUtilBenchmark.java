@@ -0,0 +1,44 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.util.PaginationUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@code Link} and {@code X-Total-Count} headers added to every paginated list response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaginationUtilBenchmark {
+
+    private static final String REQUEST_URI = "http://localhost:8080/api/messages?page=0&size=20&sort=id,desc";
+
+    private static final long TOTAL_ELEMENTS = 10_000;
+
+    @Param({"0", "250"})
+    private int pageNumber;
+
+    private Page<Long> page;
+
+    @Setup
+    public void setUp() {
+        page = new PageImpl<>(Collections.nCopies(20, 1L), PageRequest.of(pageNumber, 20), TOTAL_ELEMENTS);
+    }
+
+    @Benchmark
+    public HttpHeaders generatePaginationHttpHeaders() {
+        // controllers build a fresh builder from the current request every time
+        return PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromUriString(REQUEST_URI), page);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.mapper.MessageMapper;
+import com.example.iotcore.repository.MessageRepository;
+import com.example.iotcore.service.impl.MessageServiceImpl;
+import com.example.iotcore.service.impl.ReferenceResolutionServiceImpl;
+import com.example.iotcore.service.impl.RollupServiceImpl;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Smallest Spring Boot context around {@link MessageServiceImpl}, {@link ReferenceResolutionServiceImpl} and
+ * {@link RollupServiceImpl}: the JPA layer of iot-core-data on the {@code benchmark} profile's embedded database,
+ * without the web layer.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan(basePackageClasses = Message.class)
+@EnableJpaRepositories(basePackageClasses = MessageRepository.class)
+@ComponentScan(basePackageClasses = MessageMapper.class)
+@Import({MessageServiceImpl.class, ReferenceResolutionServiceImpl.class, RollupServiceImpl.class})
+public class PersistenceBenchmarkConfiguration {
+}
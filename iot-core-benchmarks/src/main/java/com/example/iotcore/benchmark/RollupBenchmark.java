@@ -0,0 +1,100 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.RollupResolution;
+import com.example.iotcore.domain.Topic;
+import com.example.iotcore.dto.MessageRollupDTO;
+import com.example.iotcore.repository.DeviceRepository;
+import com.example.iotcore.repository.TopicRepository;
+import com.example.iotcore.rollup.RollupSample;
+import com.example.iotcore.service.RollupService;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link RollupService}: records {@code rollup.messages} heart rate readings of {@code rollup.devices}
+ * devices spread over {@code rollup.days} days, flushing every {@code rollup.flushEvery} readings like the scheduled
+ * flush does, then reads a week of one device's hourly and a day of its per-minute rollups, the rows a dashboard
+ * loads instead of the raw messages, from the {@code benchmark} profile's database:
+ * <pre>
+ * java -Drollup.messages=5000000 -Drollup.devices=100 \
+ *      -cp benchmarks.jar com.example.iotcore.benchmark.RollupBenchmark
+ * </pre>
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RollupBenchmark {
+
+    public static void main(String[] args) {
+        int messages = Integer.getInteger("rollup.messages", 2_000_000);
+        int devices = Integer.getInteger("rollup.devices", 100);
+        int days = Integer.getInteger("rollup.days", 7);
+        int flushEvery = Integer.getInteger("rollup.flushEvery", 100_000);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                PersistenceBenchmarkConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.profiles.active=benchmark")) {
+            RollupService rollupService = context.getBean(RollupService.class);
+            long[] deviceIds = new long[devices];
+            for (int i = 0; i < devices; i++)
+                deviceIds[i] = context.getBean(DeviceRepository.class)
+                        .save(Device.builder().macAddress(String.format("02:00:00:00:%02x:%02x", i >> 8 & 0xff,
+                                i & 0xff)).build()).getId();
+            long topicId = context.getBean(TopicRepository.class).save(Topic.builder().name("heart-rate").build())
+                    .getId();
+
+            Instant end = RollupResolution.DAY.bucketStart(Instant.now());
+            Instant start = end.minus(Duration.ofDays(days));
+            long step = Duration.ofDays(days).toNanos() / messages;
+            long recordNanos = 0;
+            long flushNanos = 0;
+            long stored = 0;
+            List<RollupSample> samples = new ArrayList<>(flushEvery);
+            for (int i = 0; i < messages; i++) {
+                samples.add(new RollupSample(deviceIds[i % devices], topicId, "BPM", start.plusNanos(i * step),
+                        60 + i % 40));
+                if (samples.size() == flushEvery || i == messages - 1) {
+                    long startNanos = System.nanoTime();
+                    rollupService.recordAll(samples);
+                    recordNanos += System.nanoTime() - startNanos;
+                    startNanos = System.nanoTime();
+                    stored += rollupService.flush();
+                    flushNanos += System.nanoTime() - startNanos;
+                    samples.clear();
+                }
+            }
+            log.info("Recorded {} readings in {} ms, {} readings/s; flushed {} rollups in {} ms", messages,
+                    TimeUnit.NANOSECONDS.toMillis(recordNanos),
+                    messages * TimeUnit.SECONDS.toNanos(1) / Math.max(1, recordNanos), stored,
+                    TimeUnit.NANOSECONDS.toMillis(flushNanos));
+
+            for (int run = 0; run < 5; run++) {
+                long startNanos = System.nanoTime();
+                List<MessageRollupDTO> hours = rollupService.findAllByDevice(deviceIds[0], RollupResolution.HOUR,
+                        end.minus(Duration.ofDays(7)), end, PageRequest.of(0, 2_000)).getContent();
+                long hoursMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+                startNanos = System.nanoTime();
+                List<MessageRollupDTO> minutes = rollupService.findAllByDevice(deviceIds[0], RollupResolution.MINUTE,
+                        end.minus(Duration.ofDays(1)), end, PageRequest.of(0, 2_000)).getContent();
+                long minutesMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+                log.info("Read a week of hours: {} rows in {} us, a day of minutes: {} rows in {} us", hours.size(),
+                        hoursMicros, minutes.size(), minutesMicros);
+            }
+            MessageRollupDTO day = rollupService.findAllByDevice(deviceIds[0], RollupResolution.DAY, start, end,
+                    PageRequest.of(0, 1)).getContent().get(0);
+            log.info("First day of the first device: {}", day);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.security.jwt.JWTFilter;
+import com.example.iotcore.security.jwt.TokenProvider;
+import com.example.iotcore.security.management.SecurityMetersService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the JWT checks the {@link JWTFilter} runs on every authenticated request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    private static final String BASE64_SECRET = "NjlhYjJhOWNkMDYwM2ZiZTk1MWQ0YmZkNmYzYjc2MGJiZjAwMWZkMzdiZTIyNjBhMzE2MzU2Mz" +
+            "U4ZjhkYTY3YWVkNjU1ZDQyZjcwM2IzNmJhNzZiOWU3ODdhZDcwOTFjMmM4OTU0ZmU2ZWQ4YWNmZmRiZDRhMGE3ZTQzY2YyZGM=";
+
+    private CacheManager cacheManager;
+
+    private TokenProvider tokenProvider;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getJwt().setBase64Secret(BASE64_SECRET);
+        applicationProperties.getJwt().setTokenValidityInSeconds(86_400L);
+        applicationProperties.getJwt().setTokenValidityInSecondsForRememberMe(2_592_000L);
+        cacheManager = Caching.getCachingProvider(EhcacheCachingProvider.class.getName()).getCacheManager();
+        cacheManager.createCache(TokenProvider.AUTHENTICATIONS_CACHE,
+                new MutableConfiguration<>().setStoreByValue(false));
+        tokenProvider = new TokenProvider(applicationProperties, new SecurityMetersService(new SimpleMeterRegistry()),
+                cacheManager);
+
+        token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken("admin", "admin",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"), new SimpleGrantedAuthority("ROLE_USER"))), false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheManager.close();
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token);
+    }
+
+    /**
+     * What {@link JWTFilter} did per request: validate, then parse again for the authentication.
+     */
+    @Benchmark
+    public Authentication filterRequest() {
+        return tokenProvider.validateToken(token) ? tokenProvider.getAuthentication(token) : null;
+    }
+
+    /**
+     * What {@link JWTFilter} does per request for a token seen before: a digest and a cache hit.
+     */
+    @Benchmark
+    public Authentication authenticate() {
+        return tokenProvider.authenticate(token);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.iotcore.benchmark;
+
+import com.example.iotcore.mqttclient.routing.TopicFilters;
+import com.example.iotcore.mqttclient.routing.TopicRouter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing one topic among many registered filters: the trie with and without its per-topic cache, against matching
+ * every filter in turn.
+ * <p>
+ * Filters look like {@code site/<s>/device/<d>/<metric>}, with one in ten using {@code +} for the device and one in
+ * a hundred ending in {@code #}. The topics cycle over {@link #TOPICS} devices, so they all fit in the cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicRouterBenchmark {
+
+    private static final int TOPICS = 1_024;
+
+    private static final String[] METRICS = {"temperature", "humidity", "heart-rate", "battery"};
+
+    @Param({"10000", "100000"})
+    private int filterCount;
+
+    private TopicRouter<String> cachedRouter;
+
+    private TopicRouter<String> uncachedRouter;
+
+    private List<String> filters;
+
+    private String[] topics;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        cachedRouter = new TopicRouter<>();
+        uncachedRouter = new TopicRouter<>(0);
+        filters = new ArrayList<>(filterCount);
+        for (int i = 0; i < filterCount; i++) {
+            String filter;
+            if (i % 100 == 0)
+                filter = "site/" + i / 100 % 50 + "/#";
+            else if (i % 10 == 0)
+                filter = "site/" + i / 10 % 50 + "/device/+/" + METRICS[i / 10 % METRICS.length];
+            else
+                filter = "site/" + i % 50 + "/device/" + i + "/" + METRICS[i % METRICS.length];
+            filters.add(filter);
+            cachedRouter.register(filter, filter);
+            uncachedRouter.register(filter, filter);
+        }
+
+        topics = new String[TOPICS];
+        for (int i = 0; i < TOPICS; i++) {
+            int device = i * (filterCount / TOPICS) + 1;
+            topics[i] = "site/" + device % 50 + "/device/" + device + "/" + METRICS[device % METRICS.length];
+        }
+    }
+
+    @Benchmark
+    public List<String> trieCached() {
+        return cachedRouter.route(nextTopic());
+    }
+
+    @Benchmark
+    public List<String> trie() {
+        return uncachedRouter.route(nextTopic());
+    }
+
+    @Benchmark
+    public List<String> linearScan() {
+        String topic = nextTopic();
+        List<String> matching = new ArrayList<>();
+        for (String filter : filters)
+            if (TopicFilters.matches(filter, topic))
+                matching.add(filter);
+
+        return matching;
+    }
+
+    private String nextTopic() {
+        String topic = topics[next];
+        next = next + 1 == TOPICS ? 0 : next + 1;
+
+        return topic;
+    }
+}
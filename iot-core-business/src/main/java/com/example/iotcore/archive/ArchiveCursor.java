@@ -0,0 +1,111 @@
+package com.example.iotcore.archive;
+
+import com.example.iotcore.archive.ArchiveSegment.SegmentCursor;
+import com.example.iotcore.dto.MessageDTO;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * The archived messages of a range in {@code (createdTimeStamp, id)} order, read as they are consumed.
+ * <p>
+ * Days are read one after the other; the segments of a day, which overlap when messages arrived late, are merged
+ * with a priority queue on their next message. At most one decompressed block per segment of the current day is held,
+ * whatever the length of the range, so stop consuming once enough messages were read and close the cursor.
+ */
+public class ArchiveCursor implements Iterator<MessageDTO>, Closeable {
+    private final Iterator<LocalDate> days;
+    private final DaySegments daySegments;
+    private final PriorityQueue<SegmentCursor> segments = new PriorityQueue<>(
+            Comparator.comparing(SegmentCursor::head, MessageArchive.ORDER));
+    private MessageDTO next;
+
+    ArchiveCursor(List<LocalDate> days, DaySegments daySegments) {
+        this.days = days.iterator();
+        this.daySegments = daySegments;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null)
+            next = advance();
+
+        return next != null;
+    }
+
+    @Override
+    public MessageDTO next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        MessageDTO message = next;
+        next = null;
+
+        return message;
+    }
+
+    @Override
+    public void close() {
+        IOException failure = null;
+        for (SegmentCursor segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        segments.clear();
+        if (failure != null)
+            throw new UncheckedIOException("Could not close the message archive", failure);
+    }
+
+    private MessageDTO advance() {
+        try {
+            while (segments.isEmpty() && days.hasNext())
+                openDay(days.next());
+
+            SegmentCursor segment = segments.poll();
+            if (segment == null)
+                return null;
+
+            MessageDTO message = segment.next();
+            if (segment.peek() != null)
+                segments.add(segment);
+            else
+                segment.close();
+
+            return message;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the message archive", e);
+        }
+    }
+
+    private void openDay(LocalDate day) throws IOException {
+        for (SegmentCursor segment : daySegments.open(day)) {
+            boolean empty = true;
+            try {
+                empty = segment.peek() == null;
+            } finally {
+                if (empty)
+                    segment.close();
+                else
+                    segments.add(segment);
+            }
+        }
+    }
+
+    /**
+     * Opens the cursors of the segments of a day that may hold messages of the range.
+     */
+    @FunctionalInterface
+    interface DaySegments {
+        List<SegmentCursor> open(LocalDate day) throws IOException;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.iotcore.archive;
+
+import com.example.iotcore.archive.ArchiveSegmentWriter.BlockIndex;
+import com.example.iotcore.dto.MessageDTO;
+import com.github.luben.zstd.Zstd;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The footer of a segment written by {@link ArchiveSegmentWriter}, and the reads of its blocks.
+ */
+class ArchiveSegment {
+    private static final int TRAILER_LENGTH = 2 * Integer.BYTES;
+
+    private final Path path;
+    private final long topicId;
+    private final long rowCount;
+    // by dictionary index - 1
+    private final long[] devices;
+    private final List<BlockIndex> blocks;
+
+    private ArchiveSegment(Path path, long topicId, long rowCount, long[] devices, List<BlockIndex> blocks) {
+        this.path = path;
+        this.topicId = topicId;
+        this.rowCount = rowCount;
+        this.devices = devices;
+        this.blocks = blocks;
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer trailer = read(channel, size - TRAILER_LENGTH, TRAILER_LENGTH, path);
+            int footerLength = trailer.getInt();
+            if (trailer.getInt() != ArchiveSegmentWriter.MAGIC || footerLength > size - TRAILER_LENGTH)
+                throw new IOException("Not an archive segment: " + path);
+
+            ByteBuffer footer = read(channel, size - TRAILER_LENGTH - footerLength, footerLength, path);
+            long topicId = footer.getLong();
+            long rowCount = footer.getLong();
+            long[] devices = new long[footer.getInt()];
+            for (int i = 0; i < devices.length; i++)
+                devices[i] = footer.getLong();
+            int blockCount = footer.getInt();
+            List<BlockIndex> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++)
+                blocks.add(new BlockIndex(footer.getLong(), footer.getInt(), footer.getInt(), footer.getInt(),
+                        Instant.ofEpochSecond(footer.getLong(), footer.getInt()),
+                        Instant.ofEpochSecond(footer.getLong(), footer.getInt())));
+
+            return new ArchiveSegment(path, topicId, rowCount, devices, blocks);
+        }
+    }
+
+    long topicId() {
+        return topicId;
+    }
+
+    long rowCount() {
+        return rowCount;
+    }
+
+    boolean containsDevice(long deviceId) {
+        return deviceIndex(deviceId) > 0;
+    }
+
+    /**
+     * Hands the messages in {@code [from, to)}, of the device if one is given, to the consumer, in the segment's
+     * {@code (createdTimeStamp, id)} order. Blocks outside the range are not read.
+     */
+    void read(Instant from, Instant to, Long deviceId, Consumer<MessageDTO> consumer) throws IOException {
+        int wantedDevice = deviceId == null ? -1 : deviceIndex(deviceId);
+        if (wantedDevice == 0)
+            return;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (BlockIndex block : blocks) {
+                if (!block.last().isBefore(from) && block.first().isBefore(to))
+                    readBlock(channel, block, from, to, wantedDevice, consumer);
+            }
+        }
+    }
+
+    /**
+     * Opens a cursor over the messages {@link #read(Instant, Instant, Long, Consumer)} would hand out, which
+     * decompresses one block at a time as it advances.
+     */
+    SegmentCursor cursor(Instant from, Instant to, Long deviceId) {
+        return new SegmentCursor(from, to, deviceId == null ? -1 : deviceIndex(deviceId));
+    }
+
+    private void readBlock(FileChannel channel, BlockIndex block, Instant from, Instant to, int wantedDevice,
+                           Consumer<MessageDTO> consumer) throws IOException {
+        byte[] compressed = read(channel, block.offset(), block.compressedLength(), path).array();
+        byte[] decompressed = new byte[block.length()];
+        long length = Zstd.decompressByteArray(decompressed, 0, decompressed.length, compressed, 0,
+                compressed.length);
+        if (Zstd.isError(length) || length != decompressed.length)
+            throw new IOException("Corrupt block at " + block.offset() + " of " + path);
+
+        ColumnReader columns = new ColumnReader(decompressed);
+        int rows = (int) columns.getVarLong();
+        long[] ids = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++)
+            ids[i] = previous += columns.getSignedVarLong();
+        long[] seconds = new long[rows];
+        previous = 0;
+        for (int i = 0; i < rows; i++)
+            seconds[i] = previous += columns.getSignedVarLong();
+        int[] nanos = new int[rows];
+        for (int i = 0; i < rows; i++)
+            nanos[i] = (int) columns.getVarLong();
+        int[] deviceColumn = new int[rows];
+        for (int i = 0; i < rows; i++)
+            deviceColumn[i] = (int) columns.getVarLong();
+        int[] contentLengths = new int[rows];
+        for (int i = 0; i < rows; i++)
+            contentLengths[i] = (int) columns.getVarLong();
+
+        for (int i = 0; i < rows; i++) {
+            int contentLength = Math.max(0, contentLengths[i] - 1);
+            Instant createdTimeStamp = Instant.ofEpochSecond(seconds[i], nanos[i]);
+            if (wantedDevice > 0 && deviceColumn[i] != wantedDevice
+                    || createdTimeStamp.isBefore(from) || !createdTimeStamp.isBefore(to)) {
+                columns.skip(contentLength);
+                continue;
+            }
+
+            String content = contentLengths[i] == 0 ? null : columns.getString(contentLength);
+            consumer.accept(new MessageDTO(ids[i], content, createdTimeStamp,
+                    deviceColumn[i] == 0 ? null : devices[deviceColumn[i] - 1], topicId));
+        }
+    }
+
+    /**
+     * The messages of one block of the segment at a time, the file is opened with the first block read.
+     */
+    class SegmentCursor implements Closeable {
+        private final Instant from;
+        private final Instant to;
+        private final int wantedDevice;
+        private final Iterator<BlockIndex> remaining = blocks.iterator();
+        private final ArrayDeque<MessageDTO> buffered = new ArrayDeque<>();
+        private FileChannel channel;
+
+        private SegmentCursor(Instant from, Instant to, int wantedDevice) {
+            this.from = from;
+            this.to = to;
+            this.wantedDevice = wantedDevice;
+        }
+
+        /**
+         * @return the next message without consuming it, null once the segment has no more in the range.
+         */
+        MessageDTO peek() throws IOException {
+            while (buffered.isEmpty() && wantedDevice != 0 && remaining.hasNext()) {
+                BlockIndex block = remaining.next();
+                if (block.last().isBefore(from) || !block.first().isBefore(to))
+                    continue;
+
+                if (channel == null)
+                    channel = FileChannel.open(path, StandardOpenOption.READ);
+                readBlock(channel, block, from, to, wantedDevice, buffered::add);
+            }
+
+            return buffered.peek();
+        }
+
+        /**
+         * @return the message {@link #peek()} returned last, without reading.
+         */
+        MessageDTO head() {
+            return buffered.peek();
+        }
+
+        MessageDTO next() throws IOException {
+            peek();
+
+            return buffered.poll();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null)
+                channel.close();
+        }
+    }
+
+    /**
+     * @return the dictionary index of the device, 0 if the segment has no message of it.
+     */
+    private int deviceIndex(long deviceId) {
+        for (int i = 0; i < devices.length; i++)
+            if (devices[i] == deviceId)
+                return i + 1;
+
+        return 0;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length, Path path) throws IOException {
+        if (position < 0)
+            throw new IOException("Truncated archive segment: " + path);
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Truncated archive segment: " + path);
+        }
+
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.iotcore.archive;
+
+import com.example.iotcore.dto.MessageDTO;
+import com.github.luben.zstd.Zstd;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the messages of one topic and day, in {@code (createdTimeStamp, id)} order, into a segment file.
+ * <p>
+ * Messages are buffered into blocks of a fixed number of rows. A block is stored column by column: delta encoded ids
+ * and timestamps, the index of the device in the segment's device dictionary and the content, and the whole block is
+ * compressed with Zstd. The footer lists the dictionary and, per block, its position, row count and time range, so
+ * readers only decompress blocks overlapping their range and skip segments without their device.
+ * <p>
+ * The segment is written under a temporary name and only renamed to its final one by {@link #close()}.
+ */
+public class ArchiveSegmentWriter implements Closeable {
+    static final int MAGIC = 0x494F5441; // IOTA
+    static final byte VERSION = 1;
+    static final String TEMPORARY_SUFFIX = ".tmp";
+    // offset, lengths, rows and two instants
+    static final int BLOCK_INDEX_LENGTH = Long.BYTES + 3 * Integer.BYTES + 2 * (Long.BYTES + Integer.BYTES);
+
+    private final Path path;
+    private final Path temporaryPath;
+    private final long topicId;
+    private final int blockRows;
+    private final int compressionLevel;
+    private final FileOutputStream file;
+    private final DataOutputStream output;
+    private final Map<Long, Integer> deviceIndexes = new HashMap<>();
+    private final List<Long> devices = new ArrayList<>();
+    private final List<BlockIndex> blocks = new ArrayList<>();
+
+    // rows of the current block, column by column
+    private final long[] ids;
+    private final long[] seconds;
+    private final int[] nanos;
+    private final int[] deviceColumn;
+    private final byte[][] contents;
+    private int rows;
+
+    private final ColumnWriter block = new ColumnWriter(64 * 1024);
+    private final ColumnWriter contentColumn = new ColumnWriter(64 * 1024);
+    private long position;
+    private long rowCount;
+    private boolean closed;
+
+    ArchiveSegmentWriter(Path path, long topicId, int blockRows, int compressionLevel) throws IOException {
+        this.path = path;
+        this.temporaryPath = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+        this.topicId = topicId;
+        this.blockRows = blockRows;
+        this.compressionLevel = compressionLevel;
+        this.ids = new long[blockRows];
+        this.seconds = new long[blockRows];
+        this.nanos = new int[blockRows];
+        this.deviceColumn = new int[blockRows];
+        this.contents = new byte[blockRows][];
+
+        this.file = new FileOutputStream(temporaryPath.toFile());
+        this.output = new DataOutputStream(new BufferedOutputStream(file, 64 * 1024));
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        position = Integer.BYTES + 1;
+    }
+
+    /**
+     * @param message a message of the segment's topic and day, not older than the previous one.
+     */
+    public void append(MessageDTO message) throws IOException {
+        Instant createdTimeStamp = message.getCreatedTimeStamp();
+        Long deviceId = message.getDevice() == null ? null : message.getDevice().getId();
+
+        ids[rows] = message.getId();
+        seconds[rows] = createdTimeStamp.getEpochSecond();
+        nanos[rows] = createdTimeStamp.getNano();
+        // 0 stands for no device
+        deviceColumn[rows] = deviceId == null ? 0 : deviceIndexes.computeIfAbsent(deviceId, id -> {
+            devices.add(id);
+
+            return devices.size();
+        });
+        contents[rows] = message.getContent() == null ? null : message.getContent().getBytes(StandardCharsets.UTF_8);
+        rows++;
+        rowCount++;
+
+        if (rows == blockRows)
+            flushBlock();
+    }
+
+    /**
+     * @return the messages appended so far.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes the last block and the footer, forces the segment to disk and gives it its final name.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+
+        closed = true;
+        flushBlock();
+        writeFooter();
+        output.flush();
+        file.getChannel().force(true);
+        output.close();
+        Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Drops the segment, e.g. because the messages could not be read completely.
+     */
+    public void abort() throws IOException {
+        closed = true;
+        output.close();
+        Files.deleteIfExists(temporaryPath);
+    }
+
+    private void flushBlock() throws IOException {
+        if (rows == 0)
+            return;
+
+        block.clear();
+        contentColumn.clear();
+        block.putVarLong(rows);
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            block.putSignedVarLong(ids[i] - previous);
+            previous = ids[i];
+        }
+        previous = 0;
+        for (int i = 0; i < rows; i++) {
+            block.putSignedVarLong(seconds[i] - previous);
+            previous = seconds[i];
+        }
+        for (int i = 0; i < rows; i++)
+            block.putVarLong(nanos[i]);
+        for (int i = 0; i < rows; i++)
+            block.putVarLong(deviceColumn[i]);
+        // lengths are shifted by one, 0 stands for no content
+        for (int i = 0; i < rows; i++) {
+            byte[] content = contents[i];
+            block.putVarLong(content == null ? 0 : content.length + 1);
+            if (content != null)
+                contentColumn.put(content);
+            contents[i] = null;
+        }
+        block.put(contentColumn);
+
+        byte[] compressed = new byte[(int) Zstd.compressBound(block.length())];
+        long compressedLength = Zstd.compressByteArray(compressed, 0, compressed.length, block.array(), 0,
+                block.length(), compressionLevel);
+        if (Zstd.isError(compressedLength))
+            throw new IOException("Could not compress block of " + path + ": " + Zstd.getErrorName(compressedLength));
+
+        output.write(compressed, 0, (int) compressedLength);
+        blocks.add(new BlockIndex(position, (int) compressedLength, block.length(), rows,
+                Instant.ofEpochSecond(seconds[0], nanos[0]),
+                Instant.ofEpochSecond(seconds[rows - 1], nanos[rows - 1])));
+        position += compressedLength;
+        rows = 0;
+    }
+
+    private void writeFooter() throws IOException {
+        output.writeLong(topicId);
+        output.writeLong(rowCount);
+        output.writeInt(devices.size());
+        for (long device : devices)
+            output.writeLong(device);
+        output.writeInt(blocks.size());
+        for (BlockIndex index : blocks) {
+            output.writeLong(index.offset());
+            output.writeInt(index.compressedLength());
+            output.writeInt(index.length());
+            output.writeInt(index.rows());
+            writeInstant(index.first());
+            writeInstant(index.last());
+        }
+        output.writeInt(footerLength(devices.size(), blocks.size()));
+        output.writeInt(MAGIC);
+    }
+
+    static int footerLength(int devices, int blocks) {
+        return 2 * Long.BYTES + Integer.BYTES + devices * Long.BYTES + Integer.BYTES + blocks * BLOCK_INDEX_LENGTH;
+    }
+
+    private void writeInstant(Instant instant) throws IOException {
+        output.writeLong(instant.getEpochSecond());
+        output.writeInt(instant.getNano());
+    }
+
+    /**
+     * Position and content of one block.
+     *
+     * @param offset           the position of the compressed block in the file.
+     * @param compressedLength the bytes it takes in the file.
+     * @param length           its length once decompressed.
+     * @param rows             the messages in the block.
+     * @param first            the createdTimeStamp of its first message.
+     * @param last             the createdTimeStamp of its last message.
+     */
+    record BlockIndex(long offset, int compressedLength, int length, int rows, Instant first, Instant last) {
+    }
+}
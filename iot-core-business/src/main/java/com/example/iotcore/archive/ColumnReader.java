@@ -0,0 +1,42 @@
+package com.example.iotcore.archive;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads what a {@link ColumnWriter} encoded.
+ */
+class ColumnReader {
+    private final byte[] bytes;
+    private int position;
+
+    ColumnReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    long getVarLong() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    long getSignedVarLong() {
+        long value = getVarLong();
+
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    void skip(int length) {
+        position += length;
+    }
+
+    String getString(int length) {
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+
+        return value;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.iotcore.archive;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer the columns of a block are encoded into, with LEB128 variable length integers.
+ */
+class ColumnWriter {
+    private byte[] bytes;
+    private int length;
+
+    ColumnWriter(int capacity) {
+        this.bytes = new byte[capacity];
+    }
+
+    void putVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[length++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    /**
+     * Zig-zag encoded, so small negative deltas stay short.
+     */
+    void putSignedVarLong(long value) {
+        putVarLong(value << 1 ^ value >> 63);
+    }
+
+    void put(byte[] value) {
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, bytes, length, value.length);
+        length += value.length;
+    }
+
+    void put(ColumnWriter column) {
+        ensureCapacity(column.length);
+        System.arraycopy(column.bytes, 0, bytes, length, column.length);
+        length += column.length;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void clear() {
+        length = 0;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.iotcore.archive;
+
+import com.example.iotcore.dto.MessageDTO;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Columnar, compressed files of the messages that left the database.
+ * <p>
+ * Messages are archived per UTC day and topic into {@code <directory>/<yyyy-MM-dd>/topic-<id>-<n>.seg} segments, see
+ * {@link ArchiveSegmentWriter}; a day and topic gets a segment per page the archive job moved, and more if messages
+ * older than the archive's horizon reached the database after it was archived. The horizon, up to which the archive holds the messages, is
+ * kept in {@code <directory>/horizon}; everything older was moved out of the {@code message} table.
+ */
+public class MessageArchive {
+    static final String SEGMENT_SUFFIX = ".seg";
+    private static final String HORIZON_FILE = "horizon";
+    private static final int MAX_CACHED_SEGMENTS = 10_000;
+    static final Comparator<MessageDTO> ORDER = Comparator.comparing(MessageDTO::getCreatedTimeStamp)
+            .thenComparing(MessageDTO::getId);
+
+    private final Path directory;
+    private final int blockRows;
+    private final int compressionLevel;
+    // segments never change once written, their footers are kept
+    private final Map<Path, ArchiveSegment> segments = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, ArchiveSegment> eldest) {
+            return size() > MAX_CACHED_SEGMENTS;
+        }
+    };
+    private volatile Instant horizon;
+
+    public MessageArchive(Path directory, int blockRows, int compressionLevel) {
+        this.directory = directory;
+        this.blockRows = blockRows;
+        this.compressionLevel = compressionLevel;
+        this.horizon = loadHorizon();
+    }
+
+    /**
+     * @return the instant before which the messages are in the archive, {@link Instant#MIN} if nothing was archived.
+     */
+    public Instant getHorizon() {
+        return horizon;
+    }
+
+    public void setHorizon(Instant horizon) throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = directory.resolve(HORIZON_FILE + ArchiveSegmentWriter.TEMPORARY_SUFFIX);
+        Files.writeString(temporary, horizon.toString(), StandardCharsets.US_ASCII);
+        Files.move(temporary, directory.resolve(HORIZON_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        this.horizon = horizon;
+    }
+
+    /**
+     * Starts a new segment of the topic and day; the messages must be appended oldest first.
+     */
+    public ArchiveSegmentWriter newSegment(LocalDate day, long topicId) throws IOException {
+        Path dayDirectory = dayDirectory(day);
+        Files.createDirectories(dayDirectory);
+        Path path;
+        int n = 0;
+        do {
+            path = dayDirectory.resolve(segmentPrefix(topicId) + n++ + SEGMENT_SUFFIX);
+        } while (Files.exists(path));
+
+        return new ArchiveSegmentWriter(path, topicId, blockRows, compressionLevel);
+    }
+
+    /**
+     * @return the ids of the archived messages of the topic and day in {@code [from, to)}, e.g. to not archive them
+     * twice.
+     */
+    public Set<Long> findIds(LocalDate day, long topicId, Instant from, Instant to) throws IOException {
+        Set<Long> ids = new HashSet<>();
+        for (ArchiveSegment segment : segmentsOf(day, topicId))
+            segment.read(from, to, null, message -> ids.add(message.getId()));
+
+        return ids;
+    }
+
+    /**
+     * @return the archived messages of the device in {@code [from, to)}, ordered by createdTimeStamp and id.
+     */
+    public ArchiveCursor openByDevice(long deviceId, Instant from, Instant to) {
+        return open(from, to, null, deviceId);
+    }
+
+    /**
+     * @return the archived messages of the topic in {@code [from, to)}, ordered by createdTimeStamp and id.
+     */
+    public ArchiveCursor openByTopic(long topicId, Instant from, Instant to) {
+        return open(from, to, topicId, null);
+    }
+
+    /**
+     * Same as {@link #openByDevice(long, Instant, Instant)}, all read at once; only for ranges known to be small.
+     */
+    public List<MessageDTO> findAllByDevice(long deviceId, Instant from, Instant to) {
+        return readAll(openByDevice(deviceId, from, to));
+    }
+
+    /**
+     * Same as {@link #openByTopic(long, Instant, Instant)}, all read at once; only for ranges known to be small.
+     */
+    public List<MessageDTO> findAllByTopic(long topicId, Instant from, Instant to) {
+        return readAll(openByTopic(topicId, from, to));
+    }
+
+    private ArchiveCursor open(Instant from, Instant to, Long topicId, Long deviceId) {
+        if (!from.isBefore(to))
+            return new ArchiveCursor(List.of(), day -> List.of());
+
+        try {
+            return new ArchiveCursor(days(from, to), day -> {
+                List<ArchiveSegment.SegmentCursor> cursors = new ArrayList<>();
+                for (ArchiveSegment segment : segmentsOf(day, topicId)) {
+                    if (deviceId == null || segment.containsDevice(deviceId))
+                        cursors.add(segment.cursor(from, to, deviceId));
+                }
+
+                return cursors;
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the message archive", e);
+        }
+    }
+
+    private static List<MessageDTO> readAll(ArchiveCursor cursor) {
+        try (cursor) {
+            List<MessageDTO> messages = new ArrayList<>();
+            cursor.forEachRemaining(messages::add);
+
+            return messages;
+        }
+    }
+
+    /**
+     * @return the archived days overlapping {@code [from, to)}.
+     */
+    private List<LocalDate> days(Instant from, Instant to) throws IOException {
+        if (!Files.isDirectory(directory))
+            return List.of();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isDirectory)
+                    .map(path -> parseDay(path.getFileName().toString()))
+                    .filter(day -> day != null && day.atStartOfDay(ZoneOffset.UTC).toInstant().isBefore(to)
+                            && day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().isAfter(from))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static LocalDate parseDay(String name) {
+        try {
+            return LocalDate.parse(name);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private List<ArchiveSegment> segmentsOf(LocalDate day, Long topicId) throws IOException {
+        Path dayDirectory = dayDirectory(day);
+        if (!Files.isDirectory(dayDirectory))
+            return List.of();
+
+        String prefix = topicId == null ? null : segmentPrefix(topicId);
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(dayDirectory)) {
+            paths = files.filter(path -> {
+                String name = path.getFileName().toString();
+
+                return name.endsWith(SEGMENT_SUFFIX) && (prefix == null || name.startsWith(prefix));
+            }).sorted().toList();
+        }
+
+        List<ArchiveSegment> result = new ArrayList<>(paths.size());
+        for (Path path : paths)
+            result.add(segment(path));
+
+        return result;
+    }
+
+    private ArchiveSegment segment(Path path) throws IOException {
+        synchronized (segments) {
+            ArchiveSegment segment = segments.get(path);
+            if (segment != null)
+                return segment;
+        }
+
+        ArchiveSegment segment = ArchiveSegment.open(path);
+        synchronized (segments) {
+            segments.put(path, segment);
+        }
+
+        return segment;
+    }
+
+    private Path dayDirectory(LocalDate day) {
+        return directory.resolve(day.toString());
+    }
+
+    // the separator after the id keeps topic 1 from matching the segments of topic 12
+    private static String segmentPrefix(long topicId) {
+        return "topic-" + topicId + "-";
+    }
+
+    private Instant loadHorizon() {
+        Path path = directory.resolve(HORIZON_FILE);
+        if (!Files.exists(path))
+            return Instant.MIN;
+
+        try {
+            return Instant.parse(Files.readString(path, StandardCharsets.US_ASCII).trim());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the horizon of the message archive " + directory, e);
+        }
+    }
+}
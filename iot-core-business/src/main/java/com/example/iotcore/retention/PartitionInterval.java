@@ -0,0 +1,36 @@
+package com.example.iotcore.retention;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The time range of one partition of the {@code message} table, in UTC.
+ */
+public enum PartitionInterval {
+    DAY {
+        @Override
+        public LocalDate next(LocalDate bound) {
+            return bound.plusDays(1);
+        }
+    },
+    MONTH {
+        @Override
+        public LocalDate next(LocalDate bound) {
+            return bound.withDayOfMonth(1).plusMonths(1);
+        }
+    };
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    /**
+     * @return the upper bound of the partition following the one ending at {@code bound}.
+     */
+    public abstract LocalDate next(LocalDate bound);
+
+    /**
+     * @return the name of the partition starting at {@code start}, e.g. {@code p20261101}.
+     */
+    public static String partitionName(LocalDate start) {
+        return NAME_FORMAT.format(start);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.iotcore.rollup;
+
+import com.example.iotcore.domain.MessageRollup;
+import com.example.iotcore.domain.MessageRollupId;
+import com.example.iotcore.domain.RollupResolution;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory {@link MessageRollup}s of every {@link RollupResolution}, updated as messages are stored and drained in
+ * batches into the database.
+ * <p>
+ * Every bucket is only updated inside {@link ConcurrentHashMap#compute}, and {@link #drain()} removes buckets under
+ * the same lock, so the ingest writers add concurrently without losing values to a drain; values arriving after a
+ * bucket was drained start a new partial bucket, which the next drain adds to the stored one.
+ * <p>
+ * Rollups that could not be stored are {@linkplain #restore(List) restored} only up to {@code maxBuckets}, so a long
+ * database outage drops the oldest buckets instead of growing the heap without bound.
+ */
+public class RollupAggregator {
+    // length of the message_rollup.metric column
+    static final int METRIC_MAX_LENGTH = 64;
+
+    // about 200 bytes each
+    public static final int DEFAULT_MAX_BUCKETS = 500_000;
+
+    private static final RollupResolution[] RESOLUTIONS = RollupResolution.values();
+
+    private final Map<MessageRollupId, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final int maxBuckets;
+
+    public RollupAggregator() {
+        this(DEFAULT_MAX_BUCKETS);
+    }
+
+    public RollupAggregator(int maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * Adds the value to its minute, hour and day buckets; metrics longer than the column are ignored.
+     */
+    public void add(RollupSample sample) {
+        if (sample.metric().length() > METRIC_MAX_LENGTH)
+            return;
+
+        for (RollupResolution resolution : RESOLUTIONS) {
+            MessageRollupId id = new MessageRollupId(sample.deviceId(), sample.topicId(), sample.metric(),
+                    resolution, resolution.bucketStart(sample.timeStamp()));
+            buckets.compute(id, (key, bucket) -> {
+                Bucket updated = bucket == null ? new Bucket() : bucket;
+                updated.add(sample.value(), sample.timeStamp());
+
+                return updated;
+            });
+        }
+    }
+
+    /**
+     * Removes the buckets collected so far.
+     *
+     * @return their partial rollups, to be added to the stored ones.
+     */
+    public List<MessageRollup> drain() {
+        List<MessageRollup> rollups = new ArrayList<>(buckets.size());
+        for (MessageRollupId id : buckets.keySet()) {
+            Bucket bucket = buckets.remove(id);
+            if (bucket != null)
+                rollups.add(bucket.toRollup(id));
+        }
+
+        return rollups;
+    }
+
+    /**
+     * Adds drained rollups back, e.g. because they could not be stored, as far as there is room for them.
+     *
+     * @return the number of rollups dropped for lack of room, those of the oldest buckets.
+     */
+    public int restore(List<MessageRollup> rollups) {
+        List<MessageRollup> restored = rollups;
+        int room = Math.max(0, maxBuckets - buckets.size());
+        if (rollups.size() > room) {
+            restored = new ArrayList<>(rollups);
+            restored.sort(Comparator.comparing((MessageRollup rollup) -> rollup.getId().getBucketStart()).reversed());
+            restored = restored.subList(0, room);
+        }
+
+        for (MessageRollup rollup : restored)
+            buckets.compute(rollup.getId(), (key, bucket) -> {
+                Bucket updated = bucket == null ? new Bucket() : bucket;
+                updated.merge(rollup);
+
+                return updated;
+            });
+
+        return rollups.size() - restored.size();
+    }
+
+    /**
+     * @return the number of buckets not drained yet.
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Mutated only inside the map's compute, which guards it.
+     */
+    private static class Bucket {
+        private long count;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum;
+        private double last;
+        private Instant lastTimeStamp = Instant.MIN;
+
+        void add(double value, Instant timeStamp) {
+            count++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            if (!timeStamp.isBefore(lastTimeStamp)) {
+                last = value;
+                lastTimeStamp = timeStamp;
+            }
+        }
+
+        void merge(MessageRollup rollup) {
+            count += rollup.getCount();
+            min = Math.min(min, rollup.getMin());
+            max = Math.max(max, rollup.getMax());
+            sum += rollup.getSum();
+            if (!rollup.getLastTimeStamp().isBefore(lastTimeStamp)) {
+                last = rollup.getLast();
+                lastTimeStamp = rollup.getLastTimeStamp();
+            }
+        }
+
+        MessageRollup toRollup(MessageRollupId id) {
+            return new MessageRollup(id, count, min, max, sum, last, lastTimeStamp);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.iotcore.rollup;
+
+import java.time.Instant;
+
+/**
+ * One numeric field of a stored message, as added to the rollups.
+ *
+ * @param deviceId  the id of the message's device.
+ * @param topicId   the id of the message's topic.
+ * @param metric    the name of the field.
+ * @param timeStamp the createdTimeStamp of the message.
+ * @param value     the value of the field.
+ */
+public record RollupSample(long deviceId, long topicId, String metric, Instant timeStamp, double value) {
+}
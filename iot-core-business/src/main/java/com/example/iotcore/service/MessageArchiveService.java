@@ -0,0 +1,19 @@
+package com.example.iotcore.service;
+
+import com.example.iotcore.archive.MessageArchive;
+
+import java.time.LocalDate;
+
+/**
+ * Service Interface for moving old messages out of the database into the {@link MessageArchive}.
+ */
+public interface MessageArchiveService {
+    /**
+     * Move the messages of the UTC days before the given one into the archive and delete them from the database.
+     * Messages of those days that reach the database later are archived by the next call.
+     *
+     * @param day the first day kept in the database.
+     * @return the number of messages moved.
+     */
+    long archiveBefore(LocalDate day);
+}
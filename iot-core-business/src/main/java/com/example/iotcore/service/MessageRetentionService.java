@@ -0,0 +1,31 @@
+package com.example.iotcore.service;
+
+import com.example.iotcore.retention.PartitionInterval;
+
+import java.time.Instant;
+
+/**
+ * Service Interface for deleting expired messages.
+ */
+public interface MessageRetentionService {
+    /**
+     * Delete the messages created before the cutoff. On a partitioned {@code message} table the partitions ending
+     * before it are dropped, so messages are kept until their whole partition expired; otherwise the messages are
+     * deleted in chunks.
+     *
+     * @param cutoff    the createdTimeStamp the deleted messages are before.
+     * @param chunkSize the messages deleted per transaction without partitions.
+     * @return the number of messages deleted, estimated for dropped partitions.
+     */
+    long purgeBefore(Instant cutoff, int chunkSize);
+
+    /**
+     * Create the partitions of the {@code message} table up to the given instant, so new messages never land in
+     * its {@code MAXVALUE} partition. Does nothing if the table is not partitioned.
+     *
+     * @param until    the instant the last partition has to reach.
+     * @param interval the range of every new partition.
+     * @return the number of partitions created.
+     */
+    int createPartitionsUntil(Instant until, PartitionInterval interval);
+}
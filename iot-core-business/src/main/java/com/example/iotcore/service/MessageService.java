@@ -4,7 +4,9 @@ import com.example.iotcore.domain.Message;
 import com.example.iotcore.dto.MessageDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +21,13 @@ public interface MessageService {
      */
     void saveAll(List<Message> messages);
 
+    /**
+     * Insert new messages with plain JDBC batches, bypassing the persistence context, for bulk loads.
+     *
+     * @param messages the entities to insert.
+     */
+    void insertAll(List<Message> messages);
+
     /**
      * Save a message.
      *
@@ -43,6 +52,54 @@ public interface MessageService {
      */
     Page<MessageDTO> findAll(Pageable pageable);
 
+    /**
+     * Get the messages following the given position, ordered by createdTimeStamp and id.
+     *
+     * @param createdTimeStamp the createdTimeStamp of the last message already seen, or {@code null} for the first page.
+     * @param id               the id of the last message already seen, or {@code null} for the first page.
+     * @param limit            the maximum number of messages.
+     * @return the list of entities.
+     */
+    List<MessageDTO> findAllAfter(Instant createdTimeStamp, Long id, int limit);
+
+    /**
+     * Get the messages of the "deviceId" device in a time range, oldest first, including the archived ones.
+     *
+     * @param deviceId the id of the device.
+     * @param from     the first createdTimeStamp, inclusive; one day before {@code to} if {@code null}.
+     * @param to       the last createdTimeStamp, exclusive; now if {@code null}.
+     * @param pageable the pagination information, its sort is ignored.
+     * @return the slice of entities.
+     */
+    Slice<MessageDTO> findAllByDevice(Long deviceId, Instant from, Instant to, Pageable pageable);
+
+    /**
+     * Get the messages of the "topicId" topic in a time range, oldest first, including the archived ones.
+     *
+     * @param topicId  the id of the topic.
+     * @param from     the first createdTimeStamp, inclusive; one day before {@code to} if {@code null}.
+     * @param to       the last createdTimeStamp, exclusive; now if {@code null}.
+     * @param pageable the pagination information, its sort is ignored.
+     * @return the slice of entities.
+     */
+    Slice<MessageDTO> findAllByTopic(Long topicId, Instant from, Instant to, Pageable pageable);
+
+    /**
+     * Check whether stored messages reference the "deviceId" device; archived messages are not considered.
+     *
+     * @param deviceId the id of the device.
+     * @return true if the device must not be deleted yet.
+     */
+    boolean existsByDevice(Long deviceId);
+
+    /**
+     * Check whether stored messages reference the "topicId" topic; archived messages are not considered.
+     *
+     * @param topicId the id of the topic.
+     * @return true if the topic must not be deleted yet.
+     */
+    boolean existsByTopic(Long topicId);
+
     /**
      * Get the "id" message.
      *
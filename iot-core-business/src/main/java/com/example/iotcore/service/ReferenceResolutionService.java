@@ -0,0 +1,39 @@
+package com.example.iotcore.service;
+
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.Topic;
+
+/**
+ * Service Interface for resolving the {@link Device} and {@link Topic} a new message refers to.
+ */
+public interface ReferenceResolutionService {
+    /**
+     * Get the device with the given mac address, creating it if it does not exist yet.
+     *
+     * @param macAddress the macAddress of the entity, compared ignoring case.
+     * @return the persisted entity.
+     */
+    Device resolveDevice(String macAddress);
+
+    /**
+     * Get the topic with the given name, creating it if it does not exist yet.
+     *
+     * @param name the name of the entity, compared ignoring case.
+     * @return the persisted entity.
+     */
+    Topic resolveTopic(String name);
+
+    /**
+     * Forget the "id" device, e.g. because it was changed or deleted.
+     *
+     * @param id the id of the entity.
+     */
+    void evictDevice(Long id);
+
+    /**
+     * Forget the "id" topic, e.g. because it was changed or deleted.
+     *
+     * @param id the id of the entity.
+     */
+    void evictTopic(Long id);
+}
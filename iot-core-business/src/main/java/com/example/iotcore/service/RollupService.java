@@ -0,0 +1,43 @@
+package com.example.iotcore.service;
+
+import com.example.iotcore.domain.MessageRollup;
+import com.example.iotcore.domain.RollupResolution;
+import com.example.iotcore.dto.MessageRollupDTO;
+import com.example.iotcore.rollup.RollupSample;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Service Interface for managing {@link MessageRollup}.
+ */
+public interface RollupService {
+    /**
+     * Add the fields of stored messages to the in-memory rollups.
+     *
+     * @param samples the numeric fields of the messages.
+     */
+    void recordAll(List<RollupSample> samples);
+
+    /**
+     * Add the in-memory rollups to the stored ones. Rollups that could not be stored are kept for the next flush.
+     *
+     * @return the number of rollups stored.
+     */
+    int flush();
+
+    /**
+     * Get the rollups of the "deviceId" device in a time range, oldest first.
+     *
+     * @param deviceId   the id of the device.
+     * @param resolution the bucket size.
+     * @param from       the first bucket start, inclusive; a default range before {@code to} if {@code null}.
+     * @param to         the last bucket start, exclusive; now if {@code null}.
+     * @param pageable   the pagination information, its sort is ignored.
+     * @return the slice of rollups.
+     */
+    Slice<MessageRollupDTO> findAllByDevice(Long deviceId, RollupResolution resolution, Instant from, Instant to,
+                                            Pageable pageable);
+}
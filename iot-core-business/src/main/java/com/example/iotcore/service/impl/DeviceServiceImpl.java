@@ -5,6 +5,7 @@ import com.example.iotcore.dto.DeviceDTO;
 import com.example.iotcore.mapper.DeviceMapper;
 import com.example.iotcore.repository.DeviceRepository;
 import com.example.iotcore.service.DeviceService;
+import com.example.iotcore.service.ReferenceResolutionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -26,10 +27,15 @@ public class DeviceServiceImpl implements DeviceService {
 
     private final DeviceMapper deviceMapper;
 
+    private final ReferenceResolutionService referenceResolutionService;
+
     @Override
     public DeviceDTO save(DeviceDTO deviceDTO) {
         log.debug("Request to save Device : {}", deviceDTO);
 
+        if (deviceDTO.getId() != null)
+            referenceResolutionService.evictDevice(deviceDTO.getId());
+
         Device device = deviceMapper.toEntity(deviceDTO);
         device = deviceRepository.save(device);
 
@@ -40,6 +46,8 @@ public class DeviceServiceImpl implements DeviceService {
     public Optional<DeviceDTO> partialUpdate(DeviceDTO deviceDTO) {
         log.debug("Request to partially update Device : {}", deviceDTO);
 
+        referenceResolutionService.evictDevice(deviceDTO.getId());
+
         return deviceRepository
                 .findById(deviceDTO.getId())
                 .map(existingDevice -> {
@@ -83,6 +91,7 @@ public class DeviceServiceImpl implements DeviceService {
     public void delete(Long id) {
         log.debug("Request to delete Device : {}", id);
 
+        referenceResolutionService.evictDevice(id);
         deviceRepository.deleteById(id);
     }
 }
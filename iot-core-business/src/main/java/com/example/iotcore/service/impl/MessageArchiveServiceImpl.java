@@ -0,0 +1,141 @@
+package com.example.iotcore.service.impl;
+
+import com.example.iotcore.archive.ArchiveSegmentWriter;
+import com.example.iotcore.archive.MessageArchive;
+import com.example.iotcore.dto.MessageDTO;
+import com.example.iotcore.repository.MessageRepository;
+import com.example.iotcore.service.MessageArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service Implementation for moving messages into the {@link MessageArchive}.
+ * <p>
+ * Not transactional as a whole: every page is read and every chunk deleted in a transaction of its own, and the
+ * messages of a page are only deleted once their segment is on disk. Messages found in a segment already,
+ * because an earlier run stopped before deleting them, are deleted without being archived again.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class MessageArchiveServiceImpl implements MessageArchiveService {
+    private static final int PAGE_SIZE = 10_000;
+    private static final int DELETE_CHUNK_SIZE = 1_000;
+
+    private final MessageRepository messageRepository;
+
+    private final MessageArchive messageArchive;
+
+    @Override
+    public long archiveBefore(LocalDate day) {
+        log.debug("Request to archive the Messages before : {}", day);
+
+        Instant end = startOf(day);
+        Instant oldest = messageRepository.findOldestCreatedTimeStamp();
+        if (oldest == null || !oldest.isBefore(end))
+            return 0;
+
+        // readers look into the archive for the days being moved before their messages leave the database
+        try {
+            if (end.isAfter(messageArchive.getHorizon()))
+                messageArchive.setHorizon(end);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not move the horizon of the message archive", e);
+        }
+
+        long archived = 0;
+        for (LocalDate current = LocalDate.ofInstant(oldest, ZoneOffset.UTC); current.isBefore(day);
+             current = current.plusDays(1)) {
+            Instant from = startOf(current);
+            Instant to = startOf(current.plusDays(1));
+            for (Long topicId : messageRepository.findTopicIdsBetween(from, to))
+                archived += archive(current, topicId, from, to);
+        }
+        log.info("Archived {} Messages before {}", archived, day);
+
+        return archived;
+    }
+
+    /**
+     * Moves the messages of a topic and day page by page: every page becomes a segment of its own and is deleted once
+     * the segment is on disk, so neither the messages nor the ids of a whole day are held at once.
+     */
+    private long archive(LocalDate day, long topicId, Instant from, Instant to) {
+        long archived = 0;
+        long deleted = 0;
+        Instant createdTimeStamp = from;
+        long id = -1;
+        List<MessageDTO> page;
+        do {
+            page = messageRepository.findAllByTopicBetweenAfter(topicId, from, to, createdTimeStamp, id,
+                    PageRequest.of(0, PAGE_SIZE));
+            if (page.isEmpty())
+                break;
+
+            archived += archivePage(day, topicId, page);
+            List<Long> ids = page.stream().map(MessageDTO::getId).toList();
+            for (int i = 0; i < ids.size(); i += DELETE_CHUNK_SIZE)
+                messageRepository.deleteAllByIdInBatch(ids.subList(i, Math.min(ids.size(), i + DELETE_CHUNK_SIZE)));
+            deleted += ids.size();
+
+            createdTimeStamp = page.get(page.size() - 1).getCreatedTimeStamp();
+            id = page.get(page.size() - 1).getId();
+        } while (page.size() == PAGE_SIZE);
+        log.debug("Archived {} Messages of Topic : {} of {}", deleted, topicId, day);
+
+        return archived;
+    }
+
+    /**
+     * @return the messages of the page written to a new segment, without those in the archive already.
+     */
+    private long archivePage(LocalDate day, long topicId, List<MessageDTO> page) {
+        ArchiveSegmentWriter segment = null;
+        try {
+            Set<Long> archived = messageArchive.findIds(day, topicId, page.get(0).getCreatedTimeStamp(),
+                    page.get(page.size() - 1).getCreatedTimeStamp().plusNanos(1));
+            for (MessageDTO message : page) {
+                if (archived.contains(message.getId()))
+                    continue;
+                if (segment == null)
+                    segment = messageArchive.newSegment(day, topicId);
+                segment.append(message);
+            }
+
+            if (segment != null)
+                segment.close();
+        } catch (IOException | RuntimeException e) {
+            abort(segment);
+            if (e instanceof IOException ioException)
+                throw new UncheckedIOException("Could not archive topic " + topicId + " of " + day, ioException);
+            throw (RuntimeException) e;
+        }
+
+        return segment == null ? 0 : segment.getRowCount();
+    }
+
+    private static void abort(ArchiveSegmentWriter segment) {
+        if (segment == null)
+            return;
+
+        try {
+            segment.abort();
+        } catch (IOException e) {
+            log.warn("Could not delete an incomplete archive segment", e);
+        }
+    }
+
+    private static Instant startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.iotcore.service.impl;
+
+import com.example.iotcore.domain.MessagePartition;
+import com.example.iotcore.repository.MessageRepository;
+import com.example.iotcore.retention.PartitionInterval;
+import com.example.iotcore.service.MessageRetentionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Service Implementation for deleting expired messages.
+ * <p>
+ * Not transactional as a whole: partitions are dropped and created by DDL statements, which MySQL commits
+ * implicitly, and every chunk of the delete fallback runs in a transaction of its own, so the purge neither holds
+ * locks nor grows the undo log for long.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class MessageRetentionServiceImpl implements MessageRetentionService {
+
+    private final MessageRepository messageRepository;
+
+    @Override
+    public long purgeBefore(Instant cutoff, int chunkSize) {
+        log.debug("Request to purge the Messages before : {}", cutoff);
+
+        List<MessagePartition> partitions = messageRepository.findPartitions();
+        if (partitions.isEmpty())
+            return deleteInChunks(cutoff, chunkSize);
+
+        List<MessagePartition> expired = partitions.stream()
+                .filter(partition -> partition.upperBound() != null && !partition.upperBound().isAfter(cutoff))
+                .toList();
+        if (expired.isEmpty())
+            return 0;
+
+        messageRepository.dropPartitions(expired.stream().map(MessagePartition::name).toList());
+        long rows = expired.stream().mapToLong(MessagePartition::rows).sum();
+        log.info("Dropped the Message partitions {} with about {} rows", expired.stream()
+                .map(MessagePartition::name).toList(), rows);
+
+        return rows;
+    }
+
+    @Override
+    public int createPartitionsUntil(Instant until, PartitionInterval interval) {
+        List<MessagePartition> partitions = messageRepository.findPartitions();
+        if (partitions.isEmpty())
+            return 0;
+
+        Instant lastBound = partitions.stream().map(MessagePartition::upperBound).filter(Objects::nonNull)
+                .max(Instant::compareTo).orElse(null);
+        LocalDate bound = lastBound == null ? LocalDate.now(ZoneOffset.UTC) :
+                LocalDate.ofInstant(lastBound, ZoneOffset.UTC);
+        List<MessagePartition> created = new ArrayList<>();
+        while (startOf(bound).isBefore(until)) {
+            LocalDate start = bound;
+            bound = interval.next(bound);
+            created.add(new MessagePartition(PartitionInterval.partitionName(start), startOf(bound), 0));
+        }
+        if (created.isEmpty())
+            return 0;
+
+        messageRepository.addPartitions(created);
+        log.info("Created the Message partitions {}", created.stream().map(MessagePartition::name).toList());
+
+        return created.size();
+    }
+
+    private long deleteInChunks(Instant cutoff, int chunkSize) {
+        long deleted = 0;
+        List<Long> ids;
+        do {
+            ids = messageRepository.findIdsCreatedBefore(cutoff, PageRequest.of(0, chunkSize));
+            if (!ids.isEmpty())
+                messageRepository.deleteAllByIdInBatch(ids);
+            deleted += ids.size();
+        } while (ids.size() == chunkSize);
+        if (deleted > 0)
+            log.info("Deleted {} Messages before {}", deleted, cutoff);
+
+        return deleted;
+    }
+
+    private static Instant startOf(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
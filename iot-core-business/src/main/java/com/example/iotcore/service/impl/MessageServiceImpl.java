@@ -1,5 +1,7 @@
 package com.example.iotcore.service.impl;
 
+import com.example.iotcore.archive.ArchiveCursor;
+import com.example.iotcore.archive.MessageArchive;
 import com.example.iotcore.domain.Message;
 import com.example.iotcore.dto.MessageDTO;
 import com.example.iotcore.mapper.MessageMapper;
@@ -7,13 +9,23 @@ import com.example.iotcore.repository.MessageRepository;
 import com.example.iotcore.service.MessageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Service Implementation for managing {@link Message}.
@@ -23,21 +35,42 @@ import java.util.Optional;
 @Service
 @Transactional
 public class MessageServiceImpl implements MessageService {
+    // time range of the history queries without explicit start
+    private static final Duration DEFAULT_RANGE = Duration.ofDays(1);
+    private static final Comparator<MessageDTO> ORDER = Comparator.comparing(MessageDTO::getCreatedTimeStamp)
+            .thenComparing(MessageDTO::getId);
+
     private final MessageRepository messageRepository;
 
     private final MessageMapper messageMapper;
 
+    // absent where nothing is archived
+    private final ObjectProvider<MessageArchive> messageArchive;
+
     @Override
     public void saveAll(List<Message> messages) {
 
         messageRepository.saveAll(messages);
     }
 
+    @Override
+    public void insertAll(List<Message> messages) {
+        log.debug("Request to insert {} Messages", messages.size());
+
+        messageRepository.insertAll(messages);
+    }
+
     @Override
     public MessageDTO save(MessageDTO messageDTO) {
         log.debug("Request to save Message : {}", messageDTO);
 
         Message message = messageMapper.toEntity(messageDTO);
+        // the partitioned message table requires one; an update without it keeps the stored one
+        if (message.getCreatedTimeStamp() == null)
+            message.setCreatedTimeStamp(Optional.ofNullable(message.getId())
+                    .flatMap(messageRepository::findById)
+                    .map(Message::getCreatedTimeStamp)
+                    .orElseGet(Instant::now));
         message = messageRepository.save(message);
 
         return messageMapper.toDto(message);
@@ -62,6 +95,71 @@ public class MessageServiceImpl implements MessageService {
         return messageRepository.findAll(pageable).map(messageMapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<MessageDTO> findAllAfter(Instant createdTimeStamp, Long id, int limit) {
+        log.debug("Request to get {} Messages after : {}, {}", limit, createdTimeStamp, id);
+
+        Pageable pageable = PageRequest.of(0, limit);
+        List<Message> messages = createdTimeStamp == null || id == null ?
+                messageRepository.findFirstPage(pageable) :
+                messageRepository.findPageAfter(createdTimeStamp, id, pageable);
+
+        return messageMapper.toDto(messages);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<MessageDTO> findAllByDevice(Long deviceId, Instant from, Instant to, Pageable pageable) {
+        log.debug("Request to get Messages of Device : {} from {} to {}", deviceId, from, to);
+
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(DEFAULT_RANGE) : from;
+
+        MessageArchive archive = messageArchive.getIfAvailable();
+        if (archive == null || !start.isBefore(archive.getHorizon()))
+            return messageRepository.findAllByDeviceBetween(deviceId, start, end, unsorted(pageable));
+
+        try (ArchiveCursor archived = archive.openByDevice(deviceId, start, min(archive.getHorizon(), end))) {
+            return merge(archived, page -> messageRepository.findAllByDeviceBetween(deviceId, start, end, page),
+                    pageable);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<MessageDTO> findAllByTopic(Long topicId, Instant from, Instant to, Pageable pageable) {
+        log.debug("Request to get Messages of Topic : {} from {} to {}", topicId, from, to);
+
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(DEFAULT_RANGE) : from;
+
+        MessageArchive archive = messageArchive.getIfAvailable();
+        if (archive == null || !start.isBefore(archive.getHorizon()))
+            return messageRepository.findAllByTopicBetween(topicId, start, end, unsorted(pageable));
+
+        try (ArchiveCursor archived = archive.openByTopic(topicId, start, min(archive.getHorizon(), end))) {
+            return merge(archived, page -> messageRepository.findAllByTopicBetween(topicId, start, end, page),
+                    pageable);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean existsByDevice(Long deviceId) {
+        log.debug("Request to check for Messages of Device : {}", deviceId);
+
+        return messageRepository.existsByDevice_Id(deviceId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean existsByTopic(Long topicId) {
+        log.debug("Request to check for Messages of Topic : {}", topicId);
+
+        return messageRepository.existsByTopic_Id(topicId);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<MessageDTO> findOne(Long id) {
@@ -76,4 +174,64 @@ public class MessageServiceImpl implements MessageService {
 
         messageRepository.deleteById(id);
     }
+
+    // the history queries have a fixed order matching their index
+    private static Pageable unsorted(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+    }
+
+    /**
+     * Cuts the requested slice out of the archived messages of a range merged with the ones still in the database,
+     * which are the messages after the archive's horizon and those older ones that arrived late or are being archived.
+     * Both are read in order and only up to the message after the slice; the database is asked for as many messages
+     * as the slice ends after, so deep pages cost more than on the plain database path.
+     */
+    private static Slice<MessageDTO> merge(Iterator<MessageDTO> archived, Function<Pageable, Slice<MessageDTO>> stored,
+                                           Pageable pageable) {
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        long end = pageable.isPaged() ? offset + pageable.getPageSize() : Integer.MAX_VALUE - 1L;
+        List<MessageDTO> fromDatabase = stored.apply(pageable.isPaged() ?
+                PageRequest.of(0, (int) Math.min(end + 1, Integer.MAX_VALUE)) : Pageable.unpaged()).getContent();
+        // more messages may follow in the database
+        boolean truncated = pageable.isPaged() && fromDatabase.size() > end;
+
+        List<MessageDTO> content = new ArrayList<>(pageable.isPaged() ? pageable.getPageSize() : 16);
+        MessageDTO nextArchived = archived.hasNext() ? archived.next() : null;
+        int d = 0;
+        long position = 0;
+        Long previousId = null;
+        boolean hasNext = false;
+        while (nextArchived != null || d < fromDatabase.size()) {
+            if (d == fromDatabase.size() && truncated) {
+                hasNext = true;
+                break;
+            }
+
+            MessageDTO next;
+            if (d == fromDatabase.size()
+                    || nextArchived != null && ORDER.compare(nextArchived, fromDatabase.get(d)) <= 0) {
+                next = nextArchived;
+                nextArchived = archived.hasNext() ? archived.next() : null;
+            } else {
+                next = fromDatabase.get(d++);
+            }
+            // a message being archived is in both until it is deleted
+            if (next.getId().equals(previousId))
+                continue;
+
+            previousId = next.getId();
+            if (position == end) {
+                hasNext = true;
+                break;
+            }
+            if (position++ >= offset)
+                content.add(next);
+        }
+
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    private static Instant min(Instant a, Instant b) {
+        return a.isBefore(b) ? a : b;
+    }
 }
@@ -0,0 +1,145 @@
+package com.example.iotcore.service.impl;
+
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.Topic;
+import com.example.iotcore.repository.DeviceRepository;
+import com.example.iotcore.repository.TopicRepository;
+import com.example.iotcore.service.ReferenceResolutionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Service Implementation for resolving the {@link Device} and {@link Topic} a new message refers to.
+ *
+ * <p>
+ * Resolved entities are kept in bounded concurrent maps keyed by the lower-cased mac address and topic name, so a
+ * steady stream of messages from known devices does not query the database at all. Hits only read the map; once a map
+ * is full, arbitrary entries make room. Misses are created on the fly; each repository call runs in its own
+ * transaction, so a concurrent insert of the same device or topic only fails that insert on the unique constraint,
+ * after which the winner is read back.
+ * <p>
+ * The maps are per instance: {@link #evictDevice(Long)} and {@link #evictTopic(Long)} only reach the instance that
+ * changed the entity. Every entry is therefore read again after {@link #TIME_TO_LIVE}, which bounds how long other
+ * instances of a cluster keep using a changed or deleted device or topic.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ReferenceResolutionServiceImpl implements ReferenceResolutionService {
+    // upper bound of the entries per map
+    static final int MAX_ENTRIES = 10_000;
+
+    static final Duration TIME_TO_LIVE = Duration.ofMinutes(5);
+
+    private final DeviceRepository deviceRepository;
+
+    private final TopicRepository topicRepository;
+
+    private final Map<String, Resolved<Device>> devices = new ConcurrentHashMap<>();
+
+    private final Map<String, Resolved<Topic>> topics = new ConcurrentHashMap<>();
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Device resolveDevice(String macAddress) {
+        return resolve(devices, macAddress, deviceRepository::findByMacAddressIgnoreCase, () -> {
+            log.debug("Request to create Device : {}", macAddress);
+
+            return deviceRepository.save(Device.builder().macAddress(macAddress).build());
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Topic resolveTopic(String name) {
+        return resolve(topics, name, topicRepository::findByNameIgnoreCase, () -> {
+            log.debug("Request to create Topic : {}", name);
+
+            return topicRepository.save(Topic.builder().name(name).build());
+        });
+    }
+
+    @Override
+    public void evictDevice(Long id) {
+        log.debug("Request to evict Device : {}", id);
+
+        evict(devices, device -> device.getId().equals(id));
+    }
+
+    @Override
+    public void evictTopic(Long id) {
+        log.debug("Request to evict Topic : {}", id);
+
+        evict(topics, topic -> topic.getId().equals(id));
+    }
+
+    private static <T> T resolve(Map<String, Resolved<T>> cache, String key, Function<String, Optional<T>> finder,
+                                 Supplier<T> creator) {
+        String normalizedKey = key.toLowerCase(Locale.ROOT);
+        long now = System.nanoTime();
+
+        Resolved<T> resolved = cache.get(normalizedKey);
+        if (resolved != null && now - resolved.resolvedAt() < TIME_TO_LIVE.toNanos())
+            return resolved.entity();
+
+        T entity = finder.apply(key).orElseGet(() -> {
+            try {
+                return creator.get();
+            } catch (DataIntegrityViolationException e) {
+                // created concurrently by another writer
+                return finder.apply(key).orElseThrow(() -> e);
+            }
+        });
+        cache.put(normalizedKey, new Resolved<>(entity, now));
+        if (cache.size() > MAX_ENTRIES)
+            evictAny(cache);
+
+        return entity;
+    }
+
+    /**
+     * Evicts right away and, when called in a transaction, once more after it completed, so a concurrent resolve
+     * cannot put back what the transaction is about to change.
+     */
+    private static <T> void evict(Map<String, Resolved<T>> cache, Predicate<T> matcher) {
+        cache.values().removeIf(resolved -> matcher.test(resolved.entity()));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.values().removeIf(resolved -> matcher.test(resolved.entity()));
+                }
+            });
+    }
+
+    private static <T> void evictAny(Map<String, Resolved<T>> cache) {
+        Iterator<String> keys = cache.keySet().iterator();
+        if (keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * An entity and the {@link System#nanoTime()} it was read at.
+     */
+    private record Resolved<T>(T entity, long resolvedAt) {
+    }
+}
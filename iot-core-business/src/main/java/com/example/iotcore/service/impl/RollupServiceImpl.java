@@ -0,0 +1,95 @@
+package com.example.iotcore.service.impl;
+
+import com.example.iotcore.domain.MessageRollup;
+import com.example.iotcore.domain.RollupResolution;
+import com.example.iotcore.dto.MessageRollupDTO;
+import com.example.iotcore.repository.MessageRollupRepository;
+import com.example.iotcore.rollup.RollupAggregator;
+import com.example.iotcore.rollup.RollupSample;
+import com.example.iotcore.service.RollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Service Implementation for managing {@link MessageRollup}.
+ * <p>
+ * The rollups of the stored messages are collected in a {@link RollupAggregator} and added to the
+ * {@code message_rollup} table by {@link #flush()}, so the ingest path does not touch the table per message.
+ * Recording is not transactional; the last collected rollups are flushed when the service is destroyed, which is
+ * after the ingest components using it.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class RollupServiceImpl implements RollupService {
+
+    private final MessageRollupRepository messageRollupRepository;
+
+    private final RollupAggregator rollupAggregator = new RollupAggregator();
+
+    @Override
+    public void recordAll(List<RollupSample> samples) {
+        for (RollupSample sample : samples)
+            rollupAggregator.add(sample);
+    }
+
+    @Override
+    public int flush() {
+        List<MessageRollup> rollups = rollupAggregator.drain();
+        if (rollups.isEmpty())
+            return 0;
+
+        log.debug("Request to store {} MessageRollups", rollups.size());
+        try {
+            messageRollupRepository.upsertAll(rollups);
+        } catch (RuntimeException e) {
+            int dropped = rollupAggregator.restore(rollups);
+            if (dropped > 0)
+                log.warn("Dropped the {} oldest MessageRollups, too many are waiting to be stored", dropped);
+            throw e;
+        }
+
+        return rollups.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<MessageRollupDTO> findAllByDevice(Long deviceId, RollupResolution resolution, Instant from,
+                                                   Instant to, Pageable pageable) {
+        log.debug("Request to get {} MessageRollups of Device : {} from {} to {}", resolution, deviceId, from, to);
+
+        Instant end = to == null ? Instant.now() : to;
+        Instant start = from == null ? end.minus(defaultRange(resolution)) : from;
+
+        return messageRollupRepository.findAllByDeviceBetween(deviceId, resolution, start, end,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Could not store the last {} MessageRollups", rollupAggregator.size(), e);
+        }
+    }
+
+    // time range of the queries without explicit start, about a thousand buckets at most
+    private static Duration defaultRange(RollupResolution resolution) {
+        return switch (resolution) {
+            case MINUTE -> Duration.ofHours(12);
+            case HOUR -> Duration.ofDays(7);
+            case DAY -> Duration.ofDays(90);
+        };
+    }
+}
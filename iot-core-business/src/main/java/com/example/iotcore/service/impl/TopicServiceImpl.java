@@ -4,6 +4,7 @@ import com.example.iotcore.domain.Topic;
 import com.example.iotcore.dto.TopicDTO;
 import com.example.iotcore.mapper.TopicMapper;
 import com.example.iotcore.repository.TopicRepository;
+import com.example.iotcore.service.ReferenceResolutionService;
 import com.example.iotcore.service.TopicService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,10 +27,15 @@ public class TopicServiceImpl implements TopicService {
 
     private final TopicMapper topicMapper;
 
+    private final ReferenceResolutionService referenceResolutionService;
+
     @Override
     public TopicDTO save(TopicDTO topicDTO) {
         log.debug("Request to save Topic : {}", topicDTO);
 
+        if (topicDTO.getId() != null)
+            referenceResolutionService.evictTopic(topicDTO.getId());
+
         Topic topic = topicMapper.toEntity(topicDTO);
         topic = topicRepository.save(topic);
 
@@ -40,6 +46,8 @@ public class TopicServiceImpl implements TopicService {
     public Optional<TopicDTO> partialUpdate(TopicDTO topicDTO) {
         log.debug("Request to partially update Topic : {}", topicDTO);
 
+        referenceResolutionService.evictTopic(topicDTO.getId());
+
         return topicRepository
                 .findById(topicDTO.getId())
                 .map(existingTopic -> {
@@ -81,6 +89,7 @@ public class TopicServiceImpl implements TopicService {
     public void delete(Long id) {
         log.debug("Request to delete Topic : {}", id);
 
+        referenceResolutionService.evictTopic(id);
         topicRepository.deleteById(id);
     }
 }
@@ -4,6 +4,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.TableGenerator;
 
 import javax.persistence.*;
 import java.io.Serial;
@@ -24,8 +29,15 @@ public class Message implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    // ids are allocated in blocks, so Hibernate can batch the inserts (IDENTITY disables JDBC batching)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "messageIdGenerator")
+    @GenericGenerator(name = "messageIdGenerator", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+            @Parameter(name = TableGenerator.TABLE_PARAM, value = "id_generator"),
+            @Parameter(name = TableGenerator.SEGMENT_VALUE_PARAM, value = "message"),
+            @Parameter(name = TableGenerator.INCREMENT_PARAM, value = "1000"),
+            @Parameter(name = TableGenerator.OPT_PARAM, value = "pooled-lo")
+    })
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -35,13 +47,16 @@ public class Message implements Serializable {
     @Column(name = "created_time_stamp")
     private Instant createdTimeStamp;
 
+    // loaded by id rather than joined, so devices and topics come from the second-level cache
     @JoinColumn(name = "device")
     @ManyToOne(targetEntity = Device.class)
+    @Fetch(FetchMode.SELECT)
     private Device device;
 
 
     @JoinColumn(name = "topic")
     @ManyToOne(targetEntity = Topic.class)
+    @Fetch(FetchMode.SELECT)
     private Topic topic;
 }
 
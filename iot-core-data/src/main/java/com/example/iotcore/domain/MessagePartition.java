@@ -0,0 +1,13 @@
+package com.example.iotcore.domain;
+
+import java.time.Instant;
+
+/**
+ * A range partition of the {@code message} table on {@code created_time_stamp}.
+ *
+ * @param name       the name of the partition.
+ * @param upperBound the createdTimeStamp its messages are before, {@code null} for the {@code MAXVALUE} partition.
+ * @param rows       the estimated number of its rows.
+ */
+public record MessagePartition(String name, Instant upperBound, long rows) {
+}
@@ -0,0 +1,48 @@
+package com.example.iotcore.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A MessageRollup: count, min, max, sum and last value of one decoded payload field over a time bucket.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "message_rollup")
+public class MessageRollup implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @EmbeddedId
+    private MessageRollupId id;
+
+    @Column(name = "value_count", nullable = false)
+    private long count;
+
+    @Column(name = "value_min", nullable = false)
+    private double min;
+
+    @Column(name = "value_max", nullable = false)
+    private double max;
+
+    @Column(name = "value_sum", nullable = false)
+    private double sum;
+
+    // the value of the newest message in the bucket
+    @Column(name = "value_last", nullable = false)
+    private double last;
+
+    @Column(name = "last_time_stamp", nullable = false)
+    private Instant lastTimeStamp;
+}
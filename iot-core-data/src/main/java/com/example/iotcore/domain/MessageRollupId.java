@@ -0,0 +1,44 @@
+package com.example.iotcore.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * The key of a {@link MessageRollup}: one metric of a device on a topic in one time bucket.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Embeddable
+public class MessageRollupId implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "device", nullable = false)
+    private Long device;
+
+    @Column(name = "topic", nullable = false)
+    private Long topic;
+
+    @Column(name = "metric", nullable = false)
+    private String metric;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "resolution", nullable = false)
+    private RollupResolution resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+}
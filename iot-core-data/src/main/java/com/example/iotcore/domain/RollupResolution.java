@@ -0,0 +1,26 @@
+package com.example.iotcore.domain;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * The bucket sizes of the {@link MessageRollup}s, in UTC.
+ */
+public enum RollupResolution {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupResolution(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * @return the start of the bucket holding the instant.
+     */
+    public Instant bucketStart(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+}
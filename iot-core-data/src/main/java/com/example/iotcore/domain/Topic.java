@@ -4,6 +4,11 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.TableGenerator;
 
 import javax.persistence.*;
 import java.io.Serial;
@@ -16,13 +21,20 @@ import java.io.Serializable;
 @Builder
 @Entity
 @Table(name = "topic")
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class Topic implements Serializable {
 
     @Serial
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "topicIdGenerator")
+    @GenericGenerator(name = "topicIdGenerator", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+            @Parameter(name = TableGenerator.TABLE_PARAM, value = "id_generator"),
+            @Parameter(name = TableGenerator.SEGMENT_VALUE_PARAM, value = "topic"),
+            @Parameter(name = TableGenerator.INCREMENT_PARAM, value = "50"),
+            @Parameter(name = TableGenerator.OPT_PARAM, value = "pooled-lo")
+    })
     @Column(name = "id", nullable = false)
     private Long id;
 
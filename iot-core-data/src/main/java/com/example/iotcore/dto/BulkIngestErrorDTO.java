@@ -0,0 +1,25 @@
+package com.example.iotcore.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for a message rejected by a bulk message ingest.
+ */
+@Schema(name = "BulkIngestErrorDTO", description = "A DTO for a message rejected by a bulk message ingest.")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkIngestErrorDTO implements Serializable {
+
+    @Schema(description = "Zero based position of the message in the request body.")
+    private long offset;
+
+    private String reason;
+}
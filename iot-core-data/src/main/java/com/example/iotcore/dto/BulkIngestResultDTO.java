@@ -0,0 +1,29 @@
+package com.example.iotcore.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO summarizing a bulk message ingest.
+ */
+@Schema(name = "BulkIngestResultDTO", description = "A DTO summarizing a bulk message ingest.")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkIngestResultDTO implements Serializable {
+
+    private long accepted;
+
+    private long rejected;
+
+    @Builder.Default
+    private List<BulkIngestErrorDTO> errors = new ArrayList<>();
+}
@@ -29,4 +29,12 @@ public class MessageDTO implements Serializable {
     private DeviceDTO device;
 
     private TopicDTO topic;
+
+    /**
+     * Projection of a message row that only carries the ids of its device and topic.
+     */
+    public MessageDTO(Long id, String content, Instant createdTimeStamp, Long deviceId, Long topicId) {
+        this(id, content, createdTimeStamp, DeviceDTO.builder().id(deviceId).build(),
+                TopicDTO.builder().id(topicId).build());
+    }
 }
@@ -0,0 +1,48 @@
+package com.example.iotcore.dto;
+
+import com.example.iotcore.domain.MessageRollup;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO for the {@link MessageRollup} entity.
+ */
+@Schema(name = "MessageRollupDTO", description = "A DTO for the MessageRollup entity.")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MessageRollupDTO implements Serializable {
+
+    private Instant bucketStart;
+
+    private Long topicId;
+
+    private String metric;
+
+    private long count;
+
+    private double min;
+
+    private double max;
+
+    private double sum;
+
+    private double average;
+
+    private double last;
+
+    private Instant lastTimeStamp;
+
+    // projection of the rollup queries
+    public MessageRollupDTO(Instant bucketStart, Long topicId, String metric, long count, double min, double max,
+                            double sum, double last, Instant lastTimeStamp) {
+        this(bucketStart, topicId, metric, count, min, max, sum, count == 0 ? 0 : sum / count, last, lastTimeStamp);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.iotcore.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO for a message served from the in-memory recent message cache.
+ */
+@Schema(name = "RecentMessageDTO", description = "A DTO for a recently received message.")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RecentMessageDTO implements Serializable {
+
+    private String content;
+
+    private String macAddress;
+
+    private Instant createdTimeStamp;
+}
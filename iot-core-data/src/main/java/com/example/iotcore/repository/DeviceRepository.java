@@ -2,14 +2,20 @@ package com.example.iotcore.repository;
 
 import com.example.iotcore.domain.Device;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 /**
  * Spring Data SQL repository for the Device entity.
  */
 @Repository
 public interface DeviceRepository extends JpaRepository<Device, Long> {
+    // in the query cache, which Hibernate invalidates on every change of the device table
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Device> findByMacAddressIgnoreCase(String macAddress);
-}
\ No newline at end of file
+}
@@ -1,13 +1,132 @@
 package com.example.iotcore.repository;
 
 import com.example.iotcore.domain.Message;
+import com.example.iotcore.dto.MessageDTO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+
 /**
  * Spring Data SQL repository for the Message entity.
  */
 @Repository
-public interface MessageRepository extends JpaRepository<Message, Long> {
-}
+public interface MessageRepository extends JpaRepository<Message, Long>, MessageRepositoryCustom {
+
+    /**
+     * First page of the keyset pagination, ordered by {@code (createdTimeStamp, id)}.
+     *
+     * @param pageable the page size, its page number and sort are ignored.
+     * @return the oldest messages.
+     */
+    @EntityGraph(attributePaths = {"device", "topic"})
+    @Query("select m from Message m where m.createdTimeStamp is not null order by m.createdTimeStamp, m.id")
+    List<Message> findFirstPage(Pageable pageable);
+
+    /**
+     * Next page of the keyset pagination: seeks to the given position on the {@code (created_time_stamp, id)}
+     * index instead of scanning the skipped rows like an offset does.
+     *
+     * @param createdTimeStamp the createdTimeStamp of the last message of the previous page.
+     * @param id               the id of the last message of the previous page.
+     * @param pageable         the page size, its page number and sort are ignored.
+     * @return the messages following the given one.
+     */
+    @EntityGraph(attributePaths = {"device", "topic"})
+    @Query("select m from Message m where m.createdTimeStamp > :createdTimeStamp " +
+            "or (m.createdTimeStamp = :createdTimeStamp and m.id > :id) order by m.createdTimeStamp, m.id")
+    List<Message> findPageAfter(@Param("createdTimeStamp") Instant createdTimeStamp, @Param("id") Long id,
+                                Pageable pageable);
+
+    /**
+     * Messages of a device in {@code [from, to)}, oldest first, read from the {@code (device, created_time_stamp)}
+     * index. Only the foreign keys are selected, the device and topic are not loaded.
+     *
+     * @param deviceId the id of the device.
+     * @param from     the first createdTimeStamp, inclusive.
+     * @param to       the last createdTimeStamp, exclusive.
+     * @param pageable the page, its sort is ignored.
+     * @return the slice of messages, without total count.
+     */
+    @Query("select new com.example.iotcore.dto.MessageDTO(m.id, m.content, m.createdTimeStamp, m.device.id, " +
+            "m.topic.id) from Message m where m.device.id = :deviceId and m.createdTimeStamp >= :from " +
+            "and m.createdTimeStamp < :to order by m.createdTimeStamp, m.id")
+    Slice<MessageDTO> findAllByDeviceBetween(@Param("deviceId") Long deviceId, @Param("from") Instant from,
+                                             @Param("to") Instant to, Pageable pageable);
+
+    /**
+     * Messages of a topic in {@code [from, to)}, oldest first, read from the {@code (topic, created_time_stamp)}
+     * index. Only the foreign keys are selected, the device and topic are not loaded.
+     *
+     * @param topicId  the id of the topic.
+     * @param from     the first createdTimeStamp, inclusive.
+     * @param to       the last createdTimeStamp, exclusive.
+     * @param pageable the page, its sort is ignored.
+     * @return the slice of messages, without total count.
+     */
+    @Query("select new com.example.iotcore.dto.MessageDTO(m.id, m.content, m.createdTimeStamp, m.device.id, " +
+            "m.topic.id) from Message m where m.topic.id = :topicId and m.createdTimeStamp >= :from " +
+            "and m.createdTimeStamp < :to order by m.createdTimeStamp, m.id")
+    Slice<MessageDTO> findAllByTopicBetween(@Param("topicId") Long topicId, @Param("from") Instant from,
+                                            @Param("to") Instant to, Pageable pageable);
 
+    /**
+     * @return whether messages in the table reference the device, which the partitioned table has no foreign key for.
+     */
+    boolean existsByDevice_Id(Long deviceId);
+
+    /**
+     * @return whether messages in the table reference the topic, which the partitioned table has no foreign key for.
+     */
+    boolean existsByTopic_Id(Long topicId);
+
+    /**
+     * @return the createdTimeStamp of the oldest message, read from the {@code (created_time_stamp, id)} index.
+     */
+    @Query("select min(m.createdTimeStamp) from Message m")
+    Instant findOldestCreatedTimeStamp();
+
+    /**
+     * @param from the first createdTimeStamp, inclusive.
+     * @param to   the last createdTimeStamp, exclusive.
+     * @return the ids of the topics with messages in {@code [from, to)}.
+     */
+    @Query("select distinct m.topic.id from Message m where m.createdTimeStamp >= :from and m.createdTimeStamp < :to " +
+            "and m.topic is not null")
+    List<Long> findTopicIdsBetween(@Param("from") Instant from, @Param("to") Instant to);
+
+    /**
+     * Keyset page of the messages of a topic in {@code [from, to)}, following the given position, e.g. to move
+     * them to the archive without loading them all at once.
+     *
+     * @param topicId          the id of the topic.
+     * @param from             the first createdTimeStamp, inclusive.
+     * @param to               the last createdTimeStamp, exclusive.
+     * @param createdTimeStamp the createdTimeStamp of the last message of the previous page, {@code from} at first.
+     * @param id               the id of the last message of the previous page, -1 at first.
+     * @param pageable         the page size, its page number and sort are ignored.
+     * @return the messages, only with the ids of their device and topic.
+     */
+    @Query("select new com.example.iotcore.dto.MessageDTO(m.id, m.content, m.createdTimeStamp, m.device.id, " +
+            "m.topic.id) from Message m where m.topic.id = :topicId and m.createdTimeStamp >= :from " +
+            "and m.createdTimeStamp < :to and (m.createdTimeStamp > :createdTimeStamp " +
+            "or (m.createdTimeStamp = :createdTimeStamp and m.id > :id)) order by m.createdTimeStamp, m.id")
+    List<MessageDTO> findAllByTopicBetweenAfter(@Param("topicId") Long topicId, @Param("from") Instant from,
+                                                @Param("to") Instant to,
+                                                @Param("createdTimeStamp") Instant createdTimeStamp,
+                                                @Param("id") Long id, Pageable pageable);
+
+    /**
+     * @param cutoff   the createdTimeStamp the messages are before.
+     * @param pageable the chunk size, its page number and sort are ignored.
+     * @return the ids of the oldest messages before the cutoff, read from the {@code (created_time_stamp, id)} index.
+     */
+    @Query("select m.id from Message m where m.createdTimeStamp < :cutoff order by m.createdTimeStamp, m.id")
+    List<Long> findIdsCreatedBefore(@Param("cutoff") Instant cutoff, Pageable pageable);
+}
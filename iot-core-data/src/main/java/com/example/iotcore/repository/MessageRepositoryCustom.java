@@ -0,0 +1,42 @@
+package com.example.iotcore.repository;
+
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.domain.MessagePartition;
+
+import java.util.List;
+
+/**
+ * Bulk operations of the {@link MessageRepository} that bypass the persistence context, and the management of the
+ * range partitions of the {@code message} table on MySQL.
+ */
+public interface MessageRepositoryCustom {
+
+    /**
+     * Inserts new messages with plain JDBC batches of {@code hibernate.jdbc.batch_size} rows. Ids come from the
+     * entity's generator, so they never collide with the ones {@code save} hands out, but the messages are neither
+     * managed nor cached afterwards; meant for bulk loads that do not read back what they store.
+     *
+     * @param messages the entities to insert, their ids are set.
+     */
+    void insertAll(List<Message> messages);
+
+    /**
+     * @return the partitions of the {@code message} table, oldest first; empty if it is not partitioned or the
+     * database is no MySQL.
+     */
+    List<MessagePartition> findPartitions();
+
+    /**
+     * Drops whole partitions with their messages, without deleting row by row.
+     *
+     * @param names the names of the partitions.
+     */
+    void dropPartitions(List<String> names);
+
+    /**
+     * Adds partitions after the last bounded one; a {@code MAXVALUE} partition is split so it stays the last one.
+     *
+     * @param partitions the new partitions, with ascending upper bounds.
+     */
+    void addPartitions(List<MessagePartition> partitions);
+}
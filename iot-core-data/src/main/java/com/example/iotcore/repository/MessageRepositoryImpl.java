@@ -0,0 +1,163 @@
+package com.example.iotcore.repository;
+
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.domain.MessagePartition;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.type.InstantType;
+import org.hibernate.type.StringType;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC implementation of {@link MessageRepositoryCustom}, running on the connection of the current transaction.
+ * <p>
+ * Partition bounds are datetimes in UTC, as {@code hibernate.jdbc.time_zone} stores the timestamps.
+ */
+public class MessageRepositoryImpl implements MessageRepositoryCustom {
+    private static final String INSERT =
+            "insert into message (id, content, created_time_stamp, device, topic) values (?, ?, ?, ?, ?)";
+    private static final int DEFAULT_BATCH_SIZE = 1_000;
+    private static final String FIND_PARTITIONS = "select partition_name, partition_description, table_rows " +
+            "from information_schema.partitions where table_schema = database() and table_name = 'message' " +
+            "and partition_name is not null order by partition_ordinal_position";
+    private static final String MAXVALUE = "MAXVALUE";
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertAll(List<Message> messages) {
+        if (messages.isEmpty())
+            return;
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        IdentifierGenerator idGenerator = session.getFactory().getMetamodel().entityPersister(Message.class)
+                .getIdentifierGenerator();
+        int configuredBatchSize = session.getFactory().getSessionFactoryOptions().getJdbcBatchSize();
+        int batchSize = configuredBatchSize > 0 ? configuredBatchSize : DEFAULT_BATCH_SIZE;
+
+        // the pooled-lo generator only touches the database once per block of ids
+        for (Message message : messages)
+            message.setId((Long) idGenerator.generate(session, message));
+
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+                int batched = 0;
+                for (Message message : messages) {
+                    bind(statement, message, session);
+                    statement.addBatch();
+                    if (++batched == batchSize) {
+                        statement.executeBatch();
+                        batched = 0;
+                    }
+                }
+                if (batched > 0)
+                    statement.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public List<MessagePartition> findPartitions() {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        if (!(session.getJdbcServices().getDialect() instanceof MySQLDialect))
+            return List.of();
+
+        return session.doReturningWork(connection -> {
+            List<MessagePartition> partitions = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(FIND_PARTITIONS)) {
+                while (resultSet.next())
+                    partitions.add(new MessagePartition(resultSet.getString(1), parseBound(resultSet.getString(2)),
+                            resultSet.getLong(3)));
+            }
+
+            return partitions;
+        });
+    }
+
+    @Override
+    @Transactional
+    public void dropPartitions(List<String> names) {
+        if (names.isEmpty())
+            return;
+
+        execute("alter table message drop partition " + String.join(", ", names));
+    }
+
+    @Override
+    @Transactional
+    public void addPartitions(List<MessagePartition> partitions) {
+        if (partitions.isEmpty())
+            return;
+
+        List<MessagePartition> existing = findPartitions();
+        String definitions = partitions.stream()
+                .map(partition -> definition(partition.name(), formatBound(partition.upperBound())))
+                .collect(Collectors.joining(", "));
+        MessagePartition last = existing.isEmpty() ? null : existing.get(existing.size() - 1);
+        if (last != null && last.upperBound() == null)
+            execute("alter table message reorganize partition " + last.name() + " into (" + definitions + ", " +
+                    definition(last.name(), MAXVALUE) + ")");
+        else
+            execute("alter table message add partition (" + definitions + ")");
+    }
+
+    private void execute(String ddl) {
+        entityManager.unwrap(SessionImplementor.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(ddl);
+            }
+        });
+    }
+
+    private static String definition(String name, String bound) {
+        return "partition " + name + " values less than (" + bound + ")";
+    }
+
+    private static Instant parseBound(String description) {
+        String bound = description.replace("'", "");
+
+        return MAXVALUE.equalsIgnoreCase(bound) ? null :
+                LocalDateTime.parse(bound, BOUND_FORMAT).toInstant(ZoneOffset.UTC);
+    }
+
+    private static String formatBound(Instant bound) {
+        return "'" + BOUND_FORMAT.format(LocalDateTime.ofInstant(bound, ZoneOffset.UTC)) + "'";
+    }
+
+    private static void bind(PreparedStatement statement, Message message, SessionImplementor session)
+            throws SQLException {
+        statement.setLong(1, message.getId());
+        // Hibernate's types, for the timestamp to honour hibernate.jdbc.time_zone like the entity inserts do
+        StringType.INSTANCE.nullSafeSet(statement, message.getContent(), 2, session);
+        InstantType.INSTANCE.nullSafeSet(statement, message.getCreatedTimeStamp(), 3, session);
+        setId(statement, 4, message.getDevice() == null ? null : message.getDevice().getId());
+        setId(statement, 5, message.getTopic() == null ? null : message.getTopic().getId());
+    }
+
+    private static void setId(PreparedStatement statement, int index, Long id) throws SQLException {
+        if (id == null)
+            statement.setNull(index, Types.BIGINT);
+        else
+            statement.setLong(index, id);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.iotcore.repository;
+
+import com.example.iotcore.domain.MessageRollup;
+import com.example.iotcore.domain.MessageRollupId;
+import com.example.iotcore.domain.RollupResolution;
+import com.example.iotcore.dto.MessageRollupDTO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+/**
+ * Spring Data SQL repository for the MessageRollup entity.
+ */
+@Repository
+public interface MessageRollupRepository extends JpaRepository<MessageRollup, MessageRollupId>,
+        MessageRollupRepositoryCustom {
+
+    /**
+     * Rollups of a device at one resolution, read along the primary key.
+     *
+     * @param deviceId   the id of the device.
+     * @param resolution the bucket size.
+     * @param from       the first bucket start, inclusive.
+     * @param to         the last bucket start, exclusive.
+     * @param pageable   the pagination information, its sort is ignored.
+     * @return the rollups ordered by bucket start, topic and metric.
+     */
+    @Query("select new com.example.iotcore.dto.MessageRollupDTO(r.id.bucketStart, r.id.topic, r.id.metric, " +
+            "r.count, r.min, r.max, r.sum, r.last, r.lastTimeStamp) from MessageRollup r " +
+            "where r.id.device = :deviceId and r.id.resolution = :resolution and r.id.bucketStart >= :from " +
+            "and r.id.bucketStart < :to order by r.id.bucketStart, r.id.topic, r.id.metric")
+    Slice<MessageRollupDTO> findAllByDeviceBetween(@Param("deviceId") Long deviceId,
+                                                   @Param("resolution") RollupResolution resolution,
+                                                   @Param("from") Instant from, @Param("to") Instant to,
+                                                   Pageable pageable);
+}
@@ -0,0 +1,20 @@
+package com.example.iotcore.repository;
+
+import com.example.iotcore.domain.MessageRollup;
+
+import java.util.List;
+
+/**
+ * Bulk operations of the {@link MessageRollupRepository} that bypass the persistence context.
+ */
+public interface MessageRollupRepositoryCustom {
+
+    /**
+     * Adds partial rollups to the stored ones with JDBC batches of insert-or-update statements: counts and sums are
+     * added up, min and max combined and the last value kept from the newer of both. Safe against concurrent
+     * upserts of the same buckets, e.g. by other instances.
+     *
+     * @param rollups the aggregates of the values received since the last upsert.
+     */
+    void upsertAll(List<MessageRollup> rollups);
+}
@@ -0,0 +1,78 @@
+package com.example.iotcore.repository;
+
+import com.example.iotcore.domain.MessageRollup;
+import com.example.iotcore.domain.MessageRollupId;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.type.InstantType;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link MessageRollupRepositoryCustom}.
+ */
+public class MessageRollupRepositoryImpl implements MessageRollupRepositoryCustom {
+    // the last value is updated before last_time_stamp, as MySQL sees the new values of columns assigned earlier
+    private static final String UPSERT = "insert into message_rollup (device, topic, metric, resolution, " +
+            "bucket_start, value_count, value_min, value_max, value_sum, value_last, last_time_stamp) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) on duplicate key update " +
+            "value_last = case when values(last_time_stamp) >= last_time_stamp then values(value_last) " +
+            "else value_last end, " +
+            "last_time_stamp = greatest(last_time_stamp, values(last_time_stamp)), " +
+            "value_count = value_count + values(value_count), " +
+            "value_min = least(value_min, values(value_min)), " +
+            "value_max = greatest(value_max, values(value_max)), " +
+            "value_sum = value_sum + values(value_sum)";
+    private static final int DEFAULT_BATCH_SIZE = 1_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void upsertAll(List<MessageRollup> rollups) {
+        if (rollups.isEmpty())
+            return;
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        int configuredBatchSize = session.getFactory().getSessionFactoryOptions().getJdbcBatchSize();
+        int batchSize = configuredBatchSize > 0 ? configuredBatchSize : DEFAULT_BATCH_SIZE;
+
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT)) {
+                int batched = 0;
+                for (MessageRollup rollup : rollups) {
+                    bind(statement, rollup, session);
+                    statement.addBatch();
+                    if (++batched == batchSize) {
+                        statement.executeBatch();
+                        batched = 0;
+                    }
+                }
+                if (batched > 0)
+                    statement.executeBatch();
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement statement, MessageRollup rollup, SessionImplementor session)
+            throws SQLException {
+        MessageRollupId id = rollup.getId();
+        statement.setLong(1, id.getDevice());
+        statement.setLong(2, id.getTopic());
+        statement.setString(3, id.getMetric());
+        statement.setString(4, id.getResolution().name());
+        // Hibernate's type, for the timestamps to honour hibernate.jdbc.time_zone like the entity queries do
+        InstantType.INSTANCE.nullSafeSet(statement, id.getBucketStart(), 5, session);
+        statement.setLong(6, rollup.getCount());
+        statement.setDouble(7, rollup.getMin());
+        statement.setDouble(8, rollup.getMax());
+        statement.setDouble(9, rollup.getSum());
+        statement.setDouble(10, rollup.getLast());
+        InstantType.INSTANCE.nullSafeSet(statement, rollup.getLastTimeStamp(), 11, session);
+    }
+}
@@ -2,15 +2,20 @@ package com.example.iotcore.repository;
 
 import com.example.iotcore.domain.Topic;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 /**
  * Spring Data SQL repository for the Topic entity.
  */
 @Repository
 public interface TopicRepository extends JpaRepository<Topic, Long> {
+    // in the query cache, which Hibernate invalidates on every change of the topic table
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Topic> findByNameIgnoreCase(String name);
 }
-
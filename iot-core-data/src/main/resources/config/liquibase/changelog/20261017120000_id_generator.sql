@@ -0,0 +1,31 @@
+-- liquibase formatted sql
+
+-- changeset iotcore:1792238400000-1
+CREATE TABLE id_generator
+(
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val      BIGINT       NULL,
+    CONSTRAINT PK_ID_GENERATOR PRIMARY KEY (sequence_name)
+);
+
+-- changeset iotcore:1792238400000-2
+-- next_val is the first id of the next block handed out by the pooled-lo optimizer
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'device', COALESCE(MAX(id), 0) + 1
+FROM device;
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'topic', COALESCE(MAX(id), 0) + 1
+FROM topic;
+INSERT INTO id_generator (sequence_name, next_val)
+SELECT 'message', COALESCE(MAX(id), 0) + 1
+FROM message;
+
+-- changeset iotcore:1792238400000-3 dbms:mysql
+-- ids are only handed out by id_generator from now on; an insert without id would otherwise take one from the
+-- AUTO_INCREMENT counter that a block of id_generator may already contain. MySQL only lets the columns referenced by
+-- the message foreign keys be modified without checks.
+SET FOREIGN_KEY_CHECKS = 0;
+ALTER TABLE device MODIFY id BIGINT NOT NULL;
+ALTER TABLE topic MODIFY id BIGINT NOT NULL;
+ALTER TABLE message MODIFY id BIGINT NOT NULL;
+SET FOREIGN_KEY_CHECKS = 1;
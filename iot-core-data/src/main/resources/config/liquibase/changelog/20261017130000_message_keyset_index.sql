@@ -0,0 +1,4 @@
+-- liquibase formatted sql
+
+-- changeset iotcore:1792242000000-1
+CREATE INDEX idx_message_created_time_stamp_id ON message (created_time_stamp, id);
@@ -0,0 +1,10 @@
+-- liquibase formatted sql
+
+-- changeset iotcore:1792245600000-1
+CREATE INDEX idx_message_device_created_time_stamp ON message (device, created_time_stamp);
+CREATE INDEX idx_message_topic_created_time_stamp ON message (topic, created_time_stamp);
+
+-- changeset iotcore:1792245600000-2 dbms:mysql
+-- the composite indexes start with the foreign key columns and replace the single column ones
+DROP INDEX FK2uicl69t7fd5s804dh9atq1rr ON message;
+DROP INDEX FKidr9y3v3kvdc5ym5a0t5koabn ON message;
@@ -0,0 +1,25 @@
+-- liquibase formatted sql
+
+-- changeset iotcore:1792249200000-1
+-- the key starts with device and resolution, the columns the rollup queries filter on, followed by the bucket
+CREATE TABLE message_rollup
+(
+    device          BIGINT      NOT NULL,
+    resolution      VARCHAR(8)  NOT NULL,
+    bucket_start    datetime    NOT NULL,
+    topic           BIGINT      NOT NULL,
+    metric          VARCHAR(64) NOT NULL,
+    value_count     BIGINT      NOT NULL,
+    value_min       DOUBLE      NOT NULL,
+    value_max       DOUBLE      NOT NULL,
+    value_sum       DOUBLE      NOT NULL,
+    value_last      DOUBLE      NOT NULL,
+    last_time_stamp datetime    NOT NULL,
+    CONSTRAINT PK_MESSAGE_ROLLUP PRIMARY KEY (device, resolution, bucket_start, topic, metric)
+);
+
+-- changeset iotcore:1792249200000-2
+ALTER TABLE message_rollup
+    ADD CONSTRAINT FK_MESSAGE_ROLLUP_DEVICE FOREIGN KEY (device) REFERENCES device (id) ON UPDATE RESTRICT ON DELETE RESTRICT;
+ALTER TABLE message_rollup
+    ADD CONSTRAINT FK_MESSAGE_ROLLUP_TOPIC FOREIGN KEY (topic) REFERENCES topic (id) ON UPDATE RESTRICT ON DELETE RESTRICT;
@@ -0,0 +1,38 @@
+-- liquibase formatted sql
+
+-- changeset iotcore:1792252800000-1 dbms:mysql
+-- partitioned InnoDB tables support no foreign keys, and every unique key has to include the partition column
+ALTER TABLE message DROP FOREIGN KEY FK2uicl69t7fd5s804dh9atq1rr;
+ALTER TABLE message DROP FOREIGN KEY FKidr9y3v3kvdc5ym5a0t5koabn;
+-- messages without timestamp get the one of the message stored before them, ids grow with the inserts; an epoch
+-- default would expire them at once and have the archive walk every day since 1970
+CREATE TEMPORARY TABLE message_time_stamp_backfill AS
+SELECT m.id, (SELECT MAX(p.created_time_stamp) FROM message p WHERE p.id < m.id) AS created_time_stamp
+FROM message m
+WHERE m.created_time_stamp IS NULL;
+UPDATE message m JOIN message_time_stamp_backfill b ON b.id = m.id
+SET m.created_time_stamp = COALESCE(b.created_time_stamp, NOW());
+DROP TEMPORARY TABLE message_time_stamp_backfill;
+ALTER TABLE message MODIFY created_time_stamp datetime NOT NULL;
+ALTER TABLE message DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_time_stamp);
+
+-- changeset iotcore:1792252800000-2 dbms:mysql
+-- the stored messages are split into monthly partitions from the month of the oldest one up to the current month, so
+-- retention drops them month by month; the retention job adds the following partitions ahead of time and splits
+-- them off p_future, which stays empty
+SET SESSION group_concat_max_len = 1048576;
+WITH RECURSIVE months (lower_bound) AS (
+    SELECT CAST(DATE_FORMAT(COALESCE(MIN(created_time_stamp), NOW()), '%Y-%m-01') AS DATE) FROM message
+    UNION ALL
+    SELECT lower_bound + INTERVAL 1 MONTH FROM months WHERE lower_bound + INTERVAL 1 MONTH <= NOW()
+)
+SELECT CONCAT('ALTER TABLE message PARTITION BY RANGE COLUMNS (created_time_stamp) (',
+              GROUP_CONCAT(CONCAT('PARTITION p', DATE_FORMAT(lower_bound, '%Y%m%d'), ' VALUES LESS THAN (''',
+                                  DATE_FORMAT(lower_bound + INTERVAL 1 MONTH, '%Y-%m-%d 00:00:00'), ''')')
+                           ORDER BY lower_bound SEPARATOR ', '),
+              ', PARTITION p_future VALUES LESS THAN (MAXVALUE))')
+INTO @partition_message
+FROM months;
+PREPARE partition_message FROM @partition_message;
+EXECUTE partition_message;
+DEALLOCATE PREPARE partition_message;
@@ -0,0 +1,49 @@
+package com.example.iotcore.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageRollupTest {
+    MessageRollup messageRollup1;
+    MessageRollup messageRollup2;
+
+    @BeforeEach
+    void setup() {
+        messageRollup1 = new MessageRollup();
+        messageRollup2 = new MessageRollup();
+    }
+
+    @Test
+    void equalMessageRollups() {
+        messageRollup1.setId(id(RollupResolution.MINUTE));
+        messageRollup2.setId(id(RollupResolution.MINUTE));
+
+        assertThat(messageRollup1).isEqualTo(messageRollup2);
+    }
+
+    @Test
+    void unequalMessageRollups() {
+        messageRollup1.setId(id(RollupResolution.MINUTE));
+        messageRollup2.setId(id(RollupResolution.HOUR));
+        assertThat(messageRollup1).isNotEqualTo(messageRollup2);
+        messageRollup1.setId(null);
+        assertThat(messageRollup1).isNotEqualTo(messageRollup2);
+    }
+
+    @Test
+    void bucketStarts() {
+        Instant instant = Instant.parse("2026-10-17T11:43:47.123Z");
+
+        assertThat(RollupResolution.MINUTE.bucketStart(instant)).isEqualTo(Instant.parse("2026-10-17T11:43:00Z"));
+        assertThat(RollupResolution.HOUR.bucketStart(instant)).isEqualTo(Instant.parse("2026-10-17T11:00:00Z"));
+        assertThat(RollupResolution.DAY.bucketStart(instant)).isEqualTo(Instant.parse("2026-10-17T00:00:00Z"));
+    }
+
+    private static MessageRollupId id(RollupResolution resolution) {
+        return new MessageRollupId(1L, 2L, "BPM", resolution, Instant.parse("2026-10-17T11:00:00Z"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.iotcore.dto;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageRollupDTOTest {
+    MessageRollupDTO messageRollupDTO1;
+    MessageRollupDTO messageRollupDTO2;
+
+    @BeforeEach
+    void setup() {
+        messageRollupDTO1 = new MessageRollupDTO();
+        messageRollupDTO2 = new MessageRollupDTO();
+    }
+
+    @Test
+    void equalMessageRollupDTOs() {
+        messageRollupDTO1.setMetric("BPM");
+        messageRollupDTO2.setMetric(messageRollupDTO1.getMetric());
+
+        assertThat(messageRollupDTO1).isEqualTo(messageRollupDTO2);
+    }
+
+    @Test
+    void unequalMessageRollupDTOs() {
+        messageRollupDTO1.setMetric("BPM");
+        messageRollupDTO2.setMetric("SpO2");
+        assertThat(messageRollupDTO1).isNotEqualTo(messageRollupDTO2);
+        messageRollupDTO1.setMetric(null);
+        assertThat(messageRollupDTO1).isNotEqualTo(messageRollupDTO2);
+    }
+
+    @Test
+    void averageOfTheProjection() {
+        Instant bucketStart = Instant.parse("2026-10-17T11:00:00Z");
+
+        MessageRollupDTO messageRollupDTO = new MessageRollupDTO(bucketStart, 2L, "BPM", 4, 60, 90, 300, 75,
+                bucketStart.plusSeconds(59));
+
+        assertThat(messageRollupDTO.getAverage()).isEqualTo(75);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.iotcore.config;
+
+import com.example.iotcore.archive.MessageArchive;
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.service.MessageArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * The {@link MessageArchive} of the old messages. It is read by the history queries whether or not archiving is
+ * enabled, so messages archived earlier stay visible; with {@code application.archive.enabled} the days older than
+ * {@code application.archive.archive-after-days} are moved into it on the {@code application.archive.cron} schedule.
+ */
+@RequiredArgsConstructor
+@Configuration
+public class ArchiveConfiguration {
+
+    private final ApplicationProperties applicationProperties;
+
+    @Bean
+    public MessageArchive messageArchive() {
+        ApplicationProperties.Archive archive = applicationProperties.getArchive();
+
+        return new MessageArchive(Path.of(archive.getDirectory()), archive.getBlockRows(),
+                archive.getCompressionLevel());
+    }
+
+    @Slf4j
+    @RequiredArgsConstructor
+    @Configuration
+    @ConditionalOnProperty(prefix = "application.archive", name = "enabled", havingValue = "true")
+    public static class ArchiveJobConfiguration {
+
+        private final ApplicationProperties applicationProperties;
+
+        private final MessageArchiveService messageArchiveService;
+
+        @Scheduled(cron = "${application.archive.cron}")
+        public void archiveOldMessages() {
+            LocalDate day = LocalDate.now(ZoneOffset.UTC)
+                    .minusDays(applicationProperties.getArchive().getArchiveAfterDays());
+            log.debug("Archiving the Messages before {}", day);
+            messageArchiveService.archiveBefore(day);
+        }
+    }
+}
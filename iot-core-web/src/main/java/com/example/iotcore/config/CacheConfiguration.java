@@ -1,34 +1,79 @@
 package com.example.iotcore.config;
 
 import com.example.iotcore.config.property.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheEventListenerConfigurationBuilder;
 import org.ehcache.config.builders.ExpiryPolicyBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.event.CacheEvent;
+import org.ehcache.event.CacheEventListener;
+import org.ehcache.event.EventType;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
 import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import javax.cache.Caching;
+import java.io.File;
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * The JCache caches of Spring and of the Hibernate second-level cache, backed by Ehcache.
+ * <p>
+ * Every cache gets the tiers, sizes and expiry of its entry in {@code application.ehcache.caches}, or a heap tier of
+ * {@code application.ehcache.max-entries} expiring after {@code application.ehcache.time-to-live-seconds}. Caches
+ * record their JCache statistics, which Spring Boot publishes as the {@code cache.gets}, {@code cache.puts} and
+ * {@code cache.evictions} meters, and their number of entries is published as {@code cache.size}.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfiguration {
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    // the last change of every table; an expired entry would let query results older than the change pass as fresh
+    private static final ApplicationProperties.Ehcache.Cache UPDATE_TIMESTAMPS = new ApplicationProperties.Ehcache.Cache();
+
+    static {
+        UPDATE_TIMESTAMPS.setHeapEntries(1_000L);
+        UPDATE_TIMESTAMPS.setTimeToLiveSeconds(0);
+    }
+
+    private final ApplicationProperties.Ehcache ehcache;
+
+    private final Map<String, LongAdder> sizes = new ConcurrentHashMap<>();
 
     public CacheConfiguration(ApplicationProperties applicationProperties) {
-        ApplicationProperties.Ehcache ehcache = applicationProperties.getEhcache();
+        this.ehcache = applicationProperties.getEhcache();
+    }
 
-        jcacheConfiguration =
-                Eh107Configuration.fromEhcacheCacheConfiguration(
-                        CacheConfigurationBuilder
-                                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
-                                .build()
-                );
+    @Bean
+    public javax.cache.CacheManager jCacheCacheManager(ObjectProvider<JCacheManagerCustomizer> customizers) {
+        EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // the persistence service locks its directory, it is only set up for caches with a disk tier
+        DefaultConfiguration configuration = ehcache.getCaches().values().stream()
+                .anyMatch(cache -> cache.getDiskMegabytes() > 0)
+                ? new DefaultConfiguration(provider.getDefaultClassLoader(),
+                new DefaultPersistenceConfiguration(new File(ehcache.getDiskDirectory())))
+                : new DefaultConfiguration(provider.getDefaultClassLoader());
+
+        javax.cache.CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), configuration);
+        customizers.orderedStream().forEach(customizer -> customizer.customize(cacheManager));
+
+        return cacheManager;
     }
 
     @Bean
@@ -44,12 +89,81 @@ public class CacheConfiguration {
             createCache(cm, com.example.iotcore.security.domain.User.class.getName());
             createCache(cm, com.example.iotcore.security.domain.Authority.class.getName());
             createCache(cm, com.example.iotcore.security.domain.User.class.getName() + ".authorities");
+            createCache(cm, com.example.iotcore.security.jwt.TokenProvider.AUTHENTICATIONS_CACHE);
+            createCache(cm, com.example.iotcore.domain.Device.class.getName());
+            createCache(cm, com.example.iotcore.domain.Topic.class.getName());
+            createCache(cm, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+            createCache(cm, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME);
         };
     }
 
+    @Bean
+    public MeterBinder cacheSizeMetrics() {
+        return registry -> sizes.forEach((cacheName, size) -> Gauge.builder("cache.size", size, LongAdder::sum)
+                .tags("cache", cacheName, "cacheManager", "cacheManager")
+                .description("The number of entries in this cache")
+                .register(registry));
+    }
+
     private void createCache(javax.cache.CacheManager cm, String cacheName) {
+        LongAdder size = sizes.computeIfAbsent(cacheName, name -> new LongAdder());
         javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
-        if (cache != null) cache.clear();
-        else cm.createCache(cacheName, jcacheConfiguration);
+        if (cache != null) {
+            cache.clear();
+            size.reset();
+        } else {
+            cm.createCache(cacheName, Eh107Configuration.fromEhcacheCacheConfiguration(
+                    cacheConfiguration(cacheName, size)));
+        }
+        cm.enableStatistics(cacheName, true);
+    }
+
+    private CacheConfigurationBuilder<Object, Object> cacheConfiguration(String cacheName, LongAdder size) {
+        ApplicationProperties.Ehcache.Cache cache = ehcache.getCaches().get(cacheName);
+        if (cache == null)
+            cache = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME.equals(cacheName)
+                    ? UPDATE_TIMESTAMPS : new ApplicationProperties.Ehcache.Cache();
+
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.heap(
+                cache.getHeapEntries() == null ? ehcache.getMaxEntries() : cache.getHeapEntries());
+        if (cache.getOffHeapMegabytes() > 0)
+            resourcePools = resourcePools.offheap(cache.getOffHeapMegabytes(), MemoryUnit.MB);
+        if (cache.getDiskMegabytes() > 0)
+            resourcePools = resourcePools.disk(cache.getDiskMegabytes(), MemoryUnit.MB, cache.isPersistent());
+
+        return CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, resourcePools)
+                .withExpiry(expiry(cache))
+                .withService(CacheEventListenerConfigurationBuilder
+                        .newEventListenerConfiguration(new SizeListener(size),
+                                EventType.CREATED, EventType.REMOVED, EventType.EVICTED, EventType.EXPIRED)
+                        .unordered()
+                        .asynchronous());
+    }
+
+    private ExpiryPolicy<Object, Object> expiry(ApplicationProperties.Ehcache.Cache cache) {
+        if (cache.getTimeToIdleSeconds() != null)
+            return ExpiryPolicyBuilder.timeToIdleExpiration(Duration.ofSeconds(cache.getTimeToIdleSeconds()));
+
+        int timeToLiveSeconds = cache.getTimeToLiveSeconds() == null
+                ? ehcache.getTimeToLiveSeconds() : cache.getTimeToLiveSeconds();
+
+        return timeToLiveSeconds > 0
+                ? ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(timeToLiveSeconds))
+                : ExpiryPolicyBuilder.noExpiration();
+    }
+
+    /**
+     * Counts the entries of a cache over all its tiers. Clearing a cache raises no events, only the clear of
+     * {@link #createCache} resets the count.
+     */
+    private record SizeListener(LongAdder size) implements CacheEventListener<Object, Object> {
+        @Override
+        public void onEvent(CacheEvent<?, ?> event) {
+            if (event.getType() == EventType.CREATED)
+                size.increment();
+            else
+                size.decrement();
+        }
     }
 }
@@ -0,0 +1,65 @@
+package com.example.iotcore.config;
+
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.dto.RecentMessageDTO;
+import com.example.iotcore.ingest.IngestMeters;
+import com.example.iotcore.mqttclient.cache.TopicRecentMessageCache;
+import com.example.iotcore.mqttclient.stream.TopicStreamHub;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * In-memory components of the ingest path that the REST api reads from, whether or not the mqtt subscriber runs.
+ */
+@RequiredArgsConstructor
+@Configuration
+public class IngestConfiguration {
+
+    private final ApplicationProperties applicationProperties;
+
+    @Bean
+    public TopicRecentMessageCache topicRecentMessageCache() {
+        return new TopicRecentMessageCache(applicationProperties.getIngest().getRecentMessagesPerTopic(),
+                applicationProperties.getIngest().getRecentMessagesMaxTopics());
+    }
+
+    @Bean
+    public MeterBinder topicRecentMessageCacheMetrics(TopicRecentMessageCache topicRecentMessageCache) {
+        return registry -> {
+            Gauge.builder(IngestMeters.RECENT_TOPICS_METER_NAME, topicRecentMessageCache,
+                            TopicRecentMessageCache::getTopicCount)
+                    .description("Topics whose recent messages are cached")
+                    .register(registry);
+            FunctionCounter.builder(IngestMeters.RECENT_REJECTED_METER_NAME, topicRecentMessageCache,
+                            TopicRecentMessageCache::getRejectedCount)
+                    .baseUnit("messages")
+                    .description("Messages not cached because the maximum number of topics is cached already")
+                    .register(registry);
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    public TopicStreamHub topicStreamHub(ObjectMapper objectMapper) {
+        // the same json as the recent messages, rendered once per message for all the clients of its topic
+        return new TopicStreamHub(applicationProperties.getStream(), message -> {
+            try {
+                return objectMapper.writeValueAsString(RecentMessageDTO.builder()
+                        .content(new String(message.payload(), StandardCharsets.UTF_8))
+                        .macAddress(message.device())
+                        .createdTimeStamp(message.receivedAt())
+                        .build());
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
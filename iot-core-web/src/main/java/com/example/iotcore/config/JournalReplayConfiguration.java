@@ -0,0 +1,76 @@
+package com.example.iotcore.config;
+
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.ingest.MessageBatchSink;
+import com.example.iotcore.mqttclient.config.JournalProperties;
+import com.example.iotcore.mqttclient.config.JournalReplayProperties;
+import com.example.iotcore.mqttclient.decode.PayloadDecoders;
+import com.example.iotcore.mqttclient.journal.JournalReplayReport;
+import com.example.iotcore.mqttclient.journal.JournalReplayer;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.ReferenceResolutionService;
+import com.example.iotcore.service.RollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Replays the csv journal into the database once the application started, e.g. the messages received while the
+ * database was down. Devices and topics are resolved through the caches of the {@link ReferenceResolutionService} and
+ * every batch of {@code application.journal.replay.batch-size} lines is stored with
+ * {@link MessageService#insertAll(List) plain JDBC batches}, skipping the persistence context.
+ * <p>
+ * Replayed lines are not matched against the stored messages, so replaying a message that made it into the database
+ * stores it, and counts it in the rollups, twice. The replay therefore requires the window of the outage,
+ * {@code application.journal.replay.since} and {@code until}, and refuses to start without it.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Configuration
+@ConditionalOnProperty(prefix = "application.journal.replay", name = "enabled", havingValue = "true")
+public class JournalReplayConfiguration {
+
+    private final ApplicationProperties applicationProperties;
+
+    @Bean
+    public JournalReplayer journalReplayer(MessageService messageService,
+                                           ReferenceResolutionService referenceResolutionService,
+                                           ObjectProvider<RollupService> rollupService) {
+        JournalReplayProperties replay = applicationProperties.getJournal().getReplay();
+        if (replay.getSince() == null || replay.getUntil() == null || !replay.getSince().isBefore(replay.getUntil()))
+            throw new IllegalStateException("Replaying the journal requires application.journal.replay.since and "
+                    + "until, the window of the messages missing in the database");
+
+        MessageBatchSink sink = new MessageBatchSink(messageService, referenceResolutionService,
+                PayloadDecoders.of(applicationProperties.getIngest().getDecoders()), true,
+                applicationProperties.getRollup().isEnabled() ? rollupService.getIfAvailable() : null);
+
+        return new JournalReplayer(replay, sink);
+    }
+
+    @Bean
+    public ApplicationRunner journalReplayRunner(JournalReplayer journalReplayer,
+                                                 ConfigurableApplicationContext context) {
+        JournalProperties journal = applicationProperties.getJournal();
+        JournalReplayProperties replay = journal.getReplay();
+        Path directory = Path.of(replay.getDirectory() == null ? journal.getDirectory() : replay.getDirectory());
+
+        return args -> {
+            log.info("Replaying the journal in {}", directory);
+            JournalReplayReport report = journalReplayer.replay(directory);
+            report.log();
+
+            if (replay.isExitWhenDone())
+                System.exit(SpringApplication.exit(context, () -> report.failed().isEmpty() ? 0 : 1));
+        };
+    }
+}
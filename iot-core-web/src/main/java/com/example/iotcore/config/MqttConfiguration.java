@@ -0,0 +1,87 @@
+package com.example.iotcore.config;
+
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.ingest.IngestMeters;
+import com.example.iotcore.ingest.MessageBatchSink;
+import com.example.iotcore.mqttclient.Callback;
+import com.example.iotcore.mqttclient.Subscriber;
+import com.example.iotcore.mqttclient.cache.TopicRecentMessageCache;
+import com.example.iotcore.mqttclient.decode.PayloadDecoders;
+import com.example.iotcore.mqttclient.ingest.DeviceIdentifier;
+import com.example.iotcore.mqttclient.ingest.IngestPipeline;
+import com.example.iotcore.mqttclient.journal.MessageJournal;
+import com.example.iotcore.mqttclient.stream.TopicStreamHub;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.ReferenceResolutionService;
+import com.example.iotcore.service.RollupService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Subscribes to the broker and feeds incoming messages through the {@link IngestPipeline} into the database.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Configuration
+@ConditionalOnProperty(prefix = "application.mqtt", name = "enabled", havingValue = "true")
+public class MqttConfiguration {
+
+    private final ApplicationProperties applicationProperties;
+
+    @Bean
+    public PayloadDecoders payloadDecoders() {
+        return PayloadDecoders.of(applicationProperties.getIngest().getDecoders());
+    }
+
+    @Bean
+    public MessageBatchSink messageBatchSink(MessageService messageService,
+                                             ReferenceResolutionService referenceResolutionService,
+                                             PayloadDecoders payloadDecoders,
+                                             ObjectProvider<RollupService> rollupService) {
+        return new MessageBatchSink(messageService, referenceResolutionService, payloadDecoders, false,
+                applicationProperties.getRollup().isEnabled() ? rollupService.getIfAvailable() : null);
+    }
+
+    @Bean
+    public IngestMeters ingestMeters(MeterRegistry meterRegistry) {
+        return new IngestMeters(meterRegistry, applicationProperties.getIngest().getMetricsMaxTopics());
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public IngestPipeline ingestPipeline(MessageBatchSink messageBatchSink, IngestMeters ingestMeters) {
+        IngestPipeline ingestPipeline = new IngestPipeline(applicationProperties.getIngest(), messageBatchSink,
+                ingestMeters);
+        ingestMeters.bindTo(ingestPipeline, messageBatchSink);
+
+        return ingestPipeline;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "application.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public MessageJournal messageJournal() throws IOException {
+        return new MessageJournal(applicationProperties.getJournal());
+    }
+
+    @Bean
+    public Callback mqttCallback(IngestPipeline ingestPipeline, ObjectProvider<MessageJournal> messageJournal,
+                                 TopicRecentMessageCache topicRecentMessageCache, TopicStreamHub topicStreamHub,
+                                 IngestMeters ingestMeters) {
+        return new Callback(ingestPipeline, messageJournal.getIfAvailable(), topicRecentMessageCache,
+                topicStreamHub, ingestMeters, new DeviceIdentifier(applicationProperties.getIngest()));
+    }
+
+    @Bean(initMethod = "subscribe", destroyMethod = "disconnect")
+    public Subscriber subscriber(Callback mqttCallback) {
+        ApplicationProperties.Mqtt mqtt = applicationProperties.getMqtt();
+        log.debug("Subscribing to {} on {}", mqtt.subscriptionFilter(), mqtt.getServerUri());
+
+        return new Subscriber(mqtt, mqttCallback);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.iotcore.config;
+
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.retention.PartitionInterval;
+import com.example.iotcore.service.MessageRetentionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * Deletes the messages older than {@code application.retention.retention-days} on the
+ * {@code application.retention.cron} schedule, and creates the partitions of the coming
+ * {@code application.retention.partitions-ahead} intervals first.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Configuration
+@ConditionalOnProperty(prefix = "application.retention", name = "enabled", havingValue = "true")
+public class RetentionConfiguration {
+
+    private final ApplicationProperties applicationProperties;
+
+    private final MessageRetentionService messageRetentionService;
+
+    @Scheduled(cron = "${application.retention.cron}")
+    public void purgeExpiredMessages() {
+        ApplicationProperties.Retention retention = applicationProperties.getRetention();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        PartitionInterval interval = retention.getPartitionInterval();
+        LocalDate until = today;
+        for (int i = 0; i <= retention.getPartitionsAhead(); i++)
+            until = interval.next(until);
+        messageRetentionService.createPartitionsUntil(until.atStartOfDay(ZoneOffset.UTC).toInstant(), interval);
+
+        Instant cutoff = today.minusDays(retention.getRetentionDays()).atStartOfDay(ZoneOffset.UTC).toInstant();
+        log.debug("Purging the Messages before {}", cutoff);
+        messageRetentionService.purgeBefore(cutoff, retention.getDeleteChunkSize());
+    }
+}
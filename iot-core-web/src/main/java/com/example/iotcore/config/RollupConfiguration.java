@@ -0,0 +1,31 @@
+package com.example.iotcore.config;
+
+import com.example.iotcore.service.RollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Adds the rollups collected in memory to the database every {@code application.rollup.flush-interval-millis}.
+ * Rollups that fail to be stored stay in memory and are retried on the next run.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Configuration
+@ConditionalOnProperty(prefix = "application.rollup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RollupConfiguration {
+
+    private final RollupService rollupService;
+
+    @Scheduled(fixedDelayString = "${application.rollup.flush-interval-millis:10000}")
+    public void flushRollups() {
+        try {
+            int stored = rollupService.flush();
+            log.debug("Stored {} MessageRollups", stored);
+        } catch (RuntimeException e) {
+            log.warn("Could not store the MessageRollups, retrying on the next run", e);
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package com.example.iotcore.config.property;
 
+import com.example.iotcore.mqttclient.config.IngestProperties;
+import com.example.iotcore.mqttclient.config.JournalProperties;
+import com.example.iotcore.mqttclient.config.StreamProperties;
+import com.example.iotcore.mqttclient.config.SubscriberProperties;
+import com.example.iotcore.retention.PartitionInterval;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Configuration
 @Getter
 @Setter
@@ -17,6 +25,13 @@ public class ApplicationProperties {
     private Email mail = new Email();
     private Ehcache ehcache = new Ehcache();
     private ClientApp clientApp = new ClientApp();
+    private Mqtt mqtt = new Mqtt();
+    private IngestProperties ingest = new IngestProperties();
+    private JournalProperties journal = new JournalProperties();
+    private StreamProperties stream = new StreamProperties();
+    private Archive archive = new Archive();
+    private Rollup rollup = new Rollup();
+    private Retention retention = new Retention();
 
     @Getter
     @Setter
@@ -45,6 +60,34 @@ public class ApplicationProperties {
     public static class Ehcache {
         private int timeToLiveSeconds;  // 1 hour
         private long maxEntries;
+
+        // root of the disk tiers, only used if a cache has one
+        private String diskDirectory = "./cache";
+
+        // by cache name, the caches not listed get the heap entries and time to live above
+        private Map<String, Cache> caches = new LinkedHashMap<>();
+
+        @Getter
+        @Setter
+        public static class Cache {
+            // defaults to max-entries
+            private Long heapEntries;
+
+            // 0 for no off-heap tier; stored outside the GC managed heap, within -XX:MaxDirectMemorySize
+            private long offHeapMegabytes;
+
+            // 0 for no disk tier, otherwise larger than the off-heap tier
+            private long diskMegabytes;
+
+            // keep the disk tier across restarts
+            private boolean persistent;
+
+            // defaults to time-to-live-seconds, 0 for no expiry
+            private Integer timeToLiveSeconds;
+
+            // expires entries not read for this long instead of after time-to-live-seconds
+            private Integer timeToIdleSeconds;
+        }
     }
 
     @Getter
@@ -53,5 +96,56 @@ public class ApplicationProperties {
         private String name;
     }
 
+    @Getter
+    @Setter
+    public static class Mqtt extends SubscriberProperties {
+        private boolean enabled;
+    }
+
+    @Getter
+    @Setter
+    public static class Archive {
+        private boolean enabled;
+
+        private String directory = "./archive";
+
+        // whole UTC days older than this are moved out of the database
+        private int archiveAfterDays = 30;
+
+        private String cron = "0 30 1 * * ?";
+
+        // messages per compressed block of a segment
+        private int blockRows = 4096;
+
+        private int compressionLevel = 3;
+    }
+
+    @Getter
+    @Setter
+    public static class Rollup {
+        private boolean enabled = true;
+
+        private long flushIntervalMillis = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Retention {
+        private boolean enabled;
+
+        // messages older than this are deleted, with whole partitions on a partitioned message table
+        private int retentionDays = 365;
+
+        private PartitionInterval partitionInterval = PartitionInterval.MONTH;
+
+        // partitions created ahead of the current one
+        private int partitionsAhead = 3;
+
+        private String cron = "0 0 2 * * ?";
+
+        // messages deleted per transaction on an unpartitioned message table
+        private int deleteChunkSize = 1000;
+    }
+
 }
 
@@ -0,0 +1,259 @@
+package com.example.iotcore.ingest;
+
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.domain.Topic;
+import com.example.iotcore.dto.BulkIngestErrorDTO;
+import com.example.iotcore.dto.BulkIngestResultDTO;
+import com.example.iotcore.dto.DeviceDTO;
+import com.example.iotcore.dto.MessageDTO;
+import com.example.iotcore.dto.TopicDTO;
+import com.example.iotcore.repository.DeviceRepository;
+import com.example.iotcore.repository.TopicRepository;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.ReferenceResolutionService;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Stores the messages of a JSON array or NDJSON stream in chunks through {@link MessageService#saveAll(List)}.
+ *
+ * <p>
+ * The body is read one message at a time with Jackson's streaming parser, so at most one chunk
+ * ({@code application.ingest.batch-size} messages) is held in memory. Devices and topics are referenced either by
+ * id, looked up once per chunk, or by mac address and name, resolved (and created if needed) through the
+ * {@link ReferenceResolutionService}. Invalid messages, including those whose device or topic cannot be resolved, are
+ * rejected one by one; a syntax error ends the ingest.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class BulkMessageIngester {
+    // length of the message.content column
+    private static final int CONTENT_MAX_LENGTH = 255;
+
+    // length of the device.mac_address column
+    private static final int MAC_ADDRESS_MAX_LENGTH = 255;
+
+    // length of the topic.name column
+    private static final int NAME_MAX_LENGTH = 255;
+
+    // keeps the summary compact when a whole body is rejected
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ObjectMapper objectMapper;
+
+    private final MessageService messageService;
+
+    private final ReferenceResolutionService referenceResolutionService;
+
+    private final DeviceRepository deviceRepository;
+
+    private final TopicRepository topicRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    public BulkIngestResultDTO ingest(InputStream body) throws IOException {
+        Ingestion ingestion = new Ingestion(applicationProperties.getIngest().getBatchSize());
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array)
+                token = parser.nextToken();
+
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                ingestion.add(parser.readValueAsTree());
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            ingestion.reject(ingestion.offset, "Malformed JSON: " + e.getOriginalMessage());
+        }
+        ingestion.flush();
+
+        log.debug("Bulk ingest accepted {} and rejected {} messages", ingestion.result.getAccepted(),
+                ingestion.result.getRejected());
+
+        return ingestion.result;
+    }
+
+    /**
+     * State of one request body.
+     */
+    private class Ingestion {
+        private final int chunkSize;
+
+        private final BulkIngestResultDTO result = new BulkIngestResultDTO();
+
+        private final List<Long> offsets;
+
+        private final List<MessageDTO> chunk;
+
+        private long offset;
+
+        Ingestion(int chunkSize) {
+            this.chunkSize = chunkSize;
+            this.offsets = new ArrayList<>(chunkSize);
+            this.chunk = new ArrayList<>(chunkSize);
+        }
+
+        void add(JsonNode node) {
+            long messageOffset = offset++;
+
+            MessageDTO messageDTO;
+            try {
+                messageDTO = objectMapper.treeToValue(node, MessageDTO.class);
+            } catch (JsonProcessingException e) {
+                reject(messageOffset, "Invalid message: " + e.getOriginalMessage());
+
+                return;
+            }
+
+            String problem = validate(messageDTO);
+            if (problem != null) {
+                reject(messageOffset, problem);
+
+                return;
+            }
+
+            offsets.add(messageOffset);
+            chunk.add(messageDTO);
+            if (chunk.size() >= chunkSize)
+                flush();
+        }
+
+        void flush() {
+            if (chunk.isEmpty())
+                return;
+
+            Map<Long, Device> devices = findAllById(chunk, MessageDTO::getDevice, DeviceDTO::getId,
+                    deviceRepository::findAllById, Device::getId);
+            Map<Long, Topic> topics = findAllById(chunk, MessageDTO::getTopic, TopicDTO::getId,
+                    topicRepository::findAllById, Topic::getId);
+
+            List<Message> messages = new ArrayList<>(chunk.size());
+            List<Long> storedOffsets = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                MessageDTO messageDTO = chunk.get(i);
+                Device device;
+                Topic topic;
+                try {
+                    device = resolveDevice(messageDTO.getDevice(), devices);
+                    topic = resolveTopic(messageDTO.getTopic(), topics);
+                } catch (RuntimeException e) {
+                    // e.g. creating the device failed, the messages stored so far stay committed
+                    log.error("Could not resolve the device or topic of a bulk ingest message", e);
+                    reject(offsets.get(i), "Could not resolve device or topic");
+
+                    continue;
+                }
+
+                if (device == null || topic == null) {
+                    reject(offsets.get(i), device == null ? "Unknown device" : "Unknown topic");
+
+                    continue;
+                }
+
+                messages.add(Message.builder()
+                        .content(messageDTO.getContent())
+                        .createdTimeStamp(messageDTO.getCreatedTimeStamp() == null ?
+                                Instant.now() : messageDTO.getCreatedTimeStamp())
+                        .device(device)
+                        .topic(topic)
+                        .build());
+                storedOffsets.add(offsets.get(i));
+            }
+
+            try {
+                messageService.saveAll(messages);
+                result.setAccepted(result.getAccepted() + messages.size());
+            } catch (RuntimeException e) {
+                log.error("Could not store {} messages of a bulk ingest", messages.size(), e);
+
+                storedOffsets.forEach(storedOffset -> reject(storedOffset, "Could not be stored"));
+            }
+
+            offsets.clear();
+            chunk.clear();
+        }
+
+        void reject(long messageOffset, String reason) {
+            result.setRejected(result.getRejected() + 1);
+
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS)
+                result.getErrors().add(new BulkIngestErrorDTO(messageOffset, reason));
+        }
+    }
+
+    private static String validate(MessageDTO messageDTO) {
+        if (messageDTO == null)
+            return "Message must be an object";
+        if (messageDTO.getId() != null)
+            return "A new message cannot already have an ID";
+        if (messageDTO.getContent() != null && messageDTO.getContent().length() > CONTENT_MAX_LENGTH)
+            return "Content is longer than %d characters".formatted(CONTENT_MAX_LENGTH);
+
+        DeviceDTO device = messageDTO.getDevice();
+        if (device == null || (device.getId() == null && device.getMacAddress() == null))
+            return "Device id or macAddress is required";
+        if (device.getId() == null && device.getMacAddress().length() > MAC_ADDRESS_MAX_LENGTH)
+            return "Device macAddress is longer than %d characters".formatted(MAC_ADDRESS_MAX_LENGTH);
+
+        TopicDTO topic = messageDTO.getTopic();
+        if (topic == null || (topic.getId() == null && topic.getName() == null))
+            return "Topic id or name is required";
+        if (topic.getId() == null && topic.getName().length() > NAME_MAX_LENGTH)
+            return "Topic name is longer than %d characters".formatted(NAME_MAX_LENGTH);
+
+        return null;
+    }
+
+    private Device resolveDevice(DeviceDTO deviceDTO, Map<Long, Device> devices) {
+        return deviceDTO.getId() != null ?
+                devices.get(deviceDTO.getId()) :
+                referenceResolutionService.resolveDevice(deviceDTO.getMacAddress());
+    }
+
+    private Topic resolveTopic(TopicDTO topicDTO, Map<Long, Topic> topics) {
+        return topicDTO.getId() != null ?
+                topics.get(topicDTO.getId()) :
+                referenceResolutionService.resolveTopic(topicDTO.getName());
+    }
+
+    /**
+     * One query for all entities of a chunk that are referenced by id.
+     */
+    private static <D, E> Map<Long, E> findAllById(List<MessageDTO> chunk, Function<MessageDTO, D> reference,
+                                                   Function<D, Long> referenceId,
+                                                   Function<Set<Long>, List<E>> finder, Function<E, Long> id) {
+        Set<Long> ids = new HashSet<>();
+        for (MessageDTO messageDTO : chunk) {
+            Long referencedId = referenceId.apply(reference.apply(messageDTO));
+            if (referencedId != null)
+                ids.add(referencedId);
+        }
+
+        if (ids.isEmpty())
+            return Map.of();
+
+        return finder.apply(ids).stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+}
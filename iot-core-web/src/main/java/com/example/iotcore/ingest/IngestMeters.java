@@ -0,0 +1,151 @@
+package com.example.iotcore.ingest;
+
+import com.example.iotcore.mqttclient.ingest.IngestMetrics;
+import com.example.iotcore.mqttclient.ingest.IngestPipeline;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the ingest path as meters: what the Paho callback and the writers report through {@link IngestMetrics},
+ * and the counts the {@link IngestPipeline} and the {@link MessageBatchSink} keep.
+ * <p>
+ * Received messages are counted per topic for the first {@code maxTopics} topics only, those of later topics under
+ * the {@code other} tag, so devices publishing on topics of their own do not grow the number of time series without
+ * bound.
+ */
+public class IngestMeters implements IngestMetrics {
+
+    public static final String RECEIVED_METER_NAME = "iot.ingest.messages.received";
+    public static final String DROPPED_METER_NAME = "iot.ingest.messages.dropped";
+    public static final String FAILED_METER_NAME = "iot.ingest.messages.failed";
+    public static final String SPILLED_METER_NAME = "iot.ingest.messages.spilled";
+    public static final String DECODE_FAILURES_METER_NAME = "iot.ingest.decode.failures";
+    public static final String QUEUE_DEPTH_METER_NAME = "iot.ingest.queue.depth";
+    public static final String BATCH_SIZE_METER_NAME = "iot.ingest.batch.size";
+    public static final String FLUSH_METER_NAME = "iot.ingest.batch.flush";
+    public static final String JOURNAL_WRITE_METER_NAME = "iot.ingest.journal.write";
+    public static final String RECENT_TOPICS_METER_NAME = "iot.ingest.recent.topics";
+    public static final String RECENT_REJECTED_METER_NAME = "iot.ingest.recent.rejected";
+    public static final String TOPIC_DIMENSION = "topic";
+    public static final String CAUSE_DIMENSION = "cause";
+    public static final String OTHER_TOPICS = "other";
+
+    private static final String MESSAGES_BASE_UNIT = "messages";
+
+    private final MeterRegistry registry;
+
+    private final int maxTopics;
+
+    private final Map<String, LongAdder> received = new ConcurrentHashMap<>();
+
+    private final LongAdder receivedOnOtherTopics = new LongAdder();
+
+    private final DistributionSummary batchSizes;
+
+    private final Timer flushes;
+
+    private final Timer journalWrites;
+
+    public IngestMeters(MeterRegistry registry, int maxTopics) {
+        this.registry = registry;
+        this.maxTopics = maxTopics;
+
+        receivedCounter(OTHER_TOPICS, receivedOnOtherTopics);
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE_METER_NAME)
+                .baseUnit(MESSAGES_BASE_UNIT)
+                .description("Messages per batch handed to the database")
+                .register(registry);
+        this.flushes = Timer.builder(FLUSH_METER_NAME)
+                .description("Time taken to store a batch in the database")
+                .register(registry);
+        this.journalWrites = Timer.builder(JOURNAL_WRITE_METER_NAME)
+                .description("Time taken to append a message to the journal")
+                .register(registry);
+    }
+
+    /**
+     * Publishes the queue depth and the counts of messages the pipeline and the sink did not store.
+     */
+    public void bindTo(IngestPipeline pipeline, MessageBatchSink sink) {
+        Gauge.builder(QUEUE_DEPTH_METER_NAME, pipeline, IngestPipeline::getQueueDepth)
+                .baseUnit(MESSAGES_BASE_UNIT)
+                .description("Messages waiting in the ring buffer for a writer")
+                .register(registry);
+        droppedCounter("overflow", pipeline, IngestPipeline::getDroppedCount);
+        droppedCounter("duplicate", pipeline, IngestPipeline::getSuppressedCount);
+        FunctionCounter.builder(FAILED_METER_NAME, pipeline, IngestPipeline::getFailedCount)
+                .baseUnit(MESSAGES_BASE_UNIT)
+                .description("Messages of batches that could not be stored, left unacknowledged for redelivery")
+                .register(registry);
+        FunctionCounter.builder(SPILLED_METER_NAME, pipeline, IngestPipeline::getSpilledCount)
+                .baseUnit(MESSAGES_BASE_UNIT)
+                .description("Messages written to the spill file because the ring buffer was full")
+                .register(registry);
+        FunctionCounter.builder(DECODE_FAILURES_METER_NAME, sink, MessageBatchSink::getRejectedCount)
+                .baseUnit(MESSAGES_BASE_UNIT)
+                .description("Messages rejected because their payload did not match the schema of their topic")
+                .register(registry);
+    }
+
+    @Override
+    public void messageReceived(String topic) {
+        LongAdder counter = received.get(topic);
+        if (counter == null)
+            // once full, the map is only read
+            counter = received.size() >= maxTopics ? receivedOnOtherTopics : register(topic);
+        counter.increment();
+    }
+
+    @Override
+    public void journalWritten(long nanos) {
+        journalWrites.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void batchFlushed(int size, long nanos) {
+        batchSizes.record(size);
+        flushes.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private LongAdder register(String topic) {
+        synchronized (received) {
+            LongAdder counter = received.get(topic);
+            if (counter != null)
+                return counter;
+            // a topic named other shares the meter of the other topics
+            if (received.size() >= maxTopics || OTHER_TOPICS.equals(topic))
+                return receivedOnOtherTopics;
+
+            counter = new LongAdder();
+            receivedCounter(topic, counter);
+            received.put(topic, counter);
+
+            return counter;
+        }
+    }
+
+    private void receivedCounter(String topic, LongAdder counter) {
+        FunctionCounter.builder(RECEIVED_METER_NAME, counter, LongAdder::sum)
+                .baseUnit(MESSAGES_BASE_UNIT)
+                .description("Messages received from the broker")
+                .tag(TOPIC_DIMENSION, topic)
+                .register(registry);
+    }
+
+    private <T> void droppedCounter(String cause, T source, ToDoubleFunction<T> count) {
+        FunctionCounter.builder(DROPPED_METER_NAME, source, count)
+                .baseUnit(MESSAGES_BASE_UNIT)
+                .description("Messages received but not stored")
+                .tag(CAUSE_DIMENSION, cause)
+                .register(registry);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.iotcore.ingest;
+
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.mqttclient.decode.DecodedFields;
+import com.example.iotcore.mqttclient.decode.PayloadDecoder;
+import com.example.iotcore.mqttclient.decode.PayloadDecoders;
+import com.example.iotcore.mqttclient.ingest.BatchSink;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import com.example.iotcore.rollup.RollupSample;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.ReferenceResolutionService;
+import com.example.iotcore.service.RollupService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persists the batches of the ingest pipeline through {@link MessageService#saveAll(List)}.
+ * <p>
+ * Messages on topics with a configured {@link PayloadDecoders payload schema} are only stored if their payload
+ * decodes. Bulk loads, e.g. a journal replay, store through {@link MessageService#insertAll(List)} instead.
+ * The decoded fields of the stored messages are handed to the {@link RollupService}, if one is given.
+ */
+@Slf4j
+public class MessageBatchSink implements BatchSink {
+    // length of the message.content column
+    private static final int CONTENT_MAX_LENGTH = 255;
+
+    private final MessageService messageService;
+
+    private final ReferenceResolutionService referenceResolutionService;
+
+    private final PayloadDecoders payloadDecoders;
+
+    // plain JDBC inserts instead of persisting entities
+    private final boolean bulkInsert;
+
+    // null without rollups
+    private final RollupService rollupService;
+
+    // one per ingest writer thread
+    private final ThreadLocal<DecodedFields> decodedFields = ThreadLocal.withInitial(DecodedFields::new);
+
+    private final LongAdder rejected = new LongAdder();
+
+    public MessageBatchSink(MessageService messageService, ReferenceResolutionService referenceResolutionService,
+                            PayloadDecoders payloadDecoders) {
+        this(messageService, referenceResolutionService, payloadDecoders, false);
+    }
+
+    public MessageBatchSink(MessageService messageService, ReferenceResolutionService referenceResolutionService,
+                            PayloadDecoders payloadDecoders, boolean bulkInsert) {
+        this(messageService, referenceResolutionService, payloadDecoders, bulkInsert, null);
+    }
+
+    public MessageBatchSink(MessageService messageService, ReferenceResolutionService referenceResolutionService,
+                            PayloadDecoders payloadDecoders, boolean bulkInsert, RollupService rollupService) {
+        this.messageService = messageService;
+        this.referenceResolutionService = referenceResolutionService;
+        this.payloadDecoders = payloadDecoders;
+        this.bulkInsert = bulkInsert;
+        this.rollupService = rollupService;
+    }
+
+    @Override
+    public void persist(List<InboundMessage> batch) {
+        log.debug("Request to ingest {} messages", batch.size());
+
+        List<Message> messages = new ArrayList<>(batch.size());
+        List<RollupSample> samples = rollupService == null ? null : new ArrayList<>();
+        DecodedFields fields = decodedFields.get();
+
+        for (InboundMessage inboundMessage : batch) {
+            if (!decodes(inboundMessage, fields))
+                continue;
+
+            Message message = Message.builder()
+                    .content(contentOf(inboundMessage))
+                    .createdTimeStamp(inboundMessage.receivedAt())
+                    .device(referenceResolutionService.resolveDevice(inboundMessage.device()))
+                    .topic(referenceResolutionService.resolveTopic(inboundMessage.topic()))
+                    .build();
+            messages.add(message);
+            if (samples != null)
+                addSamples(samples, message, fields);
+        }
+
+        if (bulkInsert)
+            messageService.insertAll(messages);
+        else
+            messageService.saveAll(messages);
+
+        // only once stored, a batch that failed is not counted twice when it is retried
+        if (samples != null && !samples.isEmpty())
+            rollupService.recordAll(samples);
+    }
+
+    /**
+     * @return the number of messages not stored because their payload did not match the schema of their topic.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private boolean decodes(InboundMessage inboundMessage, DecodedFields fields) {
+        fields.clear();
+        PayloadDecoder decoder = payloadDecoders.decoderFor(inboundMessage.topic());
+        if (decoder == null)
+            return true;
+
+        if (decoder.decode(inboundMessage.payload(), fields))
+            return true;
+
+        rejected.increment();
+        log.debug("Rejecting message on topic {}: payload does not match its schema", inboundMessage.topic());
+
+        return false;
+    }
+
+    private static void addSamples(List<RollupSample> samples, Message message, DecodedFields fields) {
+        long deviceId = message.getDevice().getId();
+        long topicId = message.getTopic().getId();
+        for (int i = 0; i < fields.size(); i++)
+            samples.add(new RollupSample(deviceId, topicId, fields.metric(i), message.getCreatedTimeStamp(),
+                    fields.doubleValue(i)));
+    }
+
+    private static String contentOf(InboundMessage inboundMessage) {
+        String content = new String(inboundMessage.payload(), StandardCharsets.UTF_8);
+        if (content.length() <= CONTENT_MAX_LENGTH)
+            return content;
+
+        log.warn("Truncating message on topic {} from {} characters", inboundMessage.topic(), content.length());
+
+        return content.substring(0, CONTENT_MAX_LENGTH);
+    }
+}
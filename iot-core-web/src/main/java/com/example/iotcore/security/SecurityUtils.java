@@ -1,5 +1,6 @@
 package com.example.iotcore.security;
 
+import com.example.iotcore.security.jwt.JWTFilter;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.springframework.security.core.Authentication;
@@ -7,6 +8,8 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.Arrays;
 import java.util.Optional;
@@ -47,12 +50,14 @@ public final class SecurityUtils {
      * @return the JWT of the current user.
      */
     public static Optional<String> getCurrentUserJWT() {
-        SecurityContext securityContext = SecurityContextHolder.getContext();
+        if (!isAuthenticated())
+            return Optional.empty();
 
+        // the authentication carries no credentials, the token is read from the request being served
         return Optional
-                .ofNullable(securityContext.getAuthentication())
-                .filter(authentication -> authentication.getCredentials() instanceof String)
-                .map(authentication -> (String) authentication.getCredentials());
+                .ofNullable(RequestContextHolder.getRequestAttributes())
+                .filter(ServletRequestAttributes.class::isInstance)
+                .map(attributes -> JWTFilter.resolveToken(((ServletRequestAttributes) attributes).getRequest()));
     }
 
     /**
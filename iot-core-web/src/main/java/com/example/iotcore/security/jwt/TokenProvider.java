@@ -15,10 +15,16 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.Base64;
+import java.util.List;
 import java.util.Date;
 import java.util.stream.Collectors;
 
@@ -26,6 +32,8 @@ import java.util.stream.Collectors;
 @Component
 public class TokenProvider {
 
+    public static final String AUTHENTICATIONS_CACHE = "tokenAuthentications";
+
     private static final String AUTHORITIES_KEY = "auth";
 
     private static final String INVALID_JWT_TOKEN = "Invalid JWT token.";
@@ -40,7 +48,11 @@ public class TokenProvider {
 
     private final SecurityMetersService securityMetersService;
 
-    public TokenProvider(ApplicationProperties applicationProperties, SecurityMetersService securityMetersService) {
+    // by SHA-256 of the token, null if the cache manager has no such cache
+    private final Cache<String, VerifiedToken> authentications;
+
+    public TokenProvider(ApplicationProperties applicationProperties, SecurityMetersService securityMetersService,
+                         CacheManager cacheManager) {
 
         byte[] keyBytes;
         String secret = applicationProperties.getJwt().getBase64Secret();
@@ -65,6 +77,7 @@ public class TokenProvider {
                 .getTokenValidityInSecondsForRememberMe();
 
         this.securityMetersService = securityMetersService;
+        this.authentications = cacheManager.getCache(AUTHENTICATIONS_CACHE);
     }
 
     public String createToken(Authentication authentication, boolean rememberMe) {
@@ -91,28 +104,78 @@ public class TokenProvider {
                 .compact();
     }
 
+    /**
+     * Validates the token and builds its authentication in one parse. A token seen before is neither parsed nor
+     * verified again: its login and authorities come from the cache until the token expires, and every request gets
+     * an authentication of its own, without credentials.
+     *
+     * @return the authentication of the token, null if it is not valid.
+     */
+    public Authentication authenticate(String token) {
+        if (authentications == null) {
+            Claims claims = parse(token);
+
+            return claims == null ? null : toAuthentication(claims);
+        }
+
+        String digest = digest(token);
+        VerifiedToken verified = authentications.get(digest);
+        if (verified != null && verified.expiresAt() > System.currentTimeMillis())
+            return toAuthentication(verified.login(), verified.authorities());
+
+        Claims claims = parse(token);
+        if (claims == null) {
+            if (verified != null)
+                authentications.remove(digest);
+
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = authorities(claims);
+        // tokens without expiration are not cached, nothing would bound their entry
+        if (claims.getExpiration() != null)
+            authentications.put(digest, new VerifiedToken(claims.getSubject(), authorities,
+                    claims.getExpiration().getTime()));
+
+        return toAuthentication(claims.getSubject(), authorities);
+    }
+
     public Authentication getAuthentication(String token) {
-        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        return toAuthentication(jwtParser.parseClaimsJws(token).getBody());
+    }
+
+    public boolean validateToken(String authToken) {
+        return parse(authToken) != null;
+    }
 
-        Collection<? extends GrantedAuthority> authorities = Arrays
+    private static Authentication toAuthentication(Claims claims) {
+        return toAuthentication(claims.getSubject(), authorities(claims));
+    }
+
+    // without the token as credentials, the request it came with holds it
+    private static Authentication toAuthentication(String login, List<GrantedAuthority> authorities) {
+        User principal = new User(login, "", authorities);
+
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
+
+    private static List<GrantedAuthority> authorities(Claims claims) {
+        return Arrays
                 .stream(claims
                         .get(AUTHORITIES_KEY)
                         .toString()
                         .split(","))
                 .filter(auth -> !auth.trim().isEmpty())
-                .map(SimpleGrantedAuthority::new)
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
                 .toList();
-
-        User principal = new User(claims.getSubject(), "", authorities);
-
-        return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
 
-    public boolean validateToken(String authToken) {
+    /**
+     * @return the claims of the token, null if it is not valid.
+     */
+    private Claims parse(String authToken) {
         try {
-            jwtParser.parseClaimsJws(authToken);
-
-            return true;
+            return jwtParser.parseClaimsJws(authToken).getBody();
         } catch (ExpiredJwtException e) {
             this.securityMetersService.trackTokenExpired();
 
@@ -133,6 +196,26 @@ public class TokenProvider {
             log.error("Token validation error {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    // the cache is keyed by digests rather than the bearer tokens themselves
+    private static String digest(String token) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * What a verified token grants.
+     *
+     * @param login       the subject of the token.
+     * @param authorities the authorities of the token.
+     * @param expiresAt   the expiration of the token, in milliseconds since the epoch.
+     */
+    record VerifiedToken(String login, List<GrantedAuthority> authorities, long expiresAt) implements Serializable {
     }
 }
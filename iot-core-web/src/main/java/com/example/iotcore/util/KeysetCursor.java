@@ -0,0 +1,41 @@
+package com.example.iotcore.util;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by {@code (createdTimeStamp, id)}, exchanged with clients as an opaque, URL safe
+ * string.
+ *
+ * @param createdTimeStamp the createdTimeStamp of the last element already seen.
+ * @param id               the id of the last element already seen.
+ */
+public record KeysetCursor(Instant createdTimeStamp, long id) {
+
+    private static final int ENCODED_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(createdTimeStamp.getEpochSecond())
+                .putInt(createdTimeStamp.getNano())
+                .putLong(id);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @param cursor a cursor created by {@link #encode()}.
+     * @return the decoded cursor.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static KeysetCursor decode(String cursor) {
+        byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+        if (bytes.length != ENCODED_BYTES)
+            throw new IllegalArgumentException("Malformed cursor: " + cursor);
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        return new KeysetCursor(Instant.ofEpochSecond(buffer.getLong(), buffer.getInt()), buffer.getLong());
+    }
+}
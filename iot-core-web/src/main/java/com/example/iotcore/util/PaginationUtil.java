@@ -3,6 +3,7 @@ package com.example.iotcore.util;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -53,6 +54,58 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate pagination headers for a Spring Data {@link org.springframework.data.domain.Slice} object, which
+     * has no total count: only the {@code next} and {@code prev} links.
+     *
+     * @param uriBuilder The URI builder.
+     * @param slice      The slice.
+     * @param <T>        The type of object.
+     * @return http header.
+     */
+    public static <T> HttpHeaders generateSliceHttpHeaders(UriComponentsBuilder uriBuilder, Slice<T> slice) {
+        HttpHeaders headers = new HttpHeaders();
+        int pageNumber = slice.getNumber();
+        int pageSize = slice.getSize();
+        StringBuilder link = new StringBuilder();
+
+        if (slice.hasNext())
+            link.append(prepareLink(uriBuilder, pageNumber + 1, pageSize, "next"));
+
+        if (slice.hasPrevious()) {
+            if (link.length() > 0)
+                link.append(",");
+            link.append(prepareLink(uriBuilder, pageNumber - 1, pageSize, "prev"));
+        }
+
+        if (link.length() > 0)
+            headers.add(HttpHeaders.LINK, link.toString());
+
+        return headers;
+    }
+
+    /**
+     * Generate headers for a page of the keyset (cursor based) pagination.
+     *
+     * @param uriBuilder The URI builder.
+     * @param nextCursor The opaque cursor of the next page, or {@code null} on the last page.
+     * @param totalCount The total number of elements, or {@code null} to leave out the count.
+     * @return http header.
+     */
+    public static HttpHeaders generateKeysetPaginationHttpHeaders(UriComponentsBuilder uriBuilder, String nextCursor,
+                                                                  Long totalCount) {
+        HttpHeaders headers = new HttpHeaders();
+
+        if (totalCount != null)
+            headers.add(HEADER_X_TOTAL_COUNT, Long.toString(totalCount));
+
+        if (nextCursor != null)
+            headers.add(HttpHeaders.LINK, MessageFormat.format(HEADER_LINK_FORMAT,
+                    uriBuilder.replaceQueryParam("after", nextCursor).toUriString(), "next"));
+
+        return headers;
+    }
+
     private static String prepareLink(UriComponentsBuilder uriBuilder, int pageNumber, int pageSize, String relType) {
         return MessageFormat.format(HEADER_LINK_FORMAT, preparePageUri(uriBuilder, pageNumber, pageSize), relType);
     }
@@ -1,9 +1,14 @@
 package com.example.iotcore.web.controller;
 
 import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.RollupResolution;
 import com.example.iotcore.dto.DeviceDTO;
+import com.example.iotcore.dto.MessageDTO;
+import com.example.iotcore.dto.MessageRollupDTO;
 import com.example.iotcore.repository.DeviceRepository;
 import com.example.iotcore.service.DeviceService;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.RollupService;
 import com.example.iotcore.util.HeaderUtil;
 import com.example.iotcore.util.PaginationUtil;
 import com.example.iotcore.util.ResponseUtil;
@@ -21,6 +26,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -30,6 +36,7 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -47,6 +54,8 @@ public class DeviceController {
     private static final String ENTITY_NAME = "device";
     private final DeviceService deviceService;
     private final DeviceRepository deviceRepository;
+    private final MessageService messageService;
+    private final RollupService rollupService;
     @Value("${application.clientApp.name}")
     private String applicationName;
 
@@ -255,11 +264,119 @@ public class DeviceController {
         return ResponseUtil.wrapOrNotFound(deviceDTO);
     }
 
+    /**
+     * {@code GET  /devices/:id/messages} : get the messages of the "id" device in a time range, oldest first.
+     *
+     * @param id       the id of the device.
+     * @param from     the first createdTimeStamp, inclusive; one day before {@code to} if absent.
+     * @param to       the last createdTimeStamp, exclusive; now if absent.
+     * @param pageable the pagination information, its sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of messages in body,
+     * or with status {@code 400 (Bad Request)} if the range is empty,
+     * or with status {@code 404 (Not Found)} if the device does not exist.
+     */
+    @Operation(summary = "Get the messages of a device in a time range",
+            description = "Get a slice of the messages of a device in a time range, oldest first, without total count",
+            security = {@SecurityRequirement(name = "bearer-key")},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "successfully retrieved a slice of messages",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = MessageDTO.class))}
+                    ),
+                    @ApiResponse(responseCode = "400", description = "Bad request (from is not before to)",
+                            content = @Content(schema = @Schema(hidden = true))
+                    ),
+                    @ApiResponse(responseCode = "401", description = "Authentication Failure",
+                            content = @Content(schema = @Schema(hidden = true))
+                    ),
+                    @ApiResponse(responseCode = "404",
+                            description = "Device Not found",
+                            content = @Content(schema = @Schema(hidden = true))
+                    )
+            }
+    )
+    @GetMapping("/devices/{id}/messages")
+    public ResponseEntity<List<MessageDTO>> getDeviceMessages(
+            @PathVariable Long id,
+            @RequestParam(value = "from", required = false) Instant from,
+            @RequestParam(value = "to", required = false) Instant to,
+            @org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+        log.debug("REST request to get Messages of Device : {} from {} to {}", id, from, to);
+
+        if (from != null && to != null && !from.isBefore(to))
+            throw new BadRequestAlertException("from must be before to", ENTITY_NAME, "rangeinvalid");
+        if (!deviceRepository.existsById(id))
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+
+        Slice<MessageDTO> slice = messageService.findAllByDevice(id, from, to, pageable);
+        HttpHeaders headers =
+                PaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
+    /**
+     * {@code GET  /devices/:id/rollups} : get the rollups of the decoded payload fields of the "id" device in a time
+     * range, oldest first.
+     *
+     * @param id         the id of the device.
+     * @param resolution the bucket size: {@code MINUTE}, {@code HOUR} or {@code DAY}.
+     * @param from       the first bucket start, inclusive; 12 hours, 7 days or 90 days before {@code to} if absent.
+     * @param to         the last bucket start, exclusive; now if absent.
+     * @param pageable   the pagination information, its sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of rollups in body,
+     * or with status {@code 400 (Bad Request)} if the range is empty,
+     * or with status {@code 404 (Not Found)} if the device does not exist.
+     */
+    @Operation(summary = "Get the rollups of a device in a time range",
+            description = "Get a slice of the per-minute, per-hour or per-day count, min, max, sum, average and last " +
+                    "value of the decoded payload fields of a device, oldest first, without total count",
+            security = {@SecurityRequirement(name = "bearer-key")},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "successfully retrieved a slice of rollups",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = MessageRollupDTO.class))}
+                    ),
+                    @ApiResponse(responseCode = "400",
+                            description = "Bad request (from is not before to / unknown resolution)",
+                            content = @Content(schema = @Schema(hidden = true))
+                    ),
+                    @ApiResponse(responseCode = "401", description = "Authentication Failure",
+                            content = @Content(schema = @Schema(hidden = true))
+                    ),
+                    @ApiResponse(responseCode = "404",
+                            description = "Device Not found",
+                            content = @Content(schema = @Schema(hidden = true))
+                    )
+            }
+    )
+    @GetMapping("/devices/{id}/rollups")
+    public ResponseEntity<List<MessageRollupDTO>> getDeviceRollups(
+            @PathVariable Long id,
+            @RequestParam(value = "resolution", defaultValue = "MINUTE") RollupResolution resolution,
+            @RequestParam(value = "from", required = false) Instant from,
+            @RequestParam(value = "to", required = false) Instant to,
+            @org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+        log.debug("REST request to get {} Rollups of Device : {} from {} to {}", resolution, id, from, to);
+
+        if (from != null && to != null && !from.isBefore(to))
+            throw new BadRequestAlertException("from must be before to", ENTITY_NAME, "rangeinvalid");
+        if (!deviceRepository.existsById(id))
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+
+        Slice<MessageRollupDTO> slice = rollupService.findAllByDevice(id, resolution, from, to, pageable);
+        HttpHeaders headers =
+                PaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
      * {@code DELETE  /devices/:id} : delete the "id" device.
      *
      * @param id the id of the deviceDTO to delete.
-     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}, or with status
+     * {@code 400 (Bad Request)} if stored messages still reference the device.
      */
 
     @Operation(summary = "Delete a device", description = "Delete a device",
@@ -268,6 +385,9 @@ public class DeviceController {
                     @ApiResponse(responseCode = "204", description = "Device successfully deleted",
                             content = {@Content(mediaType = "application/json")}
                     ),
+                    @ApiResponse(responseCode = "400", description = "Bad request (messages of the device are stored)",
+                            content = @Content(schema = @Schema(hidden = true))
+                    ),
                     @ApiResponse(responseCode = "401", description = "Authentication Failure",
                             content = @Content(schema = @Schema(hidden = true))
                     )
@@ -277,6 +397,10 @@ public class DeviceController {
     public ResponseEntity<Void> deleteDevice(@PathVariable Long id) {
         log.debug("REST request to delete Device : {}", id);
 
+        // the partitioned message table has no foreign key to restrict the delete
+        if (messageService.existsByDevice(id))
+            throw new BadRequestAlertException("Device has stored messages", ENTITY_NAME, "messagesexist");
+
         deviceService.delete(id);
 
         return ResponseEntity
@@ -1,10 +1,13 @@
 package com.example.iotcore.web.controller;
 
 import com.example.iotcore.domain.Message;
+import com.example.iotcore.dto.BulkIngestResultDTO;
 import com.example.iotcore.dto.MessageDTO;
+import com.example.iotcore.ingest.BulkMessageIngester;
 import com.example.iotcore.repository.MessageRepository;
 import com.example.iotcore.service.MessageService;
 import com.example.iotcore.util.HeaderUtil;
+import com.example.iotcore.util.KeysetCursor;
 import com.example.iotcore.util.PaginationUtil;
 import com.example.iotcore.util.ResponseUtil;
 import com.example.iotcore.web.errors.BadRequestAlertException;
@@ -22,14 +25,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.DateTimeException;
 import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
@@ -47,8 +54,10 @@ public class MessageController {
 
 
     private static final String ENTITY_NAME = "message";
+    private static final int MAX_KEYSET_LIMIT = 1000;
     private final MessageService messageService;
     private final MessageRepository messageRepository;
+    private final BulkMessageIngester bulkMessageIngester;
     @Value("${application.clientApp.name}")
     private String applicationName;
 
@@ -99,6 +108,37 @@ public class MessageController {
                 .body(result);
     }
 
+    /**
+     * {@code POST  /messages/bulk} : Create many messages from a JSON array or an NDJSON stream.
+     *
+     * @param body the messages; devices and topics are referenced by id or by macAddress and name.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the number of accepted and
+     * rejected messages, and the offsets and reasons of the first rejected ones.
+     * @throws IOException if the request body cannot be read.
+     */
+    @Operation(summary = "Create messages in bulk", description = "Create messages from a JSON array or NDJSON stream",
+            security = {@SecurityRequirement(name = "bearer-key")},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Messages ingested",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BulkIngestResultDTO.class))}
+                    ),
+                    @ApiResponse(responseCode = "401", description = "Authentication Failure",
+                            content = @Content(schema = @Schema(hidden = true))
+                    )
+            }
+    )
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(required = true,
+            content = @Content(examples = {@ExampleObject(name = "MessageDTOs",
+                    value = "[{\"content\": \"string\",\"device\": {\"id\": 1},\"topic\": {\"name\": \"heart-rate\"}}]")}))
+    @PostMapping(value = "/messages/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkIngestResultDTO> createMessages(InputStream body) throws IOException {
+        log.debug("REST request to save Messages in bulk");
+
+        return ResponseEntity.ok(bulkMessageIngester.ingest(body));
+    }
+
     /**
      * {@code PUT  /messages/:id} : Updates an existing message.
      *
@@ -219,6 +259,66 @@ public class MessageController {
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
+    /**
+     * {@code GET  /messages?limit=} : get the messages after a cursor, ordered by createdTimeStamp and id.
+     *
+     * <p>
+     * Unlike the paged listing, a page is found by seeking to the cursor instead of skipping {@code page * size}
+     * rows, and the total count is only computed on request. Messages without createdTimeStamp are not listed.
+     *
+     * @param after the opaque cursor from the {@code next} link of the previous page, none for the first page.
+     * @param limit the maximum number of messages, at most 1000.
+     * @param count whether to add the (expensive) {@code X-Total-Count} header.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of messages in body, or with status
+     * {@code 400 (Bad Request)} if the cursor or limit is not valid.
+     */
+    @Operation(summary = "Get messages after a cursor", description = "Get messages after a cursor (keyset pagination)",
+            security = {@SecurityRequirement(name = "bearer-key")},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "successfully retrieved the messages",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = MessageDTO.class))},
+                            headers = @Header(name = "Link", description = "The URL of the next page, if any")
+                    ),
+                    @ApiResponse(responseCode = "400",
+                            description = "Bad request (invalid cursor or limit)",
+                            content = @Content(schema = @Schema(hidden = true))
+                    ),
+                    @ApiResponse(responseCode = "401", description = "Authentication Failure",
+                            content = @Content(schema = @Schema(hidden = true))
+                    )
+            }
+    )
+    @GetMapping(value = "/messages", params = "limit")
+    public ResponseEntity<List<MessageDTO>> getMessagesAfter(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit") int limit,
+            @RequestParam(value = "count", defaultValue = "false") boolean count) {
+        log.debug("REST request to get {} Messages after : {}", limit, after);
+
+        if (limit < 1 || limit > MAX_KEYSET_LIMIT)
+            throw new BadRequestAlertException("Limit must be between 1 and %d".formatted(MAX_KEYSET_LIMIT),
+                    ENTITY_NAME, "limitinvalid");
+
+        KeysetCursor cursor = after == null ? null : decodeCursor(after);
+        // one extra message tells whether there is a next page
+        List<MessageDTO> messages = cursor == null ?
+                messageService.findAllAfter(null, null, limit + 1) :
+                messageService.findAllAfter(cursor.createdTimeStamp(), cursor.id(), limit + 1);
+
+        String nextCursor = null;
+        if (messages.size() > limit) {
+            messages = messages.subList(0, limit);
+            MessageDTO last = messages.get(limit - 1);
+            nextCursor = new KeysetCursor(last.getCreatedTimeStamp(), last.getId()).encode();
+        }
+
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(), nextCursor, count ? messageRepository.count() : null);
+
+        return ResponseEntity.ok().headers(headers).body(messages);
+    }
+
     /**
      * {@code GET  /messages/:id} : get the "id" message.
      *
@@ -280,6 +380,14 @@ public class MessageController {
                 .build();
     }
 
+    private static KeysetCursor decodeCursor(String after) {
+        try {
+            return KeysetCursor.decode(after);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+    }
+
     private void checkIdValidity(MessageDTO messageDTO, Long id) {
         if (messageDTO.getId() == null)
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
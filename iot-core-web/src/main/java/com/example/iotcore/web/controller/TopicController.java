@@ -1,8 +1,16 @@
 package com.example.iotcore.web.controller;
 
 import com.example.iotcore.domain.Topic;
+import com.example.iotcore.dto.MessageDTO;
+import com.example.iotcore.dto.RecentMessageDTO;
 import com.example.iotcore.dto.TopicDTO;
+import com.example.iotcore.mqttclient.cache.TopicRecentMessageCache;
+import com.example.iotcore.mqttclient.stream.StreamEvent;
+import com.example.iotcore.mqttclient.stream.StreamListener;
+import com.example.iotcore.mqttclient.stream.StreamSubscription;
+import com.example.iotcore.mqttclient.stream.TopicStreamHub;
 import com.example.iotcore.repository.TopicRepository;
+import com.example.iotcore.service.MessageService;
 import com.example.iotcore.service.TopicService;
 import com.example.iotcore.util.HeaderUtil;
 import com.example.iotcore.util.PaginationUtil;
@@ -21,15 +29,20 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -47,6 +60,9 @@ public class TopicController {
     private static final String ENTITY_NAME = "topic";
     private final TopicService topicService;
     private final TopicRepository topicRepository;
+    private final MessageService messageService;
+    private final TopicRecentMessageCache topicRecentMessageCache;
+    private final TopicStreamHub topicStreamHub;
     @Value("${application.clientApp.name}")
     private String applicationName;
 
@@ -256,11 +272,161 @@ public class TopicController {
         return ResponseUtil.wrapOrNotFound(topicDTO);
     }
 
+    /**
+     * {@code GET  /topics/:id/recent} : get the most recent messages of the "id" topic from memory.
+     *
+     * @param id    the id of the topic.
+     * @param limit the maximum number of messages to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the messages in body, oldest first,
+     * or with status {@code 404 (Not Found)}.
+     */
+    @Operation(summary = "Get the recent messages of a topic",
+            description = "Get the most recent messages of a topic, served from memory",
+            security = {@SecurityRequirement(name = "bearer-key")},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "successfully retrieved the recent messages",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = RecentMessageDTO.class))}
+                    ),
+                    @ApiResponse(responseCode = "401", description = "Authentication Failure",
+                            content = @Content(schema = @Schema(hidden = true))
+                    ),
+                    @ApiResponse(responseCode = "404",
+                            description = "Topic Not found",
+                            content = @Content(schema = @Schema(hidden = true))
+                    )
+            }
+    )
+    @GetMapping("/topics/{id}/recent")
+    public ResponseEntity<List<RecentMessageDTO>> getRecentMessages(@PathVariable Long id,
+                                                                    @RequestParam(required = false) Integer limit) {
+        log.debug("REST request to get recent Messages of Topic : {}", id);
+
+        Optional<List<RecentMessageDTO>> recentMessages = topicService.findOne(id)
+                .map(topicDTO -> topicRecentMessageCache
+                        .snapshot(topicDTO.getName(), limit == null ? topicRecentMessageCache.getCapacity() : limit)
+                        .stream()
+                        .map(recentMessage -> RecentMessageDTO.builder()
+                                .content(recentMessage.content())
+                                .macAddress(recentMessage.device())
+                                .createdTimeStamp(recentMessage.receivedAt())
+                                .build())
+                        .toList());
+
+        return ResponseUtil.wrapOrNotFound(recentMessages);
+    }
+
+    /**
+     * {@code GET  /topics/:id/stream} : stream the messages of the "id" topic as they are received.
+     *
+     * @param id the id of the topic.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the server-sent events of the messages,
+     * named {@code message} with the {@link RecentMessageDTO} as data, or with status {@code 404 (Not Found)}.
+     */
+    @Operation(summary = "Stream the messages of a topic",
+            description = "Push the messages of a topic as server-sent events as they are received; a client that " +
+                    "falls behind gets the latest message of every device",
+            security = {@SecurityRequirement(name = "bearer-key")},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "successfully subscribed to the topic",
+                            content = {@Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                                    schema = @Schema(implementation = RecentMessageDTO.class))}
+                    ),
+                    @ApiResponse(responseCode = "401", description = "Authentication Failure",
+                            content = @Content(schema = @Schema(hidden = true))
+                    ),
+                    @ApiResponse(responseCode = "404",
+                            description = "Topic Not found",
+                            content = @Content(schema = @Schema(hidden = true))
+                    )
+            }
+    )
+    @GetMapping(value = "/topics/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTopicMessages(@PathVariable Long id) {
+        log.debug("REST request to stream Messages of Topic : {}", id);
+
+        return ResponseUtil.wrapOrNotFound(topicService.findOne(id).map(topicDTO -> {
+            SseEmitter emitter = new SseEmitter(topicStreamHub.getTimeoutMillis());
+            StreamSubscription subscription = topicStreamHub.subscribe(topicDTO.getName(), new StreamListener() {
+                @Override
+                public void onEvents(List<StreamEvent> events) throws IOException {
+                    for (StreamEvent event : events)
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.sequence()))
+                                .name("message")
+                                .data(event.data(), MediaType.APPLICATION_JSON));
+                }
+
+                @Override
+                public void onClose() {
+                    emitter.complete();
+                }
+            });
+            emitter.onCompletion(subscription::close);
+            emitter.onTimeout(subscription::close);
+            emitter.onError(throwable -> subscription.close());
+
+            return emitter;
+        }));
+    }
+
+    /**
+     * {@code GET  /topics/:id/messages} : get the messages of the "id" topic in a time range, oldest first.
+     *
+     * @param id       the id of the topic.
+     * @param from     the first createdTimeStamp, inclusive; one day before {@code to} if absent.
+     * @param to       the last createdTimeStamp, exclusive; now if absent.
+     * @param pageable the pagination information, its sort is ignored.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of messages in body,
+     * or with status {@code 400 (Bad Request)} if the range is empty,
+     * or with status {@code 404 (Not Found)} if the topic does not exist.
+     */
+    @Operation(summary = "Get the messages of a topic in a time range",
+            description = "Get a slice of the messages of a topic in a time range, oldest first, without total count",
+            security = {@SecurityRequirement(name = "bearer-key")},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "successfully retrieved a slice of messages",
+                            content = {@Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = MessageDTO.class))}
+                    ),
+                    @ApiResponse(responseCode = "400", description = "Bad request (from is not before to)",
+                            content = @Content(schema = @Schema(hidden = true))
+                    ),
+                    @ApiResponse(responseCode = "401", description = "Authentication Failure",
+                            content = @Content(schema = @Schema(hidden = true))
+                    ),
+                    @ApiResponse(responseCode = "404",
+                            description = "Topic Not found",
+                            content = @Content(schema = @Schema(hidden = true))
+                    )
+            }
+    )
+    @GetMapping("/topics/{id}/messages")
+    public ResponseEntity<List<MessageDTO>> getTopicMessages(
+            @PathVariable Long id,
+            @RequestParam(value = "from", required = false) Instant from,
+            @RequestParam(value = "to", required = false) Instant to,
+            @org.springdoc.api.annotations.ParameterObject Pageable pageable) {
+        log.debug("REST request to get Messages of Topic : {} from {} to {}", id, from, to);
+
+        if (from != null && to != null && !from.isBefore(to))
+            throw new BadRequestAlertException("from must be before to", ENTITY_NAME, "rangeinvalid");
+        if (!topicRepository.existsById(id))
+            return ResponseUtil.wrapOrNotFound(Optional.empty());
+
+        Slice<MessageDTO> slice = messageService.findAllByTopic(id, from, to, pageable);
+        HttpHeaders headers =
+                PaginationUtil.generateSliceHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), slice);
+
+        return ResponseEntity.ok().headers(headers).body(slice.getContent());
+    }
+
     /**
      * {@code DELETE  /topics/:id} : delete the "id" topic.
      *
      * @param id the id of the topicDTO to delete.
-     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}, or with status
+     * {@code 400 (Bad Request)} if stored messages still reference the topic.
      */
     @Operation(summary = "Delete a topic", description = "Delete a topic",
             security = {@SecurityRequirement(name = "bearer-key")},
@@ -268,6 +434,9 @@ public class TopicController {
                     @ApiResponse(responseCode = "204", description = "Topic successfully deleted",
                             content = {@Content(mediaType = "application/json")}
                     ),
+                    @ApiResponse(responseCode = "400", description = "Bad request (messages of the topic are stored)",
+                            content = @Content(schema = @Schema(hidden = true))
+                    ),
                     @ApiResponse(responseCode = "401", description = "Authentication Failure",
                             content = @Content(schema = @Schema(hidden = true))
                     )
@@ -277,6 +446,11 @@ public class TopicController {
     public ResponseEntity<Void> deleteTopic(@PathVariable Long id) {
         log.debug("REST request to delete Topic : {}", id);
 
+        // the partitioned message table has no foreign key to restrict the delete
+        if (messageService.existsByTopic(id))
+            throw new BadRequestAlertException("Topic has stored messages", ENTITY_NAME, "messagesexist");
+
+        topicService.findOne(id).ifPresent(topicDTO -> topicRecentMessageCache.evict(topicDTO.getName()));
         topicService.delete(id);
 
         return ResponseEntity
@@ -0,0 +1,165 @@
+package com.example.iotcore.archive;
+
+import com.example.iotcore.dto.MessageDTO;
+import com.example.iotcore.mapper.MessageMapper;
+import com.example.iotcore.repository.MessageRepository;
+import com.example.iotcore.service.impl.MessageArchiveServiceImpl;
+import com.example.iotcore.service.impl.MessageServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Messages moved into the {@link MessageArchive} by the archive job and read back by the history queries.
+ */
+class MessageArchiveIntegrationTest {
+    private static final LocalDate DAY = LocalDate.parse("2022-04-13");
+    private static final Instant START_OF_DAY = Instant.parse("2022-04-13T00:00:00Z");
+    private static final Instant START_OF_NEXT_DAY = Instant.parse("2022-04-14T00:00:00Z");
+    private static final long TOPIC = 7;
+    private static final long DEVICE = 3;
+
+    @TempDir
+    Path directory;
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+
+    private MessageArchive messageArchive;
+
+    private MessageServiceImpl messageService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        messageArchive = new MessageArchive(directory, 2, 3);
+        ObjectProvider<MessageArchive> archiveProvider = mock(ObjectProvider.class);
+        given(archiveProvider.getIfAvailable()).willReturn(messageArchive);
+        messageService = new MessageServiceImpl(messageRepository, mock(MessageMapper.class), archiveProvider);
+    }
+
+    @Test
+    void movesOldDaysIntoTheArchive() throws Exception {
+        // given
+        List<MessageDTO> stored = List.of(
+                message(1, "{\"BPM\":70}", START_OF_DAY.plusSeconds(10), DEVICE),
+                message(2, null, START_OF_DAY.plusSeconds(20), null),
+                message(3, "{\"BPM\":72}", START_OF_DAY.plusSeconds(30), DEVICE));
+        given(messageRepository.findOldestCreatedTimeStamp()).willReturn(START_OF_DAY.plusSeconds(10));
+        given(messageRepository.findTopicIdsBetween(START_OF_DAY, START_OF_NEXT_DAY)).willReturn(List.of(TOPIC));
+        given(messageRepository.findAllByTopicBetweenAfter(eq(TOPIC), eq(START_OF_DAY), eq(START_OF_NEXT_DAY),
+                eq(START_OF_DAY), eq(-1L), any())).willReturn(stored);
+
+        // when
+        long archived = new MessageArchiveServiceImpl(messageRepository, messageArchive).archiveBefore(DAY.plusDays(1));
+
+        // then
+        assertThat(archived).isEqualTo(3);
+        verify(messageRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        assertThat(messageArchive.getHorizon()).isEqualTo(START_OF_NEXT_DAY);
+        assertThat(new MessageArchive(directory, 2, 3).getHorizon()).isEqualTo(START_OF_NEXT_DAY);
+        assertThat(messageArchive.findAllByTopic(TOPIC, START_OF_DAY, START_OF_NEXT_DAY)).isEqualTo(stored);
+        assertThat(messageArchive.findAllByDevice(DEVICE, START_OF_DAY.plusSeconds(15), START_OF_NEXT_DAY))
+                .extracting(MessageDTO::getId).containsExactly(3L);
+    }
+
+    @Test
+    void mergesArchivedAndStoredMessages() throws Exception {
+        // given
+        try (var segment = messageArchive.newSegment(DAY, TOPIC)) {
+            segment.append(message(1, "a", START_OF_DAY.plusSeconds(10), DEVICE));
+            segment.append(message(3, "c", START_OF_DAY.plusSeconds(30), DEVICE));
+        }
+        messageArchive.setHorizon(START_OF_NEXT_DAY);
+        // a late arrival of the archived day and a message after the horizon
+        List<MessageDTO> stored = List.of(
+                message(2, "b", START_OF_DAY.plusSeconds(20), DEVICE),
+                message(4, "d", START_OF_NEXT_DAY.plusSeconds(10), DEVICE));
+        given(messageRepository.findAllByDeviceBetween(eq(DEVICE), any(), any(), any()))
+                .willAnswer(invocation -> slice(stored, invocation.getArgument(3)));
+
+        // when
+        List<MessageDTO> messages = new ArrayList<>();
+        Slice<MessageDTO> slice = null;
+        for (int page = 0; slice == null || slice.hasNext(); page++) {
+            slice = messageService.findAllByDevice(DEVICE, START_OF_DAY, START_OF_NEXT_DAY.plusSeconds(60),
+                    PageRequest.of(page, 3));
+            messages.addAll(slice.getContent());
+        }
+
+        // then
+        assertThat(messages).extracting(MessageDTO::getContent).containsExactly("a", "b", "c", "d");
+    }
+
+    @Test
+    void mergesOverlappingSegmentsInOrder() throws Exception {
+        // given
+        try (var segment = messageArchive.newSegment(DAY, TOPIC)) {
+            segment.append(message(1, "a", START_OF_DAY.plusSeconds(10), DEVICE));
+            segment.append(message(4, "d", START_OF_DAY.plusSeconds(40), DEVICE));
+            segment.append(message(5, "e", START_OF_DAY.plusSeconds(50), DEVICE));
+        }
+        // a page of late arrivals archived by a later run
+        try (var segment = messageArchive.newSegment(DAY, TOPIC)) {
+            segment.append(message(2, "b", START_OF_DAY.plusSeconds(20), DEVICE));
+            segment.append(message(3, "c", START_OF_DAY.plusSeconds(30), DEVICE));
+            segment.append(message(6, "f", START_OF_DAY.plusSeconds(60), DEVICE));
+        }
+
+        // when
+        List<String> contents = new ArrayList<>();
+        try (ArchiveCursor cursor = messageArchive.openByTopic(TOPIC, START_OF_DAY, START_OF_NEXT_DAY)) {
+            while (contents.size() < 4 && cursor.hasNext())
+                contents.add(cursor.next().getContent());
+        }
+
+        // then
+        assertThat(contents).containsExactly("a", "b", "c", "d");
+        assertThat(messageArchive.findIds(DAY, TOPIC, START_OF_DAY.plusSeconds(20), START_OF_DAY.plusSeconds(50)))
+                .containsExactlyInAnyOrder(2L, 3L, 4L);
+    }
+
+    @Test
+    void readsOnlyTheDatabaseAfterTheHorizon() throws Exception {
+        // given
+        messageArchive.setHorizon(START_OF_DAY);
+        given(messageRepository.findAllByDeviceBetween(anyLong(), any(), any(), any()))
+                .willReturn(new SliceImpl<>(List.of()));
+
+        // when
+        messageService.findAllByDevice(DEVICE, START_OF_DAY, START_OF_NEXT_DAY, PageRequest.of(2, 10));
+
+        // then
+        verify(messageRepository).findAllByDeviceBetween(DEVICE, START_OF_DAY, START_OF_NEXT_DAY,
+                PageRequest.of(2, 10));
+    }
+
+    private static MessageDTO message(long id, String content, Instant createdTimeStamp, Long deviceId) {
+        return new MessageDTO(id, content, createdTimeStamp, deviceId, TOPIC);
+    }
+
+    private static Slice<MessageDTO> slice(List<MessageDTO> messages, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), messages.size());
+        int to = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), messages.size());
+
+        return new SliceImpl<>(messages.subList(from, to), pageable, to < messages.size());
+    }
+}
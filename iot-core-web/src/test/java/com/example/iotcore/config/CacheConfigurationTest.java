@@ -0,0 +1,89 @@
+package com.example.iotcore.config;
+
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.Topic;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.units.MemoryUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The tiers, expiry and statistics {@link CacheConfiguration} gives each cache from {@code application.ehcache}.
+ */
+class CacheConfigurationTest {
+    private static final String DEVICE_CACHE = Device.class.getName();
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class,
+                    CacheAutoConfiguration.class))
+            .withUserConfiguration(ApplicationProperties.class, CacheConfiguration.class)
+            .withPropertyValues(
+                    "application.ehcache.time-to-live-seconds=3600",
+                    "application.ehcache.max-entries=100",
+                    "application.ehcache.caches.[" + DEVICE_CACHE + "].heap-entries=10",
+                    "application.ehcache.caches.[" + DEVICE_CACHE + "].off-heap-megabytes=1");
+
+    @Test
+    void givesTheConfiguredCachesAnOffHeapTier() {
+        contextRunner.run(context -> {
+            // when
+            CacheManager cacheManager = context.getBean(CacheManager.class);
+
+            // then
+            ResourcePools devicePools = resourcePools(cacheManager.getCache(DEVICE_CACHE));
+            assertThat(devicePools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(10);
+            assertThat(devicePools.getPoolForResource(ResourceType.Core.OFFHEAP).getSize()).isEqualTo(1);
+            assertThat(devicePools.getPoolForResource(ResourceType.Core.OFFHEAP).getUnit()).isEqualTo(MemoryUnit.MB);
+
+            ResourcePools topicPools = resourcePools(cacheManager.getCache(Topic.class.getName()));
+            assertThat(topicPools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(100);
+            assertThat(topicPools.getPoolForResource(ResourceType.Core.OFFHEAP)).isNull();
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordsStatisticsAndSizeOfEveryCache() {
+        contextRunner.run(context -> {
+            // given
+            CacheManager cacheManager = context.getBean(CacheManager.class);
+            MeterRegistry meterRegistry = new SimpleMeterRegistry();
+            context.getBean("cacheSizeMetrics", MeterBinder.class).bindTo(meterRegistry);
+            Cache<Object, Object> cache = cacheManager.getCache(DEVICE_CACHE);
+            JCacheMetrics.monitor(meterRegistry, cache);
+
+            // when
+            cache.put(1L, "device");
+            cache.get(1L);
+            cache.get(2L);
+
+            // then
+            assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+            // the size is counted by an asynchronous listener
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (meterRegistry.get("cache.size").tag("cache", DEVICE_CACHE).gauge().value() < 1
+                    && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertThat(meterRegistry.get("cache.size").tag("cache", DEVICE_CACHE).gauge().value()).isEqualTo(1);
+        });
+    }
+
+    private static ResourcePools resourcePools(Cache<Object, Object> cache) {
+        return cache.unwrap(org.ehcache.Cache.class).getRuntimeConfiguration().getResourcePools();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.iotcore.config;
+
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.domain.Device;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.cache.CacheMetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.simple.SimpleMetricsExportAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.servlet.ServletManagementContextAutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The metrics endpoint exposed by {@code application-web.yml} serves the cache meters.
+ */
+class MetricsEndpointTest {
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class,
+                    JacksonAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class,
+                    DispatcherServletAutoConfiguration.class, WebMvcAutoConfiguration.class,
+                    EndpointAutoConfiguration.class, WebEndpointAutoConfiguration.class,
+                    ManagementContextAutoConfiguration.class, ServletManagementContextAutoConfiguration.class,
+                    MetricsAutoConfiguration.class, CompositeMeterRegistryAutoConfiguration.class,
+                    SimpleMetricsExportAutoConfiguration.class, MetricsEndpointAutoConfiguration.class,
+                    CacheAutoConfiguration.class, CacheMetricsAutoConfiguration.class))
+            .withUserConfiguration(ApplicationProperties.class, CacheConfiguration.class)
+            .withInitializer(context -> context.getEnvironment().getPropertySources().addLast(managementProperties()))
+            .withPropertyValues("application.ehcache.time-to-live-seconds=3600", "application.ehcache.max-entries=100");
+
+    @Test
+    void servesTheCacheMeters() {
+        contextRunner.run(context -> {
+            // given
+            MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+            // when, then
+            mockMvc.perform(get("/management/metrics"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.names", hasItem("cache.size")))
+                    .andExpect(jsonPath("$.names", hasItem("cache.gets")));
+            mockMvc.perform(get("/management/metrics/cache.size").param("tag", "cache:" + Device.class.getName()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.measurements[0].value").value(0.0));
+        });
+    }
+
+    // the management settings of the application, without the rest of its configuration
+    private static MapPropertySource managementProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        try {
+            for (PropertySource<?> source : new YamlPropertySourceLoader().load("application-web",
+                    new ClassPathResource("config/application-web.yml")))
+                for (String name : ((EnumerablePropertySource<?>) source).getPropertyNames())
+                    if (name.startsWith("management."))
+                        properties.put(name, source.getProperty(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new MapPropertySource("management", properties);
+    }
+}
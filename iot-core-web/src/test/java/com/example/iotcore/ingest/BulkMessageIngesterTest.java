@@ -0,0 +1,154 @@
+package com.example.iotcore.ingest;
+
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.domain.Topic;
+import com.example.iotcore.dto.BulkIngestResultDTO;
+import com.example.iotcore.repository.DeviceRepository;
+import com.example.iotcore.repository.TopicRepository;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.ReferenceResolutionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class BulkMessageIngesterTest {
+    MessageService messageService;
+
+    ReferenceResolutionService referenceResolutionService;
+
+    DeviceRepository deviceRepository;
+
+    BulkMessageIngester bulkMessageIngester;
+
+    @BeforeEach
+    void setUp() {
+        messageService = mock(MessageService.class);
+        referenceResolutionService = mock(ReferenceResolutionService.class);
+        deviceRepository = mock(DeviceRepository.class);
+        TopicRepository topicRepository = mock(TopicRepository.class);
+
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIngest().setBatchSize(2);
+
+        given(deviceRepository.findAllById(anyIterable()))
+                .willReturn(List.of(Device.builder().id(1L).macAddress("11:11:11:11:11:11").build()));
+        given(referenceResolutionService.resolveDevice(anyString()))
+                .willAnswer(invocation -> Device.builder().id(2L).macAddress(invocation.getArgument(0)).build());
+        given(referenceResolutionService.resolveTopic(anyString()))
+                .willAnswer(invocation -> Topic.builder().id(1L).name(invocation.getArgument(0)).build());
+
+        bulkMessageIngester = new BulkMessageIngester(new ObjectMapper().registerModule(new JavaTimeModule()),
+                messageService, referenceResolutionService, deviceRepository, topicRepository, applicationProperties);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingestsJsonArrayInChunks() throws IOException {
+        // given
+        String body = """
+                [{"content": "1", "device": {"id": 1}, "topic": {"name": "heart-rate"}},
+                 {"content": "2", "device": {"macAddress": "22:22:22:22:22:22"}, "topic": {"name": "heart-rate"}},
+                 {"content": "3", "createdTimeStamp": "2022-04-13T11:43:47Z",
+                  "device": {"id": 1}, "topic": {"name": "heart-rate"}}]
+                """;
+
+        // when
+        BulkIngestResultDTO result = bulkMessageIngester.ingest(streamOf(body));
+
+        // then
+        ArgumentCaptor<List<Message>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(messageService, times(2)).saveAll(chunks.capture());
+        assertThat(chunks.getAllValues()).extracting(List::size).containsExactly(2, 1);
+        assertThat(chunks.getAllValues().get(1).get(0).getCreatedTimeStamp()).hasToString("2022-04-13T11:43:47Z");
+        assertThat(result.getAccepted()).isEqualTo(3);
+        assertThat(result.getRejected()).isZero();
+        assertThat(result.getErrors()).isEmpty();
+    }
+
+    @Test
+    void rejectsInvalidNdjsonLines() throws IOException {
+        // given
+        String body = """
+                {"content": "valid", "device": {"id": 1}, "topic": {"name": "heart-rate"}}
+                {"content": "unknown device", "device": {"id": 9}, "topic": {"name": "heart-rate"}}
+                {"id": 5, "content": "has id", "device": {"id": 1}, "topic": {"name": "heart-rate"}}
+                {"content": "no topic", "device": {"id": 1}}
+                {"content": "bad timestamp", "createdTimeStamp": "yesterday", "device": {"id": 1}, "topic": {"id": 1}}
+                """;
+
+        // when
+        BulkIngestResultDTO result = bulkMessageIngester.ingest(streamOf(body));
+
+        // then
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(4);
+        assertThat(result.getErrors()).extracting("offset").containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void rejectsReferencesTheColumnsCannotHoldOrTheResolutionFails() throws IOException {
+        // given
+        given(referenceResolutionService.resolveTopic("unresolvable"))
+                .willThrow(new IllegalStateException("database unavailable"));
+        String body = """
+                {"content": "long mac", "device": {"macAddress": "%s"}, "topic": {"name": "heart-rate"}}
+                {"content": "long name", "device": {"id": 1}, "topic": {"name": "%s"}}
+                {"content": "resolution fails", "device": {"id": 1}, "topic": {"name": "unresolvable"}}
+                {"content": "valid", "device": {"id": 1}, "topic": {"name": "heart-rate"}}
+                """.formatted("a".repeat(256), "t".repeat(256));
+
+        // when
+        BulkIngestResultDTO result = bulkMessageIngester.ingest(streamOf(body));
+
+        // then
+        verify(referenceResolutionService, never()).resolveDevice("a".repeat(256));
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting("reason").containsExactly(
+                "Device macAddress is longer than 255 characters", "Topic name is longer than 255 characters",
+                "Could not resolve device or topic");
+    }
+
+    @Test
+    void stopsAtMalformedJson() throws IOException {
+        // given
+        String body = """
+                {"content": "valid", "device": {"id": 1}, "topic": {"name": "heart-rate"}}
+                {"content": "broken", "device": {"id": 1}
+                {"content": "never read", "device": {"id": 1}, "topic": {"name": "heart-rate"}}
+                """;
+
+        // when
+        BulkIngestResultDTO result = bulkMessageIngester.ingest(streamOf(body));
+
+        // then
+        verify(messageService, times(1)).saveAll(any());
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(result.getErrors().get(0).getOffset()).isEqualTo(1);
+        assertThat(result.getErrors().get(0).getReason()).startsWith("Malformed JSON");
+    }
+
+    private static ByteArrayInputStream streamOf(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.iotcore.ingest;
+
+import com.example.iotcore.mqttclient.config.IngestProperties;
+import com.example.iotcore.mqttclient.decode.PayloadDecoders;
+import com.example.iotcore.mqttclient.ingest.IngestPipeline;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.ReferenceResolutionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The meters of the ingest path, and the bound on their topic tags.
+ */
+class IngestMetersTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void countsReceivedMessagesPerTopicUpToTheLimit() {
+        // given
+        IngestMeters ingestMeters = new IngestMeters(meterRegistry, 2);
+
+        // when
+        ingestMeters.messageReceived("heart-rate/1");
+        ingestMeters.messageReceived("heart-rate/2");
+        ingestMeters.messageReceived("heart-rate/1");
+        ingestMeters.messageReceived("heart-rate/3");
+        ingestMeters.messageReceived("heart-rate/4");
+
+        // then
+        assertThat(received("heart-rate/1")).isEqualTo(2);
+        assertThat(received("heart-rate/2")).isEqualTo(1);
+        assertThat(received(IngestMeters.OTHER_TOPICS)).isEqualTo(2);
+        assertThat(meterRegistry.get(IngestMeters.RECEIVED_METER_NAME).functionCounters()).hasSize(3);
+    }
+
+    @Test
+    void recordsBatchesAndJournalWrites() {
+        // given
+        IngestMeters ingestMeters = new IngestMeters(meterRegistry, 100);
+
+        // when
+        ingestMeters.batchFlushed(10, 2_000_000);
+        ingestMeters.batchFlushed(30, 4_000_000);
+        ingestMeters.journalWritten(5_000);
+
+        // then
+        assertThat(meterRegistry.get(IngestMeters.BATCH_SIZE_METER_NAME).summary().mean()).isEqualTo(20);
+        assertThat(meterRegistry.get(IngestMeters.FLUSH_METER_NAME).timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(IngestMeters.JOURNAL_WRITE_METER_NAME).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void publishesTheCountsOfThePipeline() {
+        // given
+        IngestMeters ingestMeters = new IngestMeters(meterRegistry, 100);
+        IngestPipeline pipeline = new IngestPipeline(new IngestProperties(), batch -> {
+        }, ingestMeters);
+        MessageBatchSink sink = new MessageBatchSink(mock(MessageService.class),
+                mock(ReferenceResolutionService.class), PayloadDecoders.of(List.of()));
+
+        // when
+        ingestMeters.bindTo(pipeline, sink);
+
+        // then
+        assertThat(meterRegistry.get(IngestMeters.QUEUE_DEPTH_METER_NAME).gauge().value()).isZero();
+        assertThat(meterRegistry.get(IngestMeters.DROPPED_METER_NAME).functionCounters())
+                .extracting(counter -> counter.getId().getTag(IngestMeters.CAUSE_DIMENSION))
+                .containsExactlyInAnyOrder("overflow", "duplicate");
+        assertThat(meterRegistry.get(IngestMeters.FAILED_METER_NAME).functionCounter().count()).isZero();
+        assertThat(meterRegistry.get(IngestMeters.SPILLED_METER_NAME).functionCounter().count()).isZero();
+        assertThat(meterRegistry.get(IngestMeters.DECODE_FAILURES_METER_NAME).functionCounter().count()).isZero();
+        pipeline.close();
+    }
+
+    private double received(String topic) {
+        return meterRegistry.get(IngestMeters.RECEIVED_METER_NAME).tag(IngestMeters.TOPIC_DIMENSION, topic)
+                .functionCounter().count();
+    }
+}
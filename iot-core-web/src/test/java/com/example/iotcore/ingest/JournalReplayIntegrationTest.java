@@ -0,0 +1,103 @@
+package com.example.iotcore.ingest;
+
+import com.example.iotcore.config.JournalReplayConfiguration;
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.domain.Topic;
+import com.example.iotcore.mqttclient.config.JournalProperties;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import com.example.iotcore.mqttclient.journal.MessageJournal;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.ReferenceResolutionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * The journal replay mode of the web app, from the journal's segments to {@link MessageService#insertAll(List)}.
+ */
+class JournalReplayIntegrationTest {
+    private static final Instant RECEIVED_AT = Instant.parse("2022-04-13T11:43:47Z");
+
+    @TempDir
+    Path directory;
+
+    private final MessageService messageService = mock(MessageService.class);
+
+    private final ReferenceResolutionService referenceResolutionService = mock(ReferenceResolutionService.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaysTheOutageWindow() throws Exception {
+        // given
+        JournalProperties journalProperties = new JournalProperties();
+        journalProperties.setDirectory(directory.toString());
+        MessageJournal journal = new MessageJournal(journalProperties);
+        for (int i = 0; i < 3; i++)
+            journal.append(new InboundMessage("heart-rate/1", "02:00:00:00:00:01",
+                    ("{\"BPM\":" + (70 + i) + "}").getBytes(), RECEIVED_AT.plusSeconds(i)));
+        journal.close();
+        given(referenceResolutionService.resolveDevice(anyString()))
+                .willAnswer(invocation -> Device.builder().id(1L).macAddress(invocation.getArgument(0)).build());
+        given(referenceResolutionService.resolveTopic(anyString()))
+                .willAnswer(invocation -> Topic.builder().id(1L).name(invocation.getArgument(0)).build());
+
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class))
+                .withUserConfiguration(ApplicationProperties.class, JournalReplayConfiguration.class)
+                .withBean(MessageService.class, () -> messageService)
+                .withBean(ReferenceResolutionService.class, () -> referenceResolutionService)
+                .withPropertyValues(
+                        "application.journal.directory=" + directory,
+                        "application.journal.replay.enabled=true",
+                        "application.journal.replay.since=" + RECEIVED_AT.plusSeconds(1),
+                        "application.journal.replay.until=" + RECEIVED_AT.plusSeconds(60))
+                .run(context -> {
+                    // when
+                    context.getBean(ApplicationRunner.class).run(new DefaultApplicationArguments());
+
+                    // then
+                    ArgumentCaptor<List<Message>> saved = ArgumentCaptor.forClass(List.class);
+                    verify(messageService).insertAll(saved.capture());
+                    assertThat(saved.getValue()).extracting(Message::getContent)
+                            .containsExactly("{\"BPM\":71}", "{\"BPM\":72}");
+                    assertThat(saved.getValue().get(0).getCreatedTimeStamp()).isEqualTo(RECEIVED_AT.plusSeconds(1));
+                    assertThat(saved.getValue().get(0).getDevice().getMacAddress()).isEqualTo("02:00:00:00:00:01");
+                });
+    }
+
+    @Test
+    void refusesToReplayWithoutAWindow() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class))
+                .withUserConfiguration(ApplicationProperties.class, JournalReplayConfiguration.class)
+                .withBean(MessageService.class, () -> messageService)
+                .withBean(ReferenceResolutionService.class, () -> referenceResolutionService)
+                .withPropertyValues(
+                        "application.journal.directory=" + directory,
+                        "application.journal.replay.enabled=true",
+                        "application.journal.replay.since=" + RECEIVED_AT)
+                // when, then
+                .run(context -> assertThat(context).hasFailed().getFailure()
+                        .hasRootCauseInstanceOf(IllegalStateException.class)
+                        .hasStackTraceContaining("application.journal.replay.since and until"));
+        verifyNoInteractions(messageService);
+    }
+}
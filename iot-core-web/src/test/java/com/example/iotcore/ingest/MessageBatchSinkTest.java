@@ -0,0 +1,90 @@
+package com.example.iotcore.ingest;
+
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.domain.Topic;
+import com.example.iotcore.mqttclient.config.DecoderProperties;
+import com.example.iotcore.mqttclient.decode.PayloadDecoders;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import com.example.iotcore.rollup.RollupSample;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.ReferenceResolutionService;
+import com.example.iotcore.service.RollupService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class MessageBatchSinkTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rejectsPayloadsNotMatchingTheirTopicSchema() {
+        // given
+        MessageService messageService = mock(MessageService.class);
+        ReferenceResolutionService referenceResolutionService = mock(ReferenceResolutionService.class);
+        given(referenceResolutionService.resolveDevice(anyString()))
+                .willAnswer(invocation -> Device.builder().id(1L).macAddress(invocation.getArgument(0)).build());
+        given(referenceResolutionService.resolveTopic(anyString()))
+                .willAnswer(invocation -> Topic.builder().id(1L).name(invocation.getArgument(0)).build());
+        DecoderProperties heartRate = new DecoderProperties();
+        heartRate.setTopicFilter("heart-rate");
+        heartRate.setFormat("json");
+        MessageBatchSink sink = new MessageBatchSink(messageService, referenceResolutionService,
+                PayloadDecoders.of(List.of(heartRate)));
+
+        // when
+        sink.persist(List.of(message("heart-rate", "{\"BPM\":72}"), message("heart-rate", "seventy-two"),
+                message("status", "online")));
+
+        // then
+        ArgumentCaptor<List<Message>> saved = ArgumentCaptor.forClass(List.class);
+        verify(messageService).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(Message::getContent).containsExactly("{\"BPM\":72}", "online");
+        assertThat(sink.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordsTheDecodedFieldsOfStoredMessages() {
+        // given
+        MessageService messageService = mock(MessageService.class);
+        ReferenceResolutionService referenceResolutionService = mock(ReferenceResolutionService.class);
+        RollupService rollupService = mock(RollupService.class);
+        given(referenceResolutionService.resolveDevice(anyString()))
+                .willAnswer(invocation -> Device.builder().id(1L).macAddress(invocation.getArgument(0)).build());
+        given(referenceResolutionService.resolveTopic(anyString()))
+                .willAnswer(invocation -> Topic.builder().id(2L).name(invocation.getArgument(0)).build());
+        DecoderProperties heartRate = new DecoderProperties();
+        heartRate.setTopicFilter("heart-rate");
+        heartRate.setFormat("json");
+        MessageBatchSink sink = new MessageBatchSink(messageService, referenceResolutionService,
+                PayloadDecoders.of(List.of(heartRate)), false, rollupService);
+
+        // when
+        sink.persist(List.of(message("heart-rate", "{\"BPM\":72,\"SpO2\":98.5}"), message("status", "online")));
+
+        // then
+        ArgumentCaptor<List<RollupSample>> samples = ArgumentCaptor.forClass(List.class);
+        verify(rollupService).recordAll(samples.capture());
+        assertThat(samples.getValue()).extracting(RollupSample::metric).containsExactly("BPM", "SpO2");
+        assertThat(samples.getValue()).extracting(RollupSample::value).containsExactly(72.0, 98.5);
+        assertThat(samples.getValue()).allSatisfy(sample -> {
+            assertThat(sample.deviceId()).isEqualTo(1L);
+            assertThat(sample.topicId()).isEqualTo(2L);
+        });
+    }
+
+    private static InboundMessage message(String topic, String payload) {
+        return new InboundMessage(topic, "02:00:00:00:00:01", payload.getBytes(StandardCharsets.UTF_8),
+                Instant.now());
+    }
+}
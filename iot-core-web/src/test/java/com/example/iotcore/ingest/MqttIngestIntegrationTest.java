@@ -0,0 +1,136 @@
+package com.example.iotcore.ingest;
+
+import com.example.iotcore.config.IngestConfiguration;
+import com.example.iotcore.config.MqttConfiguration;
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.domain.Topic;
+import com.example.iotcore.mqttbroker.EmbeddedMqttBroker;
+import com.example.iotcore.mqttclient.config.PahoConnectionProperties;
+import com.example.iotcore.mqttclient.stream.StreamEvent;
+import com.example.iotcore.mqttclient.stream.StreamListener;
+import com.example.iotcore.mqttclient.stream.TopicStreamHub;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.ReferenceResolutionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.paho.mqttv5.client.MqttClient;
+import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
+import org.eclipse.paho.mqttv5.common.MqttMessage;
+import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.eclipse.paho.mqttv5.common.packet.UserProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The mqtt ingest path of the web app, from the broker to {@link MessageService#saveAll(List)}, against an
+ * {@link EmbeddedMqttBroker}.
+ */
+class MqttIngestIntegrationTest {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedMqttBroker broker;
+
+    private final MessageService messageService = mock(MessageService.class);
+
+    private final ReferenceResolutionService referenceResolutionService = mock(ReferenceResolutionService.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = EmbeddedMqttBroker.start("iot", "secret");
+        given(referenceResolutionService.resolveDevice(anyString()))
+                .willAnswer(invocation -> Device.builder().id(1L).macAddress(invocation.getArgument(0)).build());
+        given(referenceResolutionService.resolveTopic(anyString()))
+                .willAnswer(invocation -> Topic.builder().id(1L).name(invocation.getArgument(0)).build());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        broker.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void persistsPublishedMessages() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class,
+                        JacksonAutoConfiguration.class))
+                .withUserConfiguration(ApplicationProperties.class, IngestConfiguration.class,
+                        MqttConfiguration.class)
+                .withBean(MessageService.class, () -> messageService)
+                .withBean(ReferenceResolutionService.class, () -> referenceResolutionService)
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withPropertyValues(
+                        "application.mqtt.enabled=true",
+                        "application.mqtt.server-uri=" + broker.getServerUri(),
+                        "application.mqtt.username=iot",
+                        "application.mqtt.password=secret",
+                        "application.mqtt.topic-filter=heart-rate/#",
+                        "application.mqtt.qos=1",
+                        "application.ingest.max-batch-latency-millis=20",
+                        "application.ingest.spill-directory=" + directory,
+                        "application.journal.directory=" + directory.resolve("journal"))
+                .run(context -> {
+                    // given
+                    assertThat(context).hasNotFailed();
+                    StreamListener listener = mock(StreamListener.class);
+                    context.getBean(TopicStreamHub.class).subscribe("heart-rate/1", listener);
+
+                    // when
+                    publish("heart-rate/1", "{\"BPM\":72}", "02:00:00:00:00:01");
+
+                    // then
+                    ArgumentCaptor<List<Message>> saved = ArgumentCaptor.forClass(List.class);
+                    verify(messageService, timeout(5_000)).saveAll(saved.capture());
+                    Message message = saved.getValue().get(0);
+                    assertThat(message.getContent()).isEqualTo("{\"BPM\":72}");
+                    assertThat(message.getDevice().getMacAddress()).isEqualTo("02:00:00:00:00:01");
+                    assertThat(message.getTopic().getName()).isEqualTo("heart-rate/1");
+                    ArgumentCaptor<List<StreamEvent>> streamed = ArgumentCaptor.forClass(List.class);
+                    verify(listener, timeout(5_000)).onEvents(streamed.capture());
+                    assertThat(streamed.getValue().get(0).data()).contains("\"macAddress\":\"02:00:00:00:00:01\"")
+                            .contains("\"content\":\"{\\\"BPM\\\":72}\"");
+                    assertThat(context.getBean(MeterRegistry.class).get(IngestMeters.RECEIVED_METER_NAME)
+                            .tag(IngestMeters.TOPIC_DIMENSION, "heart-rate/1").functionCounter().count()).isEqualTo(1);
+                });
+    }
+
+    private void publish(String topic, String payload, String device) throws Exception {
+        MqttClient client = new MqttClient(broker.getServerUri(), "device", null);
+        MqttConnectionOptions options = new MqttConnectionOptions();
+        options.setUserName("iot");
+        options.setPassword("secret".getBytes());
+        client.connect(options);
+
+        MqttMessage message = new MqttMessage(payload.getBytes(StandardCharsets.UTF_8));
+        message.setQos(1);
+        MqttProperties properties = new MqttProperties();
+        properties.setUserProperties(List.of(new UserProperty(PahoConnectionProperties.DEVICE_USER_PROPERTY, device)));
+        message.setProperties(properties);
+        client.publish(topic, message);
+
+        client.disconnect();
+        client.close();
+    }
+}
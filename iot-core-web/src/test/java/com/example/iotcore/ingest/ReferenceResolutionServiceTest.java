@@ -0,0 +1,120 @@
+package com.example.iotcore.ingest;
+
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.repository.DeviceRepository;
+import com.example.iotcore.repository.TopicRepository;
+import com.example.iotcore.service.impl.ReferenceResolutionServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ReferenceResolutionServiceTest {
+    private static final String MAC = "5C:CF:7F:12:34:56";
+
+    private final DeviceRepository deviceRepository = mock(DeviceRepository.class);
+
+    private final ReferenceResolutionServiceImpl referenceResolutionService =
+            new ReferenceResolutionServiceImpl(deviceRepository, mock(TopicRepository.class));
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void readsBackTheDeviceCreatedByAConcurrentWriter() throws Exception {
+        // given a unique mac address column, and two writers missing the device at the same time
+        Map<String, Device> table = new ConcurrentHashMap<>();
+        AtomicLong ids = new AtomicLong();
+        CountDownLatch bothMissed = new CountDownLatch(2);
+        given(deviceRepository.findByMacAddressIgnoreCase(anyString())).willAnswer(invocation -> {
+            Optional<Device> device = Optional.ofNullable(table.get(invocation.getArgument(0)));
+            if (device.isEmpty()) {
+                bothMissed.countDown();
+                bothMissed.await(5, TimeUnit.SECONDS);
+            }
+
+            return device;
+        });
+        given(deviceRepository.save(any(Device.class))).willAnswer(invocation -> {
+            Device device = invocation.getArgument(0);
+            device.setId(ids.incrementAndGet());
+            if (table.putIfAbsent(device.getMacAddress(), device) != null)
+                throw new DataIntegrityViolationException("Duplicate entry for key 'ux_device_mac_address'");
+
+            return device;
+        });
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+
+        // when
+        List<Future<Device>> resolved;
+        try {
+            resolved = writers.invokeAll(List.of(() -> referenceResolutionService.resolveDevice(MAC),
+                    () -> referenceResolutionService.resolveDevice(MAC)));
+        } finally {
+            writers.shutdown();
+        }
+
+        // then both get the row that made it into the table
+        assertThat(resolved.get(0).get()).isSameAs(resolved.get(1).get()).isSameAs(table.get(MAC));
+        verify(deviceRepository, times(2)).save(any(Device.class));
+        verify(deviceRepository, times(3)).findByMacAddressIgnoreCase(MAC);
+    }
+
+    @Test
+    void resolvesEvictedDevicesAgain() {
+        // given
+        given(deviceRepository.findByMacAddressIgnoreCase(MAC))
+                .willReturn(Optional.of(Device.builder().id(1L).macAddress(MAC).build()));
+        referenceResolutionService.resolveDevice(MAC);
+        referenceResolutionService.resolveDevice(MAC.toLowerCase());
+
+        // when
+        referenceResolutionService.evictDevice(1L);
+        referenceResolutionService.resolveDevice(MAC);
+
+        // then
+        verify(deviceRepository, times(2)).findByMacAddressIgnoreCase(anyString());
+    }
+
+    @Test
+    void evictsOnceMoreAfterTheTransaction() {
+        // given a transaction changing the device
+        given(deviceRepository.findByMacAddressIgnoreCase(MAC))
+                .willReturn(Optional.of(Device.builder().id(1L).macAddress(MAC).build()));
+        TransactionSynchronizationManager.initSynchronization();
+        referenceResolutionService.evictDevice(1L);
+        // a writer puts the old row back before the transaction committed
+        referenceResolutionService.resolveDevice(MAC);
+
+        // when
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        referenceResolutionService.resolveDevice(MAC);
+
+        // then
+        verify(deviceRepository, times(2)).findByMacAddressIgnoreCase(MAC);
+    }
+}
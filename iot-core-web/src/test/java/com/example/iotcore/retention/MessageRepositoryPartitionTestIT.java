@@ -0,0 +1,92 @@
+package com.example.iotcore.retention;
+
+import com.example.iotcore.MySqlExtension;
+import com.example.iotcore.domain.Message;
+import com.example.iotcore.domain.MessagePartition;
+import com.example.iotcore.repository.DeviceRepository;
+import com.example.iotcore.repository.MessageRepository;
+import com.example.iotcore.repository.TopicRepository;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * The partition DDL of {@link MessageRepository} against the partitioned liquibase schema on MySQL.
+ * <p>
+ * Not transactional: MySQL commits around every ALTER TABLE, so the test drops the partitions it adds.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MessageRepositoryPartitionTestIT extends MySqlExtension {
+
+    @Autowired
+    MessageRepository messageRepository;
+
+    @Autowired
+    DeviceRepository deviceRepository;
+
+    @Autowired
+    TopicRepository topicRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void addsDropsAndListsPartitions() {
+        // given
+        List<MessagePartition> partitions = messageRepository.findPartitions();
+        MessagePartition future = partitions.get(partitions.size() - 1);
+        LocalDate start = LocalDate.ofInstant(partitions.get(partitions.size() - 2).upperBound(), ZoneOffset.UTC);
+        LocalDate next = PartitionInterval.MONTH.next(start);
+        LocalDate last = PartitionInterval.MONTH.next(next);
+        MessagePartition first = new MessagePartition(PartitionInterval.partitionName(start), startOf(next), 0);
+        MessagePartition second = new MessagePartition(PartitionInterval.partitionName(next), startOf(last), 0);
+
+        // when p_future is split
+        messageRepository.addPartitions(List.of(first, second));
+
+        // then
+        assertThat(future.name()).isEqualTo("p_future");
+        assertThat(future.upperBound()).isNull();
+        assertThat(messageRepository.findPartitions())
+                .extracting(MessagePartition::name, MessagePartition::upperBound)
+                .endsWith(bounds(first), bounds(second), bounds(future));
+
+        // when a message stored in an added partition is dropped with it
+        long count = messageRepository.count();
+        transactionTemplate.executeWithoutResult(status -> messageRepository.insertAll(List.of(Message.builder()
+                .content("{\"BPM\": 72}")
+                .createdTimeStamp(startOf(start).plusSeconds(60))
+                .device(deviceRepository.getById(1L))
+                .topic(topicRepository.getById(1L))
+                .build())));
+        assertThat(messageRepository.count()).isEqualTo(count + 1);
+        messageRepository.dropPartitions(List.of(first.name(), second.name()));
+
+        // then
+        assertThat(messageRepository.findPartitions())
+                .extracting(MessagePartition::name, MessagePartition::upperBound)
+                .containsExactlyElementsOf(partitions.stream().map(MessageRepositoryPartitionTestIT::bounds).toList());
+        assertThat(messageRepository.count()).isEqualTo(count);
+    }
+
+    private static Instant startOf(LocalDate date) {
+        return date.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    // the estimated rows are left out, information_schema caches them
+    private static Tuple bounds(MessagePartition partition) {
+        return tuple(partition.name(), partition.upperBound());
+    }
+}
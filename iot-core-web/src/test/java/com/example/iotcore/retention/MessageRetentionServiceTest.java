@@ -0,0 +1,96 @@
+package com.example.iotcore.retention;
+
+import com.example.iotcore.domain.MessagePartition;
+import com.example.iotcore.repository.MessageRepository;
+import com.example.iotcore.service.impl.MessageRetentionServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Partitions planned and dropped, and the chunked delete of an unpartitioned message table, by the retention job.
+ */
+class MessageRetentionServiceTest {
+    private static final MessagePartition INITIAL = new MessagePartition("p_initial",
+            Instant.parse("2026-11-01T00:00:00Z"), 1_000);
+    private static final MessagePartition FUTURE = new MessagePartition("p_future", null, 0);
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+
+    private final MessageRetentionServiceImpl messageRetentionService =
+            new MessageRetentionServiceImpl(messageRepository);
+
+    @Test
+    void createsTheMonthlyPartitionsAfterTheLastBound() {
+        // given
+        given(messageRepository.findPartitions()).willReturn(List.of(INITIAL, FUTURE));
+
+        // when
+        int created = messageRetentionService.createPartitionsUntil(Instant.parse("2027-01-15T00:00:00Z"),
+                PartitionInterval.MONTH);
+
+        // then
+        assertThat(created).isEqualTo(3);
+        verify(messageRepository).addPartitions(List.of(
+                new MessagePartition("p20261101", Instant.parse("2026-12-01T00:00:00Z"), 0),
+                new MessagePartition("p20261201", Instant.parse("2027-01-01T00:00:00Z"), 0),
+                new MessagePartition("p20270101", Instant.parse("2027-02-01T00:00:00Z"), 0)));
+    }
+
+    @Test
+    void createsNoPartitionsOnceTheyReachTheInstant() {
+        // given
+        given(messageRepository.findPartitions()).willReturn(List.of(INITIAL, FUTURE));
+
+        // when
+        int created = messageRetentionService.createPartitionsUntil(Instant.parse("2026-11-01T00:00:00Z"),
+                PartitionInterval.DAY);
+
+        // then
+        assertThat(created).isZero();
+        verify(messageRepository, never()).addPartitions(anyList());
+    }
+
+    @Test
+    void dropsTheExpiredPartitionsOnly() {
+        // given
+        MessagePartition november = new MessagePartition("p20261101", Instant.parse("2026-12-01T00:00:00Z"), 500);
+        given(messageRepository.findPartitions()).willReturn(List.of(INITIAL, november, FUTURE));
+
+        // when
+        long purged = messageRetentionService.purgeBefore(Instant.parse("2026-11-20T00:00:00Z"), 1000);
+
+        // then
+        assertThat(purged).isEqualTo(1_000);
+        verify(messageRepository).dropPartitions(List.of("p_initial"));
+        verify(messageRepository, never()).findIdsCreatedBefore(any(), any());
+    }
+
+    @Test
+    void deletesInChunksWithoutPartitions() {
+        // given
+        Instant cutoff = Instant.parse("2026-11-20T00:00:00Z");
+        given(messageRepository.findPartitions()).willReturn(List.of());
+        given(messageRepository.findIdsCreatedBefore(cutoff, PageRequest.of(0, 2)))
+                .willReturn(List.of(1L, 2L)).willReturn(List.of(3L));
+
+        // when
+        long purged = messageRetentionService.purgeBefore(cutoff, 2);
+
+        // then
+        assertThat(purged).isEqualTo(3);
+        verify(messageRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(messageRepository).deleteAllByIdInBatch(List.of(3L));
+        verify(messageRepository, never()).dropPartitions(anyList());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.iotcore.rollup;
+
+import com.example.iotcore.domain.Device;
+import com.example.iotcore.domain.MessageRollup;
+import com.example.iotcore.domain.MessageRollupId;
+import com.example.iotcore.domain.RollupResolution;
+import com.example.iotcore.domain.Topic;
+import com.example.iotcore.repository.DeviceRepository;
+import com.example.iotcore.repository.MessageRollupRepository;
+import com.example.iotcore.repository.TopicRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The upsert of {@link MessageRollupRepository#upsertAll(List)} against the liquibase schema, on H2 in MySQL mode.
+ */
+class MessageRollupRepositoryIntegrationTest {
+    private static final Instant BUCKET_START = Instant.parse("2022-04-13T11:43:00Z");
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class,
+                    DataSourceTransactionManagerAutoConfiguration.class, LiquibaseAutoConfiguration.class,
+                    HibernateJpaAutoConfiguration.class, JpaRepositoriesAutoConfiguration.class,
+                    TransactionAutoConfiguration.class))
+            .withUserConfiguration(PersistenceConfiguration.class)
+            .withPropertyValues(
+                    "spring.datasource.url=jdbc:h2:mem:rollup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                    "spring.liquibase.change-log=classpath:/config/liquibase/master.xml",
+                    "spring.jpa.hibernate.ddl-auto=none",
+                    "spring.jpa.properties.hibernate.jdbc.time_zone=UTC");
+
+    @Test
+    void addsToTheStoredRollupOnDuplicateKey() {
+        contextRunner.run(context -> {
+            // given
+            Device device = context.getBean(DeviceRepository.class)
+                    .save(Device.builder().macAddress("5C:CF:7F:12:34:56").build());
+            Topic topic = context.getBean(TopicRepository.class).save(Topic.builder().name("heart-rate").build());
+            MessageRollupId id = new MessageRollupId(device.getId(), topic.getId(), "BPM", RollupResolution.MINUTE,
+                    BUCKET_START);
+            MessageRollupRepository messageRollupRepository = context.getBean(MessageRollupRepository.class);
+            messageRollupRepository.upsertAll(List.of(
+                    new MessageRollup(id, 2, 70, 72, 142, 72, BUCKET_START.plusSeconds(30))));
+
+            // when a later flush carries values of the bucket received late
+            messageRollupRepository.upsertAll(List.of(
+                    new MessageRollup(id, 1, 60, 60, 60, 60, BUCKET_START.plusSeconds(10))));
+            MessageRollup late = messageRollupRepository.findById(id).orElseThrow();
+            // and a flush carries values newer than the stored ones
+            messageRollupRepository.upsertAll(List.of(
+                    new MessageRollup(id, 1, 90, 90, 90, 90, BUCKET_START.plusSeconds(50))));
+            MessageRollup newer = messageRollupRepository.findById(id).orElseThrow();
+
+            // then
+            assertThat(late).isEqualTo(new MessageRollup(id, 3, 60, 72, 202, 72, BUCKET_START.plusSeconds(30)));
+            assertThat(newer).isEqualTo(new MessageRollup(id, 4, 60, 90, 292, 90, BUCKET_START.plusSeconds(50)));
+        });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EntityScan(basePackageClasses = Device.class)
+    @EnableJpaRepositories(basePackageClasses = DeviceRepository.class)
+    static class PersistenceConfiguration {
+    }
+}
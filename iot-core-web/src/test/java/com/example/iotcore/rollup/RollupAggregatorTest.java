@@ -0,0 +1,131 @@
+package com.example.iotcore.rollup;
+
+import com.example.iotcore.domain.MessageRollup;
+import com.example.iotcore.domain.MessageRollupId;
+import com.example.iotcore.domain.RollupResolution;
+import com.example.iotcore.repository.MessageRollupRepository;
+import com.example.iotcore.service.impl.RollupServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+
+class RollupAggregatorTest {
+    private static final Instant MINUTE = Instant.parse("2022-04-13T11:43:00Z");
+
+    @Test
+    void losesNoValuesToConcurrentDrains() throws Exception {
+        // given writers adding to one bucket while another thread drains it
+        RollupAggregator rollupAggregator = new RollupAggregator();
+        int writers = 4;
+        int samplesPerWriter = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        CountDownLatch written = new CountDownLatch(writers);
+        List<MessageRollup> drained = new ArrayList<>();
+
+        // when
+        try {
+            for (int writer = 0; writer < writers; writer++)
+                executor.submit(() -> {
+                    for (int i = 0; i < samplesPerWriter; i++)
+                        rollupAggregator.add(new RollupSample(1, 1, "BPM", MINUTE.plusMillis(i), 1));
+                    written.countDown();
+                });
+            Future<?> drainer = executor.submit(() -> {
+                while (written.getCount() > 0)
+                    drained.addAll(rollupAggregator.drain());
+            });
+            assertThat(written.await(30, TimeUnit.SECONDS)).isTrue();
+            drainer.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+        drained.addAll(rollupAggregator.drain());
+
+        // then the partial rollups of every resolution add up to all samples
+        for (RollupResolution resolution : RollupResolution.values()) {
+            List<MessageRollup> rollups = drained.stream()
+                    .filter(rollup -> rollup.getId().getResolution() == resolution)
+                    .toList();
+            assertThat(rollups.stream().mapToLong(MessageRollup::getCount).sum())
+                    .isEqualTo((long) writers * samplesPerWriter);
+            assertThat(rollups.stream().mapToDouble(MessageRollup::getSum).sum())
+                    .isEqualTo((double) writers * samplesPerWriter);
+        }
+        assertThat(rollupAggregator.size()).isZero();
+    }
+
+    @Test
+    void restoresTheRollupsOfAFailedFlush() {
+        // given
+        MessageRollupRepository messageRollupRepository = mock(MessageRollupRepository.class);
+        willThrow(new DataAccessResourceFailureException("database unavailable"))
+                .given(messageRollupRepository).upsertAll(anyList());
+        RollupServiceImpl rollupService = new RollupServiceImpl(messageRollupRepository);
+        rollupService.recordAll(List.of(new RollupSample(1, 1, "BPM", MINUTE.plusSeconds(10), 70),
+                new RollupSample(1, 1, "BPM", MINUTE.plusSeconds(20), 72)));
+
+        // when
+        assertThatThrownBy(rollupService::flush).isInstanceOf(DataAccessResourceFailureException.class);
+        // more values of the same buckets arrive before the database is back
+        rollupService.recordAll(List.of(new RollupSample(1, 1, "BPM", MINUTE.plusSeconds(5), 60)));
+        List<MessageRollup> stored = new ArrayList<>();
+        willAnswer(invocation -> stored.addAll(invocation.getArgument(0)))
+                .given(messageRollupRepository).upsertAll(anyList());
+
+        // then
+        assertThat(rollupService.flush()).isEqualTo(RollupResolution.values().length);
+        assertThat(stored).allSatisfy(rollup -> {
+            assertThat(rollup.getCount()).isEqualTo(3);
+            assertThat(rollup.getMin()).isEqualTo(60);
+            assertThat(rollup.getMax()).isEqualTo(72);
+            assertThat(rollup.getSum()).isEqualTo(202);
+            assertThat(rollup.getLast()).isEqualTo(72);
+            assertThat(rollup.getLastTimeStamp()).isEqualTo(MINUTE.plusSeconds(20));
+        });
+    }
+
+    @Test
+    void dropsTheOldestBucketsBeyondTheLimit() {
+        // given
+        RollupAggregator rollupAggregator = new RollupAggregator(3);
+        rollupAggregator.add(new RollupSample(1, 1, "BPM", MINUTE.plusSeconds(90), 70));
+        List<MessageRollup> failed = List.of(rollup(MINUTE.minusSeconds(120)), rollup(MINUTE),
+                rollup(MINUTE.minusSeconds(180)), rollup(MINUTE.minusSeconds(60)));
+
+        // when
+        int dropped = rollupAggregator.restore(failed);
+
+        // then the minute, hour and day buckets added meanwhile leave no room
+        assertThat(dropped).isEqualTo(4);
+        assertThat(rollupAggregator.size()).isEqualTo(3);
+
+        // when
+        rollupAggregator.drain();
+        dropped = rollupAggregator.restore(failed);
+
+        // then
+        assertThat(dropped).isEqualTo(1);
+        assertThat(rollupAggregator.drain()).extracting(rollup -> rollup.getId().getBucketStart())
+                .containsExactlyInAnyOrder(MINUTE, MINUTE.minusSeconds(60), MINUTE.minusSeconds(120));
+    }
+
+    private static MessageRollup rollup(Instant bucketStart) {
+        return new MessageRollup(new MessageRollupId(1L, 1L, "BPM", RollupResolution.MINUTE, bucketStart),
+                1, 70, 70, 70, 70, bucketStart);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.iotcore.security.jwt;
+
+import com.example.iotcore.config.property.ApplicationProperties;
+import com.example.iotcore.security.jwt.TokenProvider.VerifiedToken;
+import com.example.iotcore.security.management.SecurityMetersService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The single parse of {@link TokenProvider#authenticate(String)} and its cache of verified tokens.
+ */
+class TokenProviderTest {
+    private static final String BASE64_SECRET = "NjlhYjJhOWNkMDYwM2ZiZTk1MWQ0YmZkNmYzYjc2MGJiZjAwMWZkMzdiZTIyNjBhMzE2MzU2Mz" +
+            "U4ZjhkYTY3YWVkNjU1ZDQyZjcwM2IzNmJhNzZiOWU3ODdhZDcwOTFjMmM4OTU0ZmU2ZWQ4YWNmZmRiZDRhMGE3ZTQzY2YyZGM=";
+
+    private static final Authentication ADMIN = new UsernamePasswordAuthenticationToken("admin", "admin",
+            List.of(new SimpleGrantedAuthority("ROLE_ADMIN"), new SimpleGrantedAuthority("ROLE_USER")));
+
+    @SuppressWarnings("unchecked")
+    private final Cache<String, VerifiedToken> cache = mock(Cache.class);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    @BeforeEach
+    void setUp() {
+        applicationProperties.getJwt().setBase64Secret(BASE64_SECRET);
+        applicationProperties.getJwt().setTokenValidityInSeconds(86_400L);
+        applicationProperties.getJwt().setTokenValidityInSecondsForRememberMe(2_592_000L);
+    }
+
+    @Test
+    void cachesTheAuthenticationOfAValidToken() {
+        // given
+        TokenProvider tokenProvider = tokenProvider();
+        String token = tokenProvider.createToken(ADMIN, false);
+
+        // when
+        Authentication authentication = tokenProvider.authenticate(token);
+
+        // then
+        assertThat(authentication.getName()).isEqualTo("admin");
+        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly("ROLE_ADMIN", "ROLE_USER");
+        assertThat(authentication.getCredentials()).isNull();
+        ArgumentCaptor<VerifiedToken> verified = ArgumentCaptor.forClass(VerifiedToken.class);
+        ArgumentCaptor<String> digest = ArgumentCaptor.forClass(String.class);
+        verify(cache).put(digest.capture(), verified.capture());
+        assertThat(digest.getValue()).isNotEqualTo(token);
+        assertThat(verified.getValue().login()).isEqualTo("admin");
+        assertThat(verified.getValue().authorities()).isEqualTo(authentication.getAuthorities());
+        assertThat(verified.getValue().expiresAt()).isGreaterThan(System.currentTimeMillis());
+    }
+
+    @Test
+    void buildsAFreshAuthenticationFromTheCachedToken() {
+        // given
+        TokenProvider tokenProvider = tokenProvider();
+        given(cache.get(anyString())).willReturn(new VerifiedToken("admin",
+                List.copyOf(ADMIN.getAuthorities()), System.currentTimeMillis() + 60_000));
+
+        // when
+        Authentication authentication = tokenProvider.authenticate("not even a token");
+        Authentication next = tokenProvider.authenticate("not even a token");
+
+        // then
+        assertThat(authentication.getName()).isEqualTo("admin");
+        assertThat(authentication.getAuthorities()).isEqualTo(ADMIN.getAuthorities());
+        assertThat(authentication.getCredentials()).isNull();
+        assertThat(next).isNotSameAs(authentication).isEqualTo(authentication);
+        verify(cache, never()).put(anyString(), any());
+    }
+
+    @Test
+    void rejectsAnExpiredTokenEvenIfCached() {
+        // given
+        applicationProperties.getJwt().setTokenValidityInSeconds(-60L);
+        TokenProvider tokenProvider = tokenProvider();
+        String token = tokenProvider.createToken(ADMIN, false);
+        given(cache.get(anyString())).willReturn(new VerifiedToken("admin",
+                List.copyOf(ADMIN.getAuthorities()), System.currentTimeMillis() - 1));
+
+        // when
+        Authentication authentication = tokenProvider.authenticate(token);
+
+        // then
+        assertThat(authentication).isNull();
+        verify(cache).remove(anyString());
+        verify(cache, never()).put(anyString(), any());
+        assertThat(meterRegistry.get("security.authentication.invalid-tokens").tag("cause", "expired").counter()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheInvalidTokens() {
+        // given
+        TokenProvider tokenProvider = tokenProvider();
+
+        // when
+        Authentication authentication = tokenProvider.authenticate("not-a-token");
+
+        // then
+        assertThat(authentication).isNull();
+        verify(cache, never()).put(anyString(), any());
+    }
+
+    private TokenProvider tokenProvider() {
+        CacheManager cacheManager = mock(CacheManager.class);
+        given(cacheManager.<String, VerifiedToken>getCache(TokenProvider.AUTHENTICATIONS_CACHE)).willReturn(cache);
+
+        return new TokenProvider(applicationProperties, new SecurityMetersService(meterRegistry), cacheManager);
+    }
+}
@@ -2,8 +2,14 @@ package com.example.iotcore.web.controller;
 
 import com.example.iotcore.config.SecurityConfiguration;
 import com.example.iotcore.dto.DeviceDTO;
+import com.example.iotcore.domain.RollupResolution;
+import com.example.iotcore.dto.MessageDTO;
+import com.example.iotcore.dto.MessageRollupDTO;
 import com.example.iotcore.repository.DeviceRepository;
 import com.example.iotcore.service.DeviceService;
+import com.example.iotcore.service.MessageService;
+import com.example.iotcore.service.RollupService;
+import com.example.iotcore.web.errors.BadRequestAlertException;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,19 +21,27 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -57,6 +71,12 @@ class DeviceControllerTest {
     @MockBean
     DeviceRepository deviceRepository;
 
+    @MockBean
+    MessageService messageService;
+
+    @MockBean
+    RollupService rollupService;
+
     DeviceDTO deviceDTO1;
 
     DeviceDTO deviceDTO2;
@@ -194,6 +214,85 @@ class DeviceControllerTest {
         verify(deviceService, times(1)).findOne(anyLong());
     }
 
+    @Test
+    void getDeviceMessages() throws Exception {
+        // given
+        Instant from = Instant.parse("2026-10-17T00:00:00Z");
+        Instant to = Instant.parse("2026-10-17T01:00:00Z");
+        MessageDTO messageDTO = new MessageDTO(5L, "{\"BPM\":73}", from.plusSeconds(60), 1L, 2L);
+        given(deviceRepository.existsById(1L)).willReturn(true);
+        given(messageService.findAllByDevice(eq(1L), eq(from), eq(to), any()))
+                .willReturn(new SliceImpl<>(List.of(messageDTO), PageRequest.of(0, 1), true));
+
+        // when
+        mockMvc.perform(get(ENTITY_API_URL_ID + "/messages", 1L)
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(jsonPath("$.[0].id").value(5))
+                .andExpect(jsonPath("$.[0].device.id").value(1))
+                .andExpect(jsonPath("$.[0].topic.id").value(2));
+
+        // then
+        verify(messageService, times(1)).findAllByDevice(eq(1L), eq(from), eq(to), any());
+    }
+
+    @Test
+    void getDeviceMessagesOfUnknownDevice() throws Exception {
+        // given
+        given(deviceRepository.existsById(anyLong())).willReturn(false);
+
+        // when
+        mockMvc.perform(get(ENTITY_API_URL_ID + "/messages", 42L))
+                .andExpect(status().isNotFound());
+
+        // then
+        verify(messageService, never()).findAllByDevice(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void getDeviceRollups() throws Exception {
+        // given
+        Instant from = Instant.parse("2026-10-17T00:00:00Z");
+        Instant to = Instant.parse("2026-10-17T06:00:00Z");
+        MessageRollupDTO rollupDTO = new MessageRollupDTO(from, 2L, "BPM", 4, 60, 90, 300, 75,
+                from.plusSeconds(3599));
+        given(deviceRepository.existsById(1L)).willReturn(true);
+        given(rollupService.findAllByDevice(eq(1L), eq(RollupResolution.HOUR), eq(from), eq(to), any()))
+                .willReturn(new SliceImpl<>(List.of(rollupDTO), PageRequest.of(0, 1), false));
+
+        // when
+        mockMvc.perform(get(ENTITY_API_URL_ID + "/rollups", 1L)
+                        .param("resolution", "HOUR")
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.[0].topicId").value(2))
+                .andExpect(jsonPath("$.[0].metric").value("BPM"))
+                .andExpect(jsonPath("$.[0].count").value(4))
+                .andExpect(jsonPath("$.[0].average").value(75.0));
+
+        // then
+        verify(rollupService, times(1)).findAllByDevice(eq(1L), eq(RollupResolution.HOUR), eq(from), eq(to), any());
+    }
+
+    @Test
+    void getDeviceRollupsWithUnknownResolution() throws Exception {
+        // given
+
+        // when
+        mockMvc.perform(get(ENTITY_API_URL_ID + "/rollups", 1L).param("resolution", "WEEK"))
+                .andExpect(status().isBadRequest());
+
+        // then
+        verify(rollupService, never()).findAllByDevice(anyLong(), any(), any(), any(), any());
+    }
+
     @Test
     void deleteDevice() throws Exception {
         // given
@@ -205,4 +304,17 @@ class DeviceControllerTest {
         // then
         verify(deviceService, times(1)).delete(anyLong());
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteDeviceWithMessages() throws Exception {
+        // given
+        given(messageService.existsByDevice(1L)).willReturn(true);
+
+        // when, translated to 400 by the ExceptionTranslator outside of this slice
+        assertThatThrownBy(() -> mockMvc.perform(delete(ENTITY_API_URL_ID, 1L)))
+                .hasCauseInstanceOf(BadRequestAlertException.class);
+
+        // then
+        verify(deviceService, never()).delete(anyLong());
+    }
+}
@@ -468,4 +468,16 @@ class DeviceControllerTestIT extends MySqlExtension {
         assertThat(deviceRepository.findById(DEVICE_DTO_3.getId())).isEmpty();
         assertThat(deviceRepository.findAll()).hasSize(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteDevice_withMessages() throws Exception {
+        // given
+
+        // when the device of message1 is deleted
+        mockMvc.perform(delete(ENTITY_API_URL_ID, DEVICE_DTO_1.getId()))
+                .andExpect(status().isBadRequest());
+
+        // then
+        assertThat(deviceRepository.findById(DEVICE_DTO_1.getId())).isPresent();
+    }
+}
@@ -1,11 +1,16 @@
 package com.example.iotcore.web.controller;
 
 import com.example.iotcore.config.SecurityConfiguration;
+import com.example.iotcore.dto.BulkIngestErrorDTO;
+import com.example.iotcore.dto.BulkIngestResultDTO;
 import com.example.iotcore.dto.DeviceDTO;
 import com.example.iotcore.dto.MessageDTO;
 import com.example.iotcore.dto.TopicDTO;
+import com.example.iotcore.ingest.BulkMessageIngester;
 import com.example.iotcore.repository.MessageRepository;
 import com.example.iotcore.service.MessageService;
+import com.example.iotcore.util.KeysetCursor;
+import com.example.iotcore.web.errors.BadRequestAlertException;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,17 +23,23 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -55,6 +66,9 @@ class MessageControllerTest {
     @MockBean
     MessageRepository messageRepository;
 
+    @MockBean
+    BulkMessageIngester bulkMessageIngester;
+
     MessageDTO messageDTO1;
 
     MessageDTO messageDTO2;
@@ -113,6 +127,36 @@ class MessageControllerTest {
         verify(messageService, times(1)).save(any(MessageDTO.class));
     }
 
+    @Test
+    void createMessages() throws Exception {
+        // given
+        BulkIngestResultDTO result = BulkIngestResultDTO.builder()
+                .accepted(1)
+                .rejected(1)
+                .errors(List.of(new BulkIngestErrorDTO(1, "Unknown device")))
+                .build();
+        given(bulkMessageIngester.ingest(any(InputStream.class))).willReturn(result);
+
+        // when
+        mockMvc.perform(post(ENTITY_API_URL + "/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"content": "first", "device": {"id": 1}, "topic": {"id": 1}}
+                                {"content": "second", "device": {"id": 9}, "topic": {"id": 1}}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.errors[0].offset").value(1))
+                .andExpect(jsonPath("$.errors[0].reason").value("Unknown device"))
+        ;
+
+        // then
+        verify(bulkMessageIngester, times(1)).ingest(any(InputStream.class));
+    }
+
     @Test
     void updateMessage() throws Exception {
         // given
@@ -206,6 +250,64 @@ class MessageControllerTest {
         verify(messageService, times(1)).findAll(any());
     }
 
+    @Test
+    void getMessagesAfterCursor() throws Exception {
+        // given
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("2022-04-13T11:43:47Z"), 7L);
+        given(messageService.findAllAfter(cursor.createdTimeStamp(), cursor.id(), 2)).willReturn(messageDTOs);
+        String nextCursor = new KeysetCursor(messageDTO1.getCreatedTimeStamp(), messageDTO1.getId()).encode();
+
+        // when
+        mockMvc.perform(get(ENTITY_API_URL)
+                        .param("after", cursor.encode())
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(messageDTO1.getId().intValue()))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("after=" + nextCursor)))
+                .andExpect(header().doesNotExist("X-Total-Count"))
+        ;
+
+        // then
+        verify(messageService, times(1)).findAllAfter(cursor.createdTimeStamp(), cursor.id(), 2);
+        verify(messageRepository, never()).count();
+    }
+
+    @Test
+    void getFirstMessagesWithCount() throws Exception {
+        // given
+        given(messageService.findAllAfter(null, null, 3)).willReturn(messageDTOs);
+        given(messageRepository.count()).willReturn(2L);
+
+        // when
+        mockMvc.perform(get(ENTITY_API_URL)
+                        .param("limit", "2")
+                        .param("count", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK))
+                .andExpect(header().string("X-Total-Count", "2"))
+        ;
+
+        // then
+        verify(messageService, times(1)).findAllAfter(null, null, 3);
+    }
+
+    @Test
+    void getMessagesAfterInvalidCursor() throws Exception {
+        // given
+
+        // when
+        assertThatThrownBy(() -> mockMvc.perform(get(ENTITY_API_URL)
+                .param("after", "not-a-cursor")
+                .param("limit", "10")))
+                .hasCauseInstanceOf(BadRequestAlertException.class);
+
+        // then
+        verify(messageService, never()).findAllAfter(any(), any(), anyInt());
+    }
+
     @Test
     void getMessage() throws Exception {
         // given
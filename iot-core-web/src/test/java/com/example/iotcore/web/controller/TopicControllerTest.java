@@ -1,9 +1,18 @@
 package com.example.iotcore.web.controller;
 
 import com.example.iotcore.config.SecurityConfiguration;
+import com.example.iotcore.dto.MessageDTO;
 import com.example.iotcore.dto.TopicDTO;
+import com.example.iotcore.mqttclient.cache.RecentMessage;
+import com.example.iotcore.mqttclient.cache.TopicRecentMessageCache;
+import com.example.iotcore.mqttclient.stream.StreamEvent;
+import com.example.iotcore.mqttclient.stream.StreamListener;
+import com.example.iotcore.mqttclient.stream.StreamSubscription;
+import com.example.iotcore.mqttclient.stream.TopicStreamHub;
 import com.example.iotcore.repository.TopicRepository;
+import com.example.iotcore.service.MessageService;
 import com.example.iotcore.service.TopicService;
+import com.example.iotcore.web.errors.BadRequestAlertException;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,18 +24,30 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -53,6 +74,15 @@ class TopicControllerTest {
     @MockBean
     TopicRepository topicRepository;
 
+    @MockBean
+    MessageService messageService;
+
+    @MockBean
+    TopicRecentMessageCache topicRecentMessageCache;
+
+    @MockBean
+    TopicStreamHub topicStreamHub;
+
     TopicDTO topicDTO1;
 
     TopicDTO topicDTO2;
@@ -190,9 +220,121 @@ class TopicControllerTest {
         verify(topicService, times(1)).findOne(anyLong());
     }
 
+    @Test
+    void getRecentMessages() throws Exception {
+        // given
+        given(topicService.findOne(anyLong())).willReturn(Optional.of(topicDTO1));
+        given(topicRecentMessageCache.snapshot(eq(topicDTO1.getName()), eq(5))).willReturn(List.of(
+                new RecentMessage(0, "00:00:00:00:00:01", "{\"BPM\":72}".getBytes(), Instant.now()),
+                new RecentMessage(1, "00:00:00:00:00:01", "{\"BPM\":73}".getBytes(), Instant.now())));
+
+        // when
+        mockMvc.perform(get(ENTITY_API_URL_ID + "/recent", topicDTO1.getId()).param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.[*].content").value(hasItem("{\"BPM\":73}")))
+                .andExpect(jsonPath("$.[0].macAddress").value("00:00:00:00:00:01"));
+
+        // then
+        verify(topicRecentMessageCache, times(1)).snapshot(topicDTO1.getName(), 5);
+    }
+
+    @Test
+    void getRecentMessagesOfUnknownTopic() throws Exception {
+        // given
+        given(topicService.findOne(anyLong())).willReturn(Optional.empty());
+
+        // when
+        mockMvc.perform(get(ENTITY_API_URL_ID + "/recent", 42L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void streamTopicMessages() throws Exception {
+        // given
+        AtomicReference<StreamListener> listener = new AtomicReference<>();
+        StreamSubscription subscription = mock(StreamSubscription.class);
+        given(topicService.findOne(anyLong())).willReturn(Optional.of(topicDTO1));
+        given(topicStreamHub.subscribe(eq(topicDTO1.getName()), any())).willAnswer(invocation -> {
+            listener.set(invocation.getArgument(1));
+
+            return subscription;
+        });
+
+        // when
+        MvcResult result = mockMvc.perform(get(ENTITY_API_URL_ID + "/stream", topicDTO1.getId())
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        listener.get().onEvents(List.of(new StreamEvent(7, "00:00:00:00:00:01", "{\"content\":\"72\"}")));
+        listener.get().onClose();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        // then
+        assertThat(result.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        assertThat(result.getResponse().getContentAsString())
+                .isEqualTo("id:7\nevent:message\ndata:{\"content\":\"72\"}\n\n");
+        verify(subscription).close();
+    }
+
+    @Test
+    void streamMessagesOfUnknownTopic() throws Exception {
+        // given
+        given(topicService.findOne(anyLong())).willReturn(Optional.empty());
+
+        // when
+        mockMvc.perform(get(ENTITY_API_URL_ID + "/stream", 42L))
+                .andExpect(status().isNotFound());
+
+        // then
+        verify(topicStreamHub, never()).subscribe(any(), any());
+    }
+
+    @Test
+    void getTopicMessages() throws Exception {
+        // given
+        Instant from = Instant.parse("2026-10-17T00:00:00Z");
+        Instant to = Instant.parse("2026-10-17T01:00:00Z");
+        MessageDTO messageDTO = new MessageDTO(5L, "{\"BPM\":73}", from.plusSeconds(60), 1L, 2L);
+        given(topicRepository.existsById(1L)).willReturn(true);
+        given(messageService.findAllByTopic(eq(1L), eq(from), eq(to), any()))
+                .willReturn(new SliceImpl<>(List.of(messageDTO), PageRequest.of(0, 1), true));
+
+        // when
+        mockMvc.perform(get(ENTITY_API_URL_ID + "/messages", 1L)
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(jsonPath("$.[0].id").value(5))
+                .andExpect(jsonPath("$.[0].device.id").value(1))
+                .andExpect(jsonPath("$.[0].topic.id").value(2));
+
+        // then
+        verify(messageService, times(1)).findAllByTopic(eq(1L), eq(from), eq(to), any());
+    }
+
+    @Test
+    void getTopicMessagesOfUnknownTopic() throws Exception {
+        // given
+        given(topicRepository.existsById(anyLong())).willReturn(false);
+
+        // when
+        mockMvc.perform(get(ENTITY_API_URL_ID + "/messages", 42L))
+                .andExpect(status().isNotFound());
+
+        // then
+        verify(messageService, never()).findAllByTopic(anyLong(), any(), any(), any());
+    }
+
     @Test
     void deleteTopic() throws Exception {
         // given
+        given(topicService.findOne(anyLong())).willReturn(Optional.of(topicDTO1));
 
         // when
         mockMvc.perform(delete(ENTITY_API_URL_ID, anyLong()))
@@ -200,5 +342,19 @@ class TopicControllerTest {
 
         // then
         verify(topicService, times(1)).delete(anyLong());
+        verify(topicRecentMessageCache).evict(topicDTO1.getName());
+    }
+
+    @Test
+    void deleteTopicWithMessages() throws Exception {
+        // given
+        given(messageService.existsByTopic(1L)).willReturn(true);
+
+        // when, translated to 400 by the ExceptionTranslator outside of this slice
+        assertThatThrownBy(() -> mockMvc.perform(delete(ENTITY_API_URL_ID, 1L)))
+                .hasCauseInstanceOf(BadRequestAlertException.class);
+
+        // then
+        verify(topicService, never()).delete(anyLong());
     }
-}
\ No newline at end of file
+}
@@ -471,4 +471,16 @@ class TopicControllerTestIT extends MySqlExtension {
         assertThat(topicRepository.findById(TOPIC_3.getId())).isEmpty();
         assertThat(topicRepository.findAll()).hasSize(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteTopic_withMessages() throws Exception {
+        // given
+
+        // when the topic of message1 is deleted
+        mockMvc.perform(delete(ENTITY_API_URL_ID, TOPIC_1.getId()))
+                .andExpect(status().isBadRequest());
+
+        // then
+        assertThat(topicRepository.findById(TOPIC_1.getId())).isPresent();
+    }
+}
@@ -1,5 +1,15 @@
 package com.example.iotcore.mqttclient;
 
+import com.example.iotcore.mqttclient.cache.TopicRecentMessageCache;
+import com.example.iotcore.mqttclient.config.PahoConnectionProperties;
+import com.example.iotcore.mqttclient.ingest.Acknowledgement;
+import com.example.iotcore.mqttclient.ingest.DeviceIdentifier;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import com.example.iotcore.mqttclient.ingest.IngestMetrics;
+import com.example.iotcore.mqttclient.ingest.IngestPipeline;
+import com.example.iotcore.mqttclient.journal.MessageJournal;
+import com.example.iotcore.mqttclient.stream.TopicStreamHub;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.paho.mqttv5.client.IMqttToken;
 import org.eclipse.paho.mqttv5.client.MqttCallback;
@@ -7,21 +17,28 @@ import org.eclipse.paho.mqttv5.client.MqttDisconnectResponse;
 import org.eclipse.paho.mqttv5.common.MqttException;
 import org.eclipse.paho.mqttv5.common.MqttMessage;
 import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.eclipse.paho.mqttv5.common.packet.UserProperty;
 
+import java.io.IOException;
 import java.text.MessageFormat;
 import java.time.Instant;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 @Slf4j
+@RequiredArgsConstructor
 public class Callback implements MqttCallback {
-    public static final int TEN_MESSAGE_FOR_EACH_TOPIC = 9;
-    private final Map<String, Deque<String>> map = new HashMap<>();
-    private WriteToFile writeToFile = new WriteToFile("messages-" + Instant.now() + ".csv");
-    private long number = 0L;
+    private final IngestPipeline ingestPipeline;
+    // null when journaling is disabled
+    private final MessageJournal journal;
+    private final TopicRecentMessageCache recentMessages;
+    // null without live streaming
+    private final TopicStreamHub streams;
+    private final IngestMetrics metrics;
+    private final DeviceIdentifier deviceIdentifier;
+
+    public Callback(IngestPipeline ingestPipeline, MessageJournal journal, TopicRecentMessageCache recentMessages,
+                    TopicStreamHub streams) {
+        this(ingestPipeline, journal, recentMessages, streams, IngestMetrics.NONE, DeviceIdentifier.USER_PROPERTY);
+    }
 
     @Override
     public void disconnected(MqttDisconnectResponse disconnectResponse) {
@@ -35,28 +52,49 @@ public class Callback implements MqttCallback {
 
     @Override
     public void messageArrived(String topic, MqttMessage message) {
-        String content = number + " ," + Instant.now() + ", " + topic + ", " + message.toString() + "\n";
-
-        map.computeIfPresent(topic, (key, value) -> {
-            if (value.size() > TEN_MESSAGE_FOR_EACH_TOPIC)
-                value.removeFirst();
-            value.add(message.toString());
+        messageArrived(topic, message, Acknowledgement.NONE);
+    }
 
-            return value;
-        });
+    /**
+     * Same as {@link #messageArrived(String, MqttMessage)} for a message the broker expects to be acknowledged.
+     *
+     * @param acknowledgement called once the message is persisted.
+     */
+    public void messageArrived(String topic, MqttMessage message, Acknowledgement acknowledgement) {
+        String device = deviceIdentifier.identify(topic, message.getPayload(),
+                userProperty(message, PahoConnectionProperties.DEVICE_USER_PROPERTY));
+        String messageId = userProperty(message, PahoConnectionProperties.MESSAGE_ID_USER_PROPERTY);
+        metrics.messageReceived(topic);
+        InboundMessage inboundMessage = new InboundMessage(topic, device, message.getPayload(), Instant.now(),
+                acknowledgement, messageId, message.isDuplicate());
+        journal(inboundMessage);
+        ingestPipeline.submit(inboundMessage);
+        recentMessages.add(inboundMessage);
+        if (streams != null)
+            streams.publish(inboundMessage);
+    }
 
-        map.computeIfAbsent(topic, key -> {
-            LinkedList<String> messageList = new LinkedList<>();
-            messageList.add(message.toString());
+    private void journal(InboundMessage inboundMessage) {
+        if (journal == null)
+            return;
 
-            return messageList;
-        });
+        try {
+            long start = System.nanoTime();
+            journal.append(inboundMessage);
+            metrics.journalWritten(System.nanoTime() - start);
+        } catch (IOException e) {
+            log.error("Could not journal message on topic {}", inboundMessage.topic(), e);
+        }
+    }
 
-        if (number % 100_000 == 0 && number != 0)
-            CompletableFuture.runAsync(() -> writeToFile = new WriteToFile("messages-" + Instant.now() + ".csv"));
-        writeToFile.write(content);
+    private static String userProperty(MqttMessage message, String key) {
+        MqttProperties properties = message.getProperties();
+        if (properties != null && properties.getUserProperties() != null)
+            for (UserProperty userProperty : properties.getUserProperties())
+                if (key.equals(userProperty.getKey()))
+                    return userProperty.getValue();
 
-        log.warn("Num: " + ++number);
+        return null;
     }
 
     @Override
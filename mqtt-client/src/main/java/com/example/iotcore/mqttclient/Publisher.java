@@ -1,56 +1,50 @@
 package com.example.iotcore.mqttclient;
 
-import com.example.iotcore.mqttclient.config.PahoConnectionProperties;
+import com.example.iotcore.mqttclient.config.LoadGeneratorProperties;
+import com.example.iotcore.mqttclient.loadgen.LatencyProbe;
+import com.example.iotcore.mqttclient.loadgen.LoadGenerator;
+import com.example.iotcore.mqttclient.loadgen.LoadReport;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.paho.mqttv5.client.MqttClient;
 import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
 import org.eclipse.paho.mqttv5.common.MqttException;
-import org.eclipse.paho.mqttv5.common.MqttMessage;
+import org.eclipse.paho.mqttv5.common.MqttSubscription;
 
-import java.text.MessageFormat;
-import java.util.Arrays;
-import java.util.concurrent.TimeUnit;
+import java.util.UUID;
 
+/**
+ * Load test: publishes with a {@link LoadGenerator} and reads the messages back with a {@link LatencyProbe}.
+ */
 @Slf4j
 public class Publisher {
     public void run() {
         try {
-            publish("topic", "message", 30);
+            publish(LoadGeneratorProperties.fromSystemProperties()).log();
         } catch (MqttException e) {
             e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
-    public void publish(String topic, String message, int duration) throws MqttException {
-        MqttClient client = new MqttClient(PahoConnectionProperties.PROTOCOL +
-                PahoConnectionProperties.HOST + PahoConnectionProperties.PORT,
-                PahoConnectionProperties.CLIENT_ID, null);
+    public LoadReport publish(LoadGeneratorProperties properties) throws MqttException, InterruptedException {
+        LatencyProbe latencyProbe = new LatencyProbe(properties.getPayloadShape());
+        MqttClient probeClient = new MqttClient(properties.getServerUri(), "latency-probe-" + UUID.randomUUID(), null);
 
         MqttConnectionOptions connectionOptions = new MqttConnectionOptions();
-        connectionOptions.setUserName(PahoConnectionProperties.USERNAME);
-        connectionOptions.setPassword(PahoConnectionProperties.PASSWORD.getBytes());
-        connectionOptions.setCleanStart(false);
-        connectionOptions.setMaxReconnectDelay(1000);
-        client.connect(connectionOptions);
+        connectionOptions.setCleanStart(true);
+        connectionOptions.setUserName(properties.getUsername());
+        connectionOptions.setPassword(properties.getPassword().getBytes());
+        probeClient.setCallback(latencyProbe);
+        probeClient.connect(connectionOptions);
+        probeClient.subscribe(new MqttSubscription[]{new MqttSubscription(
+                properties.getTopic().replace("%d", "+"), properties.getQos())});
 
-        // Required parameters for message publishing
-        MqttMessage mqttMessage = new MqttMessage(message.getBytes());
-        mqttMessage.setQos(PahoConnectionProperties.QOS);
-        client.publish(topic, mqttMessage);
-
-        int[] messageRates = new int[duration];
-        for (int i = 0; i < duration; i++) {
-            messageRates[i] = 0;
-            for (long stop = System.nanoTime() + TimeUnit.SECONDS.toNanos(1); stop > System.nanoTime(); ) {
-                client.publish(topic, mqttMessage);
-                messageRates[i]++;
-            }
+        try {
+            return new LoadGenerator(properties).run(latencyProbe);
+        } finally {
+            probeClient.disconnect();
+            probeClient.close();
         }
-
-        client.disconnect();
-        int sum = Arrays.stream(messageRates).sum();
-        log.info(MessageFormat.format("All published messages: {0}", sum));
-        log.info("published per Second: " + sum / duration);
-        client.close();
     }
-}
\ No newline at end of file
+}
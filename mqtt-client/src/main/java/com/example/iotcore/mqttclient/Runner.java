@@ -1,18 +1,43 @@
 package com.example.iotcore.mqttclient;
 
+import com.example.iotcore.mqttclient.cache.TopicRecentMessageCache;
+import com.example.iotcore.mqttclient.config.IngestProperties;
+import com.example.iotcore.mqttclient.config.JournalProperties;
+import com.example.iotcore.mqttclient.ingest.IngestPipeline;
+import com.example.iotcore.mqttclient.journal.MessageJournal;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
 import java.util.Scanner;
 
 
+@Slf4j
 public class Runner {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         int choice;
         Scanner sc = new Scanner(System.in);
-        System.out.println("Enter your choice: \nsubscribe: 1\npublish: 2");
+        System.out.println("Enter your choice: \nsubscribe: 1\npublish (load test): 2");
         choice = sc.nextInt();
 
-        if (choice == 1)
-            new Subscriber().run();
-        else
+        if (choice == 1) {
+            // standalone there is no database behind the pipeline, batches are only logged
+            IngestProperties ingestProperties = new IngestProperties();
+            IngestPipeline ingestPipeline = new IngestPipeline(ingestProperties,
+                    batch -> log.debug("Ingested batch of {} messages", batch.size()));
+            MessageJournal journal = new MessageJournal(new JournalProperties());
+            ingestPipeline.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                ingestPipeline.close();
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    log.error("Could not close journal", e);
+                }
+            }));
+            new Subscriber(new Callback(ingestPipeline, journal,
+                    new TopicRecentMessageCache(ingestProperties.getRecentMessagesPerTopic(),
+                            ingestProperties.getRecentMessagesMaxTopics()), null)).run();
+        } else
             new Publisher().run();
     }
 }
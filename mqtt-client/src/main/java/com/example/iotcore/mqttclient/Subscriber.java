@@ -1,35 +1,118 @@
 package com.example.iotcore.mqttclient;
 
-import com.example.iotcore.mqttclient.config.PahoConnectionProperties;
+import com.example.iotcore.mqttclient.config.SubscriberProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.mqttv5.client.IMqttToken;
+import org.eclipse.paho.mqttv5.client.MqttCallback;
 import org.eclipse.paho.mqttv5.client.MqttClient;
 import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
+import org.eclipse.paho.mqttv5.client.MqttDisconnectResponse;
 import org.eclipse.paho.mqttv5.common.MqttException;
+import org.eclipse.paho.mqttv5.common.MqttMessage;
 import org.eclipse.paho.mqttv5.common.MqttSubscription;
+import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
 
+import java.util.ArrayList;
+import java.util.List;
 
+
+@Slf4j
+@RequiredArgsConstructor
 public class Subscriber {
-    MqttClient client;
+    private final SubscriberProperties properties;
+    private final Callback callback;
+    final List<MqttClient> clients = new ArrayList<>();
+
+    public Subscriber(Callback callback) {
+        this(SubscriberProperties.fromSystemProperties(), callback);
+    }
 
     public void run() {
         try {
-            new Subscriber().subscribe();
+            subscribe();
         } catch (MqttException e) {
             e.printStackTrace();
         }
     }
 
     public void subscribe() throws MqttException {
-        client = new MqttClient(PahoConnectionProperties.PROTOCOL +
-                PahoConnectionProperties.HOST + PahoConnectionProperties.PORT,
-                PahoConnectionProperties.CLIENT_ID, null);
-
-        MqttConnectionOptions connectionOptions = new MqttConnectionOptions();
-        connectionOptions.setCleanStart(false);
-        connectionOptions.setMaxReconnectDelay(1000);
-        connectionOptions.setUserName(PahoConnectionProperties.USERNAME);
-        connectionOptions.setPassword(PahoConnectionProperties.PASSWORD.getBytes());
-        client.connect(connectionOptions);
-        client.setCallback(new Callback());
-        client.subscribe(new MqttSubscription[]{new MqttSubscription("#", PahoConnectionProperties.QOS)});
+        String filter = properties.subscriptionFilter();
+        boolean manualAcks = properties.getQos() > 0;
+        for (int i = 0; i < properties.getConnections(); i++) {
+            MqttClient client = new MqttClient(properties.getServerUri(), properties.getClientId() + "-" + i, null);
+            clients.add(client);
+
+            MqttConnectionOptions connectionOptions = new MqttConnectionOptions();
+            connectionOptions.setCleanStart(false);
+            connectionOptions.setMaxReconnectDelay(1000);
+            connectionOptions.setUserName(properties.getUsername());
+            connectionOptions.setPassword(properties.getPassword().getBytes());
+            if (manualAcks) {
+                connectionOptions.setReceiveMaximum(properties.getReceiveMaximum());
+                connectionOptions.setSessionExpiryInterval(properties.getSessionExpirySeconds());
+            }
+            client.setManualAcks(manualAcks);
+            client.setCallback(manualAcks ? new AcknowledgingCallback(client, callback) : callback);
+            client.connect(connectionOptions);
+            client.subscribe(new MqttSubscription[]{new MqttSubscription(filter, properties.getQos())});
+        }
+        log.info("Subscribed to {} with QoS {} over {} connection(s)", filter, properties.getQos(), clients.size());
+    }
+
+    public void disconnect() throws MqttException {
+        for (MqttClient client : clients) {
+            if (client.isConnected())
+                client.disconnect();
+            client.close();
+        }
+        clients.clear();
+    }
+
+    /**
+     * Hands every message to the {@link Callback} with an acknowledgement bound to the connection it arrived on.
+     */
+    @RequiredArgsConstructor
+    private static class AcknowledgingCallback implements MqttCallback {
+        private final MqttClient client;
+        private final Callback callback;
+
+        @Override
+        public void messageArrived(String topic, MqttMessage message) {
+            int id = message.getId();
+            int qos = message.getQos();
+            callback.messageArrived(topic, message, () -> {
+                try {
+                    client.messageArrivedComplete(id, qos);
+                } catch (MqttException e) {
+                    log.warn("Could not acknowledge message {}, the broker will deliver it again", id, e);
+                }
+            });
+        }
+
+        @Override
+        public void disconnected(MqttDisconnectResponse disconnectResponse) {
+            callback.disconnected(disconnectResponse);
+        }
+
+        @Override
+        public void mqttErrorOccurred(MqttException exception) {
+            callback.mqttErrorOccurred(exception);
+        }
+
+        @Override
+        public void deliveryComplete(IMqttToken token) {
+            callback.deliveryComplete(token);
+        }
+
+        @Override
+        public void connectComplete(boolean reconnect, String serverURI) {
+            callback.connectComplete(reconnect, serverURI);
+        }
+
+        @Override
+        public void authPacketArrived(int reasonCode, MqttProperties properties) {
+            callback.authPacketArrived(reasonCode, properties);
+        }
     }
 }
@@ -0,0 +1,19 @@
+package com.example.iotcore.mqttclient.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * An entry of the {@link TopicRecentMessageCache}.
+ *
+ * @param sequence   position of the message in its topic, starting at 0.
+ * @param device     the mac address of the publishing device.
+ * @param payload    the raw MQTT payload.
+ * @param receivedAt the instant the message arrived.
+ */
+public record RecentMessage(long sequence, String device, byte[] payload, Instant receivedAt) {
+
+    public String content() {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
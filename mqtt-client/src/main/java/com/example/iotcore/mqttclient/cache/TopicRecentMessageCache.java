@@ -0,0 +1,132 @@
+package com.example.iotcore.mqttclient.cache;
+
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the last {@code capacity} messages of every topic in memory.
+ * <p>
+ * Every topic owns a fixed-size, array backed ring. Writers claim a sequence number and publish the message into
+ * its slot; readers copy the slots of the last sequence numbers and skip those that were overwritten in the
+ * meantime, so neither side ever takes a lock.
+ * <p>
+ * Rings are kept for the first {@code maxTopics} topics only, messages of later topics are not cached but counted,
+ * so publishers cycling through topic names do not grow the cache without bound. The ring of a deleted topic is
+ * {@linkplain #evict(String) evicted}, which makes room for another one.
+ */
+public class TopicRecentMessageCache {
+    public static final int DEFAULT_MAX_TOPICS = 10_000;
+
+    private final int capacity;
+    private final int maxTopics;
+    private final ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+
+    public TopicRecentMessageCache(int capacity) {
+        this(capacity, DEFAULT_MAX_TOPICS);
+    }
+
+    public TopicRecentMessageCache(int capacity, int maxTopics) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+
+        this.capacity = capacity;
+        this.maxTopics = maxTopics;
+    }
+
+    public void add(InboundMessage message) {
+        Ring ring = rings.get(message.topic());
+        if (ring == null) {
+            // the size may overshoot by the writers racing past this check, not more
+            if (rings.size() >= maxTopics) {
+                rejected.increment();
+
+                return;
+            }
+            ring = rings.computeIfAbsent(message.topic(), topic -> new Ring(capacity));
+        }
+
+        ring.add(message);
+    }
+
+    /**
+     * The most recent messages of a topic, oldest first.
+     *
+     * @param topic the topic name.
+     * @param limit the maximum number of messages to return.
+     * @return the messages, empty if nothing was received on the topic.
+     */
+    public List<RecentMessage> snapshot(String topic, int limit) {
+        Ring ring = rings.get(topic);
+        if (ring == null || limit <= 0)
+            return List.of();
+
+        return ring.snapshot(Math.min(limit, capacity));
+    }
+
+    public List<RecentMessage> snapshot(String topic) {
+        return snapshot(topic, capacity);
+    }
+
+    public void evict(String topic) {
+        rings.remove(topic);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of topics with a ring.
+     */
+    public int getTopicCount() {
+        return rings.size();
+    }
+
+    /**
+     * @return messages not cached because {@code maxTopics} other topics had a ring already.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private static final class Ring {
+        private final AtomicReferenceArray<RecentMessage> slots;
+        private final AtomicLong next = new AtomicLong();
+
+        private Ring(int capacity) {
+            slots = new AtomicReferenceArray<>(capacity);
+        }
+
+        private void add(InboundMessage message) {
+            long sequence = next.getAndIncrement();
+            slots.set(index(sequence), new RecentMessage(sequence, message.device(), message.payload(),
+                    message.receivedAt()));
+        }
+
+        private List<RecentMessage> snapshot(int limit) {
+            long end = next.get();
+            long start = Math.max(0, end - limit);
+            List<RecentMessage> messages = new ArrayList<>((int) (end - start));
+
+            for (long sequence = start; sequence < end; sequence++) {
+                RecentMessage message = slots.get(index(sequence));
+                // the slot is either not published yet or already reused by a newer message
+                if (message != null && message.sequence() == sequence)
+                    messages.add(message);
+            }
+
+            return messages;
+        }
+
+        private int index(long sequence) {
+            return (int) (sequence % slots.length());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.iotcore.mqttclient.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The payload schema of the topics matching a filter, see
+ * {@link com.example.iotcore.mqttclient.decode.PayloadDecoders}.
+ */
+@Getter
+@Setter
+public class DecoderProperties {
+    // MQTT topic filter, + and # wildcards allowed
+    private String topicFilter;
+
+    // json, csv, raw or the format of a service provided PayloadDecoderFactory
+    private String format = "json";
+
+    // csv only: the metric name of every column
+    private List<String> columns = new ArrayList<>();
+
+    // raw only: the metric name of the value
+    private String metric = "value";
+}
@@ -0,0 +1,67 @@
+package com.example.iotcore.mqttclient.config;
+
+import com.example.iotcore.mqttclient.ingest.BackpressurePolicy;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tuning of the {@link com.example.iotcore.mqttclient.ingest.IngestPipeline}.
+ */
+@Getter
+@Setter
+public class IngestProperties {
+    // number of messages the ring buffer holds before backpressure kicks in, split evenly over the writers
+    private int bufferCapacity = 65_536;
+
+    // every writer owns a partition of the buffer; the messages of one device always go to the same writer
+    private int writerThreads = 2;
+
+    // a batch is flushed once it holds this many messages...
+    private int batchSize = 1_000;
+
+    // ...or once its oldest message has waited this long
+    private long maxBatchLatencyMillis = 200;
+
+    // a failed batch is retried after this long, doubling up to the max, until it is persisted or the pipeline closes
+    private long retryBackoffMillis = 100;
+
+    private long maxRetryBackoffMillis = 10_000;
+
+    private BackpressurePolicy backpressurePolicy = BackpressurePolicy.BLOCK;
+
+    // only used by BackpressurePolicy.SPILL_TO_DISK
+    private String spillDirectory = System.getProperty("java.io.tmpdir");
+
+    // a message whose device, topic and message id (or payload) were persisted this long ago counts as duplicate,
+    // 0 disables deduplication
+    private long deduplicationWindowMillis = 300_000;
+
+    // fingerprints remembered per instance, 16 bytes each, split over the writers; a full window rotates early
+    private int deduplicationMaxEntries = 1_000_000;
+
+    // messages without message id are never suppressed, not even broker redeliveries, unless this is set; only safe
+    // for payloads that carry their own timestamp or sequence number, as devices repeat readings
+    private boolean deduplicateRepeatedPayloads = false;
+
+    // the 0 based topic level holding the mac address of the device, e.g. 1 for heart-rate/<mac>; -1 for none
+    private int deviceTopicLevel = -1;
+
+    // the string member of a JSON payload holding the mac address, e.g. mac; null for none. Either is needed for
+    // MQTT 3.1.1 devices, which cannot send the mac user property that is used otherwise
+    private String devicePayloadField;
+
+    // size of the per topic ring of the TopicRecentMessageCache
+    private int recentMessagesPerTopic = 10;
+
+    // topics the TopicRecentMessageCache keeps a ring for, messages of later ones are not cached
+    private int recentMessagesMaxTopics = 10_000;
+
+    // topics counted under their own name by the received messages meter, later ones are counted as "other"
+    private int metricsMaxTopics = 100;
+
+    // payload schemas per topic filter, the first matching filter wins
+    private List<DecoderProperties> decoders = new ArrayList<>();
+}
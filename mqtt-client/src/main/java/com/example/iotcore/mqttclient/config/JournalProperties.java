@@ -0,0 +1,30 @@
+package com.example.iotcore.mqttclient.config;
+
+import com.example.iotcore.mqttclient.journal.FsyncPolicy;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Tuning of the {@link com.example.iotcore.mqttclient.journal.MessageJournal}.
+ */
+@Getter
+@Setter
+public class JournalProperties {
+    private boolean enabled = true;
+
+    private String directory = ".";
+
+    // segments are pre-allocated with this size and rotated once full
+    private long segmentSizeBytes = 64L * 1024 * 1024;
+
+    // segments are also rotated once they are this old, 0 disables time based rotation
+    private long rotationIntervalMillis = 0;
+
+    private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+
+    private long fsyncIntervalMillis = 1_000;
+
+    private int fsyncEveryRecords = 1_000;
+
+    private JournalReplayProperties replay = new JournalReplayProperties();
+}
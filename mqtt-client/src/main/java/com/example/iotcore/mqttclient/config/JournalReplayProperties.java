@@ -0,0 +1,35 @@
+package com.example.iotcore.mqttclient.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Tuning of the {@link com.example.iotcore.mqttclient.journal.JournalReplayer}.
+ */
+@Getter
+@Setter
+public class JournalReplayProperties {
+    private boolean enabled = false;
+
+    // defaults to the directory of the journal
+    private String directory;
+
+    // only lines received within [since, until) are replayed, e.g. the window of a database outage
+    private Instant since;
+
+    private Instant until;
+
+    // segments replayed at the same time, every worker holds a database connection while it persists a batch
+    private int parallelism = 4;
+
+    // lines persisted per batch, and per checkpoint
+    private int batchSize = 5_000;
+
+    // also replay the .part segment a journal left behind when its process died; never while that journal still runs
+    private boolean includeUnsealed = false;
+
+    // stop the application once the replay is done, for a one-off replay run
+    private boolean exitWhenDone = false;
+}
@@ -0,0 +1,56 @@
+package com.example.iotcore.mqttclient.config;
+
+import com.example.iotcore.mqttclient.loadgen.PayloadShape;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of a {@link com.example.iotcore.mqttclient.loadgen.LoadGenerator} run.
+ * <p>
+ * Every setting can be overridden with a {@code -Dloadgen.<name>=<value>} system property, see
+ * {@link #fromSystemProperties()}.
+ */
+@Getter
+@Setter
+public class LoadGeneratorProperties {
+    private String serverUri = PahoConnectionProperties.serverUri();
+
+    private String username = PahoConnectionProperties.USERNAME;
+
+    private String password = PahoConnectionProperties.PASSWORD;
+
+    // simulated devices, spread round-robin over the connections
+    private int devices = 100;
+
+    private int connections = 4;
+
+    // target rate of every device; the generator is open-loop, it does not slow down when the broker does
+    private double messagesPerSecondPerDevice = 10;
+
+    private int durationSeconds = 30;
+
+    private int qos = PahoConnectionProperties.QOS;
+
+    private PayloadShape payloadShape = PayloadShape.HEART_RATE_JSON;
+
+    // "%d" is replaced by the device number
+    private String topic = "heart-rate";
+
+    public static LoadGeneratorProperties fromSystemProperties() {
+        LoadGeneratorProperties properties = new LoadGeneratorProperties();
+        properties.setServerUri(System.getProperty("loadgen.serverUri", properties.getServerUri()));
+        properties.setUsername(System.getProperty("loadgen.username", properties.getUsername()));
+        properties.setPassword(System.getProperty("loadgen.password", properties.getPassword()));
+        properties.setDevices(Integer.getInteger("loadgen.devices", properties.getDevices()));
+        properties.setConnections(Integer.getInteger("loadgen.connections", properties.getConnections()));
+        properties.setMessagesPerSecondPerDevice(Double.parseDouble(System.getProperty(
+                "loadgen.messagesPerSecondPerDevice", String.valueOf(properties.getMessagesPerSecondPerDevice()))));
+        properties.setDurationSeconds(Integer.getInteger("loadgen.durationSeconds", properties.getDurationSeconds()));
+        properties.setQos(Integer.getInteger("loadgen.qos", properties.getQos()));
+        properties.setPayloadShape(PayloadShape.valueOf(System.getProperty("loadgen.payloadShape",
+                properties.getPayloadShape().name())));
+        properties.setTopic(System.getProperty("loadgen.topic", properties.getTopic()));
+
+        return properties;
+    }
+}
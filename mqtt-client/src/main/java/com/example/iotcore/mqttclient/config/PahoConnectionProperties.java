@@ -21,4 +21,20 @@ public class PahoConnectionProperties {
     public static final String PASSWORD = "guest";
 
     public static final int QOS = 0;
+
+    public static final String TOPIC_FILTER = "#";
+
+    // MQTT v5 user property carrying the mac address of the publishing device
+    public static final String DEVICE_USER_PROPERTY = "mac";
+
+    // optional MQTT v5 user property with an id the device gives every reading, resends keep the id
+    public static final String MESSAGE_ID_USER_PROPERTY = "msg-id";
+
+    // device messages are attributed to when they do not carry a mac address
+    public static final String UNKNOWN_DEVICE = "00:00:00:00:00:00";
+
+    public static String serverUri() {
+        return PROTOCOL + HOST + PORT;
+    }
 }
+
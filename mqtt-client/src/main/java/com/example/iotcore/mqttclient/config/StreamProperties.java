@@ -0,0 +1,27 @@
+package com.example.iotcore.mqttclient.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Tuning of the {@link com.example.iotcore.mqttclient.stream.TopicStreamHub}.
+ */
+@Getter
+@Setter
+public class StreamProperties {
+    // events buffered per subscriber before it counts as slow
+    private int queueCapacity = 256;
+
+    // a slow subscriber gets the latest message of every device instead of all of them; otherwise its oldest
+    // buffered messages are dropped
+    private boolean coalesceLatest = true;
+
+    // threads writing the events to the subscribers, a subscriber is written to by one of them at a time
+    private int senderThreads = 4;
+
+    // events handed to a subscriber at once
+    private int maxBatchSize = 64;
+
+    // a stream is closed after this long, 0 never; clients reconnect
+    private long timeoutMillis = 1_800_000;
+}
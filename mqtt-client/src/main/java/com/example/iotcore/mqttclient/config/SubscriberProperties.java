@@ -0,0 +1,63 @@
+package com.example.iotcore.mqttclient.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of a {@link com.example.iotcore.mqttclient.Subscriber}.
+ * <p>
+ * Every setting can be overridden with a {@code -Dsubscriber.<name>=<value>} system property, see
+ * {@link #fromSystemProperties()}.
+ */
+@Getter
+@Setter
+public class SubscriberProperties {
+    private String serverUri = PahoConnectionProperties.serverUri();
+
+    private String username = PahoConnectionProperties.USERNAME;
+
+    private String password = PahoConnectionProperties.PASSWORD;
+
+    private String topicFilter = PahoConnectionProperties.TOPIC_FILTER;
+
+    // keep it stable across restarts for the broker to resume the session, connections get a "-<n>" suffix
+    private String clientId = PahoConnectionProperties.CLIENT_ID;
+
+    // 1 switches to at-least-once: messages are acknowledged manually once their batch is persisted
+    private int qos = PahoConnectionProperties.QOS;
+
+    // unacknowledged QoS 1 messages the broker may have in flight per connection, keep it well above the batch size
+    private int receiveMaximum = 10_000;
+
+    // how long the broker keeps the session, and the unacknowledged messages, of a disconnected client
+    private long sessionExpirySeconds = 3_600;
+
+    // when set, the filter is subscribed as $share/<sharedGroup>/<topicFilter> and the broker spreads the messages
+    // over every connection of every instance in the group
+    private String sharedGroup;
+
+    // connections opened by this instance, only useful together with a shared group
+    private int connections = 1;
+
+    public String subscriptionFilter() {
+        return sharedGroup == null || sharedGroup.isBlank()
+                ? topicFilter : "$share/" + sharedGroup + "/" + topicFilter;
+    }
+
+    public static SubscriberProperties fromSystemProperties() {
+        SubscriberProperties properties = new SubscriberProperties();
+        properties.setServerUri(System.getProperty("subscriber.serverUri", properties.getServerUri()));
+        properties.setUsername(System.getProperty("subscriber.username", properties.getUsername()));
+        properties.setPassword(System.getProperty("subscriber.password", properties.getPassword()));
+        properties.setTopicFilter(System.getProperty("subscriber.topicFilter", properties.getTopicFilter()));
+        properties.setClientId(System.getProperty("subscriber.clientId", properties.getClientId()));
+        properties.setQos(Integer.getInteger("subscriber.qos", properties.getQos()));
+        properties.setReceiveMaximum(Integer.getInteger("subscriber.receiveMaximum", properties.getReceiveMaximum()));
+        properties.setSessionExpirySeconds(Long.getLong("subscriber.sessionExpirySeconds",
+                properties.getSessionExpirySeconds()));
+        properties.setSharedGroup(System.getProperty("subscriber.sharedGroup", properties.getSharedGroup()));
+        properties.setConnections(Integer.getInteger("subscriber.connections", properties.getConnections()));
+
+        return properties;
+    }
+}
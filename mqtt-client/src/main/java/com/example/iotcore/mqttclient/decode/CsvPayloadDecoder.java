@@ -0,0 +1,43 @@
+package com.example.iotcore.mqttclient.decode;
+
+import java.util.List;
+
+/**
+ * Decodes a line of comma separated numbers such as {@code 72,98.5}. The n-th value becomes a field named after
+ * the n-th column; empty values are skipped, values beyond the last column are ignored.
+ */
+public class CsvPayloadDecoder implements PayloadDecoder {
+    private final String[] columns;
+
+    public CsvPayloadDecoder(List<String> columns) {
+        if (columns == null || columns.isEmpty())
+            throw new IllegalArgumentException("a csv decoder needs at least one column");
+
+        this.columns = columns.toArray(String[]::new);
+    }
+
+    @Override
+    public boolean decode(byte[] payload, FieldSink sink) {
+        int column = 0;
+        int start = 0;
+        while (start <= payload.length && column < columns.length) {
+            int end = start;
+            while (end < payload.length && payload[end] != ',')
+                end++;
+
+            int valueStart = start;
+            int valueEnd = end;
+            while (valueStart < valueEnd && Numbers.isWhitespace(payload[valueStart]))
+                valueStart++;
+            while (valueEnd > valueStart && Numbers.isWhitespace(payload[valueEnd - 1]))
+                valueEnd--;
+            if (valueStart < valueEnd && !Numbers.emit(payload, valueStart, valueEnd, columns[column], sink))
+                return false;
+
+            column++;
+            start = end + 1;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.iotcore.mqttclient.decode;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reusable {@link FieldSink} holding the fields of one payload. {@link #clear()} it before every decode; after a
+ * few messages it has grown to the widest payload and decoding no longer allocates.
+ * <p>
+ * Not thread safe, keep one per thread.
+ */
+public final class DecodedFields implements FieldSink {
+    private String[] metrics = new String[8];
+    private long[] longValues = new long[8];
+    private double[] doubleValues = new double[8];
+    private boolean[] integral = new boolean[8];
+    private int size;
+
+    @Override
+    public void field(String metric, long value) {
+        int index = append(metric);
+        longValues[index] = value;
+        doubleValues[index] = value;
+        integral[index] = true;
+    }
+
+    @Override
+    public void field(String metric, double value) {
+        int index = append(metric);
+        longValues[index] = (long) value;
+        doubleValues[index] = value;
+        integral[index] = false;
+    }
+
+    public void clear() {
+        Arrays.fill(metrics, 0, size, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String metric(int index) {
+        return metrics[checkIndex(index)];
+    }
+
+    /**
+     * @return whether the field was emitted as {@code long}.
+     */
+    public boolean isLong(int index) {
+        return integral[checkIndex(index)];
+    }
+
+    public long longValue(int index) {
+        return longValues[checkIndex(index)];
+    }
+
+    public double doubleValue(int index) {
+        return doubleValues[checkIndex(index)];
+    }
+
+    /**
+     * @return the index of the first field named {@code metric}, or {@code -1}.
+     */
+    public int indexOf(String metric) {
+        for (int i = 0; i < size; i++)
+            if (metrics[i].equals(metric))
+                return i;
+
+        return -1;
+    }
+
+    private int append(String metric) {
+        if (size == metrics.length) {
+            int capacity = size * 2;
+            metrics = Arrays.copyOf(metrics, capacity);
+            longValues = Arrays.copyOf(longValues, capacity);
+            doubleValues = Arrays.copyOf(doubleValues, capacity);
+            integral = Arrays.copyOf(integral, capacity);
+        }
+        metrics[size] = metric;
+
+        return size++;
+    }
+
+    private int checkIndex(int index) {
+        return Objects.checkIndex(index, size);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.iotcore.mqttclient.decode;
+
+/**
+ * Receives the typed fields a {@link PayloadDecoder} finds in a payload.
+ */
+public interface FieldSink {
+
+    void field(String metric, long value);
+
+    void field(String metric, double value);
+}
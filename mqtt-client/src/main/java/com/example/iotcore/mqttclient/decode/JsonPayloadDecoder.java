@@ -0,0 +1,143 @@
+package com.example.iotcore.mqttclient.decode;
+
+/**
+ * Decodes a flat JSON object such as {@code {"BPM":72,"sentAt":1649850227000000}}.
+ * <p>
+ * Every numeric member becomes a field named after its key, {@code true} and {@code false} become {@code 1} and
+ * {@code 0}. String, {@code null}, object and array members are skipped. Keys are taken verbatim, escape sequences
+ * in them are not resolved.
+ */
+public class JsonPayloadDecoder implements PayloadDecoder {
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private final MetricNames names = new MetricNames();
+
+    @Override
+    public boolean decode(byte[] payload, FieldSink sink) {
+        int i = skipWhitespace(payload, 0);
+        if (i == payload.length || payload[i] != '{')
+            return false;
+        i = skipWhitespace(payload, i + 1);
+        if (i < payload.length && payload[i] == '}')
+            return skipWhitespace(payload, i + 1) == payload.length;
+
+        while (true) {
+            if (i == payload.length || payload[i] != '"')
+                return false;
+            int keyStart = i + 1;
+            int keyEnd = endOfString(payload, keyStart);
+            if (keyEnd < 0)
+                return false;
+            i = skipWhitespace(payload, keyEnd + 1);
+            if (i == payload.length || payload[i] != ':')
+                return false;
+            i = skipWhitespace(payload, i + 1);
+            if (i == payload.length)
+                return false;
+
+            int valueEnd = decodeValue(payload, i, keyStart, keyEnd, sink);
+            if (valueEnd < 0)
+                return false;
+
+            i = skipWhitespace(payload, valueEnd);
+            if (i == payload.length)
+                return false;
+            if (payload[i] == '}')
+                return skipWhitespace(payload, i + 1) == payload.length;
+            if (payload[i] != ',')
+                return false;
+            i = skipWhitespace(payload, i + 1);
+        }
+    }
+
+    /**
+     * @return the index after the value starting at {@code start}, or {@code -1} if it is malformed.
+     */
+    private int decodeValue(byte[] payload, int start, int keyStart, int keyEnd, FieldSink sink) {
+        byte first = payload[start];
+        if (first == '"') {
+            int end = endOfString(payload, start + 1);
+
+            return end < 0 ? -1 : end + 1;
+        }
+        if (first == '{' || first == '[')
+            return endOfNested(payload, start);
+        if (startsWith(payload, start, TRUE)) {
+            sink.field(names.intern(payload, keyStart, keyEnd), 1L);
+
+            return start + TRUE.length;
+        }
+        if (startsWith(payload, start, FALSE)) {
+            sink.field(names.intern(payload, keyStart, keyEnd), 0L);
+
+            return start + FALSE.length;
+        }
+        if (startsWith(payload, start, NULL))
+            return start + NULL.length;
+
+        int end = start;
+        while (end < payload.length && isNumberByte(payload[end]))
+            end++;
+
+        return Numbers.emit(payload, start, end, names.intern(payload, keyStart, keyEnd), sink) ? end : -1;
+    }
+
+    /**
+     * @return the index of the quote closing the string that starts at {@code start}, or {@code -1}.
+     */
+    private static int endOfString(byte[] payload, int start) {
+        for (int i = start; i < payload.length; i++) {
+            if (payload[i] == '\\')
+                i++;
+            else if (payload[i] == '"')
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the index after the object or array that starts at {@code start}, or {@code -1}.
+     */
+    private static int endOfNested(byte[] payload, int start) {
+        int depth = 0;
+        for (int i = start; i < payload.length; i++) {
+            byte b = payload[i];
+            if (b == '"') {
+                i = endOfString(payload, i + 1);
+                if (i < 0)
+                    return -1;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && --depth == 0) {
+                return i + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] payload, int start, byte[] literal) {
+        if (payload.length - start < literal.length)
+            return false;
+        for (int i = 0; i < literal.length; i++)
+            if (payload[start + i] != literal[i])
+                return false;
+
+        return true;
+    }
+
+    private static boolean isNumberByte(byte b) {
+        return Numbers.isDigit(b) || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E';
+    }
+
+    private static int skipWhitespace(byte[] payload, int start) {
+        int i = start;
+        while (i < payload.length && Numbers.isWhitespace(payload[i]))
+            i++;
+
+        return i;
+    }
+}
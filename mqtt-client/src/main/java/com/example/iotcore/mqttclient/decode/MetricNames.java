@@ -0,0 +1,77 @@
+package com.example.iotcore.mqttclient.decode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps the bytes of a field name to a shared {@link String}, so decoding a known name does not allocate.
+ * <p>
+ * Lookups read a copy-on-write table without locking; new names are added under a lock. Past
+ * {@link #MAX_NAMES} names are no longer cached, so payloads with ever changing keys cannot grow it unbounded.
+ */
+final class MetricNames {
+    private static final int MAX_NAMES = 4_096;
+
+    private volatile Entry[] table = new Entry[64];
+    private int size;
+
+    String intern(byte[] bytes, int start, int end) {
+        int hash = hash(bytes, start, end);
+        String name = find(table, bytes, start, end, hash);
+
+        return name != null ? name : add(bytes, start, end, hash);
+    }
+
+    private synchronized String add(byte[] bytes, int start, int end, int hash) {
+        Entry[] current = table;
+        String name = find(current, bytes, start, end, hash);
+        if (name != null)
+            return name;
+
+        byte[] utf8 = Arrays.copyOfRange(bytes, start, end);
+        name = new String(utf8, StandardCharsets.UTF_8);
+        if (size == MAX_NAMES)
+            return name;
+
+        Entry[] next = (size + 1) * 2 > current.length ? new Entry[current.length * 2] : current.clone();
+        if (next.length != current.length)
+            for (Entry entry : current)
+                if (entry != null)
+                    insert(next, entry);
+        insert(next, new Entry(utf8, name, hash));
+        size++;
+        table = next;
+
+        return name;
+    }
+
+    private static String find(Entry[] entries, byte[] bytes, int start, int end, int hash) {
+        int mask = entries.length - 1;
+        for (int i = hash & mask; entries[i] != null; i = (i + 1) & mask) {
+            Entry entry = entries[i];
+            if (entry.hash == hash && Arrays.equals(entry.utf8, 0, entry.utf8.length, bytes, start, end))
+                return entry.name;
+        }
+
+        return null;
+    }
+
+    private static void insert(Entry[] entries, Entry entry) {
+        int mask = entries.length - 1;
+        int i = entry.hash & mask;
+        while (entries[i] != null)
+            i = (i + 1) & mask;
+        entries[i] = entry;
+    }
+
+    private static int hash(byte[] bytes, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + bytes[i];
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private record Entry(byte[] utf8, String name, int hash) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.iotcore.mqttclient.decode;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses decimal numbers straight from payload bytes.
+ * <p>
+ * Integers become {@code long} fields, everything else {@code double} fields. Up to 15 significant digits and
+ * powers of ten up to 22 the double is computed exactly from the digits; longer or more extreme numbers fall back
+ * to {@link Double#parseDouble(String)}, which allocates.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class Numbers {
+    private static final int MAX_LONG_DIGITS = 18;
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    /**
+     * Emits the number in {@code bytes[start, end)} as field {@code metric}.
+     *
+     * @return {@code false} if the range is not a number.
+     */
+    static boolean emit(byte[] bytes, int start, int end, String metric, FieldSink sink) {
+        int i = start;
+        boolean negative = i < end && bytes[i] == '-';
+        if (negative || i < end && bytes[i] == '+')
+            i++;
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean integral = true;
+        for (; i < end && isDigit(bytes[i]); i++) {
+            anyDigit = true;
+            if (mantissa != 0 || bytes[i] != '0')
+                digits++;
+            mantissa = mantissa * 10 + (bytes[i] - '0');
+            if (digits > MAX_LONG_DIGITS)
+                return emitParsed(bytes, start, end, metric, sink);
+        }
+        if (i < end && bytes[i] == '.') {
+            integral = false;
+            for (i++; i < end && isDigit(bytes[i]); i++) {
+                anyDigit = true;
+                if (mantissa != 0 || bytes[i] != '0')
+                    digits++;
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+                exponent--;
+                if (digits > MAX_LONG_DIGITS)
+                    return emitParsed(bytes, start, end, metric, sink);
+            }
+        }
+        if (!anyDigit)
+            return false;
+        if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            integral = false;
+            i++;
+            boolean negativeExponent = i < end && bytes[i] == '-';
+            if (negativeExponent || i < end && bytes[i] == '+')
+                i++;
+            if (i == end || !isDigit(bytes[i]))
+                return false;
+            int explicitExponent = 0;
+            for (; i < end && isDigit(bytes[i]); i++)
+                if (explicitExponent < 10_000)
+                    explicitExponent = explicitExponent * 10 + (bytes[i] - '0');
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (i != end)
+            return false;
+
+        if (integral) {
+            sink.field(metric, negative ? -mantissa : mantissa);
+
+            return true;
+        }
+        if (digits > MAX_EXACT_DIGITS || exponent < -22 || exponent > 22)
+            return emitParsed(bytes, start, end, metric, sink);
+
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        sink.field(metric, negative ? -value : value);
+
+        return true;
+    }
+
+    static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean emitParsed(byte[] bytes, int start, int end, String metric, FieldSink sink) {
+        try {
+            sink.field(metric, Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.US_ASCII)));
+
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
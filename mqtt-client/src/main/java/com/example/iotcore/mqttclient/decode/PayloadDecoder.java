@@ -0,0 +1,18 @@
+package com.example.iotcore.mqttclient.decode;
+
+/**
+ * Parses the raw MQTT payload of a topic into typed metric fields.
+ * <p>
+ * Implementations read the {@code byte[]} directly and must not allocate per message in the common case, so they
+ * can run for every ingested message. They are shared by the ingest writer threads and must be thread safe.
+ */
+@FunctionalInterface
+public interface PayloadDecoder {
+    /**
+     * Emits the fields of {@code payload} to {@code sink}.
+     *
+     * @return {@code false} if the payload does not have the expected format. Fields emitted before are to be
+     * discarded by the caller.
+     */
+    boolean decode(byte[] payload, FieldSink sink);
+}
@@ -0,0 +1,17 @@
+package com.example.iotcore.mqttclient.decode;
+
+import com.example.iotcore.mqttclient.config.DecoderProperties;
+
+/**
+ * Service provider of a payload format. Besides the {@link PayloadFormat built-in formats}, factories listed in
+ * {@code META-INF/services/com.example.iotcore.mqttclient.decode.PayloadDecoderFactory} are picked up by
+ * {@link PayloadDecoders#of(java.util.List)}.
+ */
+public interface PayloadDecoderFactory {
+    /**
+     * @return the name {@link DecoderProperties#getFormat()} refers to, compared ignoring case.
+     */
+    String format();
+
+    PayloadDecoder create(DecoderProperties properties);
+}
@@ -0,0 +1,66 @@
+package com.example.iotcore.mqttclient.decode;
+
+import com.example.iotcore.mqttclient.config.DecoderProperties;
+import com.example.iotcore.mqttclient.routing.TopicRouter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * The {@link PayloadDecoder}s of the configured topic filters, looked up through a {@link TopicRouter}. The first
+ * configured filter matching a topic decides its decoder.
+ */
+@Slf4j
+public class PayloadDecoders {
+    /**
+     * No topic has a decoder.
+     */
+    public static final PayloadDecoders NONE = new PayloadDecoders(new TopicRouter<>());
+
+    private final TopicRouter<PayloadDecoder> router;
+
+    private PayloadDecoders(TopicRouter<PayloadDecoder> router) {
+        this.router = router;
+    }
+
+    /**
+     * Creates the decoders with the {@link PayloadFormat built-in} and {@link ServiceLoader service provided}
+     * {@link PayloadDecoderFactory factories}.
+     *
+     * @throws IllegalArgumentException if a format has no factory.
+     */
+    public static PayloadDecoders of(List<DecoderProperties> decoders) {
+        if (decoders.isEmpty())
+            return NONE;
+
+        List<PayloadDecoderFactory> factories = new ArrayList<>(List.of(PayloadFormat.values()));
+        ServiceLoader.load(PayloadDecoderFactory.class).forEach(factories::add);
+
+        TopicRouter<PayloadDecoder> router = new TopicRouter<>();
+        for (DecoderProperties properties : decoders) {
+            PayloadDecoderFactory factory = factories.stream()
+                    .filter(candidate -> candidate.format().equalsIgnoreCase(properties.getFormat()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "Unknown payload format " + properties.getFormat() + " for " + properties.getTopicFilter()));
+            router.register(properties.getTopicFilter(), factory.create(properties));
+            log.info("Decoding {} payloads as {}", properties.getTopicFilter(), factory.format());
+        }
+
+        return new PayloadDecoders(router);
+    }
+
+    /**
+     * @return the decoder of {@code topic}, or {@code null} if its payloads are opaque.
+     */
+    public PayloadDecoder decoderFor(String topic) {
+        if (this == NONE)
+            return null;
+
+        List<PayloadDecoder> matching = router.route(topic);
+
+        return matching.isEmpty() ? null : matching.get(0);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.iotcore.mqttclient.decode;
+
+import com.example.iotcore.mqttclient.config.DecoderProperties;
+
+/**
+ * The payload formats that come with the ingest pipeline.
+ */
+public enum PayloadFormat implements PayloadDecoderFactory {
+    /**
+     * A flat JSON object such as {@code {"BPM":72}}, every numeric or boolean member is a field.
+     */
+    JSON {
+        @Override
+        public PayloadDecoder create(DecoderProperties properties) {
+            return new JsonPayloadDecoder();
+        }
+    },
+
+    /**
+     * A line of comma separated numbers, named by {@link DecoderProperties#getColumns()}.
+     */
+    CSV {
+        @Override
+        public PayloadDecoder create(DecoderProperties properties) {
+            return new CsvPayloadDecoder(properties.getColumns());
+        }
+    },
+
+    /**
+     * A single number, named by {@link DecoderProperties#getMetric()}.
+     */
+    RAW {
+        @Override
+        public PayloadDecoder create(DecoderProperties properties) {
+            return new RawNumericPayloadDecoder(properties.getMetric());
+        }
+    };
+
+    @Override
+    public String format() {
+        return name();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.iotcore.mqttclient.decode;
+
+/**
+ * Decodes a payload that is a single number, such as {@code 72}, into one field.
+ */
+public class RawNumericPayloadDecoder implements PayloadDecoder {
+    private final String metric;
+
+    public RawNumericPayloadDecoder(String metric) {
+        this.metric = metric;
+    }
+
+    @Override
+    public boolean decode(byte[] payload, FieldSink sink) {
+        int start = 0;
+        int end = payload.length;
+        while (start < end && Numbers.isWhitespace(payload[start]))
+            start++;
+        while (end > start && Numbers.isWhitespace(payload[end - 1]))
+            end--;
+
+        return Numbers.emit(payload, start, end, metric, sink);
+    }
+}
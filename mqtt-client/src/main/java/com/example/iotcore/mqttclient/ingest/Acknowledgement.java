@@ -0,0 +1,16 @@
+package com.example.iotcore.mqttclient.ingest;
+
+/**
+ * Tells the broker an {@link InboundMessage} is stored. Called by the {@link IngestPipeline} writer once the batch
+ * holding the message is persisted.
+ */
+@FunctionalInterface
+public interface Acknowledgement {
+    /**
+     * For messages the broker does not expect an acknowledgement of, e.g. QoS 0 or replayed ones.
+     */
+    Acknowledgement NONE = () -> {
+    };
+
+    void acknowledge();
+}
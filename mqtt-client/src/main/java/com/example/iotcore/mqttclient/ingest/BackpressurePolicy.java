@@ -0,0 +1,22 @@
+package com.example.iotcore.mqttclient.ingest;
+
+/**
+ * What the {@link IngestPipeline} does with a message when its ring buffer is full.
+ */
+public enum BackpressurePolicy {
+    /**
+     * Block the submitting (Paho callback) thread until a writer frees a slot.
+     */
+    BLOCK,
+
+    /**
+     * Evict the oldest buffered message to make room for the new one. The evicted message is acknowledged, it is
+     * given up on purpose and must not hold a slot of the broker's in-flight window.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Append the message to a spill file, which the writers drain once the buffer is empty.
+     */
+    SPILL_TO_DISK
+}
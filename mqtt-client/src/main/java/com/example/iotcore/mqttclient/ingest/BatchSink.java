@@ -0,0 +1,16 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import java.util.List;
+
+/**
+ * Destination of the batches drained by the {@link IngestPipeline} writer threads.
+ */
+@FunctionalInterface
+public interface BatchSink {
+    /**
+     * Persist a batch of messages.
+     *
+     * @param batch the messages to persist, in arrival order. The list is reused after the call returns.
+     */
+    void persist(List<InboundMessage> batch);
+}
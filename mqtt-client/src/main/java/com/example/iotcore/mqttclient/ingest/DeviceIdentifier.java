@@ -0,0 +1,110 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import com.example.iotcore.mqttclient.config.IngestProperties;
+import com.example.iotcore.mqttclient.config.PahoConnectionProperties;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tells which device published a message.
+ * <p>
+ * The mac address is taken from the configured level of the topic ({@link IngestProperties#getDeviceTopicLevel()}),
+ * else from the configured string member of a JSON payload ({@link IngestProperties#getDevicePayloadField()}), else
+ * from the MQTT 5 user property {@value PahoConnectionProperties#DEVICE_USER_PROPERTY}. MQTT 3.1.1 clients, such as
+ * heart-rate-mqtt.ino, cannot send user properties and are only told apart by the first two. Messages none of them
+ * identifies belong to {@link PahoConnectionProperties#UNKNOWN_DEVICE}.
+ */
+public class DeviceIdentifier {
+    /**
+     * Only reads the user property.
+     */
+    public static final DeviceIdentifier USER_PROPERTY = new DeviceIdentifier(-1, null);
+
+    // 0 based, -1 when the topic does not name the device
+    private final int topicLevel;
+    // the quoted member name, null when the payload does not name the device
+    private final byte[] payloadKey;
+
+    public DeviceIdentifier(IngestProperties properties) {
+        this(properties.getDeviceTopicLevel(), properties.getDevicePayloadField());
+    }
+
+    DeviceIdentifier(int topicLevel, String payloadField) {
+        this.topicLevel = topicLevel;
+        this.payloadKey = payloadField == null || payloadField.isBlank()
+                ? null : ('"' + payloadField + '"').getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param userProperty the value of the device user property, {@code null} if the message has none.
+     * @return the mac address of the publishing device.
+     */
+    public String identify(String topic, byte[] payload, String userProperty) {
+        String device = topicLevel < 0 ? null : topicLevel(topic);
+        if (device == null && payloadKey != null)
+            device = payloadMember(payload);
+        if (device == null)
+            device = userProperty;
+
+        return device == null || device.isEmpty() ? PahoConnectionProperties.UNKNOWN_DEVICE : device;
+    }
+
+    private String topicLevel(String topic) {
+        int start = 0;
+        for (int level = 0; level < topicLevel; level++) {
+            start = topic.indexOf('/', start) + 1;
+            if (start == 0)
+                return null;
+        }
+        int end = topic.indexOf('/', start);
+        if (end < 0)
+            end = topic.length();
+
+        return end == start ? null : topic.substring(start, end);
+    }
+
+    /**
+     * Finds {@code "<field>": "<value>"} without parsing the rest of the payload; escape sequences in the value are
+     * not resolved.
+     */
+    private String payloadMember(byte[] payload) {
+        for (int i = indexOf(payload, 0); i >= 0; i = indexOf(payload, i + 1)) {
+            int j = skipWhitespace(payload, i + payloadKey.length);
+            if (j == payload.length || payload[j] != ':')
+                continue;
+            j = skipWhitespace(payload, j + 1);
+            if (j == payload.length || payload[j] != '"')
+                continue;
+
+            int start = j + 1;
+            int end = start;
+            while (end < payload.length && payload[end] != '"')
+                end++;
+
+            return end == payload.length ? null : new String(payload, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        return null;
+    }
+
+    private int indexOf(byte[] payload, int from) {
+        outer:
+        for (int i = from; i <= payload.length - payloadKey.length; i++) {
+            for (int k = 0; k < payloadKey.length; k++)
+                if (payload[i + k] != payloadKey[k])
+                    continue outer;
+
+            return i;
+        }
+
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] payload, int i) {
+        while (i < payload.length && (payload[i] == ' ' || payload[i] == '\t' || payload[i] == '\n'
+                || payload[i] == '\r'))
+            i++;
+
+        return i;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Append-only overflow file used by {@link BackpressurePolicy#SPILL_TO_DISK}.
+ * <p>
+ * Messages are written as length-prefixed records and read back in FIFO order. Once every spilled record has been
+ * read the file is truncated, so it only grows while the writers are behind. The {@link Acknowledgement}s of the
+ * spilled messages stay in memory and are reattached when the messages are read back.
+ */
+@Slf4j
+class DiskSpillQueue implements Closeable {
+    private final Path path;
+    private final RandomAccessFile file;
+    private final DataOutputStream out;
+    private long readPosition;
+    private final Deque<Acknowledgement> acknowledgements = new ArrayDeque<>();
+    private long pending;
+
+    DiskSpillQueue(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        path = Files.createTempFile(directory, "ingest-spill-", ".bin");
+        file = new RandomAccessFile(path.toFile(), "rw");
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.getFD()), 64 * 1024));
+    }
+
+    synchronized void append(InboundMessage message) throws IOException {
+        byte[] topic = message.topic().getBytes(StandardCharsets.UTF_8);
+        byte[] device = message.device().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(topic.length);
+        out.write(topic);
+        out.writeInt(device.length);
+        out.write(device);
+        out.writeLong(message.receivedAt().getEpochSecond());
+        out.writeInt(message.receivedAt().getNano());
+        out.writeInt(message.payload().length);
+        out.write(message.payload());
+        writeMessageId(message.messageId());
+        out.writeBoolean(message.redelivered());
+        acknowledgements.add(message.acknowledgement());
+        pending++;
+    }
+
+    /**
+     * Reads up to {@code maxElements} spilled messages into {@code target}.
+     *
+     * @return the number of messages read.
+     */
+    synchronized int drainTo(List<InboundMessage> target, int maxElements) throws IOException {
+        if (pending == 0)
+            return 0;
+
+        out.flush();
+        file.seek(readPosition);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file.getFD()), 64 * 1024));
+        int read = 0;
+        long position = readPosition;
+        try {
+            while (read < maxElements && pending > 0) {
+                byte[] topic = readBytes(in);
+                byte[] device = readBytes(in);
+                Instant receivedAt = Instant.ofEpochSecond(in.readLong(), in.readInt());
+                byte[] payload = readBytes(in);
+                int messageIdLength = in.readInt();
+                byte[] messageId = messageIdLength < 0 ? null : in.readNBytes(messageIdLength);
+                boolean redelivered = in.readBoolean();
+                target.add(new InboundMessage(new String(topic, StandardCharsets.UTF_8),
+                        new String(device, StandardCharsets.UTF_8), payload, receivedAt, acknowledgements.remove(),
+                        messageId == null ? null : new String(messageId, StandardCharsets.UTF_8), redelivered));
+                position += 4L * Integer.BYTES + topic.length + device.length + payload.length
+                        + (messageId == null ? 0 : messageId.length) + Long.BYTES + Integer.BYTES + 1;
+                pending--;
+                read++;
+            }
+        } finally {
+            // the records read before a failure are handed out, the next read starts after them
+            if (pending == 0) {
+                file.setLength(0);
+                readPosition = 0;
+            } else {
+                readPosition = position;
+            }
+            file.seek(file.length());
+        }
+
+        return read;
+    }
+
+    /**
+     * Gives up on the records not read yet, e.g. after one of them could not be read back. The file is truncated.
+     *
+     * @return the acknowledgements of the discarded messages, in the order they were spilled.
+     */
+    synchronized List<Acknowledgement> discard() throws IOException {
+        List<Acknowledgement> discarded = new ArrayList<>(acknowledgements);
+        acknowledgements.clear();
+        pending = 0;
+        readPosition = 0;
+        out.flush();
+        file.setLength(0);
+        file.seek(0);
+
+        return discarded;
+    }
+
+    synchronized long size() {
+        return pending;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+        file.close();
+        if (pending == 0)
+            Files.deleteIfExists(path);
+        else
+            log.warn("{} spilled messages were not ingested and remain in {}", pending, path);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+
+        return bytes;
+    }
+
+    // -1 stands for no message id
+    private void writeMessageId(String messageId) throws IOException {
+        if (messageId == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = messageId.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fingerprints of the messages one {@link IngestPipeline} writer persisted recently, to recognize a message that
+ * arrives again.
+ * <p>
+ * A fingerprint is a 64 bit hash of device, topic and the message id, or the payload for messages without one. They
+ * are kept in two generations: new fingerprints go to the current one, which becomes the previous one once it is as
+ * old as the window, dropping the generation before. A fingerprint is therefore remembered between one and two
+ * windows, unless a generation fills up first, which rotates it early and bounds the memory to
+ * {@code maxEntries * 16} bytes however high the rate.
+ * <p>
+ * Fingerprints of a batch are only final once the batch is persisted: {@link #rollback()} forgets them again, so the
+ * redelivery of a failed batch is not taken for a duplicate.
+ */
+final class DuplicateWindow {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final long windowNanos;
+    private final int generationCapacity;
+    private LongHashSet current;
+    private LongHashSet previous;
+    private long rotatedAtNanos;
+    // fingerprints added since the last commit or rollback
+    private long[] uncommitted = new long[64];
+    private int uncommittedCount;
+
+    DuplicateWindow(long windowMillis, int maxEntries, long nowNanos) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.generationCapacity = Math.max(1, maxEntries / 2);
+        this.current = new LongHashSet(generationCapacity);
+        this.previous = new LongHashSet(generationCapacity);
+        this.rotatedAtNanos = nowNanos;
+    }
+
+    /**
+     * @return whether the fingerprint is in the window; if not it is added, until the next {@link #rollback()}.
+     */
+    boolean seen(long fingerprint, long nowNanos) {
+        if (nowNanos - rotatedAtNanos >= windowNanos || current.isFull())
+            rotate(nowNanos);
+        if (previous.contains(fingerprint) || !current.add(fingerprint))
+            return true;
+
+        if (uncommittedCount == uncommitted.length)
+            uncommitted = Arrays.copyOf(uncommitted, uncommittedCount * 2);
+        uncommitted[uncommittedCount++] = fingerprint;
+
+        return false;
+    }
+
+    void commit() {
+        uncommittedCount = 0;
+    }
+
+    void rollback() {
+        for (int i = 0; i < uncommittedCount; i++) {
+            // the generation may have rotated since the fingerprint was added
+            current.remove(uncommitted[i]);
+            previous.remove(uncommitted[i]);
+        }
+        uncommittedCount = 0;
+    }
+
+    private void rotate(long nowNanos) {
+        LongHashSet oldest = previous;
+        oldest.clear();
+        previous = current;
+        current = oldest;
+        rotatedAtNanos = nowNanos;
+    }
+
+    /**
+     * @return the fingerprint of the device, topic and message id, or payload if the message has no id.
+     */
+    static long fingerprint(InboundMessage message) {
+        long hash = mix(SEED, message.device());
+        hash = mix(hash, message.topic());
+        if (message.messageId() != null)
+            hash = mix(hash, message.messageId());
+        else
+            hash = mix(hash ^ 1, message.payload());
+
+        // finalizer of MurmurHash3, spreads every input bit over the slots of the hash set
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+
+        return hash ^ hash >>> 33;
+    }
+
+    // FNV-1a over the characters, then the length, so "ab" + "c" and "a" + "bc" differ
+    private static long mix(long hash, String value) {
+        for (int i = 0; i < value.length(); i++)
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+
+        return (hash ^ value.length()) * FNV_PRIME;
+    }
+
+    private static long mix(long hash, byte[] value) {
+        for (byte b : value)
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+
+        return (hash ^ value.length) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import java.time.Instant;
+
+/**
+ * A message received from the broker, as handed from the Paho callback thread to the {@link IngestPipeline}.
+ *
+ * @param topic           the topic the message was published on.
+ * @param device          the mac address of the publishing device.
+ * @param payload         the raw MQTT payload.
+ * @param receivedAt      the instant the message arrived.
+ * @param acknowledgement acknowledges the message to the broker once it is persisted.
+ * @param messageId       the id the device gave the message, {@code null} if it did not.
+ * @param redelivered     whether the broker flagged the message as a redelivery of one sent before.
+ */
+public record InboundMessage(String topic, String device, byte[] payload, Instant receivedAt,
+                             Acknowledgement acknowledgement, String messageId, boolean redelivered) {
+
+    public InboundMessage(String topic, String device, byte[] payload, Instant receivedAt) {
+        this(topic, device, payload, receivedAt, Acknowledgement.NONE);
+    }
+
+    public InboundMessage(String topic, String device, byte[] payload, Instant receivedAt,
+                          Acknowledgement acknowledgement) {
+        this(topic, device, payload, receivedAt, acknowledgement, null, false);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.iotcore.mqttclient.ingest;
+
+/**
+ * Measurements of the ingest path, e.g. to publish them as meters.
+ * <p>
+ * Called from the Paho callback and the writer threads for every message or batch, so implementations must neither
+ * block nor throw. Counts the pipeline keeps anyway, such as its queue depth or dropped messages, are read from
+ * {@link IngestPipeline} instead.
+ */
+public interface IngestMetrics {
+    IngestMetrics NONE = new IngestMetrics() {
+    };
+
+    /**
+     * A message arrived on the topic.
+     */
+    default void messageReceived(String topic) {
+    }
+
+    /**
+     * A message was appended to the journal.
+     */
+    default void journalWritten(long nanos) {
+    }
+
+    /**
+     * A batch was persisted by the {@link BatchSink}.
+     *
+     * @param size  the messages of the batch, without the suppressed duplicates.
+     * @param nanos how long the sink took.
+     */
+    default void batchFlushed(int size, long nanos) {
+    }
+}
@@ -0,0 +1,391 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import com.example.iotcore.mqttclient.config.IngestProperties;
+import com.example.iotcore.mqttclient.config.PahoConnectionProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decouples the Paho receive loop from persistence.
+ * <p>
+ * {@link #submit(InboundMessage)} puts the message into a bounded ring buffer and returns. Every writer thread owns
+ * one partition of the buffer and drains it into batches, each flushed to the {@link BatchSink} once it reaches
+ * {@link IngestProperties#getBatchSize()} messages or its oldest message is older than
+ * {@link IngestProperties#getMaxBatchLatencyMillis()}. What happens when a partition is full is decided by the
+ * {@link BackpressurePolicy}.
+ * <p>
+ * Messages are assigned to partitions by the hash of their device, as told by the {@link DeviceIdentifier}, or of
+ * their topic for messages without a known device, so the messages of one device are persisted by a single writer in
+ * the order they arrived while the writers still run in parallel, also for devices sharing one topic.
+ * <p>
+ * Every message is {@linkplain Acknowledgement acknowledged} once the sink returned for its batch. A failed batch is
+ * retried with a growing backoff until it is persisted, meanwhile its writer takes no new messages and its partition
+ * fills up under the {@link BackpressurePolicy}. Only a batch still failing when the pipeline closes is given up; it is
+ * not acknowledged, so with QoS 1 the broker delivers it again when the session resumes.
+ * <p>
+ * Writers acknowledge independently of each other, so with several writers the acknowledgements of one connection are
+ * not sent in the order the messages were received, unlike MQTT 5 [MQTT-4.6.0-2] asks of a client. Most brokers
+ * track every packet id on its own and accept that; set {@link IngestProperties#getWriterThreads()} to 1 for one
+ * that does not.
+ * <p>
+ * Before a batch is flushed, every writer drops the messages its {@link DuplicateWindow} recognizes: those with a
+ * message id seen before and, with {@link IngestProperties#isDeduplicateRepeatedPayloads()}, repeated payloads.
+ * Suppressed duplicates are acknowledged right away. A redelivery the broker flagged is not enough: without a message
+ * id it cannot be told apart from a device sending the same reading again, so it is stored a second time.
+ */
+@Slf4j
+public class IngestPipeline implements AutoCloseable {
+    private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final Partition[] partitions;
+    private final BatchSink sink;
+    private final IngestMetrics metrics;
+    private final BackpressurePolicy policy;
+    private final int batchSize;
+    private final long maxBatchLatencyNanos;
+    private final long retryBackoffMillis;
+    private final long maxRetryBackoffMillis;
+    // released by close, wakes writers waiting to retry a batch
+    private final CountDownLatch closing = new CountDownLatch(1);
+    private final ExecutorService writers;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private final boolean deduplicateRepeatedPayloads;
+    private volatile boolean running;
+
+    public IngestPipeline(IngestProperties properties, BatchSink sink) {
+        this(properties, sink, IngestMetrics.NONE);
+    }
+
+    public IngestPipeline(IngestProperties properties, BatchSink sink, IngestMetrics metrics) {
+        this.sink = sink;
+        this.metrics = metrics;
+        this.policy = properties.getBackpressurePolicy();
+        this.batchSize = properties.getBatchSize();
+        this.maxBatchLatencyNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxBatchLatencyMillis());
+        this.retryBackoffMillis = Math.max(1, properties.getRetryBackoffMillis());
+        this.maxRetryBackoffMillis = Math.max(retryBackoffMillis, properties.getMaxRetryBackoffMillis());
+        this.deduplicateRepeatedPayloads = properties.isDeduplicateRepeatedPayloads();
+
+        int writerThreads = properties.getWriterThreads();
+        int partitionCapacity = Math.max(1, properties.getBufferCapacity() / writerThreads);
+        this.partitions = new Partition[writerThreads];
+        for (int i = 0; i < writerThreads; i++)
+            partitions[i] = new Partition(new IngestRingBuffer(partitionCapacity),
+                    policy == BackpressurePolicy.SPILL_TO_DISK
+                            ? openSpillQueue(Path.of(properties.getSpillDirectory())) : null,
+                    properties.getDeduplicationWindowMillis() > 0
+                            ? new DuplicateWindow(properties.getDeduplicationWindowMillis(),
+                            properties.getDeduplicationMaxEntries() / writerThreads, System.nanoTime()) : null);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ingest-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    public synchronized void start() {
+        if (running)
+            return;
+
+        running = true;
+        for (Partition partition : partitions)
+            writers.execute(() -> drainLoop(partition));
+        log.info("Ingest pipeline started: {} writers, capacity {} each, batches of {}, policy {}",
+                partitions.length, partitions[0].buffer().capacity(), batchSize, policy);
+    }
+
+    /**
+     * Hands a message over to the writer threads. Only blocks under {@link BackpressurePolicy#BLOCK}.
+     */
+    public void submit(InboundMessage message) {
+        Partition partition = partitionOf(message);
+        IngestRingBuffer buffer = partition.buffer();
+        switch (policy) {
+            case BLOCK -> {
+                try {
+                    buffer.put(message);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+            }
+            case DROP_OLDEST -> {
+                InboundMessage evicted = buffer.offerEvictingOldest(message);
+                if (evicted != null) {
+                    dropped.increment();
+                    acknowledge(evicted);
+                }
+            }
+            case SPILL_TO_DISK -> {
+                // once something is spilled, keep spilling until the writer read the file back, so order is
+                // preserved; the writer reads it before waiting on the buffer again
+                if (partition.spillQueue().size() > 0 || !buffer.offer(message))
+                    spill(partition.spillQueue(), message);
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Partition partition : partitions)
+            depth += partition.buffer().size();
+
+        return depth;
+    }
+
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * @return messages dropped as duplicates of messages persisted before.
+     */
+    public long getSuppressedCount() {
+        return suppressed.sum();
+    }
+
+    /**
+     * Stops accepting work and waits for the writers to flush what is still buffered.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            running = false;
+        }
+        closing.countDown();
+        for (Partition partition : partitions)
+            partition.buffer().close();
+        writers.shutdown();
+
+        try {
+            if (!writers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                log.warn("Ingest writers did not finish in time, {} messages left in buffer", getQueueDepth());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (Partition partition : partitions) {
+            if (partition.spillQueue() == null)
+                continue;
+
+            try {
+                partition.spillQueue().close();
+            } catch (IOException e) {
+                log.error("Could not close spill file", e);
+            }
+        }
+    }
+
+    private Partition partitionOf(InboundMessage message) {
+        if (partitions.length == 1)
+            return partitions[0];
+
+        // the device comes from the DeviceIdentifier, so devices publishing on one topic still spread over the
+        // writers; only messages no device is known of keep the order of their topic instead
+        String key = PahoConnectionProperties.UNKNOWN_DEVICE.equals(message.device())
+                ? message.topic() : message.device();
+
+        return partitions[Math.floorMod(key.hashCode(), partitions.length)];
+    }
+
+    private void drainLoop(Partition partition) {
+        IngestRingBuffer buffer = partition.buffer();
+        DiskSpillQueue spillQueue = partition.spillQueue();
+        List<InboundMessage> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || buffer.size() > 0 || spilledPending(spillQueue)) {
+                // while messages are spilled the buffer only holds older ones, both are taken without waiting
+                if (spilledPending(spillQueue)) {
+                    buffer.drainTo(batch, batchSize, 0L);
+                    drainSpilled(spillQueue, batch);
+                    flush(batch, partition.duplicates());
+                    continue;
+                }
+                if (buffer.drainTo(batch, batchSize, IDLE_POLL_NANOS) == 0)
+                    continue;
+
+                long deadline = System.nanoTime() + maxBatchLatencyNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L || buffer.drainTo(batch, batchSize - batch.size(), remaining) == 0)
+                        break;
+                }
+
+                flush(batch, partition.duplicates());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flush(batch, partition.duplicates());
+        }
+    }
+
+    private void flush(List<InboundMessage> batch, DuplicateWindow duplicates) {
+        if (duplicates != null)
+            suppressDuplicates(batch, duplicates);
+        if (batch.isEmpty())
+            return;
+
+        try {
+            long backoff = retryBackoffMillis;
+            while (!persist(batch)) {
+                if (!running || closing.await(backoff, TimeUnit.MILLISECONDS)) {
+                    // one last attempt once closing
+                    if (persist(batch))
+                        break;
+                    giveUp(batch, duplicates);
+                    return;
+                }
+                backoff = Math.min(maxRetryBackoffMillis, backoff * 2);
+            }
+
+            for (InboundMessage message : batch)
+                acknowledge(message);
+            if (duplicates != null)
+                duplicates.commit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            giveUp(batch, duplicates);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * @return whether the sink persisted the batch.
+     */
+    private boolean persist(List<InboundMessage> batch) {
+        try {
+            long start = System.nanoTime();
+            sink.persist(batch);
+            metrics.batchFlushed(batch.size(), System.nanoTime() - start);
+
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Could not persist batch of {} messages", batch.size(), e);
+
+            return false;
+        }
+    }
+
+    private void giveUp(List<InboundMessage> batch, DuplicateWindow duplicates) {
+        if (duplicates != null)
+            duplicates.rollback();
+        failed.add(batch.size());
+        log.error("Gave up on batch of {} messages, they are not acknowledged", batch.size());
+    }
+
+    /**
+     * Removes the duplicates from the batch, keeping the order of the rest.
+     */
+    private void suppressDuplicates(List<InboundMessage> batch, DuplicateWindow duplicates) {
+        long now = System.nanoTime();
+        int kept = 0;
+        for (InboundMessage message : batch) {
+            boolean suppressible = message.messageId() != null || deduplicateRepeatedPayloads;
+            if (suppressible && duplicates.seen(DuplicateWindow.fingerprint(message), now)) {
+                suppressed.increment();
+                acknowledge(message);
+            } else {
+                batch.set(kept++, message);
+            }
+        }
+        batch.subList(kept, batch.size()).clear();
+    }
+
+    private static void acknowledge(InboundMessage message) {
+        try {
+            message.acknowledgement().acknowledge();
+        } catch (RuntimeException e) {
+            log.error("Could not acknowledge message on topic {}", message.topic(), e);
+        }
+    }
+
+    private void spill(DiskSpillQueue spillQueue, InboundMessage message) {
+        try {
+            spillQueue.append(message);
+            spilled.increment();
+        } catch (IOException e) {
+            dropped.increment();
+            log.error("Could not spill message on topic {}", message.topic(), e);
+        }
+    }
+
+    private static boolean spilledPending(DiskSpillQueue spillQueue) {
+        return spillQueue != null && spillQueue.size() > 0;
+    }
+
+    private int drainSpilled(DiskSpillQueue spillQueue, List<InboundMessage> batch) {
+        if (!spilledPending(spillQueue))
+            return 0;
+
+        try {
+            return spillQueue.drainTo(batch, batchSize - batch.size());
+        } catch (IOException e) {
+            // records are length-prefixed, nothing after an unreadable one can be found again
+            log.error("Could not read spilled messages, dropping the {} left", spillQueue.size(), e);
+            discardSpilled(spillQueue);
+
+            return 0;
+        }
+    }
+
+    /**
+     * Drops what is left in the spill file. The messages are acknowledged like those evicted by
+     * {@link BackpressurePolicy#DROP_OLDEST}, so they do not hold on to the broker's receive maximum.
+     */
+    private void discardSpilled(DiskSpillQueue spillQueue) {
+        try {
+            for (Acknowledgement acknowledgement : spillQueue.discard()) {
+                dropped.increment();
+                try {
+                    acknowledgement.acknowledge();
+                } catch (RuntimeException e) {
+                    log.error("Could not acknowledge a dropped spilled message", e);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not truncate spill file", e);
+        }
+    }
+
+    private static DiskSpillQueue openSpillQueue(Path directory) {
+        try {
+            return new DiskSpillQueue(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create spill file in " + directory, e);
+        }
+    }
+
+    /**
+     * The buffer one writer drains, its overflow file under {@link BackpressurePolicy#SPILL_TO_DISK} and the
+     * fingerprints of what it persisted, {@code null} when deduplication is disabled.
+     */
+    private record Partition(IngestRingBuffer buffer, DiskSpillQueue spillQueue, DuplicateWindow duplicates) {
+    }
+}
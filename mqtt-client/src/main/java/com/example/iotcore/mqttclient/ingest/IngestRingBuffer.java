@@ -0,0 +1,136 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, array backed ring buffer between the Paho callback thread and the ingest writer threads.
+ */
+class IngestRingBuffer {
+    private final InboundMessage[] items;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private int head;
+    private int count;
+    private boolean closed;
+
+    IngestRingBuffer(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+
+        items = new InboundMessage[capacity];
+    }
+
+    boolean offer(InboundMessage message) {
+        lock.lock();
+        try {
+            if (count == items.length)
+                return false;
+            enqueue(message);
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(InboundMessage message) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == items.length)
+                notFull.await();
+            enqueue(message);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the message, evicting the oldest one if the buffer is full.
+     *
+     * @return the evicted message, or {@code null} if nothing had to be evicted.
+     */
+    InboundMessage offerEvictingOldest(InboundMessage message) {
+        lock.lock();
+        try {
+            InboundMessage evicted = null;
+            if (count == items.length)
+                evicted = dequeue();
+            enqueue(message);
+
+            return evicted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves up to {@code maxElements} messages into {@code target}, waiting at most {@code timeoutNanos}
+     * for the first one to become available.
+     *
+     * @return the number of messages transferred.
+     */
+    int drainTo(List<InboundMessage> target, int maxElements, long timeoutNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            long nanos = timeoutNanos;
+            while (count == 0) {
+                if (nanos <= 0L || closed)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+
+            int transferred = Math.min(maxElements, count);
+            for (int i = 0; i < transferred; i++)
+                target.add(dequeue());
+
+            return transferred;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int capacity() {
+        return items.length;
+    }
+
+    /**
+     * Wakes up waiting writers; from now on {@link #drainTo} returns immediately once the buffer is empty.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(InboundMessage message) {
+        items[(head + count) % items.length] = message;
+        count++;
+        notEmpty.signal();
+    }
+
+    private InboundMessage dequeue() {
+        InboundMessage message = items[head];
+        items[head] = null;
+        head = (head + 1) % items.length;
+        count--;
+        notFull.signal();
+
+        return message;
+    }
+}
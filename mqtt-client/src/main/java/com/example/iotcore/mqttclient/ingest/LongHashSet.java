@@ -0,0 +1,98 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import java.util.Arrays;
+
+/**
+ * Fixed capacity set of non-zero longs, open addressing with linear probing, so remembering a fingerprint neither
+ * boxes nor allocates.
+ */
+final class LongHashSet {
+    // marks a free slot, zero fingerprints are stored as ZERO_SUBSTITUTE
+    private static final long FREE = 0L;
+    private static final long ZERO_SUBSTITUTE = 1L;
+
+    private final long[] slots;
+    private final int mask;
+    private final int capacity;
+    private int size;
+
+    /**
+     * @param capacity the number of entries the set holds at most; it uses twice as many slots.
+     */
+    LongHashSet(int capacity) {
+        this.capacity = capacity;
+        this.slots = new long[Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1];
+        this.mask = slots.length - 1;
+    }
+
+    boolean contains(long value) {
+        value = substitute(value);
+        for (int slot = slotOf(value); ; slot = slot + 1 & mask) {
+            if (slots[slot] == FREE)
+                return false;
+            if (slots[slot] == value)
+                return true;
+        }
+    }
+
+    /**
+     * @return whether the value was added, {@code false} if it was already in the set.
+     * @throws IllegalStateException if the set is full.
+     */
+    boolean add(long value) {
+        value = substitute(value);
+        int slot = slotOf(value);
+        for (; slots[slot] != FREE; slot = slot + 1 & mask)
+            if (slots[slot] == value)
+                return false;
+        if (size == capacity)
+            throw new IllegalStateException("set is full");
+
+        slots[slot] = value;
+        size++;
+
+        return true;
+    }
+
+    void remove(long value) {
+        value = substitute(value);
+        int slot = slotOf(value);
+        for (; slots[slot] != value; slot = slot + 1 & mask)
+            if (slots[slot] == FREE)
+                return;
+
+        // shift the following entries of the probe sequence back, so no lookup stops early at the freed slot
+        int free = slot;
+        for (int next = free + 1 & mask; slots[next] != FREE; next = next + 1 & mask) {
+            int home = slotOf(slots[next]);
+            if ((next - home & mask) >= (next - free & mask)) {
+                slots[free] = slots[next];
+                free = next;
+            }
+        }
+        slots[free] = FREE;
+        size--;
+    }
+
+    void clear() {
+        Arrays.fill(slots, FREE);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    private int slotOf(long value) {
+        // the fingerprints are well mixed already, fold the high bits in anyway
+        return (int) (value ^ value >>> 32) & mask;
+    }
+
+    private static long substitute(long value) {
+        return value == FREE ? ZERO_SUBSTITUTE : value;
+    }
+}
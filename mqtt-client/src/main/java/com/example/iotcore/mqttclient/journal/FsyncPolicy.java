@@ -0,0 +1,25 @@
+package com.example.iotcore.mqttclient.journal;
+
+/**
+ * When the {@link MessageJournal} forces appended records from the page cache to disk.
+ * <p>
+ * Records are in the page cache as soon as they are appended, so they survive a crash of the process with every
+ * policy; the policy only bounds what is lost when the machine itself goes down. Segments are always forced when
+ * they are rotated or closed.
+ */
+public enum FsyncPolicy {
+    /**
+     * Leave it to the operating system.
+     */
+    NEVER,
+
+    /**
+     * Force every {@link com.example.iotcore.mqttclient.config.JournalProperties#getFsyncIntervalMillis()} milliseconds, from a background thread.
+     */
+    INTERVAL,
+
+    /**
+     * Force after every {@link com.example.iotcore.mqttclient.config.JournalProperties#getFsyncEveryRecords()} records, on the appending thread.
+     */
+    RECORDS
+}
@@ -0,0 +1,288 @@
+package com.example.iotcore.mqttclient.journal;
+
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of one {@link MessageJournal} segment back as {@link InboundMessage}s.
+ * <p>
+ * Lines are split on their first four unescaped separators by scanning the bytes, and the {@code ISO_INSTANT} timestamps the
+ * journal writes are decoded by position, so a line costs a few byte scans and the strings of its topic and device.
+ * Reading stops at the end of the file or before a last line that was cut off without its newline; in a {@code .part}
+ * segment, whose unwritten tail is zeroed, also at the first zero byte.
+ */
+@Slf4j
+public class JournalReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+    private static final byte SEPARATOR = ',';
+    private static final byte NEW_LINE = '\n';
+    private static final byte ESCAPE = '\\';
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private final Path path;
+    private final FileChannel channel;
+    // the pre-allocated tail of a segment that was never sealed is zeros
+    private final boolean unsealed;
+    private byte[] buffer;
+    // file offset of buffer[0]
+    private long bufferOffset;
+    private int position;
+    private int limit;
+    private boolean endOfData;
+    private long malformed;
+
+    /**
+     * @param offset where to start reading, the start of a line, e.g. a {@link #position()} of an earlier reader.
+     */
+    public JournalReader(Path path, long offset) throws IOException {
+        this(path, offset, DEFAULT_BUFFER_SIZE);
+    }
+
+    JournalReader(Path path, long offset, int bufferSize) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.unsealed = path.getFileName().toString().endsWith(JournalSegment.PART_SUFFIX);
+        this.buffer = new byte[bufferSize];
+        this.bufferOffset = offset;
+        channel.position(offset);
+    }
+
+    /**
+     * @return the next well-formed line, or {@code null} at the end of the data.
+     */
+    public InboundMessage next() throws IOException {
+        while (true) {
+            int end = nextLineEnd();
+            if (end < 0)
+                return null;
+
+            int start = position;
+            position = end + 1;
+            InboundMessage message = parse(start, end);
+            if (message != null)
+                return message;
+
+            malformed++;
+            log.warn("Skipping malformed line at offset {} of {}", bufferOffset + start, path);
+        }
+    }
+
+    /**
+     * @return the file offset right after the last line returned by {@link #next()}.
+     */
+    public long position() {
+        return bufferOffset + position;
+    }
+
+    /**
+     * @return lines skipped because they did not have the journal's format.
+     */
+    public long getMalformedCount() {
+        return malformed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return the index of the newline ending the line at {@link #position}, reading more of the file as needed, or
+     * -1 if there is no complete line left.
+     */
+    private int nextLineEnd() throws IOException {
+        int from = position;
+        while (true) {
+            if (unsealed && position < limit && buffer[position] == 0)
+                endOfData = true;
+            if (endOfData)
+                return -1;
+
+            for (int i = from; i < limit; i++) {
+                if (buffer[i] == NEW_LINE)
+                    return i;
+                if (unsealed && buffer[i] == 0) {
+                    // an unsealed segment ends in a line that was cut off
+                    endOfData = true;
+
+                    return -1;
+                }
+            }
+
+            from = limit - position;
+            if (!fill())
+                return -1;
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the start of the buffer, growing it if a line does not fit, and reads after them.
+     *
+     * @return whether anything was read.
+     */
+    private boolean fill() throws IOException {
+        int remaining = limit - position;
+        if (remaining == buffer.length)
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        else
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        bufferOffset += position;
+        position = 0;
+        limit = remaining;
+
+        int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+        if (read <= 0) {
+            endOfData = true;
+
+            return false;
+        }
+        limit += read;
+
+        return true;
+    }
+
+    private InboundMessage parse(int start, int end) {
+        int sequenceEnd = indexOf(SEPARATOR, start, end);
+        if (sequenceEnd <= start || !isDigits(start, sequenceEnd))
+            return null;
+        int receivedAtEnd = indexOf(SEPARATOR, sequenceEnd + 1, end);
+        int topicEnd = receivedAtEnd < 0 ? -1 : separatorAfter(receivedAtEnd + 1, end);
+        int deviceEnd = topicEnd < 0 ? -1 : separatorAfter(topicEnd + 1, end);
+        if (deviceEnd < 0)
+            return null;
+
+        Instant receivedAt = parseInstant(sequenceEnd + 1, receivedAtEnd);
+        if (receivedAt == null)
+            return null;
+
+        return new InboundMessage(field(receivedAtEnd + 1, topicEnd), field(topicEnd + 1, deviceEnd),
+                unescape(deviceEnd + 1, end), receivedAt);
+    }
+
+    /**
+     * @return the instant of {@code yyyy-MM-ddTHH:mm:ss[.fraction]Z}, falling back to {@link Instant#parse} for
+     * anything else, e.g. years beyond 9999, or {@code null} if it is no instant.
+     */
+    private Instant parseInstant(int start, int end) {
+        int length = end - start;
+        if (length >= 20 && buffer[start + 4] == '-' && buffer[start + 7] == '-' && buffer[start + 10] == 'T'
+                && buffer[start + 13] == ':' && buffer[start + 16] == ':' && buffer[end - 1] == 'Z'
+                && (length == 20 || buffer[start + 19] == '.' && length <= 30)) {
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            int hour = digits(start + 11, 2);
+            int minute = digits(start + 14, 2);
+            int second = digits(start + 17, 2);
+            int nanos = 0;
+            for (int i = start + 20, scale = 100_000_000; i < end - 1 && nanos >= 0; i++, scale /= 10) {
+                int digit = buffer[i] - '0';
+                nanos = digit < 0 || digit > 9 ? -1 : nanos + digit * scale;
+            }
+            if ((year | month | day | hour | minute | second | nanos) >= 0 && month >= 1 && month <= 12
+                    && day >= 1 && day <= 31 && hour < 24 && minute < 60 && second < 60) {
+                try {
+                    long epochDay = LocalDate.of(year, month, day).toEpochDay();
+
+                    return Instant.ofEpochSecond(epochDay * SECONDS_PER_DAY + hour * 3_600L + minute * 60L + second,
+                            nanos);
+                } catch (DateTimeException e) {
+                    return null;
+                }
+            }
+        }
+
+        try {
+            return Instant.parse(new String(buffer, start, length, StandardCharsets.US_ASCII));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the value of {@code count} decimal digits, or -1 if one is not a digit.
+     */
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9)
+                return -1;
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    private boolean isDigits(int start, int end) {
+        for (int i = start; i < end; i++)
+            if (buffer[i] < '0' || buffer[i] > '9')
+                return false;
+
+        return true;
+    }
+
+    private int indexOf(byte b, int start, int end) {
+        for (int i = start; i < end; i++)
+            if (buffer[i] == b)
+                return i;
+
+        return -1;
+    }
+
+    /**
+     * @return the index of the first separator not escaped in the topic or device, -1 if there is none.
+     */
+    private int separatorAfter(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == ESCAPE)
+                i++;
+            else if (buffer[i] == SEPARATOR)
+                return i;
+        }
+
+        return -1;
+    }
+
+    private String field(int start, int end) {
+        return indexOf(ESCAPE, start, end) < 0
+                ? new String(buffer, start, end - start, StandardCharsets.UTF_8)
+                : new String(unescape(start, end), StandardCharsets.UTF_8);
+    }
+
+    private byte[] unescape(int start, int end) {
+        int escape = indexOf(ESCAPE, start, end);
+        if (escape < 0)
+            return Arrays.copyOfRange(buffer, start, end);
+
+        byte[] payload = new byte[end - start];
+        int length = escape - start;
+        System.arraycopy(buffer, start, payload, 0, length);
+        for (int i = escape; i < end; i++) {
+            byte b = buffer[i];
+            if (b == ESCAPE && i + 1 < end) {
+                b = switch (buffer[++i]) {
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> buffer[i];
+                };
+            }
+            payload[length++] = b;
+        }
+
+        return Arrays.copyOf(payload, length);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.iotcore.mqttclient.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a {@link JournalReplayer} run.
+ *
+ * @param segments      segments that had lines left to replay.
+ * @param replayed      lines handed to the sink.
+ * @param skipped       lines outside the replay window.
+ * @param malformed     lines that were not in the journal's format.
+ * @param failed        segments whose replay stopped on an error, to be resumed by the next run.
+ * @param elapsedMillis duration of the run.
+ */
+@Slf4j
+public record JournalReplayReport(int segments, long replayed, long skipped, long malformed, List<Path> failed,
+                                  long elapsedMillis) {
+
+    public long replayedPerSecond() {
+        return elapsedMillis == 0 ? replayed : replayed * TimeUnit.SECONDS.toMillis(1) / elapsedMillis;
+    }
+
+    public void log() {
+        log.info("Replayed {} lines of {} journal segments in {} ms ({} lines/s), {} outside the window, {} malformed",
+                replayed, segments, elapsedMillis, replayedPerSecond(), skipped, malformed);
+        if (!failed.isEmpty())
+            log.warn("Replay of {} segments failed and resumes on the next run: {}", failed.size(), failed);
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.iotcore.mqttclient.journal;
+
+import com.example.iotcore.mqttclient.config.JournalReplayProperties;
+import com.example.iotcore.mqttclient.ingest.BatchSink;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Loads the segments of a {@link MessageJournal} back into a {@link BatchSink}, e.g. the messages received while the
+ * database was down.
+ * <p>
+ * The segments are split over a {@link ForkJoinPool}, every worker reads its segments with a {@link JournalReader} and
+ * hands them to the sink in batches. After every persisted batch the offset reached is saved as the segment's
+ * {@link ReplayCheckpoint}, so a replay that failed or was interrupted resumes where it stopped and fully replayed
+ * segments are skipped; delivery is at-least-once, the batch in flight when the process died is replayed again.
+ * Delete the {@code .replayed} files to replay the same segments once more.
+ */
+@Slf4j
+public class JournalReplayer {
+    private final BatchSink sink;
+    private final int parallelism;
+    private final int batchSize;
+    private final Instant since;
+    private final Instant until;
+    private final boolean includeUnsealed;
+
+    public JournalReplayer(JournalReplayProperties properties, BatchSink sink) {
+        this.sink = sink;
+        this.parallelism = Math.max(1, properties.getParallelism());
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.since = properties.getSince();
+        this.until = properties.getUntil();
+        this.includeUnsealed = properties.isIncludeUnsealed();
+    }
+
+    /**
+     * Replays the segments of the directory and waits until they are done.
+     */
+    public JournalReplayReport replay(Path directory) throws IOException {
+        return replay(segmentsIn(directory));
+    }
+
+    public JournalReplayReport replay(List<Path> segments) {
+        long startNanos = System.nanoTime();
+        Progress progress = new Progress();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ReplaySegments(segments, 0, segments.size(), progress));
+        } finally {
+            pool.shutdown();
+        }
+
+        return new JournalReplayReport(progress.segments.get(), progress.replayed.sum(), progress.skipped.sum(),
+                progress.malformed.sum(), List.copyOf(progress.failed),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * @return the sealed segments of the directory, and the unsealed ones if configured, oldest first.
+     */
+    List<Path> segmentsIn(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(this::isSegment).sorted().toList();
+        }
+    }
+
+    private boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+
+        return name.startsWith(MessageJournal.SEGMENT_PREFIX) && (name.endsWith(MessageJournal.SEGMENT_SUFFIX)
+                || includeUnsealed && name.endsWith(MessageJournal.SEGMENT_SUFFIX + JournalSegment.PART_SUFFIX));
+    }
+
+    private void replay(Path segment, Progress progress) {
+        ReplayCheckpoint checkpoint = new ReplayCheckpoint(segment);
+        try {
+            long offset = checkpoint.load();
+            if (offset >= Files.size(segment))
+                return;
+
+            progress.segments.incrementAndGet();
+            log.debug("Replaying {} from offset {}", segment, offset);
+            try (JournalReader reader = new JournalReader(segment, offset)) {
+                boolean more = true;
+                while (more) {
+                    List<InboundMessage> batch = new ArrayList<>(batchSize);
+                    more = fill(batch, reader, progress);
+                    if (!batch.isEmpty())
+                        sink.persist(batch);
+                    if (reader.position() > offset) {
+                        offset = reader.position();
+                        checkpoint.save(offset);
+                    }
+                    progress.replayed.add(batch.size());
+                }
+                progress.malformed.add(reader.getMalformedCount());
+            }
+        } catch (Exception e) {
+            log.error("Replay of {} failed, it resumes from its checkpoint on the next run", segment, e);
+            progress.failed.add(segment);
+        }
+    }
+
+    /**
+     * @return whether the segment may have more lines.
+     */
+    private boolean fill(List<InboundMessage> batch, JournalReader reader, Progress progress) throws IOException {
+        while (batch.size() < batchSize) {
+            InboundMessage message = reader.next();
+            if (message == null)
+                return false;
+
+            if (isInWindow(message.receivedAt()))
+                batch.add(message);
+            else
+                progress.skipped.increment();
+        }
+
+        return true;
+    }
+
+    private boolean isInWindow(Instant receivedAt) {
+        return (since == null || !receivedAt.isBefore(since)) && (until == null || receivedAt.isBefore(until));
+    }
+
+    private static class Progress {
+        private final AtomicInteger segments = new AtomicInteger();
+        private final LongAdder replayed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder malformed = new LongAdder();
+        private final Queue<Path> failed = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Halves its range of segments until one is left, so idle workers steal whole segments from busy ones.
+     */
+    private class ReplaySegments extends RecursiveAction {
+        private final transient List<Path> segments;
+        private final int from;
+        private final int to;
+        private final transient Progress progress;
+
+        ReplaySegments(List<Path> segments, int from, int to, Progress progress) {
+            this.segments = segments;
+            this.from = from;
+            this.to = to;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                replay(segments.get(from), progress);
+            } else if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ReplaySegments(segments, from, middle, progress),
+                        new ReplaySegments(segments, middle, to, progress));
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.iotcore.mqttclient.journal;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * One pre-allocated, memory mapped journal file.
+ * <p>
+ * While being written the segment lives under a {@code .part} name. {@link #seal()} truncates it to the bytes actually
+ * written, forces it to disk and atomically renames it, so a file with the final name is always complete.
+ */
+class JournalSegment {
+    static final String PART_SUFFIX = ".part";
+
+    private final Path partPath;
+    private final Path path;
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final long createdAtNanos;
+    private int forcedPosition;
+
+    JournalSegment(Path path, long size) throws IOException {
+        this.path = path;
+        this.partPath = partPathOf(path);
+        this.file = new RandomAccessFile(partPath.toFile(), "rw");
+        this.file.setLength(size);
+        this.buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.createdAtNanos = System.nanoTime();
+    }
+
+    static Path partPathOf(Path path) {
+        return path.resolveSibling(path.getFileName() + PART_SUFFIX);
+    }
+
+    boolean fits(int length) {
+        return buffer.remaining() >= length;
+    }
+
+    MappedByteBuffer buffer() {
+        return buffer;
+    }
+
+    long ageNanos() {
+        return System.nanoTime() - createdAtNanos;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Forces what was appended since the last call to disk.
+     */
+    void force() {
+        int position = buffer.position();
+        if (position == forcedPosition)
+            return;
+
+        buffer.force(forcedPosition, position - forcedPosition);
+        forcedPosition = position;
+    }
+
+    void seal() throws IOException {
+        force();
+        file.setLength(buffer.position());
+        file.close();
+        Files.move(partPath, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.iotcore.mqttclient.journal;
+
+import com.example.iotcore.mqttclient.config.JournalProperties;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only CSV journal of every received message.
+ * <p>
+ * Each message becomes one line {@code sequence,receivedAt,topic,device,payload}, where newlines and backslashes
+ * in the topic, device and payload are escaped as {@code \n}, {@code \r} and {@code \\}, and separators in the topic
+ * and device as {@code \,}; MQTT topics may contain commas, and the device is whatever identified it. Lines are copied straight into a pre-allocated,
+ * memory mapped segment named {@code messages-<instant>.csv}; segments are rotated once full or, optionally, once
+ * they reach a given age, see {@link JournalSegment}. How often the segment is forced to disk is decided by the
+ * {@link FsyncPolicy}.
+ * <p>
+ * The journal is meant to be fed by a single thread (the Paho callback thread); appends are serialized, so more
+ * writers are safe but contend on the same lock.
+ */
+@Slf4j
+public class MessageJournal implements Closeable {
+    static final String SEGMENT_PREFIX = "messages-";
+    static final String SEGMENT_SUFFIX = ".csv";
+
+    private static final byte SEPARATOR = ',';
+    private static final byte NEW_LINE = '\n';
+    private static final byte ESCAPE = '\\';
+    // sequence, instant and separators of one line never exceed this
+    private static final int LINE_OVERHEAD = 64;
+    private static final int MAX_ENCODED_CACHE_SIZE = 10_000;
+
+    private final Path directory;
+    private final long segmentSizeBytes;
+    private final long rotationIntervalNanos;
+    private final FsyncPolicy fsyncPolicy;
+    private final int fsyncEveryRecords;
+    private final ScheduledExecutorService flusher;
+    // topics and devices repeat, so their encoded and escaped form is cached instead of built for every line
+    private final Map<String, byte[]> encoded = new HashMap<>();
+    private final StringBuilder scratch = new StringBuilder(LINE_OVERHEAD);
+    private JournalSegment segment;
+    private long sequence;
+    private int unforcedRecords;
+    private boolean closed;
+
+    public MessageJournal(JournalProperties properties) throws IOException {
+        this.directory = Path.of(properties.getDirectory());
+        this.segmentSizeBytes = properties.getSegmentSizeBytes();
+        this.rotationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getRotationIntervalMillis());
+        this.fsyncPolicy = properties.getFsyncPolicy();
+        this.fsyncEveryRecords = properties.getFsyncEveryRecords();
+
+        Files.createDirectories(directory);
+        this.segment = newSegment(segmentSizeBytes);
+
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-flusher");
+                thread.setDaemon(true);
+
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::force, properties.getFsyncIntervalMillis(),
+                    properties.getFsyncIntervalMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Appends the message as one line.
+     *
+     * @return the sequence number of the line.
+     * @throws IOException if a new segment could not be created.
+     */
+    public synchronized long append(InboundMessage message) throws IOException {
+        if (closed)
+            throw new IOException("Journal is closed");
+
+        byte[] topic = encoded(message.topic());
+        byte[] device = encoded(message.device());
+        byte[] payload = message.payload();
+
+        scratch.setLength(0);
+        scratch.append(sequence).append((char) SEPARATOR);
+        DateTimeFormatter.ISO_INSTANT.formatTo(message.receivedAt(), scratch);
+
+        // worst case every payload byte needs escaping
+        int maxLength = LINE_OVERHEAD + topic.length + device.length + 2 * payload.length;
+        if (!segment.fits(maxLength) || isExpired())
+            rotate(maxLength);
+
+        MappedByteBuffer buffer = segment.buffer();
+        for (int i = 0; i < scratch.length(); i++)
+            buffer.put((byte) scratch.charAt(i));
+        buffer.put(SEPARATOR).put(topic).put(SEPARATOR).put(device).put(SEPARATOR);
+        putEscaped(buffer, payload);
+        buffer.put(NEW_LINE);
+
+        if (fsyncPolicy == FsyncPolicy.RECORDS && ++unforcedRecords >= fsyncEveryRecords) {
+            segment.force();
+            unforcedRecords = 0;
+        }
+
+        return sequence++;
+    }
+
+    /**
+     * Forces everything appended so far to disk.
+     */
+    public synchronized void force() {
+        if (!closed)
+            segment.force();
+    }
+
+    /**
+     * Seals the current segment and starts a new one.
+     */
+    public synchronized void rotate() throws IOException {
+        rotate(0);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+
+        closed = true;
+        if (flusher != null)
+            flusher.shutdownNow();
+        segment.seal();
+    }
+
+    private boolean isExpired() {
+        return rotationIntervalNanos > 0 && segment.ageNanos() >= rotationIntervalNanos;
+    }
+
+    private void rotate(int minimumSize) throws IOException {
+        JournalSegment next = newSegment(Math.max(segmentSizeBytes, minimumSize));
+        JournalSegment previous = segment;
+        segment = next;
+        previous.seal();
+        unforcedRecords = 0;
+        log.debug("Rotated journal segment {}", previous.path());
+    }
+
+    private JournalSegment newSegment(long size) throws IOException {
+        String name = SEGMENT_PREFIX + Instant.now();
+        Path path = directory.resolve(name + SEGMENT_SUFFIX);
+        // two rotations within the same instant must not reuse a file name
+        for (int i = 1; Files.exists(path) || Files.exists(JournalSegment.partPathOf(path)); i++)
+            path = directory.resolve(name + "-" + i + SEGMENT_SUFFIX);
+
+        return new JournalSegment(path, size);
+    }
+
+    private byte[] encoded(String value) {
+        byte[] bytes = encoded.get(value);
+        if (bytes == null) {
+            if (encoded.size() >= MAX_ENCODED_CACHE_SIZE)
+                encoded.clear();
+            bytes = escapeField(value.getBytes(StandardCharsets.UTF_8));
+            encoded.put(value, bytes);
+        }
+
+        return bytes;
+    }
+
+    // unlike the payload, the fields before it must not contain the separator either
+    private static byte[] escapeField(byte[] field) {
+        if (!needsEscaping(field) && indexOf(field, SEPARATOR) < 0)
+            return field;
+
+        byte[] escaped = new byte[2 * field.length];
+        int length = 0;
+        for (byte b : field) {
+            switch (b) {
+                case '\n' -> {
+                    escaped[length++] = ESCAPE;
+                    escaped[length++] = 'n';
+                }
+                case '\r' -> {
+                    escaped[length++] = ESCAPE;
+                    escaped[length++] = 'r';
+                }
+                case ESCAPE, SEPARATOR -> {
+                    escaped[length++] = ESCAPE;
+                    escaped[length++] = b;
+                }
+                default -> escaped[length++] = b;
+            }
+        }
+
+        return Arrays.copyOf(escaped, length);
+    }
+
+    private static int indexOf(byte[] bytes, byte b) {
+        for (int i = 0; i < bytes.length; i++)
+            if (bytes[i] == b)
+                return i;
+
+        return -1;
+    }
+
+    private static void putEscaped(MappedByteBuffer buffer, byte[] payload) {
+        if (!needsEscaping(payload)) {
+            buffer.put(payload);
+
+            return;
+        }
+
+        for (byte b : payload) {
+            switch (b) {
+                case '\n' -> buffer.put(ESCAPE).put((byte) 'n');
+                case '\r' -> buffer.put(ESCAPE).put((byte) 'r');
+                case ESCAPE -> buffer.put(ESCAPE).put(ESCAPE);
+                default -> buffer.put(b);
+            }
+        }
+    }
+
+    private static boolean needsEscaping(byte[] payload) {
+        for (byte b : payload)
+            if (b == '\n' || b == '\r' || b == ESCAPE)
+                return true;
+
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.iotcore.mqttclient.journal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * How far a segment was replayed: the offset after its last persisted line, kept in a {@code <segment>.replayed}
+ * file next to it and replaced atomically, so a replay that was interrupted resumes where it stopped.
+ */
+class ReplayCheckpoint {
+    static final String SUFFIX = ".replayed";
+
+    private final Path path;
+    private final Path temporaryPath;
+
+    ReplayCheckpoint(Path segment) {
+        this.path = segment.resolveSibling(segment.getFileName() + SUFFIX);
+        this.temporaryPath = segment.resolveSibling(segment.getFileName() + SUFFIX + ".tmp");
+    }
+
+    /**
+     * @return the offset to resume from, 0 if the segment was never replayed.
+     */
+    long load() throws IOException {
+        if (!Files.exists(path))
+            return 0;
+
+        String offset = Files.readString(path, StandardCharsets.US_ASCII).trim();
+        try {
+            return Long.parseLong(offset);
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt replay checkpoint " + path + ": " + offset, e);
+        }
+    }
+
+    void save(long offset) throws IOException {
+        Files.writeString(temporaryPath, Long.toString(offset), StandardCharsets.US_ASCII);
+        Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.iotcore.mqttclient.loadgen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.eclipse.paho.mqttv5.client.IMqttToken;
+import org.eclipse.paho.mqttv5.client.MqttCallback;
+import org.eclipse.paho.mqttv5.client.MqttDisconnectResponse;
+import org.eclipse.paho.mqttv5.common.MqttException;
+import org.eclipse.paho.mqttv5.common.MqttMessage;
+import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Subscriber side of a load test: reads the send instant the {@link LoadGenerator} embedded in every payload and
+ * records the end-to-end latency.
+ */
+@Slf4j
+public class LatencyProbe implements MqttCallback {
+    private final PayloadShape payloadShape;
+    private final Recorder latencyMicros = new Recorder(3);
+    private final LongAdder received = new LongAdder();
+
+    public LatencyProbe(PayloadShape payloadShape) {
+        this.payloadShape = payloadShape;
+    }
+
+    @Override
+    public void messageArrived(String topic, MqttMessage message) {
+        received.increment();
+        long sentAtMicros = payloadShape.sentAtMicros(message.getPayload());
+        if (sentAtMicros < 0)
+            return;
+
+        Instant now = Instant.now();
+        long nowMicros = now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+        // clocks of publisher and subscriber are the same here, but never record negative values
+        latencyMicros.recordValue(Math.max(0, nowMicros - sentAtMicros));
+    }
+
+    /**
+     * @return the latencies, in microseconds, recorded since the previous call.
+     */
+    public Histogram latencies() {
+        return latencyMicros.getIntervalHistogram();
+    }
+
+    public long getReceived() {
+        return received.sum();
+    }
+
+    @Override
+    public void disconnected(MqttDisconnectResponse disconnectResponse) {
+        log.info("Latency probe disconnected because of: {}", disconnectResponse.getReasonString());
+    }
+
+    @Override
+    public void mqttErrorOccurred(MqttException exception) {
+        log.info("Latency probe error: {}", exception.getMessage());
+    }
+
+    @Override
+    public void deliveryComplete(IMqttToken token) {
+        // the probe does not publish
+    }
+
+    @Override
+    public void connectComplete(boolean reconnect, String serverURI) {
+        log.info("Latency probe connected to {}", serverURI);
+    }
+
+    @Override
+    public void authPacketArrived(int reasonCode, MqttProperties properties) {
+        // no extended authentication
+    }
+}
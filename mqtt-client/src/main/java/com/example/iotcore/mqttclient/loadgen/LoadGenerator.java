@@ -0,0 +1,196 @@
+package com.example.iotcore.mqttclient.loadgen;
+
+import com.example.iotcore.mqttclient.config.LoadGeneratorProperties;
+import com.example.iotcore.mqttclient.config.PahoConnectionProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.eclipse.paho.mqttv5.client.MqttAsyncClient;
+import org.eclipse.paho.mqttv5.client.MqttClientException;
+import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
+import org.eclipse.paho.mqttv5.common.MqttException;
+import org.eclipse.paho.mqttv5.common.MqttMessage;
+import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.eclipse.paho.mqttv5.common.packet.UserProperty;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives N simulated devices over M connections at a target rate.
+ * <p>
+ * Every connection is driven by its own thread that publishes for its devices on a fixed, open-loop schedule: the
+ * n-th message is due at {@code start + n / rate} no matter how long earlier publishes took, and its payload
+ * carries that due instant. A slow broker therefore shows up as latency instead of silently lowering the offered
+ * load.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LoadGenerator {
+    private static final long RETRY_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    // time given to in-flight messages to arrive at the probe after the last publish
+    private static final long DRAIN_MILLIS = TimeUnit.SECONDS.toMillis(2);
+
+    private final LoadGeneratorProperties properties;
+    private final Recorder sendLagMicros = new Recorder(3);
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Runs the load and blocks until it is done.
+     *
+     * @param latencyProbe the subscriber reading the messages back, or {@code null} to skip latency measurement.
+     */
+    public LoadReport run(LatencyProbe latencyProbe) throws MqttException, InterruptedException {
+        List<MqttAsyncClient> clients = connect();
+        AtomicLongArray publishedPerSecond = new AtomicLongArray(properties.getDurationSeconds());
+        long startNanos = System.nanoTime();
+        Instant start = Instant.now();
+        long startEpochMicros = start.getEpochSecond() * 1_000_000 + start.getNano() / 1_000;
+
+        List<Thread> drivers = new ArrayList<>(clients.size());
+        for (int connection = 0; connection < clients.size(); connection++) {
+            List<SimulatedDevice> devices = devicesOf(connection);
+            MqttAsyncClient client = clients.get(connection);
+            Thread driver = new Thread(() -> drive(client, devices, startNanos, startEpochMicros, publishedPerSecond),
+                    "loadgen-connection-" + connection);
+            driver.start();
+            drivers.add(driver);
+        }
+        for (Thread driver : drivers)
+            driver.join();
+
+        for (MqttAsyncClient client : clients) {
+            client.disconnect().waitForCompletion();
+            client.close();
+        }
+        if (latencyProbe != null)
+            Thread.sleep(DRAIN_MILLIS);
+
+        long[] perSecond = new long[publishedPerSecond.length()];
+        for (int i = 0; i < perSecond.length; i++)
+            perSecond[i] = publishedPerSecond.get(i);
+
+        return new LoadReport(perSecond, sendLagMicros.getIntervalHistogram(),
+                latencyProbe == null ? new Histogram(3) : latencyProbe.latencies(),
+                latencyProbe == null ? 0 : latencyProbe.getReceived(), failed.sum());
+    }
+
+    private void drive(MqttAsyncClient client, List<SimulatedDevice> devices, long startNanos, long startEpochMicros,
+                       AtomicLongArray publishedPerSecond) {
+        if (devices.isEmpty())
+            return;
+
+        double ratePerSecond = devices.size() * properties.getMessagesPerSecondPerDevice();
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long endNanos = startNanos + TimeUnit.SECONDS.toNanos(properties.getDurationSeconds());
+        PayloadShape payloadShape = properties.getPayloadShape();
+
+        for (long n = 0; ; n++) {
+            long dueNanos = startNanos + (long) (n * intervalNanos);
+            if (dueNanos >= endNanos)
+                return;
+
+            long wait = dueNanos - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+
+            SimulatedDevice device = devices.get((int) (n % devices.size()));
+            long sentAtMicros = startEpochMicros + (dueNanos - startNanos) / 1_000;
+            MqttMessage message = new MqttMessage(payloadShape.render(device.nextReading(), sentAtMicros));
+            message.setQos(properties.getQos());
+            message.setProperties(device.properties());
+
+            if (publish(client, device.topic(), message)) {
+                long now = System.nanoTime();
+                sendLagMicros.recordValue(Math.max(0, (now - dueNanos) / 1_000));
+                int second = (int) ((now - startNanos) / TimeUnit.SECONDS.toNanos(1));
+                if (second < publishedPerSecond.length())
+                    publishedPerSecond.incrementAndGet(second);
+            }
+        }
+    }
+
+    private boolean publish(MqttAsyncClient client, String topic, MqttMessage message) {
+        while (true) {
+            try {
+                client.publish(topic, message);
+
+                return true;
+            } catch (MqttException e) {
+                // QoS 1 and 2 publishes are bounded by the receive maximum of the broker, wait for acks
+                if (e.getReasonCode() == MqttClientException.REASON_CODE_MAX_INFLIGHT) {
+                    LockSupport.parkNanos(RETRY_BACKOFF_NANOS);
+                    continue;
+                }
+                failed.increment();
+                log.debug("Publish failed: {}", e.getMessage());
+
+                return false;
+            }
+        }
+    }
+
+    private List<MqttAsyncClient> connect() throws MqttException {
+        List<MqttAsyncClient> clients = new ArrayList<>(properties.getConnections());
+        for (int i = 0; i < properties.getConnections(); i++) {
+            MqttAsyncClient client = new MqttAsyncClient(properties.getServerUri(),
+                    "loadgen-" + i + "-" + UUID.randomUUID(), null);
+
+            MqttConnectionOptions connectionOptions = new MqttConnectionOptions();
+            connectionOptions.setCleanStart(true);
+            connectionOptions.setUserName(properties.getUsername());
+            connectionOptions.setPassword(properties.getPassword().getBytes());
+            client.connect(connectionOptions).waitForCompletion();
+            clients.add(client);
+        }
+        log.info("Opened {} connections for {} devices at {} msgs/s each", clients.size(), properties.getDevices(),
+                properties.getMessagesPerSecondPerDevice());
+
+        return clients;
+    }
+
+    private List<SimulatedDevice> devicesOf(int connection) {
+        List<SimulatedDevice> devices = new ArrayList<>();
+        for (int device = connection; device < properties.getDevices(); device += properties.getConnections())
+            devices.add(new SimulatedDevice(device, properties.getTopic().formatted(device)));
+
+        return devices;
+    }
+
+    private static final class SimulatedDevice {
+        private final String topic;
+        private final MqttProperties properties = new MqttProperties();
+        private int reading = ThreadLocalRandom.current().nextInt(60, 100);
+
+        private SimulatedDevice(int number, String topic) {
+            this.topic = topic;
+            String macAddress = "02:00:00:%02x:%02x:%02x"
+                    .formatted(number >> 16 & 0xff, number >> 8 & 0xff, number & 0xff);
+            properties.setUserProperties(List.of(new UserProperty(PahoConnectionProperties.DEVICE_USER_PROPERTY,
+                    macAddress)));
+        }
+
+        private String topic() {
+            return topic;
+        }
+
+        private MqttProperties properties() {
+            return properties;
+        }
+
+        // a heart rate wandering between 50 and 100 beats per minute, like the sketch reports
+        private int nextReading() {
+            reading = Math.min(100, Math.max(50, reading + ThreadLocalRandom.current().nextInt(-2, 3)));
+
+            return reading;
+        }
+    }
+}
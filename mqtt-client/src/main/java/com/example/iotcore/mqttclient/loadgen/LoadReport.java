@@ -0,0 +1,45 @@
+package com.example.iotcore.mqttclient.loadgen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a {@link LoadGenerator} run.
+ *
+ * @param publishedPerSecond messages published in every second of the run.
+ * @param sendLagMicros      how late, in microseconds, messages were published compared to their schedule.
+ * @param latencyMicros      end-to-end latency in microseconds, empty if no {@link LatencyProbe} was used.
+ * @param received           messages read back by the {@link LatencyProbe}.
+ * @param failed             publishes rejected by the client.
+ */
+@Slf4j
+public record LoadReport(long[] publishedPerSecond, Histogram sendLagMicros, Histogram latencyMicros, long received,
+                         long failed) {
+
+    public long published() {
+        return Arrays.stream(publishedPerSecond).sum();
+    }
+
+    public void log() {
+        log.info("Published {} messages, {} received, {} failed", published(), received, failed);
+        log.info("Throughput per second: {}", Arrays.toString(publishedPerSecond));
+        log.info("Throughput min/mean/max: {}/{}/{} msgs/s",
+                Arrays.stream(publishedPerSecond).min().orElse(0),
+                (long) Arrays.stream(publishedPerSecond).average().orElse(0),
+                Arrays.stream(publishedPerSecond).max().orElse(0));
+        logPercentiles("Send lag", sendLagMicros);
+        logPercentiles("End-to-end latency", latencyMicros);
+    }
+
+    private static void logPercentiles(String name, Histogram histogram) {
+        if (histogram.getTotalCount() == 0)
+            return;
+
+        log.info("{} (us): p50={} p90={} p99={} p99.9={} max={}", name,
+                histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.iotcore.mqttclient.loadgen;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Payloads the {@link LoadGenerator} can publish. Apart from {@link #RAW_NUMERIC} every shape embeds the instant it
+ * was scheduled to be sent, in epoch microseconds, so the {@link LatencyProbe} can measure end-to-end latency.
+ */
+public enum PayloadShape {
+    /**
+     * {@code {"BPM":72,"sentAt":1649850227000000}}, the document {@code heart-rate-mqtt.ino} sends plus a timestamp.
+     */
+    HEART_RATE_JSON {
+        private static final String SENT_AT_FIELD = "\"sentAt\":";
+
+        @Override
+        public byte[] render(int value, long sentAtMicros) {
+            return ("{\"BPM\":" + value + "," + SENT_AT_FIELD + sentAtMicros + "}").getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public long sentAtMicros(byte[] payload) {
+            int start = indexOf(payload, SENT_AT_FIELD);
+
+            return start < 0 ? -1 : parseLong(payload, start + SENT_AT_FIELD.length());
+        }
+    },
+
+    /**
+     * {@code 72,1649850227000000}
+     */
+    CSV {
+        @Override
+        public byte[] render(int value, long sentAtMicros) {
+            return (value + "," + sentAtMicros).getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public long sentAtMicros(byte[] payload) {
+            for (int i = 0; i < payload.length; i++)
+                if (payload[i] == ',')
+                    return parseLong(payload, i + 1);
+
+            return -1;
+        }
+    },
+
+    /**
+     * {@code 72}, without timestamp.
+     */
+    RAW_NUMERIC {
+        @Override
+        public byte[] render(int value, long sentAtMicros) {
+            return Integer.toString(value).getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public long sentAtMicros(byte[] payload) {
+            return -1;
+        }
+    };
+
+    /**
+     * @param value        the reading, e.g. the beats per minute.
+     * @param sentAtMicros the scheduled send instant in epoch microseconds.
+     * @return the payload.
+     */
+    public abstract byte[] render(int value, long sentAtMicros);
+
+    /**
+     * @return the send instant embedded by {@link #render(int, long)}, or {@code -1} if there is none.
+     */
+    public abstract long sentAtMicros(byte[] payload);
+
+    private static int indexOf(byte[] payload, String token) {
+        outer:
+        for (int i = 0; i <= payload.length - token.length(); i++) {
+            for (int j = 0; j < token.length(); j++)
+                if (payload[i + j] != token.charAt(j))
+                    continue outer;
+
+            return i;
+        }
+
+        return -1;
+    }
+
+    private static long parseLong(byte[] payload, int start) {
+        long value = 0;
+        int i = start;
+        for (; i < payload.length && payload[i] >= '0' && payload[i] <= '9'; i++)
+            value = value * 10 + (payload[i] - '0');
+
+        return i == start ? -1 : value;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.iotcore.mqttclient.routing;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * MQTT topic filter rules: {@code +} matches one level, a trailing {@code #} the parent level and any number of
+ * levels below it. Wildcards at the first level do not match topics starting with {@code $}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TopicFilters {
+    public static final String SINGLE_LEVEL_WILDCARD = "+";
+    public static final String MULTI_LEVEL_WILDCARD = "#";
+
+    /**
+     * Matches one filter against one topic without splitting either.
+     */
+    public static boolean matches(String filter, String topic) {
+        if (isSystemTopic(topic) && !filter.isEmpty() && (filter.charAt(0) == '+' || filter.charAt(0) == '#'))
+            return false;
+
+        int f = 0;
+        int t = 0;
+        while (f < filter.length()) {
+            char c = filter.charAt(f);
+            if (c == '#')
+                return true;
+            if (c == '+') {
+                while (t < topic.length() && topic.charAt(t) != '/')
+                    t++;
+                f++;
+                continue;
+            }
+            if (t == topic.length())
+                // "a/#" also matches "a"
+                return f + 2 == filter.length() && c == '/' && filter.charAt(f + 1) == '#';
+            if (topic.charAt(t) != c)
+                return false;
+            f++;
+            t++;
+        }
+
+        return t == topic.length();
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code filter} is empty, a wildcard does not fill a whole level or
+     *                                  {@code #} is not the last level.
+     */
+    public static void validate(String filter) {
+        if (filter == null || filter.isEmpty())
+            throw new IllegalArgumentException("topic filter must not be empty");
+
+        for (int i = 0; i < filter.length(); i++) {
+            char c = filter.charAt(i);
+            if (c != '+' && c != '#')
+                continue;
+            boolean wholeLevel = (i == 0 || filter.charAt(i - 1) == '/')
+                    && (i == filter.length() - 1 || filter.charAt(i + 1) == '/');
+            if (!wholeLevel || c == '#' && i != filter.length() - 1)
+                throw new IllegalArgumentException("invalid topic filter " + filter);
+        }
+    }
+
+    static boolean isSystemTopic(String topic) {
+        return !topic.isEmpty() && topic.charAt(0) == '$';
+    }
+
+    /**
+     * Splits a topic or filter into its levels, keeping empty ones.
+     */
+    static String[] levels(String topic) {
+        int count = 1;
+        for (int i = 0; i < topic.length(); i++)
+            if (topic.charAt(i) == '/')
+                count++;
+
+        String[] levels = new String[count];
+        int start = 0;
+        for (int level = 0; level < count - 1; level++) {
+            int end = topic.indexOf('/', start);
+            levels[level] = topic.substring(start, end);
+            start = end + 1;
+        }
+        levels[count - 1] = topic.substring(start);
+
+        return levels;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.iotcore.mqttclient.routing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes topics to the handlers registered for the MQTT topic filters matching them.
+ * <p>
+ * Filters are kept in a trie with one node per level, {@code +} and {@code #} being dedicated children. A lookup
+ * splits the topic once and follows the exact, {@code +} and {@code #} children level by level, so its cost grows
+ * with the depth of the topic and not with the number of filters. The handlers of a topic are cached until a
+ * registration changes the trie; past {@code maxCachedTopics} topics the cache starts over, so the hot topics are
+ * the ones cached.
+ * <p>
+ * Lookups do not lock and may run concurrently with each other and with (un)registrations.
+ *
+ * @param <H> the type of handler.
+ */
+public class TopicRouter<H> {
+    public static final int DEFAULT_MAX_CACHED_TOPICS = 10_000;
+
+    private final Node<H> root = new Node<>();
+    private final int maxCachedTopics;
+    private final Map<String, Match<H>> cache = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    // incremented on every change of the trie, cached matches of older generations are stale
+    private volatile long generation;
+
+    public TopicRouter() {
+        this(DEFAULT_MAX_CACHED_TOPICS);
+    }
+
+    /**
+     * @param maxCachedTopics topics whose handlers are cached, {@code 0} to disable the cache.
+     */
+    public TopicRouter(int maxCachedTopics) {
+        this.maxCachedTopics = maxCachedTopics;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code filter} is not a valid MQTT topic filter.
+     */
+    public synchronized void register(String filter, H handler) {
+        TopicFilters.validate(filter);
+
+        Node<H> node = root;
+        for (String level : TopicFilters.levels(filter))
+            node = node.child(level);
+        node.routes.add(new Route<>(sequence.incrementAndGet(), handler));
+        invalidate();
+    }
+
+    /**
+     * Removes one registration of {@code handler} for {@code filter}.
+     *
+     * @return whether there was one.
+     */
+    public synchronized boolean unregister(String filter, H handler) {
+        boolean removed = remove(root, TopicFilters.levels(filter), 0, handler);
+        if (removed)
+            invalidate();
+
+        return removed;
+    }
+
+    /**
+     * @return the handlers of every registration whose filter matches {@code topic}, in registration order. A
+     * handler registered for several matching filters is listed once per filter.
+     */
+    public List<H> route(String topic) {
+        long current = generation;
+        Match<H> match = cache.get(topic);
+        if (match != null && match.generation() == current)
+            return match.handlers();
+
+        List<H> handlers = collect(topic);
+        if (maxCachedTopics > 0) {
+            if (cache.size() >= maxCachedTopics)
+                cache.clear();
+            cache.put(topic, new Match<>(current, handlers));
+        }
+
+        return handlers;
+    }
+
+    private List<H> collect(String topic) {
+        String[] levels = TopicFilters.levels(topic);
+        List<Route<H>> routes = new ArrayList<>();
+        collect(root, levels, 0, !TopicFilters.isSystemTopic(topic), routes);
+
+        if (routes.isEmpty())
+            return List.of();
+        if (routes.size() == 1)
+            return List.of(routes.get(0).handler());
+
+        routes.sort(Comparator.comparingLong(Route::sequence));
+        List<H> handlers = new ArrayList<>(routes.size());
+        for (Route<H> route : routes)
+            handlers.add(route.handler());
+
+        return List.copyOf(handlers);
+    }
+
+    private void collect(Node<H> node, String[] levels, int depth, boolean wildcards, List<Route<H>> routes) {
+        Node<H> multiLevel = node.multiLevel;
+        if (multiLevel != null && wildcards)
+            routes.addAll(multiLevel.routes);
+        if (depth == levels.length) {
+            routes.addAll(node.routes);
+
+            return;
+        }
+
+        Node<H> singleLevel = node.singleLevel;
+        if (singleLevel != null && wildcards)
+            collect(singleLevel, levels, depth + 1, true, routes);
+        Node<H> exact = node.children.get(levels[depth]);
+        if (exact != null)
+            collect(exact, levels, depth + 1, true, routes);
+    }
+
+    private boolean remove(Node<H> node, String[] levels, int depth, H handler) {
+        if (depth == levels.length) {
+            for (Route<H> route : node.routes)
+                if (route.handler().equals(handler))
+                    return node.routes.remove(route);
+
+            return false;
+        }
+
+        String level = levels[depth];
+        Node<H> child = node.existingChild(level);
+        if (child == null || !remove(child, levels, depth + 1, handler))
+            return false;
+
+        if (child.isEmpty())
+            node.removeChild(level);
+
+        return true;
+    }
+
+    private void invalidate() {
+        generation++;
+        cache.clear();
+    }
+
+    private static final class Node<H> {
+        private final Map<String, Node<H>> children = new ConcurrentHashMap<>();
+        private final List<Route<H>> routes = new CopyOnWriteArrayList<>();
+        private volatile Node<H> singleLevel;
+        private volatile Node<H> multiLevel;
+
+        Node<H> child(String level) {
+            Node<H> child = existingChild(level);
+            if (child != null)
+                return child;
+
+            child = new Node<>();
+            switch (level) {
+                case TopicFilters.SINGLE_LEVEL_WILDCARD -> singleLevel = child;
+                case TopicFilters.MULTI_LEVEL_WILDCARD -> multiLevel = child;
+                default -> children.put(level, child);
+            }
+
+            return child;
+        }
+
+        Node<H> existingChild(String level) {
+            return switch (level) {
+                case TopicFilters.SINGLE_LEVEL_WILDCARD -> singleLevel;
+                case TopicFilters.MULTI_LEVEL_WILDCARD -> multiLevel;
+                default -> children.get(level);
+            };
+        }
+
+        void removeChild(String level) {
+            switch (level) {
+                case TopicFilters.SINGLE_LEVEL_WILDCARD -> singleLevel = null;
+                case TopicFilters.MULTI_LEVEL_WILDCARD -> multiLevel = null;
+                default -> children.remove(level);
+            }
+        }
+
+        boolean isEmpty() {
+            return routes.isEmpty() && children.isEmpty() && singleLevel == null && multiLevel == null;
+        }
+    }
+
+    private record Route<H>(long sequence, H handler) {
+    }
+
+    private record Match<H>(long generation, List<H> handlers) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.iotcore.mqttclient.stream;
+
+/**
+ * A message of a topic as streamed to its subscribers, encoded once and shared by all of them.
+ *
+ * @param sequence position of the message in the topic's stream, starting at 0.
+ * @param device   the mac address of the publishing device, the key of latest-value coalescing.
+ * @param data     the encoded message.
+ */
+public record StreamEvent(long sequence, String device, String data) {
+}
@@ -0,0 +1,21 @@
+package com.example.iotcore.mqttclient.stream;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives the events of a {@link StreamSubscription}, on one sender thread at a time.
+ */
+public interface StreamListener {
+    /**
+     * @param events the next events, oldest first.
+     * @throws IOException if the client is gone, the subscription is closed then.
+     */
+    void onEvents(List<StreamEvent> events) throws IOException;
+
+    /**
+     * Called once the subscription is closed, by the client or because the hub shuts down.
+     */
+    default void onClose() {
+    }
+}
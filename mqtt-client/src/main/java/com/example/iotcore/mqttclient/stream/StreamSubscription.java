@@ -0,0 +1,162 @@
+package com.example.iotcore.mqttclient.stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * One client of a topic's stream, with a bounded queue of its own.
+ * <p>
+ * Events are queued by the publishing thread and handed to the {@link StreamListener} in batches by a sender
+ * thread, so a slow client never blocks the ingest path. Once the queue is full the subscriber falls behind: with
+ * coalescing the further events are kept as the latest one per device, up to the queue capacity of devices,
+ * otherwise the oldest queued events are dropped. Either way a subscription holds at most twice its capacity of
+ * events, and catches up with the current values when the client reads again.
+ */
+@Slf4j
+public class StreamSubscription implements Closeable {
+    private final TopicStreamHub hub;
+    private final TopicFanOut fanOut;
+    private final StreamListener listener;
+    private final Executor sender;
+    private final int capacity;
+    private final boolean coalesceLatest;
+    private final int maxBatchSize;
+
+    // guarded by this
+    private final ArrayDeque<StreamEvent> queue = new ArrayDeque<>();
+    // the events received since the queue was full, the latest per device, oldest device first
+    private final LinkedHashMap<String, StreamEvent> latest = new LinkedHashMap<>();
+    private boolean scheduled;
+    private boolean closed;
+    private long coalesced;
+    private long dropped;
+
+    StreamSubscription(TopicStreamHub hub, TopicFanOut fanOut, StreamListener listener, Executor sender,
+                       int capacity, boolean coalesceLatest, int maxBatchSize) {
+        this.hub = hub;
+        this.fanOut = fanOut;
+        this.listener = listener;
+        this.sender = sender;
+        this.capacity = Math.max(1, capacity);
+        this.coalesceLatest = coalesceLatest;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    public String getTopic() {
+        return fanOut.topic();
+    }
+
+    /**
+     * @return the events replaced by a later one of the same device while the subscriber was behind.
+     */
+    public synchronized long getCoalescedCount() {
+        return coalesced;
+    }
+
+    /**
+     * @return the events the subscriber never got because it was behind.
+     */
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    void offer(StreamEvent event) {
+        synchronized (this) {
+            if (closed)
+                return;
+
+            if (queue.size() < capacity && latest.isEmpty()) {
+                queue.add(event);
+            } else if (coalesceLatest) {
+                if (latest.remove(event.device()) != null)
+                    coalesced++;
+                latest.put(event.device(), event);
+                if (latest.size() > capacity) {
+                    Iterator<StreamEvent> eldest = latest.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    dropped++;
+                }
+            } else {
+                queue.poll();
+                queue.add(event);
+                dropped++;
+            }
+
+            if (scheduled)
+                return;
+            scheduled = true;
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        try {
+            sender.execute(this::send);
+        } catch (RejectedExecutionException e) {
+            close();
+        }
+    }
+
+    private void send() {
+        List<StreamEvent> batch = new ArrayList<>(maxBatchSize);
+        synchronized (this) {
+            while (batch.size() < maxBatchSize && !queue.isEmpty())
+                batch.add(queue.poll());
+            Iterator<StreamEvent> coalescedEvents = latest.values().iterator();
+            while (batch.size() < maxBatchSize && coalescedEvents.hasNext()) {
+                batch.add(coalescedEvents.next());
+                coalescedEvents.remove();
+            }
+            if (closed || batch.isEmpty()) {
+                scheduled = false;
+
+                return;
+            }
+        }
+
+        try {
+            listener.onEvents(batch);
+        } catch (Exception e) {
+            log.debug("Closing the stream of topic {}: {}", getTopic(), e.getMessage());
+            close();
+
+            return;
+        }
+
+        synchronized (this) {
+            if (closed || queue.isEmpty() && latest.isEmpty()) {
+                scheduled = false;
+
+                return;
+            }
+        }
+        // the next batch goes to the back of the senders' queue, so a busy subscriber does not hold a sender
+        schedule();
+    }
+
+    /**
+     * Stops the events and releases the queue; does nothing if already closed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+
+            closed = true;
+            queue.clear();
+            latest.clear();
+        }
+        hub.unsubscribe(this, fanOut);
+        listener.onClose();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.iotcore.mqttclient.stream;
+
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The subscriptions of one topic; a message is encoded once into a {@link StreamEvent} whatever their number.
+ */
+class TopicFanOut {
+    private final String topic;
+    private final List<StreamSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    TopicFanOut(String topic) {
+        this.topic = topic;
+    }
+
+    String topic() {
+        return topic;
+    }
+
+    List<StreamSubscription> subscriptions() {
+        return subscriptions;
+    }
+
+    void publish(InboundMessage message, Function<InboundMessage, String> encoder) {
+        if (subscriptions.isEmpty())
+            return;
+
+        StreamEvent event = new StreamEvent(sequence.getAndIncrement(), message.device(), encoder.apply(message));
+        for (StreamSubscription subscription : subscriptions)
+            subscription.offer(event);
+    }
+}
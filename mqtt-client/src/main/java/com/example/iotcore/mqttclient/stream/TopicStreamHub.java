@@ -0,0 +1,117 @@
+package com.example.iotcore.mqttclient.stream;
+
+import com.example.iotcore.mqttclient.config.StreamProperties;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import com.example.iotcore.mqttclient.routing.TopicRouter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Pushes the received messages of a topic to the clients streaming it.
+ * <p>
+ * Every streamed topic has one {@link TopicFanOut}, registered in a {@link TopicRouter} for as long as it has
+ * subscribers; a message is routed to it, encoded once and queued by reference into every
+ * {@link StreamSubscription}, whose events a small pool of sender threads hands to the clients. Publishing never
+ * blocks and costs a cached route lookup for topics nobody streams.
+ */
+@Slf4j
+public class TopicStreamHub implements Closeable {
+    private final StreamProperties properties;
+    private final Function<InboundMessage, String> encoder;
+    private final TopicRouter<TopicFanOut> router = new TopicRouter<>();
+    // guarded by this
+    private final Map<String, TopicFanOut> fanOuts = new HashMap<>();
+    private final ExecutorService senders;
+    private final Executor sender;
+
+    /**
+     * @param encoder renders a message for the clients, e.g. as json.
+     */
+    public TopicStreamHub(StreamProperties properties, Function<InboundMessage, String> encoder) {
+        this.properties = properties;
+        this.encoder = encoder;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, properties.getSenderThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "topic-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        this.sender = senders;
+    }
+
+    TopicStreamHub(StreamProperties properties, Function<InboundMessage, String> encoder, Executor sender) {
+        this.properties = properties;
+        this.encoder = encoder;
+        this.senders = null;
+        this.sender = sender;
+    }
+
+    /**
+     * @param topic    the topic name.
+     * @param listener receives the messages of the topic from now on.
+     * @return the subscription, to be closed once the client is gone.
+     * @throws IllegalArgumentException if {@code topic} is not a valid MQTT topic filter.
+     */
+    public synchronized StreamSubscription subscribe(String topic, StreamListener listener) {
+        TopicFanOut fanOut = fanOuts.get(topic);
+        if (fanOut == null) {
+            fanOut = new TopicFanOut(topic);
+            router.register(topic, fanOut);
+            fanOuts.put(topic, fanOut);
+        }
+
+        StreamSubscription subscription = new StreamSubscription(this, fanOut, listener, sender,
+                properties.getQueueCapacity(), properties.isCoalesceLatest(), properties.getMaxBatchSize());
+        fanOut.subscriptions().add(subscription);
+        log.debug("Streaming topic {} to {} subscribers", topic, fanOut.subscriptions().size());
+
+        return subscription;
+    }
+
+    synchronized void unsubscribe(StreamSubscription subscription, TopicFanOut fanOut) {
+        fanOut.subscriptions().remove(subscription);
+        if (fanOut.subscriptions().isEmpty() && fanOuts.remove(fanOut.topic(), fanOut))
+            router.unregister(fanOut.topic(), fanOut);
+    }
+
+    /**
+     * Queues the message for the subscribers of its topic, called on the ingest path.
+     */
+    public void publish(InboundMessage message) {
+        for (TopicFanOut fanOut : router.route(message.topic()))
+            fanOut.publish(message, encoder);
+    }
+
+    public synchronized int getSubscriberCount() {
+        return fanOuts.values().stream().mapToInt(fanOut -> fanOut.subscriptions().size()).sum();
+    }
+
+    public long getTimeoutMillis() {
+        return properties.getTimeoutMillis();
+    }
+
+    /**
+     * Closes every subscription and stops the senders.
+     */
+    @Override
+    public void close() {
+        List<StreamSubscription> subscriptions = new ArrayList<>();
+        synchronized (this) {
+            fanOuts.values().forEach(fanOut -> subscriptions.addAll(fanOut.subscriptions()));
+        }
+        subscriptions.forEach(StreamSubscription::close);
+        if (senders != null)
+            senders.shutdownNow();
+    }
+}
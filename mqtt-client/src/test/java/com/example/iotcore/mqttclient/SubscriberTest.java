@@ -0,0 +1,192 @@
+package com.example.iotcore.mqttclient;
+
+import com.example.iotcore.mqttbroker.EmbeddedMqttBroker;
+import com.example.iotcore.mqttclient.cache.TopicRecentMessageCache;
+import com.example.iotcore.mqttclient.config.IngestProperties;
+import com.example.iotcore.mqttclient.config.LoadGeneratorProperties;
+import com.example.iotcore.mqttclient.config.PahoConnectionProperties;
+import com.example.iotcore.mqttclient.config.SubscriberProperties;
+import com.example.iotcore.mqttclient.ingest.BatchSink;
+import com.example.iotcore.mqttclient.ingest.IngestPipeline;
+import com.example.iotcore.mqttclient.loadgen.LoadReport;
+import org.eclipse.paho.mqttv5.client.MqttClient;
+import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
+import org.eclipse.paho.mqttv5.common.MqttMessage;
+import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.eclipse.paho.mqttv5.common.packet.UserProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubscriberTest {
+    private static final String USERNAME = "iot";
+    private static final String PASSWORD = "secret";
+
+    @TempDir
+    Path spillDirectory;
+
+    private EmbeddedMqttBroker broker;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final List<IngestPipeline> pipelines = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = EmbeddedMqttBroker.start(USERNAME, PASSWORD);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (Subscriber subscriber : subscribers)
+            subscriber.disconnect();
+        pipelines.forEach(IngestPipeline::close);
+        broker.close();
+    }
+
+    @Test
+    void ingestsWhatTheLoadGeneratorPublishes() throws Exception {
+        // given
+        Set<String> devices = ConcurrentHashMap.newKeySet();
+        subscribe(subscriberProperties(0), batch -> batch.forEach(message -> devices.add(message.device())));
+        LoadGeneratorProperties loadGeneratorProperties = new LoadGeneratorProperties();
+        loadGeneratorProperties.setServerUri(broker.getServerUri());
+        loadGeneratorProperties.setUsername(USERNAME);
+        loadGeneratorProperties.setPassword(PASSWORD);
+        loadGeneratorProperties.setDevices(10);
+        loadGeneratorProperties.setConnections(2);
+        loadGeneratorProperties.setMessagesPerSecondPerDevice(50);
+        loadGeneratorProperties.setDurationSeconds(1);
+
+        // when
+        LoadReport report = new Publisher().publish(loadGeneratorProperties);
+
+        // then
+        assertThat(report.failed()).isZero();
+        assertThat(report.received()).isEqualTo(report.published());
+        assertThat(report.latencyMicros().getTotalCount()).isEqualTo(report.published());
+        await(() -> devices.size() == 10);
+    }
+
+    @Test
+    void redeliversMessagesOfFailedBatchesAfterReconnect() throws Exception {
+        // given the first batch fails and is never acknowledged
+        Set<String> persisted = ConcurrentHashMap.newKeySet();
+        AtomicBoolean failNextBatch = new AtomicBoolean(true);
+        BatchSink sink = batch -> {
+            if (failNextBatch.getAndSet(false))
+                throw new IllegalStateException("database unavailable");
+            batch.forEach(message -> persisted.add(new String(message.payload())));
+        };
+        SubscriberProperties properties = subscriberProperties(1);
+        IngestPipeline pipeline = pipeline(sink);
+        Subscriber subscriber = subscribe(properties, pipeline);
+        publish("heart-rate/1", 5);
+        await(() -> pipeline.getFailedCount() + persisted.size() == 5);
+
+        // when
+        subscriber.disconnect();
+        subscribe(properties, pipeline);
+
+        // then
+        await(() -> persisted.size() == 5);
+        assertThat(persisted).containsExactlyInAnyOrder("0", "1", "2", "3", "4");
+    }
+
+    @Test
+    void spreadsSharedSubscriptionOverInstances() throws Exception {
+        // given
+        Map<String, Integer> persistedBy = new ConcurrentHashMap<>();
+        SubscriberProperties first = subscriberProperties(1);
+        first.setSharedGroup("ingest");
+        first.setClientId("first");
+        first.setConnections(2);
+        SubscriberProperties second = subscriberProperties(1);
+        second.setSharedGroup("ingest");
+        second.setClientId("second");
+        subscribe(first, batch -> persistedBy.merge("first", batch.size(), Integer::sum));
+        subscribe(second, batch -> persistedBy.merge("second", batch.size(), Integer::sum));
+
+        // when
+        publish("heart-rate/1", 90);
+
+        // then every connection got a third of the messages
+        await(() -> persistedBy.values().stream().mapToInt(Integer::intValue).sum() == 90);
+        assertThat(persistedBy).containsEntry("first", 60).containsEntry("second", 30);
+    }
+
+    private SubscriberProperties subscriberProperties(int qos) {
+        SubscriberProperties properties = new SubscriberProperties();
+        properties.setServerUri(broker.getServerUri());
+        properties.setUsername(USERNAME);
+        properties.setPassword(PASSWORD);
+        properties.setTopicFilter("heart-rate/#");
+        properties.setClientId("subscriber");
+        properties.setQos(qos);
+
+        return properties;
+    }
+
+    private Subscriber subscribe(SubscriberProperties properties, BatchSink sink) throws Exception {
+        return subscribe(properties, pipeline(sink));
+    }
+
+    private Subscriber subscribe(SubscriberProperties properties, IngestPipeline pipeline) throws Exception {
+        Subscriber subscriber = new Subscriber(properties,
+                new Callback(pipeline, null, new TopicRecentMessageCache(10), null));
+        subscriber.subscribe();
+        subscribers.add(subscriber);
+
+        return subscriber;
+    }
+
+    private IngestPipeline pipeline(BatchSink sink) {
+        IngestProperties properties = new IngestProperties();
+        properties.setWriterThreads(1);
+        properties.setMaxBatchLatencyMillis(20);
+        properties.setSpillDirectory(spillDirectory.toString());
+        IngestPipeline pipeline = new IngestPipeline(properties, sink);
+        pipeline.start();
+        pipelines.add(pipeline);
+
+        return pipeline;
+    }
+
+    private void publish(String topic, int count) throws Exception {
+        MqttClient client = new MqttClient(broker.getServerUri(), "publisher", null);
+        MqttConnectionOptions options = new MqttConnectionOptions();
+        options.setUserName(USERNAME);
+        options.setPassword(PASSWORD.getBytes());
+        client.connect(options);
+
+        MqttProperties properties = new MqttProperties();
+        properties.setUserProperties(List.of(
+                new UserProperty(PahoConnectionProperties.DEVICE_USER_PROPERTY, "02:00:00:00:00:01")));
+        for (int i = 0; i < count; i++) {
+            MqttMessage message = new MqttMessage(Integer.toString(i).getBytes());
+            message.setQos(1);
+            message.setProperties(properties);
+            client.publish(topic, message);
+        }
+        client.disconnect();
+        client.close();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within 10 seconds").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
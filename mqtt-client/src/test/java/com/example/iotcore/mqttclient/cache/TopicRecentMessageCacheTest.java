@@ -0,0 +1,82 @@
+package com.example.iotcore.mqttclient.cache;
+
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopicRecentMessageCacheTest {
+
+    @Test
+    void keepsLastMessagesPerTopic() {
+        // given
+        TopicRecentMessageCache cache = new TopicRecentMessageCache(3);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            cache.add(message("heart-rate", i));
+            cache.add(message("temperature", i * 10));
+        }
+
+        // then
+        assertThat(cache.snapshot("heart-rate")).extracting(RecentMessage::content)
+                .containsExactly("2", "3", "4");
+        assertThat(cache.snapshot("temperature", 2)).extracting(RecentMessage::content)
+                .containsExactly("30", "40");
+        assertThat(cache.snapshot("unknown")).isEmpty();
+    }
+
+    @Test
+    void cachesUpToMaxTopics() {
+        // given
+        TopicRecentMessageCache cache = new TopicRecentMessageCache(3, 2);
+
+        // when
+        cache.add(message("heart-rate", 1));
+        cache.add(message("temperature", 2));
+        cache.add(message("humidity", 3));
+        cache.add(message("heart-rate", 4));
+
+        // then
+        assertThat(cache.snapshot("humidity")).isEmpty();
+        assertThat(cache.snapshot("heart-rate")).extracting(RecentMessage::content).containsExactly("1", "4");
+        assertThat(cache.getTopicCount()).isEqualTo(2);
+        assertThat(cache.getRejectedCount()).isOne();
+
+        // when the ring of a deleted topic is evicted
+        cache.evict("temperature");
+        cache.add(message("humidity", 5));
+
+        // then
+        assertThat(cache.snapshot("humidity")).extracting(RecentMessage::content).containsExactly("5");
+        assertThat(cache.getTopicCount()).isEqualTo(2);
+    }
+
+    @Test
+    void snapshotsWhileWriting() throws InterruptedException {
+        // given
+        TopicRecentMessageCache cache = new TopicRecentMessageCache(10);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 100_000; i++)
+                cache.add(message("heart-rate", i));
+        });
+
+        // when
+        writer.start();
+        while (writer.isAlive())
+            assertThat(cache.snapshot("heart-rate")).hasSizeLessThanOrEqualTo(10)
+                    .isSortedAccordingTo((a, b) -> Long.compare(a.sequence(), b.sequence()));
+        writer.join();
+
+        // then
+        assertThat(cache.snapshot("heart-rate")).extracting(RecentMessage::sequence)
+                .containsExactly(99_990L, 99_991L, 99_992L, 99_993L, 99_994L, 99_995L, 99_996L, 99_997L,
+                        99_998L, 99_999L);
+    }
+
+    private static InboundMessage message(String topic, int value) {
+        return new InboundMessage(topic, "00:00:00:00:00:01", String.valueOf(value).getBytes(), Instant.now());
+    }
+}
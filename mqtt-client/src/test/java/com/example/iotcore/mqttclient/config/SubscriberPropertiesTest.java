@@ -0,0 +1,35 @@
+package com.example.iotcore.mqttclient.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubscriberPropertiesTest {
+
+    @Test
+    void subscribesToTopicFilterWithoutSharedGroup() {
+        // given
+        SubscriberProperties properties = new SubscriberProperties();
+        properties.setTopicFilter("heart-rate/#");
+
+        // when
+        String filter = properties.subscriptionFilter();
+
+        // then
+        assertThat(filter).isEqualTo("heart-rate/#");
+    }
+
+    @Test
+    void subscribesToSharedSubscriptionWithSharedGroup() {
+        // given
+        SubscriberProperties properties = new SubscriberProperties();
+        properties.setTopicFilter("heart-rate/#");
+        properties.setSharedGroup("ingest");
+
+        // when
+        String filter = properties.subscriptionFilter();
+
+        // then
+        assertThat(filter).isEqualTo("$share/ingest/heart-rate/#");
+    }
+}
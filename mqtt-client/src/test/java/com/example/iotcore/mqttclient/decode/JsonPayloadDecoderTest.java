@@ -0,0 +1,87 @@
+package com.example.iotcore.mqttclient.decode;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonPayloadDecoderTest {
+
+    JsonPayloadDecoder decoder;
+
+    DecodedFields fields;
+
+    @BeforeEach
+    void setUp() {
+        decoder = new JsonPayloadDecoder();
+        fields = new DecodedFields();
+    }
+
+    @Test
+    void decodesIntegerAndDecimalMembers() {
+        // given
+        byte[] payload = bytes("{\"BPM\":72, \"temperature\" : -36.6, \"sentAt\":1649850227000000}");
+
+        // when
+        boolean decoded = decoder.decode(payload, fields);
+
+        // then
+        assertThat(decoded).isTrue();
+        assertThat(fields.size()).isEqualTo(3);
+        assertThat(fields.metric(0)).isEqualTo("BPM");
+        assertThat(fields.isLong(0)).isTrue();
+        assertThat(fields.longValue(0)).isEqualTo(72);
+        assertThat(fields.isLong(1)).isFalse();
+        assertThat(fields.doubleValue(1)).isEqualTo(-36.6);
+        assertThat(fields.longValue(fields.indexOf("sentAt"))).isEqualTo(1649850227000000L);
+    }
+
+    @Test
+    void decodesExponentsAndBooleansAndSkipsOtherMembers() {
+        // given
+        byte[] payload = bytes("{\"a\":1.5e3,\"b\":true,\"c\":\"x\\\"}\",\"d\":null,\"e\":{\"f\":[1,2]},\"g\":2E-2}");
+
+        // when
+        boolean decoded = decoder.decode(payload, fields);
+
+        // then
+        assertThat(decoded).isTrue();
+        assertThat(fields.size()).isEqualTo(3);
+        assertThat(fields.doubleValue(fields.indexOf("a"))).isEqualTo(1500.0);
+        assertThat(fields.longValue(fields.indexOf("b"))).isEqualTo(1);
+        assertThat(fields.doubleValue(fields.indexOf("g"))).isEqualTo(0.02);
+    }
+
+    @Test
+    void sharesMetricNamesBetweenPayloads() {
+        // given
+        DecodedFields other = new DecodedFields();
+
+        // when
+        decoder.decode(bytes("{\"BPM\":72}"), fields);
+        decoder.decode(bytes("{\"BPM\":73}"), other);
+
+        // then
+        assertThat(other.metric(0)).isSameAs(fields.metric(0));
+    }
+
+    @Test
+    void rejectsMalformedPayloads() {
+        // given
+
+        // when
+
+        // then
+        assertThat(decoder.decode(bytes("72"), fields)).isFalse();
+        assertThat(decoder.decode(bytes("{\"BPM\":}"), fields)).isFalse();
+        assertThat(decoder.decode(bytes("{\"BPM\":7x2}"), fields)).isFalse();
+        assertThat(decoder.decode(bytes("{\"BPM\":72"), fields)).isFalse();
+        assertThat(decoder.decode(bytes("{\"BPM\":72} trailing"), fields)).isFalse();
+    }
+
+    private static byte[] bytes(String payload) {
+        return payload.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.iotcore.mqttclient.decode;
+
+import com.example.iotcore.mqttclient.config.DecoderProperties;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayloadDecodersTest {
+
+    @Test
+    void picksFirstMatchingTopicFilter() {
+        // given
+        PayloadDecoders decoders = PayloadDecoders.of(List.of(
+                decoder("sensors/+/csv", "csv", List.of("temperature", "humidity"), null),
+                decoder("sensors/#", "raw", List.of(), "level"),
+                decoder("heart-rate", "json", List.of(), null)));
+
+        // when
+
+        // then
+        assertThat(decoders.decoderFor("sensors/kitchen/csv")).isInstanceOf(CsvPayloadDecoder.class);
+        assertThat(decoders.decoderFor("sensors/kitchen/tank")).isInstanceOf(RawNumericPayloadDecoder.class);
+        assertThat(decoders.decoderFor("sensors")).isInstanceOf(RawNumericPayloadDecoder.class);
+        assertThat(decoders.decoderFor("heart-rate")).isInstanceOf(JsonPayloadDecoder.class);
+        assertThat(decoders.decoderFor("heart-rate/extra")).isNull();
+        assertThat(decoders.decoderFor("heart-rate")).isSameAs(decoders.decoderFor("heart-rate"));
+    }
+
+    @Test
+    void wildcardsDoNotMatchSystemTopics() {
+        // given
+        PayloadDecoders decoders = PayloadDecoders.of(List.of(decoder("#", "json", List.of(), null)));
+
+        // when
+
+        // then
+        assertThat(decoders.decoderFor("$SYS/broker/uptime")).isNull();
+        assertThat(decoders.decoderFor("heart-rate")).isNotNull();
+    }
+
+    @Test
+    void rejectsUnknownFormats() {
+        // given
+        List<DecoderProperties> properties = List.of(decoder("heart-rate", "protobuf", List.of(), null));
+
+        // when
+
+        // then
+        assertThatThrownBy(() -> PayloadDecoders.of(properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("protobuf");
+    }
+
+    @Test
+    void decodesCsvColumns() {
+        // given
+        CsvPayloadDecoder decoder = new CsvPayloadDecoder(List.of("temperature", "humidity", "pressure"));
+        DecodedFields fields = new DecodedFields();
+
+        // when
+        boolean decoded = decoder.decode(bytes(" 21.5, ,1013,99\n"), fields);
+
+        // then
+        assertThat(decoded).isTrue();
+        assertThat(fields.size()).isEqualTo(2);
+        assertThat(fields.doubleValue(fields.indexOf("temperature"))).isEqualTo(21.5);
+        assertThat(fields.indexOf("humidity")).isEqualTo(-1);
+        assertThat(fields.longValue(fields.indexOf("pressure"))).isEqualTo(1013);
+        assertThat(decoder.decode(bytes("21.5,wet"), new DecodedFields())).isFalse();
+    }
+
+    @Test
+    void decodesRawNumbers() {
+        // given
+        RawNumericPayloadDecoder decoder = new RawNumericPayloadDecoder("BPM");
+        DecodedFields fields = new DecodedFields();
+
+        // when
+        boolean decoded = decoder.decode(bytes("72\r\n"), fields);
+
+        // then
+        assertThat(decoded).isTrue();
+        assertThat(fields.metric(0)).isEqualTo("BPM");
+        assertThat(fields.longValue(0)).isEqualTo(72);
+        assertThat(decoder.decode(bytes(""), new DecodedFields())).isFalse();
+        assertThat(decoder.decode(bytes("0.1234567890123456789"), fields)).isTrue();
+        assertThat(fields.doubleValue(1)).isEqualTo(0.1234567890123456789);
+    }
+
+    private static DecoderProperties decoder(String topicFilter, String format, List<String> columns, String metric) {
+        DecoderProperties properties = new DecoderProperties();
+        properties.setTopicFilter(topicFilter);
+        properties.setFormat(format);
+        properties.setColumns(columns);
+        if (metric != null)
+            properties.setMetric(metric);
+
+        return properties;
+    }
+
+    private static byte[] bytes(String payload) {
+        return payload.getBytes(StandardCharsets.US_ASCII);
+    }
+}
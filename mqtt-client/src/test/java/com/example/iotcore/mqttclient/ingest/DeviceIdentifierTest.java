@@ -0,0 +1,49 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import com.example.iotcore.mqttclient.config.PahoConnectionProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceIdentifierTest {
+    private static final String MAC = "5C:CF:7F:12:34:56";
+
+    @Test
+    void readsTheConfiguredTopicLevel() {
+        // given
+        DeviceIdentifier identifier = new DeviceIdentifier(1, null);
+
+        // when, then
+        assertThat(identifier.identify("heart-rate/" + MAC, new byte[0], null)).isEqualTo(MAC);
+        assertThat(identifier.identify("heart-rate/" + MAC + "/bpm", new byte[0], null)).isEqualTo(MAC);
+        assertThat(identifier.identify("heart-rate", new byte[0], "02:00:00:00:00:01"))
+                .isEqualTo("02:00:00:00:00:01");
+        assertThat(identifier.identify("heart-rate//bpm", new byte[0], null))
+                .isEqualTo(PahoConnectionProperties.UNKNOWN_DEVICE);
+    }
+
+    @Test
+    void readsTheConfiguredPayloadField() {
+        // given
+        DeviceIdentifier identifier = new DeviceIdentifier(-1, "mac");
+
+        // when, then
+        assertThat(identifier.identify("test", ("{\"BPM\":72,\"mac\":\"" + MAC + "\"}").getBytes(), null))
+                .isEqualTo(MAC);
+        assertThat(identifier.identify("test", ("{ \"note\" : \"mac\", \"mac\" : \"" + MAC + "\" }").getBytes(),
+                null)).isEqualTo(MAC);
+        assertThat(identifier.identify("test", "{\"BPM\":72}".getBytes(), "02:00:00:00:00:01"))
+                .isEqualTo("02:00:00:00:00:01");
+        assertThat(identifier.identify("test", "{\"mac\":\"5C:CF".getBytes(), null))
+                .isEqualTo(PahoConnectionProperties.UNKNOWN_DEVICE);
+    }
+
+    @Test
+    void fallsBackToTheUserProperty() {
+        // when, then
+        assertThat(DeviceIdentifier.USER_PROPERTY.identify("heart-rate/" + MAC, "{\"mac\":\"x\"}".getBytes(), MAC))
+                .isEqualTo(MAC);
+        assertThat(DeviceIdentifier.USER_PROPERTY.identify("heart-rate", new byte[0], null))
+                .isEqualTo(PahoConnectionProperties.UNKNOWN_DEVICE);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.EOFException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DiskSpillQueueTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void keepsAcknowledgementsInStepAfterAnUnreadableRecord() throws Exception {
+        // given
+        List<String> acknowledged = new ArrayList<>();
+        DiskSpillQueue queue = new DiskSpillQueue(directory);
+        for (int i = 0; i < 3; i++)
+            queue.append(message(i, acknowledged));
+        List<InboundMessage> read = new ArrayList<>();
+        queue.drainTo(read, 1);
+        // the last record is cut short
+        try (Stream<Path> files = Files.list(directory);
+             FileChannel file = FileChannel.open(files.findFirst().orElseThrow(), StandardOpenOption.WRITE)) {
+            file.truncate(file.size() - 5);
+        }
+
+        // when
+        assertThatThrownBy(() -> queue.drainTo(read, 10)).isInstanceOf(EOFException.class);
+        read.forEach(message -> message.acknowledgement().acknowledge());
+        List<Acknowledgement> discarded = queue.discard();
+        discarded.forEach(Acknowledgement::acknowledge);
+
+        // then
+        assertThat(read).extracting(InboundMessage::topic).containsExactly("topic0", "topic1");
+        assertThat(acknowledged).containsExactly("topic0", "topic1", "topic2");
+        assertThat(queue.size()).isZero();
+        queue.append(message(3, acknowledged));
+        read.clear();
+        assertThat(queue.drainTo(read, 10)).isEqualTo(1);
+        assertThat(read).extracting(InboundMessage::topic).containsExactly("topic3");
+        queue.close();
+    }
+
+    private static InboundMessage message(int i, List<String> acknowledged) {
+        return new InboundMessage("topic" + i, "00:00:00:00:00:01", ("{\"BPM\":" + i + "}").getBytes(),
+                Instant.now(), () -> acknowledged.add("topic" + i), "id" + i, false);
+    }
+}
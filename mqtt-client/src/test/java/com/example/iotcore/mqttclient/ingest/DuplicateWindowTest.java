@@ -0,0 +1,86 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateWindowTest {
+
+    @Test
+    void forgetsFingerprintsAfterTwoWindows() {
+        // given
+        long window = TimeUnit.SECONDS.toNanos(1);
+        DuplicateWindow duplicates = new DuplicateWindow(1_000, 100, 0);
+        duplicates.seen(42, 0);
+        duplicates.commit();
+
+        // when, then
+        assertThat(duplicates.seen(42, window + 1)).isTrue();
+        assertThat(duplicates.seen(7, window + 1)).isFalse();
+        assertThat(duplicates.seen(42, 2 * window + 1)).isFalse();
+    }
+
+    @Test
+    void forgetsRolledBackFingerprints() {
+        // given
+        DuplicateWindow duplicates = new DuplicateWindow(1_000, 100, 0);
+        duplicates.seen(1, 0);
+        duplicates.commit();
+        duplicates.seen(2, 0);
+
+        // when
+        duplicates.rollback();
+
+        // then
+        assertThat(duplicates.seen(1, 0)).isTrue();
+        assertThat(duplicates.seen(2, 0)).isFalse();
+    }
+
+    @Test
+    void fingerprintsMessageIdInsteadOfPayload() {
+        // given
+        InboundMessage first = message("72", "a");
+        InboundMessage resent = message("72", "a");
+        InboundMessage next = message("72", "b");
+
+        // when, then
+        assertThat(DuplicateWindow.fingerprint(resent)).isEqualTo(DuplicateWindow.fingerprint(first));
+        assertThat(DuplicateWindow.fingerprint(next)).isNotEqualTo(DuplicateWindow.fingerprint(first));
+        assertThat(DuplicateWindow.fingerprint(message("72", null)))
+                .isNotEqualTo(DuplicateWindow.fingerprint(message("73", null)));
+    }
+
+    @Test
+    void hashSetAgreesWithJavaUtilSet() {
+        // given
+        Random random = new Random(1);
+        LongHashSet set = new LongHashSet(1_000);
+        Set<Long> expected = new HashSet<>();
+
+        // when, then: a small key space forces long probe sequences and removals in their middle
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(2_000) * 0x1_0000_0000L;
+            if (random.nextBoolean() && expected.size() < 1_000)
+                assertThat(set.add(value)).isEqualTo(expected.add(value));
+            else {
+                set.remove(value);
+                expected.remove(value);
+            }
+            assertThat(set.contains(value)).isEqualTo(expected.contains(value));
+        }
+        for (long value = 0; value < 2_000; value++)
+            assertThat(set.contains(value * 0x1_0000_0000L)).isEqualTo(expected.contains(value * 0x1_0000_0000L));
+        assertThat(set.size()).isEqualTo(expected.size());
+    }
+
+    private static InboundMessage message(String payload, String messageId) {
+        return new InboundMessage("heart-rate", "02:00:00:00:00:01", payload.getBytes(), Instant.now(),
+                Acknowledgement.NONE, messageId, false);
+    }
+}
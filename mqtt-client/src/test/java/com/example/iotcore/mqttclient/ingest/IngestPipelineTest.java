@@ -0,0 +1,296 @@
+package com.example.iotcore.mqttclient.ingest;
+
+import com.example.iotcore.mqttclient.config.IngestProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestPipelineTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    @Test
+    void flushesFullBatches() {
+        // given
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        IngestProperties properties = properties(BackpressurePolicy.BLOCK, 1_000);
+        properties.setWriterThreads(1);
+        properties.setBatchSize(10);
+        properties.setMaxBatchLatencyMillis(60_000);
+        IngestPipeline pipeline = new IngestPipeline(properties, batch -> batchSizes.add(batch.size()));
+        pipeline.start();
+
+        // when
+        for (int i = 0; i < 100; i++)
+            pipeline.submit(message(i));
+        pipeline.close();
+
+        // then
+        assertThat(batchSizes).containsOnly(10).hasSize(10);
+    }
+
+    @Test
+    void reportsFlushedBatches() {
+        // given
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        List<Long> durations = Collections.synchronizedList(new ArrayList<>());
+        IngestProperties properties = properties(BackpressurePolicy.BLOCK, 1_000);
+        properties.setWriterThreads(1);
+        properties.setBatchSize(10);
+        properties.setMaxBatchLatencyMillis(60_000);
+        IngestPipeline pipeline = new IngestPipeline(properties, batch -> {
+        }, new IngestMetrics() {
+            @Override
+            public void batchFlushed(int size, long nanos) {
+                batchSizes.add(size);
+                durations.add(nanos);
+            }
+        });
+        pipeline.start();
+
+        // when
+        for (int i = 0; i < 25; i++)
+            pipeline.submit(message(i));
+        pipeline.close();
+
+        // then
+        assertThat(batchSizes).containsExactly(10, 10, 5);
+        assertThat(durations).allMatch(nanos -> nanos >= 0);
+    }
+
+    @Test
+    void flushesPartialBatchAfterMaxLatency() throws InterruptedException {
+        // given
+        CountDownLatch flushed = new CountDownLatch(1);
+        IngestProperties properties = properties(BackpressurePolicy.BLOCK, 1_000);
+        properties.setMaxBatchLatencyMillis(50);
+        IngestPipeline pipeline = new IngestPipeline(properties, batch -> flushed.countDown());
+        pipeline.start();
+
+        // when
+        pipeline.submit(message(0));
+
+        // then
+        assertThat(flushed.await(5, TimeUnit.SECONDS)).isTrue();
+        pipeline.close();
+    }
+
+    @Test
+    void dropsOldestWhenFull() {
+        // given
+        List<String> persisted = Collections.synchronizedList(new ArrayList<>());
+        IngestProperties properties = properties(BackpressurePolicy.DROP_OLDEST, 4);
+        properties.setWriterThreads(1);
+        IngestPipeline pipeline = new IngestPipeline(properties,
+                batch -> batch.forEach(message -> persisted.add(message.topic())));
+
+        // when
+        for (int i = 0; i < 10; i++)
+            pipeline.submit(message(i));
+        pipeline.start();
+        pipeline.close();
+
+        // then
+        assertThat(pipeline.getDroppedCount()).isEqualTo(6);
+        assertThat(persisted).containsExactly("topic6", "topic7", "topic8", "topic9");
+    }
+
+    @Test
+    void spillsToDiskWhenFullAndKeepsOrder() {
+        // given
+        List<String> persisted = Collections.synchronizedList(new ArrayList<>());
+        IngestProperties properties = properties(BackpressurePolicy.SPILL_TO_DISK, 4);
+        properties.setWriterThreads(1);
+        IngestPipeline pipeline = new IngestPipeline(properties,
+                batch -> batch.forEach(message -> persisted.add(message.topic())));
+
+        // when
+        for (int i = 0; i < 10; i++)
+            pipeline.submit(message(i));
+        pipeline.start();
+        pipeline.close();
+
+        // then
+        assertThat(pipeline.getSpilledCount()).isEqualTo(6);
+        assertThat(pipeline.getDroppedCount()).isZero();
+        assertThat(persisted).containsExactly("topic0", "topic1", "topic2", "topic3", "topic4",
+                "topic5", "topic6", "topic7", "topic8", "topic9");
+    }
+
+    @Test
+    void keepsPerDeviceOrderAcrossWriters() {
+        // given
+        Map<String, List<Integer>> persisted = new ConcurrentHashMap<>();
+        Map<String, Set<String>> writersOfDevice = new ConcurrentHashMap<>();
+        IngestProperties properties = properties(BackpressurePolicy.BLOCK, 1_000);
+        properties.setWriterThreads(4);
+        properties.setBatchSize(7);
+        IngestPipeline pipeline = new IngestPipeline(properties, batch -> batch.forEach(message -> {
+            persisted.computeIfAbsent(message.device(), device -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(Integer.parseInt(message.topic().substring("topic".length())));
+            writersOfDevice.computeIfAbsent(message.device(), device -> ConcurrentHashMap.newKeySet())
+                    .add(Thread.currentThread().getName());
+        }));
+        pipeline.start();
+
+        // when
+        for (int i = 0; i < 500; i++)
+            pipeline.submit(new InboundMessage("topic" + i, "02:00:00:00:00:0" + (i % 10), new byte[0],
+                    Instant.now()));
+        pipeline.close();
+
+        // then
+        assertThat(persisted).hasSize(10);
+        persisted.values().forEach(sequence -> assertThat(sequence).hasSize(50).isSorted());
+        writersOfDevice.values().forEach(writers -> assertThat(writers).hasSize(1));
+    }
+
+    @Test
+    void spreadsDevicesOfOneTopicOverTheWriters() {
+        // given
+        Map<String, Set<String>> writersOfDevice = new ConcurrentHashMap<>();
+        IngestProperties properties = properties(BackpressurePolicy.BLOCK, 1_000);
+        properties.setWriterThreads(4);
+        DeviceIdentifier identifier = new DeviceIdentifier(-1, "mac");
+        IngestPipeline pipeline = new IngestPipeline(properties, batch -> batch.forEach(message ->
+                writersOfDevice.computeIfAbsent(message.device(), device -> ConcurrentHashMap.newKeySet())
+                        .add(Thread.currentThread().getName())));
+        pipeline.start();
+
+        // when an MQTT 3.1.1 device names itself in the payload only
+        for (int i = 0; i < 400; i++) {
+            byte[] payload = ("{\"BPM\":72,\"mac\":\"5C:CF:7F:00:00:" + (10 + i % 40) + "\"}").getBytes();
+            pipeline.submit(new InboundMessage("heart-rate", identifier.identify("heart-rate", payload, null),
+                    payload, Instant.now()));
+        }
+        pipeline.close();
+
+        // then
+        assertThat(writersOfDevice).hasSize(40);
+        writersOfDevice.values().forEach(writers -> assertThat(writers).hasSize(1));
+        assertThat(writersOfDevice.values().stream().flatMap(Set::stream).distinct()).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void acknowledgesOnlyPersistedBatches() {
+        // given
+        Set<Integer> acknowledged = ConcurrentHashMap.newKeySet();
+        IngestProperties properties = properties(BackpressurePolicy.BLOCK, 1_000);
+        properties.setWriterThreads(1);
+        properties.setBatchSize(5);
+        properties.setMaxBatchLatencyMillis(60_000);
+        IngestPipeline pipeline = new IngestPipeline(properties, batch -> {
+            if (batch.stream().anyMatch(message -> message.topic().equals("topic7")))
+                throw new IllegalStateException("database down");
+        });
+        pipeline.start();
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            int number = i;
+            InboundMessage message = message(i);
+            pipeline.submit(new InboundMessage(message.topic(), message.device(), message.payload(),
+                    message.receivedAt(), () -> acknowledged.add(number)));
+        }
+        pipeline.close();
+
+        // then
+        assertThat(acknowledged).containsExactlyInAnyOrder(0, 1, 2, 3, 4);
+        assertThat(pipeline.getFailedCount()).isEqualTo(5);
+    }
+
+    @Test
+    void suppressesOnlyMessageIdsSeenBefore() {
+        // given
+        List<String> persisted = Collections.synchronizedList(new ArrayList<>());
+        List<String> acknowledged = Collections.synchronizedList(new ArrayList<>());
+        IngestPipeline pipeline = new IngestPipeline(properties(BackpressurePolicy.BLOCK, 1_000),
+                batch -> batch.forEach(message -> persisted.add(new String(message.payload()))));
+        pipeline.start();
+
+        // when
+        pipeline.submit(reading("72", "a", false, acknowledged));
+        pipeline.submit(reading("72", "a", false, acknowledged));
+        pipeline.submit(reading("72", "b", false, acknowledged));
+        pipeline.submit(reading("73", null, false, acknowledged));
+        pipeline.submit(reading("73", null, false, acknowledged));
+        pipeline.submit(reading("73", null, true, acknowledged));
+        pipeline.submit(reading("72", "b", true, acknowledged));
+        pipeline.close();
+
+        // then readings without id are kept, even redelivered, as they may be a reading repeated by the device
+        assertThat(persisted).containsExactly("72", "72", "73", "73", "73");
+        assertThat(pipeline.getSuppressedCount()).isEqualTo(2);
+        assertThat(acknowledged).hasSize(7);
+    }
+
+    @Test
+    void retriesFailedBatchesUntilPersisted() {
+        // given
+        List<String> persisted = Collections.synchronizedList(new ArrayList<>());
+        List<String> acknowledged = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger attempts = new AtomicInteger();
+        IngestProperties properties = properties(BackpressurePolicy.BLOCK, 1_000);
+        properties.setWriterThreads(1);
+        properties.setRetryBackoffMillis(1);
+        IngestPipeline pipeline = new IngestPipeline(properties, batch -> {
+            if (attempts.incrementAndGet() <= 3)
+                throw new IllegalStateException("database unavailable");
+            batch.forEach(message -> persisted.add(new String(message.payload())));
+        });
+        pipeline.start();
+
+        // when
+        pipeline.submit(reading("72", "a", false, acknowledged));
+        awaitAcknowledged(acknowledged);
+        pipeline.submit(reading("72", "a", true, acknowledged));
+        pipeline.close();
+
+        // then the redelivery of the persisted message is suppressed
+        assertThat(attempts).hasValue(4);
+        assertThat(persisted).containsExactly("72");
+        assertThat(acknowledged).hasSize(2);
+        assertThat(pipeline.getFailedCount()).isZero();
+        assertThat(pipeline.getSuppressedCount()).isEqualTo(1);
+    }
+
+    private static InboundMessage reading(String payload, String messageId, boolean redelivered,
+                                          List<String> acknowledged) {
+        return new InboundMessage("heart-rate", "02:00:00:00:00:01", payload.getBytes(), Instant.now(),
+                () -> acknowledged.add(payload), messageId, redelivered);
+    }
+
+    private static void awaitAcknowledged(List<String> acknowledged) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (acknowledged.isEmpty())
+            assertThat(System.nanoTime()).as("acknowledged within 5 seconds").isLessThan(deadline);
+    }
+
+    private IngestProperties properties(BackpressurePolicy policy, int capacity) {
+        IngestProperties properties = new IngestProperties();
+        properties.setBackpressurePolicy(policy);
+        properties.setBufferCapacity(capacity);
+        properties.setSpillDirectory(spillDirectory.toString());
+
+        return properties;
+    }
+
+    private static InboundMessage message(int i) {
+        return new InboundMessage("topic" + i, "00:00:00:00:00:0" + (i % 10), ("{\"BPM\":" + i + "}").getBytes(),
+                Instant.now());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.iotcore.mqttclient.journal;
+
+import com.example.iotcore.mqttclient.config.JournalProperties;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalReaderTest {
+    private static final Instant RECEIVED_AT = Instant.parse("2022-04-13T11:43:47.123456789Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackWhatTheJournalWrote() throws IOException {
+        // given
+        List<String> payloads = List.of("{\"BPM\":72}", "line\nbreak\\", "carriage\r\\n,comma", "");
+        MessageJournal journal = new MessageJournal(properties());
+        for (String payload : payloads)
+            journal.append(new InboundMessage("heart-rate", "00:00:00:00:00:01", payload.getBytes(), RECEIVED_AT));
+        journal.close();
+        Path segment = segment();
+
+        // when, with a buffer smaller than a line
+        List<InboundMessage> messages = readAll(new JournalReader(segment, 0, 16));
+
+        // then
+        assertThat(messages).extracting(message -> new String(message.payload())).containsExactlyElementsOf(payloads);
+        assertThat(messages).allSatisfy(message -> {
+            assertThat(message.topic()).isEqualTo("heart-rate");
+            assertThat(message.device()).isEqualTo("00:00:00:00:00:01");
+            assertThat(message.receivedAt()).isEqualTo(RECEIVED_AT);
+        });
+    }
+
+    @Test
+    void readsBackTopicsAndDevicesWithSeparatorsAndNewlines() throws IOException {
+        // given
+        MessageJournal journal = new MessageJournal(properties());
+        journal.append(new InboundMessage("sensors/a,b\nc", "mac,with\nnewline\\", "72".getBytes(), RECEIVED_AT));
+        journal.append(new InboundMessage("heart-rate", "00:00:00:00:00:01", "73".getBytes(), RECEIVED_AT));
+        journal.close();
+
+        // when
+        List<InboundMessage> messages = readAll(new JournalReader(segment(), 0));
+
+        // then
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0).topic()).isEqualTo("sensors/a,b\nc");
+        assertThat(messages.get(0).device()).isEqualTo("mac,with\nnewline\\");
+        assertThat(messages.get(0).payload()).asString().isEqualTo("72");
+        assertThat(messages.get(1).topic()).isEqualTo("heart-rate");
+        assertThat(messages.get(1).payload()).asString().isEqualTo("73");
+    }
+
+    @Test
+    void resumesFromPositionAndSkipsMalformedLines() throws IOException {
+        // given
+        Path segment = directory.resolve("messages-2022-04-13T11:43:47Z.csv");
+        Files.writeString(segment, """
+                0,2022-04-13T11:43:47Z,heart-rate,00:00:00:00:00:01,72
+                not a journal line
+                1,2022-04-13T11:43:48.5Z,heart-rate,00:00:00:00:00:01,73
+                2,2022-04-13T11:43:49Z,heart-rate,00:00:00:00:00:01,cut off""");
+        JournalReader reader = new JournalReader(segment, 0);
+        reader.next();
+        long position = reader.position();
+        reader.close();
+
+        // when
+        JournalReader resumed = new JournalReader(segment, position);
+        List<InboundMessage> messages = readAll(resumed);
+
+        // then the cut off last line is not returned
+        assertThat(messages).singleElement().satisfies(message -> {
+            assertThat(message.payload()).asString().isEqualTo("73");
+            assertThat(message.receivedAt()).isEqualTo(Instant.parse("2022-04-13T11:43:48.5Z"));
+        });
+        assertThat(resumed.getMalformedCount()).isOne();
+    }
+
+    @Test
+    void stopsAtTheUnwrittenTailOfAnUnsealedSegment() throws IOException {
+        // given
+        Path segment = directory.resolve("messages-2022-04-13T11:43:47Z.csv" + JournalSegment.PART_SUFFIX);
+        byte[] line = "0,2022-04-13T11:43:47Z,heart-rate,00:00:00:00:00:01,72\n".getBytes(StandardCharsets.UTF_8);
+        byte[] content = new byte[4096];
+        System.arraycopy(line, 0, content, 0, line.length);
+        Files.write(segment, content);
+
+        // when
+        List<InboundMessage> messages = readAll(new JournalReader(segment, 0));
+
+        // then
+        assertThat(messages).hasSize(1);
+    }
+
+    private static List<InboundMessage> readAll(JournalReader reader) throws IOException {
+        List<InboundMessage> messages = new ArrayList<>();
+        try (reader) {
+            for (InboundMessage message = reader.next(); message != null; message = reader.next())
+                messages.add(message);
+        }
+
+        return messages;
+    }
+
+    private JournalProperties properties() {
+        JournalProperties properties = new JournalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSizeBytes(1024 * 1024);
+
+        return properties;
+    }
+
+    private Path segment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(MessageJournal.SEGMENT_SUFFIX)).findFirst()
+                    .orElseThrow();
+        }
+    }
+}
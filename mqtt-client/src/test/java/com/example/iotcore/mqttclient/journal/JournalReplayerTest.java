@@ -0,0 +1,133 @@
+package com.example.iotcore.mqttclient.journal;
+
+import com.example.iotcore.mqttclient.config.JournalProperties;
+import com.example.iotcore.mqttclient.config.JournalReplayProperties;
+import com.example.iotcore.mqttclient.ingest.BatchSink;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalReplayerTest {
+    private static final Instant RECEIVED_AT = Instant.parse("2022-04-13T11:43:47Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysEverySegmentOnce() throws IOException {
+        // given
+        journal(100, 512);
+        Set<String> replayed = ConcurrentHashMap.newKeySet();
+        JournalReplayer replayer = new JournalReplayer(replayProperties(), batch ->
+                batch.forEach(message -> replayed.add(new String(message.payload()))));
+
+        // when
+        JournalReplayReport report = replayer.replay(directory);
+        JournalReplayReport again = replayer.replay(directory);
+
+        // then
+        assertThat(report.segments()).isGreaterThan(1);
+        assertThat(report.replayed()).isEqualTo(100);
+        assertThat(report.failed()).isEmpty();
+        assertThat(replayed).hasSize(100);
+        assertThat(again.segments()).isZero();
+        assertThat(again.replayed()).isZero();
+    }
+
+    @Test
+    void resumesFailedSegmentFromItsCheckpoint() throws IOException {
+        // given the second batch fails
+        journal(25, 1024 * 1024);
+        Set<String> replayed = ConcurrentHashMap.newKeySet();
+        AtomicBoolean failed = new AtomicBoolean();
+        BatchSink sink = batch -> {
+            if (replayed.size() == 10 && !failed.getAndSet(true))
+                throw new IllegalStateException("database unavailable");
+            batch.forEach(message -> replayed.add(new String(message.payload())));
+        };
+        JournalReplayer replayer = new JournalReplayer(replayProperties(), sink);
+        JournalReplayReport report = replayer.replay(directory);
+        assertThat(report.failed()).hasSize(1);
+        assertThat(replayed).hasSize(10);
+
+        // when
+        JournalReplayReport resumed = replayer.replay(directory);
+
+        // then
+        assertThat(resumed.failed()).isEmpty();
+        assertThat(resumed.replayed()).isEqualTo(15);
+        assertThat(replayed).hasSize(25);
+    }
+
+    @Test
+    void onlyReplaysTheWindow() throws IOException {
+        // given
+        journal(10, 1024 * 1024);
+        JournalReplayProperties properties = replayProperties();
+        properties.setSince(RECEIVED_AT.plusSeconds(2));
+        properties.setUntil(RECEIVED_AT.plusSeconds(5));
+        Set<Instant> replayed = ConcurrentHashMap.newKeySet();
+
+        // when
+        JournalReplayReport report = new JournalReplayer(properties, batch ->
+                batch.forEach(message -> replayed.add(message.receivedAt()))).replay(directory);
+
+        // then
+        assertThat(report.skipped()).isEqualTo(7);
+        assertThat(replayed).containsExactlyInAnyOrder(
+                RECEIVED_AT.plusSeconds(2), RECEIVED_AT.plusSeconds(3), RECEIVED_AT.plusSeconds(4));
+    }
+
+    @Test
+    void replaysTopicsAndDevicesWithSeparators() throws IOException {
+        // given
+        JournalProperties properties = new JournalProperties();
+        properties.setDirectory(directory.toString());
+        MessageJournal journal = new MessageJournal(properties);
+        journal.append(new InboundMessage("sensors/a,b", "5C:CF,7F\n12", "{\"BPM\":72}".getBytes(), RECEIVED_AT));
+        journal.close();
+        List<InboundMessage> replayed = new CopyOnWriteArrayList<>();
+
+        // when
+        JournalReplayReport report = new JournalReplayer(replayProperties(), replayed::addAll).replay(directory);
+
+        // then
+        assertThat(report.replayed()).isOne();
+        assertThat(report.malformed()).isZero();
+        assertThat(replayed).singleElement().satisfies(message -> {
+            assertThat(message.topic()).isEqualTo("sensors/a,b");
+            assertThat(message.device()).isEqualTo("5C:CF,7F\n12");
+            assertThat(message.payload()).asString().isEqualTo("{\"BPM\":72}");
+        });
+    }
+
+    private void journal(int messages, long segmentSize) throws IOException {
+        JournalProperties properties = new JournalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSizeBytes(segmentSize);
+        MessageJournal journal = new MessageJournal(properties);
+        for (int i = 0; i < messages; i++)
+            journal.append(new InboundMessage("heart-rate", "00:00:00:00:00:01", Integer.toString(i).getBytes(),
+                    RECEIVED_AT.plusSeconds(i)));
+        journal.close();
+    }
+
+    private static JournalReplayProperties replayProperties() {
+        JournalReplayProperties properties = new JournalReplayProperties();
+        properties.setParallelism(2);
+        properties.setBatchSize(10);
+
+        return properties;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.iotcore.mqttclient.journal;
+
+import com.example.iotcore.mqttclient.config.JournalProperties;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageJournalTest {
+    private static final Instant RECEIVED_AT = Instant.parse("2022-04-13T11:43:47Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendsOneLinePerMessage() throws IOException {
+        // given
+        MessageJournal journal = new MessageJournal(properties(1024 * 1024));
+
+        // when
+        journal.append(message("{\"BPM\":72}"));
+        journal.append(message("line\nbreak\\"));
+        journal.close();
+
+        // then
+        assertThat(Files.readAllLines(sealedSegments().get(0))).containsExactly(
+                "0,2022-04-13T11:43:47Z,heart-rate,00:00:00:00:00:01,{\"BPM\":72}",
+                "1,2022-04-13T11:43:47Z,heart-rate,00:00:00:00:00:01,line\\nbreak\\\\");
+    }
+
+    @Test
+    void rotatesFullSegments() throws IOException {
+        // given
+        MessageJournal journal = new MessageJournal(properties(256));
+
+        // when
+        for (int i = 0; i < 10; i++)
+            journal.append(message("{\"BPM\":" + i + "}"));
+        journal.close();
+
+        // then
+        List<Path> segments = sealedSegments();
+        assertThat(segments).hasSizeGreaterThan(1);
+        long lines = 0;
+        for (Path segment : segments)
+            lines += Files.readAllLines(segment).size();
+        assertThat(lines).isEqualTo(10);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.filter(path -> path.toString().endsWith(JournalSegment.PART_SUFFIX))).isEmpty();
+        }
+    }
+
+    private JournalProperties properties(long segmentSize) {
+        JournalProperties properties = new JournalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentSizeBytes(segmentSize);
+        properties.setFsyncPolicy(FsyncPolicy.RECORDS);
+        properties.setFsyncEveryRecords(2);
+
+        return properties;
+    }
+
+    private List<Path> sealedSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(MessageJournal.SEGMENT_SUFFIX)).sorted().toList();
+        }
+    }
+
+    private static InboundMessage message(String payload) {
+        return new InboundMessage("heart-rate", "00:00:00:00:00:01", payload.getBytes(), RECEIVED_AT);
+    }
+}
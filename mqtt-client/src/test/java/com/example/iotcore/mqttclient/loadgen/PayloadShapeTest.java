@@ -0,0 +1,36 @@
+package com.example.iotcore.mqttclient.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PayloadShapeTest {
+    private static final long SENT_AT_MICROS = 1_649_850_227_123_456L;
+
+    @Test
+    void heartRateJsonEmbedsTimestamp() {
+        // when
+        byte[] payload = PayloadShape.HEART_RATE_JSON.render(72, SENT_AT_MICROS);
+
+        // then
+        assertThat(new String(payload)).isEqualTo("{\"BPM\":72,\"sentAt\":1649850227123456}");
+        assertThat(PayloadShape.HEART_RATE_JSON.sentAtMicros(payload)).isEqualTo(SENT_AT_MICROS);
+    }
+
+    @Test
+    void csvEmbedsTimestamp() {
+        // when
+        byte[] payload = PayloadShape.CSV.render(72, SENT_AT_MICROS);
+
+        // then
+        assertThat(new String(payload)).isEqualTo("72,1649850227123456");
+        assertThat(PayloadShape.CSV.sentAtMicros(payload)).isEqualTo(SENT_AT_MICROS);
+    }
+
+    @Test
+    void payloadsWithoutTimestamp() {
+        assertThat(PayloadShape.RAW_NUMERIC.sentAtMicros(PayloadShape.RAW_NUMERIC.render(72, SENT_AT_MICROS)))
+                .isEqualTo(-1);
+        assertThat(PayloadShape.HEART_RATE_JSON.sentAtMicros("{\"BPM\":72}".getBytes())).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.iotcore.mqttclient.routing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TopicRouterTest {
+
+    TopicRouter<String> router;
+
+    @BeforeEach
+    void setUp() {
+        router = new TopicRouter<>();
+        router.register("sensors/+/temperature", "temperature");
+        router.register("sensors/#", "sensors");
+        router.register("sensors/kitchen/temperature", "kitchen");
+        router.register("#", "everything");
+        router.register("+/+", "two-levels");
+    }
+
+    @Test
+    void routesToEveryMatchingFilterInRegistrationOrder() {
+        // given
+
+        // when
+
+        // then
+        assertThat(router.route("sensors/kitchen/temperature"))
+                .containsExactly("temperature", "sensors", "kitchen", "everything");
+        assertThat(router.route("sensors/hall")).containsExactly("sensors", "everything", "two-levels");
+        assertThat(router.route("sensors")).containsExactly("sensors", "everything");
+        assertThat(router.route("heart-rate")).containsExactly("everything");
+    }
+
+    @Test
+    void matchesEmptyLevels() {
+        // given
+        router.register("sensors//temperature", "empty-level");
+
+        // when
+
+        // then
+        assertThat(router.route("sensors//temperature"))
+                .containsExactly("temperature", "sensors", "everything", "empty-level");
+        assertThat(router.route("/")).containsExactly("everything", "two-levels");
+    }
+
+    @Test
+    void doesNotMatchSystemTopicsWithLeadingWildcards() {
+        // given
+        router.register("$SYS/#", "system");
+
+        // when
+
+        // then
+        assertThat(router.route("$SYS/broker/uptime")).containsExactly("system");
+        assertThat(router.route("$SYS/uptime")).containsExactly("system");
+    }
+
+    @Test
+    void invalidatesCachedRoutesOnChange() {
+        // given
+        assertThat(router.route("heart-rate")).containsExactly("everything");
+
+        // when
+        router.register("heart-rate", "heart-rate");
+        boolean removed = router.unregister("#", "everything");
+
+        // then
+        assertThat(removed).isTrue();
+        assertThat(router.route("heart-rate")).containsExactly("heart-rate");
+        assertThat(router.unregister("#", "everything")).isFalse();
+    }
+
+    @Test
+    void agreesWithLinearMatching() {
+        // given
+        String[] filters = {"a/+/c", "a/#", "+/b/#", "a/b/c", "#", "+", "a/b/+/d", "+/+/+"};
+        String[] topics = {"a", "a/b", "a/b/c", "a/x/c", "b/b/c/d", "a/b/c/d", "c", "/b", "$SYS/b"};
+        TopicRouter<String> trie = new TopicRouter<>(0);
+        for (String filter : filters)
+            trie.register(filter, filter);
+
+        // when
+
+        // then
+        for (String topic : topics)
+            assertThat(trie.route(topic))
+                    .as(topic)
+                    .containsExactlyInAnyOrder(Arrays.stream(filters)
+                            .filter(filter -> TopicFilters.matches(filter, topic))
+                            .toArray(String[]::new));
+    }
+
+    @Test
+    void rejectsInvalidFilters() {
+        // given
+
+        // when
+
+        // then
+        assertThatThrownBy(() -> router.register("sensors/#/temperature", "x"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> router.register("sensors/kitchen+", "x"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> router.register("", "x"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
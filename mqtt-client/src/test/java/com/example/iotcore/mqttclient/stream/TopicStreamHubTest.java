@@ -0,0 +1,164 @@
+package com.example.iotcore.mqttclient.stream;
+
+import com.example.iotcore.mqttclient.config.StreamProperties;
+import com.example.iotcore.mqttclient.ingest.InboundMessage;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopicStreamHubTest {
+    // runs the sends when the test says so, like senders busy with other clients
+    private final Queue<Runnable> pendingSends = new ArrayDeque<>();
+    private final AtomicInteger encodings = new AtomicInteger();
+
+    @Test
+    void encodesEveryMessageOnceForAllSubscribers() {
+        // given
+        TopicStreamHub hub = hub(10, true);
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        hub.subscribe("heart-rate", first);
+        hub.subscribe("heart-rate", second);
+
+        // when
+        hub.publish(message("heart-rate", "device-1", "70"));
+        hub.publish(message("temperature", "device-1", "21"));
+        hub.publish(message("heart-rate", "device-2", "72"));
+        runSends();
+
+        // then
+        assertThat(encodings).hasValue(2);
+        assertThat(first.data()).containsExactly("device-1:70", "device-2:72");
+        assertThat(second.events).isEqualTo(first.events);
+        assertThat(second.events.get(0)).isSameAs(first.events.get(0));
+    }
+
+    @Test
+    void coalescesTheLatestValuePerDeviceOfASlowSubscriber() {
+        // given
+        TopicStreamHub hub = hub(2, true);
+        Recorder recorder = new Recorder();
+        StreamSubscription subscription = hub.subscribe("heart-rate", recorder);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            hub.publish(message("heart-rate", "device-1", String.valueOf(i)));
+            hub.publish(message("heart-rate", "device-2", String.valueOf(i)));
+        }
+        runSends();
+
+        // then
+        assertThat(recorder.data()).containsExactly("device-1:0", "device-2:0", "device-1:4", "device-2:4");
+        assertThat(subscription.getCoalescedCount()).isEqualTo(6);
+        assertThat(subscription.getDroppedCount()).isZero();
+    }
+
+    @Test
+    void dropsTheOldestEventsOfASlowSubscriberWithoutCoalescing() {
+        // given
+        TopicStreamHub hub = hub(2, false);
+        Recorder recorder = new Recorder();
+        StreamSubscription subscription = hub.subscribe("heart-rate", recorder);
+
+        // when
+        for (int i = 0; i < 5; i++)
+            hub.publish(message("heart-rate", "device-1", String.valueOf(i)));
+        runSends();
+
+        // then
+        assertThat(recorder.data()).containsExactly("device-1:3", "device-1:4");
+        assertThat(subscription.getDroppedCount()).isEqualTo(3);
+    }
+
+    @Test
+    void closesTheSubscriptionOfAClientThatIsGone() {
+        // given
+        TopicStreamHub hub = hub(10, true);
+        Recorder gone = new Recorder() {
+            @Override
+            public void onEvents(List<StreamEvent> events) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        hub.subscribe("heart-rate", gone);
+
+        // when
+        hub.publish(message("heart-rate", "device-1", "70"));
+        runSends();
+        hub.publish(message("heart-rate", "device-1", "71"));
+
+        // then
+        assertThat(gone.closed).isTrue();
+        assertThat(hub.getSubscriberCount()).isZero();
+        assertThat(pendingSends).isEmpty();
+        assertThat(encodings).hasValue(1);
+    }
+
+    @Test
+    void closesEverySubscriptionWhenClosed() {
+        // given
+        TopicStreamHub hub = hub(10, true);
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        hub.subscribe("heart-rate", first);
+        hub.subscribe("temperature", second);
+
+        // when
+        hub.close();
+
+        // then
+        assertThat(first.closed).isTrue();
+        assertThat(second.closed).isTrue();
+        assertThat(hub.getSubscriberCount()).isZero();
+    }
+
+    private TopicStreamHub hub(int queueCapacity, boolean coalesceLatest) {
+        StreamProperties properties = new StreamProperties();
+        properties.setQueueCapacity(queueCapacity);
+        properties.setCoalesceLatest(coalesceLatest);
+
+        return new TopicStreamHub(properties, message -> {
+            encodings.incrementAndGet();
+
+            return message.device() + ":" + new String(message.payload(), StandardCharsets.UTF_8);
+        }, pendingSends::add);
+    }
+
+    private void runSends() {
+        Runnable send;
+        while ((send = pendingSends.poll()) != null)
+            send.run();
+    }
+
+    private static InboundMessage message(String topic, String device, String content) {
+        return new InboundMessage(topic, device, content.getBytes(StandardCharsets.UTF_8), Instant.now());
+    }
+
+    private static class Recorder implements StreamListener {
+        private final List<StreamEvent> events = new ArrayList<>();
+        private boolean closed;
+
+        @Override
+        public void onEvents(List<StreamEvent> events) throws IOException {
+            this.events.addAll(events);
+        }
+
+        @Override
+        public void onClose() {
+            closed = true;
+        }
+
+        List<String> data() {
+            return events.stream().map(StreamEvent::data).toList();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.iotcore.mqttbroker;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One client connection, served by a reader thread that handles the client's packets and a writer thread that
+ * flushes whatever other connections queued for it in one go.
+ */
+@Slf4j
+final class Connection {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_RECEIVE_MAXIMUM = 65_535;
+    // marks the end of the outbox
+    private static final byte[] CLOSE = new byte[0];
+
+    private final EmbeddedMqttBroker broker;
+    private final Socket socket;
+    private final BlockingQueue<byte[]> outbox = new LinkedBlockingQueue<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private Session session;
+    // read from the properties of the CONNECT packet
+    private int receiveMaximum;
+    private long sessionExpirySeconds;
+
+    Connection(EmbeddedMqttBroker broker, Socket socket) {
+        this.broker = broker;
+        this.socket = socket;
+    }
+
+    void start() {
+        String name = "mqtt-broker-" + socket.getPort();
+        Thread reader = new Thread(this::read, name + "-reader");
+        Thread writer = new Thread(this::write, name + "-writer");
+        reader.setDaemon(true);
+        writer.setDaemon(true);
+        writer.start();
+        reader.start();
+    }
+
+    void send(byte[] packet) {
+        outbox.add(packet);
+    }
+
+    void close() {
+        if (!closed.compareAndSet(false, true))
+            return;
+
+        outbox.add(CLOSE);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Could not close the connection of {}", session == null ? "a client" : session.clientId(), e);
+        }
+        broker.disconnected(this, session);
+    }
+
+    private void read() {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            int firstByte;
+            while ((firstByte = in.read()) >= 0) {
+                byte[] body = new byte[readRemainingLength(in)];
+                in.readFully(body);
+                handle(firstByte, new PacketReader(body));
+            }
+        } catch (IOException e) {
+            if (!closed.get())
+                log.debug("Closing the connection of {}: {}", session == null ? "a client" : session.clientId(),
+                        e.getMessage());
+        } finally {
+            close();
+        }
+    }
+
+    private void write() {
+        List<byte[]> packets = new ArrayList<>();
+        try (OutputStream out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE)) {
+            while (true) {
+                packets.add(outbox.take());
+                outbox.drainTo(packets);
+                for (byte[] packet : packets) {
+                    if (packet == CLOSE) {
+                        out.flush();
+                        return;
+                    }
+                    out.write(packet);
+                }
+                out.flush();
+                packets.clear();
+            }
+        } catch (IOException e) {
+            close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(int firstByte, PacketReader packet) throws IOException {
+        int type = firstByte >> 4;
+        if (session == null && type != Packets.CONNECT)
+            throw new IOException("Expected CONNECT but got packet type " + type);
+
+        switch (type) {
+            case Packets.CONNECT -> connect(packet);
+            case Packets.PUBLISH -> publish(firstByte, packet);
+            case Packets.PUBACK -> session.acknowledged(packet.readShort());
+            case Packets.SUBSCRIBE -> subscribe(packet);
+            case Packets.UNSUBSCRIBE -> unsubscribe(packet);
+            case Packets.PINGREQ -> send(Packets.PING_RESPONSE);
+            case Packets.DISCONNECT -> close();
+            default -> throw new IOException("Unsupported packet type " + type);
+        }
+    }
+
+    private void connect(PacketReader packet) throws IOException {
+        if (session != null)
+            throw new IOException("Second CONNECT on the same connection");
+
+        String protocolName = packet.readString();
+        int protocolVersion = packet.readByte();
+        if (!"MQTT".equals(protocolName) || protocolVersion != 5) {
+            send(Packets.connectAcknowledgement(false, Packets.UNSUPPORTED_PROTOCOL_VERSION, null));
+            throw new IOException("Unsupported protocol " + protocolName + " " + protocolVersion);
+        }
+
+        int flags = packet.readByte();
+        // keep alive, the broker answers pings but does not time out silent clients
+        packet.readShort();
+        receiveMaximum = DEFAULT_RECEIVE_MAXIMUM;
+        sessionExpirySeconds = 0;
+        packet.readProperties(identifier -> {
+            if (identifier == Properties.RECEIVE_MAXIMUM)
+                receiveMaximum = packet.readShort();
+            else if (identifier == Properties.SESSION_EXPIRY_INTERVAL)
+                sessionExpirySeconds = packet.readInt() & 0xffffffffL;
+        });
+
+        String clientId = packet.readString();
+        if ((flags & 0x04) != 0) {
+            // wills are not implemented, skip will properties, topic and payload
+            packet.readProperties(PacketReader.PropertyVisitor.IGNORE);
+            packet.readString();
+            packet.readBinary();
+        }
+        String username = (flags & 0x80) != 0 ? packet.readString() : null;
+        byte[] password = (flags & 0x40) != 0 ? packet.readBinary() : null;
+        if (!broker.authenticate(username, password)) {
+            send(Packets.connectAcknowledgement(false, Packets.BAD_USER_NAME_OR_PASSWORD, null));
+            throw new IOException("Bad user name or password of " + clientId);
+        }
+
+        String assignedClientId = clientId.isEmpty() ? "auto-" + UUID.randomUUID() : null;
+        boolean cleanStart = (flags & 0x02) != 0;
+        session = broker.openSession(assignedClientId == null ? clientId : assignedClientId, cleanStart);
+        boolean sessionPresent = session.isPersistent() && !cleanStart;
+        send(Packets.connectAcknowledgement(sessionPresent, Packets.SUCCESS, assignedClientId));
+        session.attach(this, receiveMaximum, sessionExpirySeconds > 0);
+    }
+
+    private void publish(int firstByte, PacketReader packet) throws IOException {
+        int qos = firstByte >> 1 & 0x03;
+        if (qos > 1)
+            throw new IOException("QoS " + qos + " exceeds the maximum QoS of 1");
+
+        String topic = packet.readString();
+        int packetId = qos > 0 ? packet.readShort() : 0;
+        byte[] properties = packet.readProperties(PacketReader.PropertyVisitor.IGNORE);
+        broker.route(topic, properties, packet.readRemaining(), qos);
+
+        if (qos > 0)
+            send(Packets.publishAcknowledgement(packetId));
+    }
+
+    private void subscribe(PacketReader packet) throws IOException {
+        int packetId = packet.readShort();
+        packet.readProperties(PacketReader.PropertyVisitor.IGNORE);
+
+        PacketWriter acknowledgement = new PacketWriter().writeShort(packetId).writeVariableByteInteger(0);
+        while (packet.hasRemaining()) {
+            String topicFilter = packet.readString();
+            // the lower two bits of the subscription options are the maximum QoS
+            int qos = Math.min(packet.readByte() & 0x03, 1);
+            acknowledgement.writeByte(broker.subscribe(session, topicFilter, qos) ? qos
+                    : Packets.TOPIC_FILTER_INVALID);
+        }
+        send(acknowledgement.toPacket(Packets.SUBACK << 4));
+    }
+
+    private void unsubscribe(PacketReader packet) throws IOException {
+        int packetId = packet.readShort();
+        packet.readProperties(PacketReader.PropertyVisitor.IGNORE);
+
+        PacketWriter acknowledgement = new PacketWriter().writeShort(packetId).writeVariableByteInteger(0);
+        while (packet.hasRemaining())
+            acknowledgement.writeByte(broker.unsubscribe(session, packet.readString()) ? Packets.SUCCESS
+                    : Packets.NO_SUBSCRIPTION_EXISTED);
+        send(acknowledgement.toPacket(Packets.UNSUBACK << 4));
+    }
+
+    private static int readRemainingLength(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            int digit = in.read();
+            if (digit < 0)
+                throw new IOException("Connection closed within a fixed header");
+            value |= (digit & 0x7f) << shift;
+            if ((digit & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed remaining length");
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.iotcore.mqttbroker;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MQTT v5 broker running inside the test JVM on an ephemeral loopback port, so integration tests and end-to-end
+ * benchmarks do not depend on a broker container and its configuration.
+ * <p>
+ * It implements what the iot-core clients use: QoS 0 and 1, the client's receive maximum, persistent sessions,
+ * wildcard and {@code $share/<group>/<filter>} subscriptions, the latter served round-robin among the connected
+ * members of a group, and user properties travel with every message. QoS 2, retained messages, wills and topic
+ * aliases are not implemented and announced as such in the CONNACK.
+ */
+@Slf4j
+public class EmbeddedMqttBroker implements AutoCloseable {
+    private final ServerSocket serverSocket;
+    private final String username;
+    private final byte[] password;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    // round-robin position of every shared subscription, by group and filter
+    private final Map<String, AtomicInteger> sharedCursors = new ConcurrentHashMap<>();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+
+    private EmbeddedMqttBroker(String username, String password) throws IOException {
+        this.username = username;
+        this.password = password == null ? null : password.getBytes(StandardCharsets.UTF_8);
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        Thread acceptor = new Thread(this::accept, "mqtt-broker-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Embedded MQTT broker listening on {}", getServerUri());
+    }
+
+    /**
+     * Starts a broker that accepts every client.
+     */
+    public static EmbeddedMqttBroker start() throws IOException {
+        return new EmbeddedMqttBroker(null, null);
+    }
+
+    /**
+     * Starts a broker that only accepts clients connecting with the given credentials.
+     */
+    public static EmbeddedMqttBroker start(String username, String password) throws IOException {
+        return new EmbeddedMqttBroker(username, password);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return the URI to hand to the Paho clients, {@code tcp://127.0.0.1:<port>}.
+     */
+    public String getServerUri() {
+        return "tcp://" + serverSocket.getInetAddress().getHostAddress() + ":" + getPort();
+    }
+
+    /**
+     * @return messages published to the broker.
+     */
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    /**
+     * @return messages sent to subscribers, every copy of a message counted, QoS 1 redeliveries not.
+     */
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Connection connection : connections)
+            connection.close();
+        sessions.clear();
+        subscriptions.clear();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(this, socket);
+                connections.add(connection);
+                connection.start();
+            } catch (SocketException e) {
+                // closed
+                return;
+            } catch (IOException e) {
+                log.warn("Could not accept a connection", e);
+            }
+        }
+    }
+
+    boolean authenticate(String username, byte[] password) {
+        return this.username == null
+                || this.username.equals(username) && Arrays.equals(this.password, password);
+    }
+
+    /**
+     * Resumes the persistent session of {@code clientId}, unless a clean start was asked for, or starts a new one.
+     * A connection still attached to the session is closed, as the client took over.
+     */
+    synchronized Session openSession(String clientId, boolean cleanStart) {
+        Session session = sessions.get(clientId);
+        if (session != null) {
+            Connection previous = session.connection();
+            if (previous != null)
+                previous.close();
+            if (cleanStart || !session.isPersistent()) {
+                discard(session);
+                session = null;
+            }
+        }
+        if (session == null) {
+            session = new Session(clientId, delivered);
+            sessions.put(clientId, session);
+        }
+
+        return session;
+    }
+
+    synchronized void disconnected(Connection connection, Session session) {
+        connections.remove(connection);
+        if (session != null && session.detach(connection) && !session.isPersistent())
+            discard(session);
+    }
+
+    private void discard(Session session) {
+        sessions.remove(session.clientId(), session);
+        subscriptions.removeIf(subscription -> subscription.session() == session);
+    }
+
+    /**
+     * @return whether the filter is valid and the subscription made.
+     */
+    boolean subscribe(Session session, String topicFilter, int qos) {
+        Subscription subscription;
+        try {
+            subscription = Subscription.of(session, topicFilter, qos);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (!subscription.isValid())
+            return false;
+
+        // subscribing again to the same filter replaces the subscription
+        subscriptions.removeIf(subscription::sameFilterAs);
+        subscriptions.add(subscription);
+
+        return true;
+    }
+
+    /**
+     * @return whether a subscription existed.
+     */
+    boolean unsubscribe(Session session, String topicFilter) {
+        Subscription subscription;
+        try {
+            subscription = Subscription.of(session, topicFilter, 0);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        return subscriptions.removeIf(subscription::sameFilterAs);
+    }
+
+    void route(String topic, byte[] properties, byte[] payload, int qos) {
+        received.increment();
+
+        Map<String, List<Subscription>> sharedSubscriptions = null;
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.matches(topic))
+                continue;
+            if (!subscription.isShared()) {
+                subscription.session().deliver(topic, properties, payload, Math.min(qos, subscription.qos()));
+                continue;
+            }
+            if (sharedSubscriptions == null)
+                sharedSubscriptions = new LinkedHashMap<>();
+            sharedSubscriptions.computeIfAbsent(subscription.shareGroup() + "/" + subscription.filter(),
+                    group -> new ArrayList<>()).add(subscription);
+        }
+        if (sharedSubscriptions == null)
+            return;
+
+        // every group gets one copy, for the next connected member if there is one
+        for (Map.Entry<String, List<Subscription>> group : sharedSubscriptions.entrySet()) {
+            List<Subscription> members = group.getValue();
+            List<Subscription> connected = members.stream()
+                    .filter(subscription -> subscription.session().isConnected())
+                    .toList();
+            List<Subscription> candidates = connected.isEmpty() ? members : connected;
+            int cursor = sharedCursors.computeIfAbsent(group.getKey(), key -> new AtomicInteger()).getAndIncrement();
+            Subscription subscription = candidates.get(Math.floorMod(cursor, candidates.size()));
+            subscription.session().deliver(topic, properties, payload, Math.min(qos, subscription.qos()));
+        }
+    }
+}
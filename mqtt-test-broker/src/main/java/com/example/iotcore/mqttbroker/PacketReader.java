@@ -0,0 +1,131 @@
+package com.example.iotcore.mqttbroker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the data types of the MQTT v5 specification (chapter 1.5) from the variable header and payload of a packet.
+ */
+final class PacketReader {
+    private final byte[] bytes;
+    private int position;
+
+    PacketReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    int readByte() throws IOException {
+        require(1);
+
+        return bytes[position++] & 0xff;
+    }
+
+    int readShort() throws IOException {
+        require(2);
+        int value = (bytes[position] & 0xff) << 8 | bytes[position + 1] & 0xff;
+        position += 2;
+
+        return value;
+    }
+
+    int readInt() throws IOException {
+        return readShort() << 16 | readShort();
+    }
+
+    int readVariableByteInteger() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            int digit = readByte();
+            value |= (digit & 0x7f) << shift;
+            if ((digit & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed variable byte integer");
+    }
+
+    String readString() throws IOException {
+        return new String(readBinary(), StandardCharsets.UTF_8);
+    }
+
+    byte[] readBinary() throws IOException {
+        int length = readShort();
+        require(length);
+        byte[] value = new byte[length];
+        System.arraycopy(bytes, position, value, 0, length);
+        position += length;
+
+        return value;
+    }
+
+    byte[] readRemaining() {
+        byte[] value = new byte[bytes.length - position];
+        System.arraycopy(bytes, position, value, 0, value.length);
+        position = bytes.length;
+
+        return value;
+    }
+
+    boolean hasRemaining() {
+        return position < bytes.length;
+    }
+
+    /**
+     * Reads a property list, handing every property's identifier to the visitor with the reader positioned on its
+     * value; values the visitor does not read are skipped.
+     *
+     * @return the properties the broker forwards to subscribers, in wire format without the length prefix.
+     */
+    byte[] readProperties(PropertyVisitor visitor) throws IOException {
+        int length = readVariableByteInteger();
+        require(length);
+        int end = position + length;
+        PacketWriter forwarded = new PacketWriter();
+
+        while (position < end) {
+            int start = position;
+            int identifier = readVariableByteInteger();
+            int valueStart = position;
+            visitor.visit(identifier);
+            position = valueStart;
+            skipValue(identifier);
+            if (Properties.isForwarded(identifier))
+                forwarded.writeBytes(bytes, start, position - start);
+        }
+        if (position != end)
+            throw new IOException("Malformed properties");
+
+        return forwarded.toByteArray();
+    }
+
+    private void skipValue(int identifier) throws IOException {
+        switch (Properties.typeOf(identifier)) {
+            case BYTE -> skip(1);
+            case TWO_BYTE_INTEGER -> skip(2);
+            case FOUR_BYTE_INTEGER -> skip(4);
+            case VARIABLE_BYTE_INTEGER -> readVariableByteInteger();
+            case BINARY -> readBinary();
+            case STRING_PAIR -> {
+                readBinary();
+                readBinary();
+            }
+        }
+    }
+
+    private void skip(int length) throws IOException {
+        require(length);
+        position += length;
+    }
+
+    private void require(int length) throws IOException {
+        if (bytes.length - position < length)
+            throw new IOException("Packet too short");
+    }
+
+    @FunctionalInterface
+    interface PropertyVisitor {
+        PropertyVisitor IGNORE = identifier -> {
+        };
+
+        void visit(int identifier) throws IOException;
+    }
+}
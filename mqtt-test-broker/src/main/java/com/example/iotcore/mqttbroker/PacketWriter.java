@@ -0,0 +1,81 @@
+package com.example.iotcore.mqttbroker;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Builds MQTT v5 packets: the variable header and payload are written first, {@link #toPacket(int)} prepends the
+ * fixed header.
+ */
+final class PacketWriter {
+    private byte[] bytes = new byte[64];
+    private int size;
+
+    PacketWriter writeByte(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+
+        return this;
+    }
+
+    PacketWriter writeShort(int value) {
+        return writeByte(value >> 8).writeByte(value);
+    }
+
+    PacketWriter writeInt(int value) {
+        return writeShort(value >>> 16).writeShort(value);
+    }
+
+    PacketWriter writeVariableByteInteger(int value) {
+        do {
+            int digit = value & 0x7f;
+            value >>>= 7;
+            writeByte(value > 0 ? digit | 0x80 : digit);
+        } while (value > 0);
+
+        return this;
+    }
+
+    PacketWriter writeString(String value) {
+        return writeBinary(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    PacketWriter writeBinary(byte[] value) {
+        return writeShort(value.length).writeBytes(value, 0, value.length);
+    }
+
+    PacketWriter writeBytes(byte[] value, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(value, offset, bytes, size, length);
+        size += length;
+
+        return this;
+    }
+
+    /**
+     * @param properties a property list in wire format, without the length prefix.
+     */
+    PacketWriter writeProperties(byte[] properties) {
+        return writeVariableByteInteger(properties.length).writeBytes(properties, 0, properties.length);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * @param firstByte packet type in the upper and flags in the lower four bits.
+     */
+    byte[] toPacket(int firstByte) {
+        PacketWriter packet = new PacketWriter();
+        packet.ensureCapacity(size + 5);
+        packet.writeByte(firstByte).writeVariableByteInteger(size).writeBytes(bytes, 0, size);
+
+        return packet.toByteArray();
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.iotcore.mqttbroker;
+
+/**
+ * Control packet types of the MQTT v5 specification (chapter 2.1.2) and the packets the broker sends.
+ */
+final class Packets {
+    static final int CONNECT = 1;
+    static final int CONNACK = 2;
+    static final int PUBLISH = 3;
+    static final int PUBACK = 4;
+    static final int SUBSCRIBE = 8;
+    static final int SUBACK = 9;
+    static final int UNSUBSCRIBE = 10;
+    static final int UNSUBACK = 11;
+    static final int PINGREQ = 12;
+    static final int PINGRESP = 13;
+    static final int DISCONNECT = 14;
+
+    static final int DUP_FLAG = 0x08;
+
+    // reason codes
+    static final int SUCCESS = 0x00;
+    static final int NO_SUBSCRIPTION_EXISTED = 0x11;
+    static final int UNSUPPORTED_PROTOCOL_VERSION = 0x84;
+    static final int BAD_USER_NAME_OR_PASSWORD = 0x86;
+    static final int TOPIC_FILTER_INVALID = 0x8F;
+
+    static final byte[] PING_RESPONSE = {(byte) (PINGRESP << 4), 0};
+
+    private Packets() {
+    }
+
+    static byte[] connectAcknowledgement(boolean sessionPresent, int reasonCode, String assignedClientId) {
+        PacketWriter properties = new PacketWriter()
+                // QoS 2 and retained messages are not implemented, compliant clients refuse to use them
+                .writeByte(Properties.MAXIMUM_QOS).writeByte(1)
+                .writeByte(Properties.RETAIN_AVAILABLE).writeByte(0);
+        if (assignedClientId != null)
+            properties.writeByte(0x12).writeString(assignedClientId);
+
+        return new PacketWriter()
+                .writeByte(sessionPresent ? 1 : 0)
+                .writeByte(reasonCode)
+                .writeProperties(properties.toByteArray())
+                .toPacket(CONNACK << 4);
+    }
+
+    static byte[] publishAcknowledgement(int packetId) {
+        // the reason code and properties may be left out on success
+        return new PacketWriter().writeShort(packetId).toPacket(PUBACK << 4);
+    }
+
+    static byte[] publish(String topic, byte[] properties, byte[] payload, int qos, int packetId) {
+        PacketWriter packet = new PacketWriter().writeString(topic);
+        if (qos > 0)
+            packet.writeShort(packetId);
+
+        return packet.writeProperties(properties)
+                .writeBytes(payload, 0, payload.length)
+                .toPacket(PUBLISH << 4 | qos << 1);
+    }
+}
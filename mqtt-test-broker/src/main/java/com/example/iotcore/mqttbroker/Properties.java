@@ -0,0 +1,44 @@
+package com.example.iotcore.mqttbroker;
+
+import java.io.IOException;
+
+/**
+ * Property identifiers of the MQTT v5 specification (chapter 2.2.2.2) the broker reads or writes, and the data type
+ * of every identifier so the others can be skipped.
+ */
+final class Properties {
+    static final int SUBSCRIPTION_IDENTIFIER = 0x0B;
+    static final int SESSION_EXPIRY_INTERVAL = 0x11;
+    static final int RECEIVE_MAXIMUM = 0x21;
+    static final int TOPIC_ALIAS = 0x23;
+    static final int MAXIMUM_QOS = 0x24;
+    static final int RETAIN_AVAILABLE = 0x25;
+
+    private Properties() {
+    }
+
+    enum Type {
+        BYTE, TWO_BYTE_INTEGER, FOUR_BYTE_INTEGER, VARIABLE_BYTE_INTEGER, BINARY, STRING_PAIR
+    }
+
+    static Type typeOf(int identifier) throws IOException {
+        return switch (identifier) {
+            case 0x01, 0x17, 0x19, 0x24, 0x25, 0x28, 0x29, 0x2A -> Type.BYTE;
+            case 0x13, 0x21, 0x22, 0x23 -> Type.TWO_BYTE_INTEGER;
+            case 0x02, 0x11, 0x18, 0x27 -> Type.FOUR_BYTE_INTEGER;
+            case 0x0B -> Type.VARIABLE_BYTE_INTEGER;
+            // UTF-8 strings are length prefixed like binary data
+            case 0x03, 0x08, 0x09, 0x12, 0x15, 0x16, 0x1A, 0x1C, 0x1F -> Type.BINARY;
+            case 0x26 -> Type.STRING_PAIR;
+            default -> throw new IOException("Unknown property " + identifier);
+        };
+    }
+
+    /**
+     * Topic aliases and subscription identifiers are scoped to a single connection, everything else of a PUBLISH,
+     * user properties included, travels on to the subscribers.
+     */
+    static boolean isForwarded(int identifier) {
+        return identifier != TOPIC_ALIAS && identifier != SUBSCRIPTION_IDENTIFIER;
+    }
+}
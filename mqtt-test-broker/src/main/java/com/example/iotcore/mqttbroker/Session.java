@@ -0,0 +1,112 @@
+package com.example.iotcore.mqttbroker;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server side state of a client: the QoS 1 messages it has not acknowledged yet and those waiting for room in its
+ * receive maximum. A session with an expiry interval outlives its connection and is resumed, unacknowledged messages
+ * sent again, when the client reconnects without a clean start; sessions never expire while the broker runs.
+ */
+final class Session {
+    private final String clientId;
+    private final LongAdder delivered;
+    // QoS 1 messages sent and not acknowledged yet, by packet id, in the order they were sent
+    private final Map<Integer, byte[]> inflight = new LinkedHashMap<>();
+    // QoS 1 messages waiting for the client to acknowledge others
+    private final Deque<Delivery> pending = new ArrayDeque<>();
+    private Connection connection;
+    private int receiveMaximum;
+    private boolean persistent;
+    private int lastPacketId;
+
+    Session(String clientId, LongAdder delivered) {
+        this.clientId = clientId;
+        this.delivered = delivered;
+    }
+
+    String clientId() {
+        return clientId;
+    }
+
+    synchronized Connection connection() {
+        return connection;
+    }
+
+    synchronized boolean isConnected() {
+        return connection != null;
+    }
+
+    synchronized boolean isPersistent() {
+        return persistent;
+    }
+
+    synchronized void attach(Connection connection, int receiveMaximum, boolean persistent) {
+        this.connection = connection;
+        this.receiveMaximum = receiveMaximum;
+        this.persistent = persistent;
+
+        for (byte[] packet : inflight.values()) {
+            byte[] duplicate = packet.clone();
+            duplicate[0] |= Packets.DUP_FLAG;
+            connection.send(duplicate);
+        }
+        sendPending();
+    }
+
+    /**
+     * @return whether {@code connection} was the one attached.
+     */
+    synchronized boolean detach(Connection connection) {
+        if (this.connection != connection)
+            return false;
+
+        this.connection = null;
+
+        return true;
+    }
+
+    synchronized void deliver(String topic, byte[] properties, byte[] payload, int qos) {
+        if (qos == 0) {
+            // at most once: nobody to deliver to, nothing to remember
+            if (connection != null) {
+                connection.send(Packets.publish(topic, properties, payload, 0, 0));
+                delivered.increment();
+            }
+            return;
+        }
+
+        pending.add(new Delivery(topic, properties, payload));
+        sendPending();
+    }
+
+    synchronized void acknowledged(int packetId) {
+        inflight.remove(packetId);
+        sendPending();
+    }
+
+    private void sendPending() {
+        while (connection != null && inflight.size() < receiveMaximum && !pending.isEmpty()) {
+            Delivery delivery = pending.poll();
+            int packetId = nextPacketId();
+            byte[] packet = Packets.publish(delivery.topic(), delivery.properties(), delivery.payload(), 1, packetId);
+            inflight.put(packetId, packet);
+            connection.send(packet);
+            delivered.increment();
+        }
+    }
+
+    private int nextPacketId() {
+        do {
+            lastPacketId = lastPacketId % 65_535 + 1;
+        } while (inflight.containsKey(lastPacketId));
+
+        return lastPacketId;
+    }
+
+    private record Delivery(String topic, byte[] properties, byte[] payload) {
+    }
+}
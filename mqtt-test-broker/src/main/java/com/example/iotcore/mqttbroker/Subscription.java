@@ -0,0 +1,78 @@
+package com.example.iotcore.mqttbroker;
+
+/**
+ * A topic filter a session subscribed to, on its own or as member of a shared subscription group.
+ *
+ * @param shareGroup the group of a {@code $share/<group>/<filter>} subscription, {@code null} otherwise.
+ */
+record Subscription(Session session, String shareGroup, String filter, int qos) {
+    private static final String SHARE_PREFIX = "$share/";
+
+    static Subscription of(Session session, String topicFilter, int qos) {
+        if (!topicFilter.startsWith(SHARE_PREFIX))
+            return new Subscription(session, null, topicFilter, qos);
+
+        int separator = topicFilter.indexOf('/', SHARE_PREFIX.length());
+        if (separator < 0)
+            throw new IllegalArgumentException("shared subscription without topic filter: " + topicFilter);
+
+        return new Subscription(session, topicFilter.substring(SHARE_PREFIX.length(), separator),
+                topicFilter.substring(separator + 1), qos);
+    }
+
+    boolean isShared() {
+        return shareGroup != null;
+    }
+
+    boolean sameFilterAs(Subscription other) {
+        return session == other.session && filter.equals(other.filter)
+                && (shareGroup == null ? other.shareGroup == null : shareGroup.equals(other.shareGroup));
+    }
+
+    boolean isValid() {
+        if (filter.isEmpty() || shareGroup != null && (shareGroup.isEmpty() || shareGroup.contains("+")
+                || shareGroup.contains("#")))
+            return false;
+
+        for (int i = 0; i < filter.length(); i++) {
+            char c = filter.charAt(i);
+            if (c != '+' && c != '#')
+                continue;
+            boolean wholeLevel = (i == 0 || filter.charAt(i - 1) == '/')
+                    && (i == filter.length() - 1 || filter.charAt(i + 1) == '/');
+            if (!wholeLevel || c == '#' && i != filter.length() - 1)
+                return false;
+        }
+
+        return true;
+    }
+
+    boolean matches(String topic) {
+        // wildcards at the first level do not match topics of the broker itself
+        if (topic.startsWith("$") && (filter.charAt(0) == '+' || filter.charAt(0) == '#'))
+            return false;
+
+        int f = 0;
+        int t = 0;
+        while (f < filter.length()) {
+            char c = filter.charAt(f);
+            if (c == '#')
+                return true;
+            if (c == '+') {
+                while (t < topic.length() && topic.charAt(t) != '/')
+                    t++;
+                f++;
+                continue;
+            }
+            if (t == topic.length())
+                // "a/#" also matches "a"
+                return f + 2 == filter.length() && c == '/' && filter.charAt(f + 1) == '#';
+            if (topic.charAt(t) != c)
+                return false;
+            f++;
+            t++;
+        }
+
+        return t == topic.length();
+    }
+}
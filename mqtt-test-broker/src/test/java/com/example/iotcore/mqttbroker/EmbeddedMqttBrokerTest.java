@@ -0,0 +1,191 @@
+package com.example.iotcore.mqttbroker;
+
+import org.eclipse.paho.mqttv5.client.IMqttToken;
+import org.eclipse.paho.mqttv5.client.MqttCallback;
+import org.eclipse.paho.mqttv5.client.MqttClient;
+import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
+import org.eclipse.paho.mqttv5.client.MqttDisconnectResponse;
+import org.eclipse.paho.mqttv5.common.MqttException;
+import org.eclipse.paho.mqttv5.common.MqttMessage;
+import org.eclipse.paho.mqttv5.common.MqttSubscription;
+import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.eclipse.paho.mqttv5.common.packet.UserProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmbeddedMqttBrokerTest {
+    private EmbeddedMqttBroker broker;
+    private final List<MqttClient> clients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        broker = EmbeddedMqttBroker.start("iot", "secret");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (MqttClient client : clients) {
+            if (client.isConnected())
+                client.disconnect();
+            client.close();
+        }
+        broker.close();
+    }
+
+    @Test
+    void deliversWithUserProperties() throws Exception {
+        // given
+        Received received = new Received();
+        subscribe("subscriber", "sensors/+/heart-rate", 1, received, true, 0);
+        MqttMessage message = message("72", 1);
+        MqttProperties properties = new MqttProperties();
+        properties.setUserProperties(List.of(new UserProperty("device", "02:00:00:00:00:01")));
+        message.setProperties(properties);
+
+        // when
+        connect("publisher", true, 0).publish("sensors/1/heart-rate", message);
+        connect("publisher-2", true, 0).publish("sensors/1/temperature", message("21", 1));
+
+        // then
+        MqttMessage arrived = received.next();
+        assertThat(arrived.getPayload()).asString(StandardCharsets.UTF_8).isEqualTo("72");
+        assertThat(arrived.getQos()).isEqualTo(1);
+        assertThat(arrived.getProperties().getUserProperties())
+                .containsExactly(new UserProperty("device", "02:00:00:00:00:01"));
+        assertThat(received.messages.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(broker.getReceivedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void sharesSubscriptionRoundRobin() throws Exception {
+        // given
+        Received first = new Received();
+        Received second = new Received();
+        subscribe("first", "$share/ingest/sensors/#", 0, first, true, 0);
+        subscribe("second", "$share/ingest/sensors/#", 0, second, true, 0);
+        MqttClient publisher = connect("publisher", true, 0);
+
+        // when
+        for (int i = 0; i < 10; i++)
+            publisher.publish("sensors/" + i, message(Integer.toString(i), 1));
+
+        // then
+        for (int i = 0; i < 5; i++) {
+            assertThat(first.next()).isNotNull();
+            assertThat(second.next()).isNotNull();
+        }
+        assertThat(broker.getDeliveredCount()).isEqualTo(10);
+    }
+
+    @Test
+    void redeliversUnacknowledgedMessagesOfPersistentSession() throws Exception {
+        // given
+        Received received = new Received();
+        MqttClient subscriber = subscribe("subscriber", "sensors/#", 1, received, false, 3_600);
+        subscriber.setManualAcks(true);
+        MqttClient publisher = connect("publisher", true, 0);
+        publisher.publish("sensors/1", message("72", 1));
+        assertThat(received.next()).isNotNull();
+
+        // when the subscriber goes away without acknowledging
+        subscriber.disconnectForcibly(0, 1_000, false);
+        publisher.publish("sensors/1", message("73", 1));
+        subscriber.connect(options(false, 3_600));
+
+        // then
+        assertThat(received.next().getPayload()).asString(StandardCharsets.UTF_8).isEqualTo("72");
+        assertThat(received.next().getPayload()).asString(StandardCharsets.UTF_8).isEqualTo("73");
+    }
+
+    @Test
+    void rejectsBadCredentials() throws Exception {
+        // given
+        MqttClient client = new MqttClient(broker.getServerUri(), "intruder", null);
+        clients.add(client);
+        MqttConnectionOptions options = options(true, 0);
+        options.setPassword("wrong".getBytes());
+
+        // when, then
+        assertThatThrownBy(() -> client.connect(options)).isInstanceOf(MqttException.class);
+    }
+
+    private MqttClient subscribe(String clientId, String filter, int qos, Received received, boolean cleanStart,
+                                 long sessionExpirySeconds) throws MqttException {
+        MqttClient client = new MqttClient(broker.getServerUri(), clientId, null);
+        clients.add(client);
+        client.setCallback(received);
+        client.connect(options(cleanStart, sessionExpirySeconds));
+        client.subscribe(new MqttSubscription[]{new MqttSubscription(filter, qos)});
+
+        return client;
+    }
+
+    private MqttClient connect(String clientId, boolean cleanStart, long sessionExpirySeconds) throws MqttException {
+        MqttClient client = new MqttClient(broker.getServerUri(), clientId, null);
+        clients.add(client);
+        client.connect(options(cleanStart, sessionExpirySeconds));
+
+        return client;
+    }
+
+    private static MqttConnectionOptions options(boolean cleanStart, long sessionExpirySeconds) {
+        MqttConnectionOptions options = new MqttConnectionOptions();
+        options.setCleanStart(cleanStart);
+        options.setSessionExpiryInterval(sessionExpirySeconds);
+        options.setUserName("iot");
+        options.setPassword("secret".getBytes());
+
+        return options;
+    }
+
+    private static MqttMessage message(String payload, int qos) {
+        MqttMessage message = new MqttMessage(payload.getBytes(StandardCharsets.UTF_8));
+        message.setQos(qos);
+
+        return message;
+    }
+
+    private static class Received implements MqttCallback {
+        private final BlockingQueue<MqttMessage> messages = new LinkedBlockingQueue<>();
+
+        MqttMessage next() throws InterruptedException {
+            return messages.poll(5, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void messageArrived(String topic, MqttMessage message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void disconnected(MqttDisconnectResponse disconnectResponse) {
+        }
+
+        @Override
+        public void mqttErrorOccurred(MqttException exception) {
+        }
+
+        @Override
+        public void deliveryComplete(IMqttToken token) {
+        }
+
+        @Override
+        public void connectComplete(boolean reconnect, String serverURI) {
+        }
+
+        @Override
+        public void authPacketArrived(int reasonCode, MqttProperties properties) {
+        }
+    }
+}